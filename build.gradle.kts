@@ -149,6 +149,40 @@ tasks.register<JavaExec>("exportDocs") {
 }
 
 
+/**
+ * Create an ahead-of-time cache (the successor to AppCDS) by running a short headless script.
+ * This reduces JVM startup time, which can be significant when running many short QuPath jobs,
+ * e.g. with ./gradlew run --args="script ...".
+ * The cache is only valid for the same JDK and classpath, so should be recreated after rebuilding.
+ */
+val aotCacheFile = layout.buildDirectory.file("aot/qupath.aot")
+
+tasks.register<JavaExec>("createAotCache") {
+    description = "Create an AOT cache to reduce startup time when running QuPath headless"
+    group = "QuPath"
+
+    val outputFile = aotCacheFile.get().asFile
+    outputs.file(outputFile)
+
+    doFirst {
+        outputFile.parentFile.mkdirs()
+    }
+    classpath = sourceSets.main.get().runtimeClasspath
+    mainClass = application.mainClass
+    jvmArgs = application.applicationDefaultJvmArgs.toList() + "-XX:AOTCacheOutput=${outputFile.absolutePath}"
+    // Training run, which should load (and compile) the classes needed for most scripts
+    args = listOf("script", "--cmd", "println 'Loaded ' + getCoreClasses().size() + ' core classes'")
+}
+
+tasks.named<JavaExec>("run") {
+    // Use the AOT cache if it has been created
+    val cacheFile = aotCacheFile.get().asFile
+    jvmArgumentProviders.add(CommandLineArgumentProvider {
+        if (cacheFile.exists()) listOf("-XX:AOTCache=${cacheFile.absolutePath}") else emptyList()
+    })
+}
+
+
 
 
 /**
@@ -57,6 +57,7 @@ runtime {
 
         "jdk.unsupported",      // May be needed by some dependencies for sun.misc.Unsafe
         "jdk.zipfs",            // Needed for zip filesystem support
+        "jdk.jfr",              // Enables Flight Recorder events for QuPath metrics
         "jdk.management.agent"  // Enables VisualVM to connect and sample CPU use
     )
 
@@ -34,6 +34,8 @@ import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
 import picocli.CommandLine.ParseResult;
 import qupath.lib.common.GeneralTools;
+import qupath.lib.common.Metrics;
+import qupath.lib.common.ThreadTools;
 import qupath.lib.common.Version;
 import qupath.lib.gui.BuildInfo;
 import qupath.lib.gui.QuPathApp;
@@ -45,6 +47,7 @@ import qupath.lib.gui.logging.LogManager;
 import qupath.lib.gui.logging.LogManager.LogLevel;
 import qupath.lib.gui.prefs.PathPrefs;
 import qupath.lib.gui.scripting.QPEx;
+import qupath.lib.gui.scripting.languages.CompiledScriptCache;
 import qupath.lib.gui.scripting.languages.ScriptLanguageProvider;
 import qupath.lib.gui.tma.QuPathTMAViewer;
 import qupath.lib.images.ImageData;
@@ -52,8 +55,10 @@ import qupath.lib.images.servers.ImageServer;
 import qupath.lib.images.servers.ImageServerBuilder;
 import qupath.lib.images.servers.ImageServerProvider;
 import qupath.lib.images.servers.ImageServers;
+import qupath.lib.projects.BatchJournal;
 import qupath.lib.projects.Project;
 import qupath.lib.projects.ProjectIO;
+import qupath.lib.projects.ProjectImageEntry;
 import qupath.lib.roi.GeometryTools;
 import qupath.lib.scripting.QP;
 import qupath.lib.scripting.ScriptParameters;
@@ -65,13 +70,20 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.StringWriter;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.ServiceLoader;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Main QuPath launcher.
@@ -79,7 +91,7 @@ import java.util.ServiceLoader;
  * @author Pete Bankhead
  *
  */
-@Command(name = "QuPath", subcommands = {HelpCommand.class, ScriptCommand.class, GenerateCompletion.class},
+@Command(name = "QuPath", subcommands = {HelpCommand.class, ScriptCommand.class, ServeCommand.class, GenerateCompletion.class},
 	footer = {"",
 			"Copyright(c) The Queen's University Belfast (2014-2016)",
 			"Copyright(c) QuPath developers (2017-2025)",
@@ -342,8 +354,40 @@ class ScriptCommand implements Runnable {
 			+ "extract the third series within the file.", paramLabel = "server-arguments")
 	private String[] serverArgs;
 
+	@Option(names = {"-n", "--parallel"}, description = {"Number of images in a project to process in parallel (default = 1).",
+			"Use 0 to choose automatically, based upon the number of processors and the maximum memory available."},
+			paramLabel = "n")
+	private int nParallel = 1;
+
+	@Option(names = {"--log-dir"}, description = "Directory in which to write the script output for each image in a project, as a separate file.",
+			paramLabel = "directory")
+	private String logDir;
+
+	@Option(names = {"-r", "--resume"}, description = {"Skip images in a project that were already completed by the same script and arguments, "
+			+ "provided their data hasn't changed since.",
+			"Progress is recorded in " + BatchJournal.DEFAULT_FILENAME + " within the project directory. "
+			+ "Only the most recent script and arguments used with the project can be resumed."})
+	private boolean resume;
+
+	@Option(names = {"--script-cache"}, description = {"Directory in which to store compiled scripts, so they can be reused by later calls.",
+			"This can reduce startup time when running the same script many times in separate processes."},
+			paramLabel = "directory")
+	private String scriptCacheDir;
+
+	@Option(names = {"--metrics"}, description = {"File in which to write a summary of performance metrics (e.g. tile reading, " +
+			"hierarchy and plugin timings) when the command completes.",
+			"Use '-' to write the summary to the log."},
+			paramLabel = "file")
+	private String metricsPath;
+
 	@Option(names = {"-h", "--help"}, usageHelp = true, description = "Show this help message and exit.")
 	private boolean usageHelpRequested;
+
+	/**
+	 * Rough estimate of the memory needed to process one image, used to limit the number of images
+	 * processed in parallel by default.
+	 */
+	private static final long ESTIMATED_BYTES_PER_IMAGE = 2L * 1024L * 1024L * 1024L;
 		
 	@Override
 	public void run() {
@@ -357,21 +401,10 @@ class ScriptCommand implements Runnable {
 				throw new IllegalArgumentException("Either a script file or a script command may be provided, but not both!");
 			}
 			
-			// Ensure we have a tile cache set
-			createTileCache();
-
-			// Load image server builders from extensions and install extensions in headless mode
-			ClassLoader extensionClassLoader = QuPathGUI.getExtensionCatalogManager().getExtensionClassLoader();
+			if (scriptCacheDir != null && !scriptCacheDir.isBlank())
+				CompiledScriptCache.setDirectory(new File(QuPath.getEncodedPath(scriptCacheDir)).toPath());
 
-			ImageServerProvider.setServiceLoader(ServiceLoader.load(ImageServerBuilder.class, extensionClassLoader));
-			Thread.currentThread().setContextClassLoader(extensionClassLoader);
-
-			for (QuPathExtension extension : ServiceLoader.load(QuPathExtension.class, extensionClassLoader)) {
-				extension.installHeadless();
-			}
-			
-			// Unfortunately necessary to force initialization (including GsonTools registration of some classes)
-			QP.getCoreClasses();
+			initializeHeadless();
 			
 			if (projectPath != null && !projectPath.equals("")) {
 				
@@ -383,28 +416,7 @@ class ScriptCommand implements Runnable {
 					imageList = imageList.stream().filter(e -> imagePath.equals(e.getImageName())).toList();
 				}
 					
-				int batchSize = imageList.size();
-				
-				for (int batchIndex = 0; batchIndex < batchSize; batchIndex++) {
-					var entry = imageList.get(batchIndex);
-					logger.info("Running script for {} ({}/{})", entry.getImageName(), batchIndex, batchSize);
-					try (var imageData = entry.readImageData()) {
-						Object result = runBatchScript(project, imageData, batchIndex, batchSize, save);
-						if (result != null)
-							logger.info("Script result: {}", result);
-						if (save)
-							entry.saveImageData(imageData);
-					} catch (Exception e) {
-						logger.error("Error running script for image: " + entry.getImageName(), e);
-						// Throw an exception if we have a single image
-						// Otherwise, try to recover and continue processing images
-						if (imagePath != null && imagePath.equals(entry.getImageName()))
-							throw new RuntimeException(e);
-					}
-				}
-				if (save) {
-					project.syncChanges();
-				}
+				runForProject(project, imageList);
 			} else if (imagePath != null && !imagePath.equals("")) {
 				String path = QuPath.getEncodedPath(imagePath);
 				URI uri = GeneralTools.toURI(path);
@@ -422,9 +434,204 @@ class ScriptCommand implements Runnable {
         } catch (Exception e) {
 			logger.error(e.getLocalizedMessage(), e);
 			throw new RuntimeException(e);
+		} finally {
+			writeMetrics(metricsPath);
 		}
 	}
 	
+	/**
+	 * Run the script for all the images in a project, possibly in parallel.
+	 * Results (including any output written by the script) are reported in the order of the image list,
+	 * and changes are synchronized with the project once all images have been processed.
+	 * The status of each image is recorded in the project's batch journal, so that the batch can be resumed.
+	 */
+	private void runForProject(Project<BufferedImage> project, List<ProjectImageEntry<BufferedImage>> imageList) throws Exception {
+		var key = createJournalKey();
+		BatchJournal journal;
+		try {
+			journal = BatchJournal.open(project, key);
+		} catch (IOException e) {
+			// Don't fail if we can't write a journal, unless we need it to resume
+			if (resume)
+				throw e;
+			logger.warn("Unable to open batch journal: {}", e.getLocalizedMessage());
+			logger.debug(e.getLocalizedMessage(), e);
+			journal = null;
+		}
+		try {
+			if (resume) {
+				List<ProjectImageEntry<BufferedImage>> remaining = new ArrayList<>();
+				for (var entry : imageList) {
+					if (journal.isCompleted(entry))
+						logger.debug("Skipping completed image {}", entry.getImageName());
+					else
+						remaining.add(entry);
+				}
+				if (remaining.size() < imageList.size())
+					logger.info("Skipping {} image(s) already completed (recorded in {})", imageList.size() - remaining.size(), journal.getPath());
+				imageList = remaining;
+			}
+			runForProject(project, imageList, journal);
+		} finally {
+			if (journal != null)
+				journal.close();
+		}
+	}
+
+	private void runForProject(Project<BufferedImage> project, List<ProjectImageEntry<BufferedImage>> imageList, BatchJournal journal) throws Exception {
+		int batchSize = imageList.size();
+		int n = Math.max(1, Math.min(getParallelismToUse(), batchSize));
+		boolean captureOutput = n > 1 || logDir != null;
+		if (logDir != null)
+			Files.createDirectories(new File(QuPath.getEncodedPath(logDir)).toPath());
+
+		if (n == 1) {
+			for (int batchIndex = 0; batchIndex < batchSize; batchIndex++) {
+				reportResult(runForEntry(project, journal, imageList.get(batchIndex), batchIndex, batchSize, captureOutput));
+			}
+		} else {
+			logger.info("Running script for {} images, with up to {} in parallel", batchSize, n);
+			// Worker threads need the same context class loader, so that extensions are available to scripts
+			var classLoader = Thread.currentThread().getContextClassLoader();
+			var threadFactory = ThreadTools.createThreadFactory("qupath-script-", false);
+			var pool = Executors.newFixedThreadPool(n, r -> {
+				var thread = threadFactory.newThread(r);
+				thread.setContextClassLoader(classLoader);
+				return thread;
+			});
+			try {
+				// Submit all the images at once - the pool limits how many are processed at the same time
+				List<Future<EntryResult>> futures = new ArrayList<>();
+				for (int batchIndex = 0; batchIndex < batchSize; batchIndex++) {
+					var entry = imageList.get(batchIndex);
+					int ind = batchIndex;
+					futures.add(pool.submit(() -> runForEntry(project, journal, entry, ind, batchSize, captureOutput)));
+				}
+				for (var future : futures) {
+					try {
+						reportResult(future.get());
+					} catch (ExecutionException e) {
+						throw new RuntimeException(e.getCause());
+					}
+				}
+			} finally {
+				pool.shutdownNow();
+				pool.awaitTermination(1, TimeUnit.MINUTES);
+			}
+		}
+		if (save) {
+			project.syncChanges();
+		}
+	}
+
+	/**
+	 * Create a key to identify this batch in the journal, based upon the script and everything that
+	 * may influence its result.
+	 */
+	private String createJournalKey() throws IOException {
+		List<String> values = new ArrayList<>();
+		values.add(readScript());
+		values.add(Boolean.toString(save));
+		values.addAll(Arrays.asList(parseArgs(args)));
+		return BatchJournal.createKey(values.toArray(String[]::new));
+	}
+
+	/**
+	 * Get the number of images to process in parallel, taking into account the memory available if no
+	 * value has been set explicitly.
+	 */
+	private int getParallelismToUse() {
+		if (nParallel > 0)
+			return nParallel;
+		long maxMemory = Runtime.getRuntime().maxMemory();
+		if (maxMemory == Long.MAX_VALUE)
+			return ThreadTools.getParallelism();
+		return (int)Math.max(1, Math.min(ThreadTools.getParallelism(), maxMemory / ESTIMATED_BYTES_PER_IMAGE));
+	}
+
+	/**
+	 * Run the script for a single image in a project, optionally saving the data.
+	 * Exceptions are caught and returned as part of the result, so that the remaining images can still be processed.
+	 */
+	private EntryResult runForEntry(Project<BufferedImage> project, BatchJournal journal, ProjectImageEntry<BufferedImage> entry,
+									int batchIndex, int batchSize, boolean captureOutput) {
+		logger.info("Running script for {} ({}/{})", entry.getImageName(), batchIndex, batchSize);
+		StringWriter output = captureOutput ? new StringWriter() : null;
+		var recording = journal == null ? null : journal.start(entry);
+		long startTime = System.nanoTime();
+		Object result;
+		try (var imageData = entry.readImageData()) {
+			if (output == null) {
+				result = runBatchScript(project, imageData, batchIndex, batchSize, save);
+			} else {
+				// Use the same writer for output and errors, so that they are kept in order
+				var writer = new PrintWriter(output, true);
+				result = runBatchScript(project, imageData, batchIndex, batchSize, save, writer, writer);
+			}
+			if (save)
+				entry.saveImageData(imageData);
+		} catch (Exception e) {
+			if (recording != null) {
+				try {
+					recording.failed(e);
+				} catch (IOException e2) {
+					logger.warn("Unable to write journal record for {}: {}", entry.getImageName(), e2.getLocalizedMessage());
+				}
+			}
+			return new EntryResult(entry, batchIndex, batchSize, null, e, output, System.nanoTime() - startTime);
+		}
+		// The script succeeded, so a problem writing the journal shouldn't be recorded as a failure -
+		// the image will just be processed again if the batch is resumed
+		if (recording != null) {
+			try {
+				recording.completed();
+			} catch (IOException e) {
+				logger.warn("Unable to write journal record for {}: {}", entry.getImageName(), e.getLocalizedMessage());
+			}
+		}
+		return new EntryResult(entry, batchIndex, batchSize, result, null, output, System.nanoTime() - startTime);
+	}
+
+	/**
+	 * Report the result of running a script for an image, including any output that was captured.
+	 */
+	private void reportResult(EntryResult result) throws IOException {
+		var entry = result.entry();
+		if (result.output() != null) {
+			String output = result.output().toString();
+			if (!output.isEmpty()) {
+				System.out.print(output);
+				System.out.flush();
+			}
+			if (logDir != null) {
+				var name = String.format("%04d-%s.log", result.batchIndex() + 1, GeneralTools.stripInvalidFilenameChars(entry.getImageName()));
+				var file = new File(QuPath.getEncodedPath(logDir), name);
+				var text = output;
+				if (result.exception() != null) {
+					var sw = new StringWriter();
+					result.exception().printStackTrace(new PrintWriter(sw));
+					text = text + sw;
+				}
+				Files.writeString(file.toPath(), text, StandardCharsets.UTF_8);
+			}
+		}
+		if (result.exception() != null) {
+			logger.error("Error running script for image: " + entry.getImageName(), result.exception());
+			// Throw an exception if we have a single image
+			// Otherwise, try to recover and continue processing images
+			if (imagePath != null && imagePath.equals(entry.getImageName()))
+				throw new RuntimeException(result.exception());
+		} else {
+			logger.info("Completed {} ({}/{}) in {} ms", entry.getImageName(), result.batchIndex() + 1, result.batchSize(),
+					TimeUnit.NANOSECONDS.toMillis(result.durationNanos()));
+			if (result.result() != null)
+				logger.info("Script result: {}", result.result());
+		}
+	}
+
+	private record EntryResult(ProjectImageEntry<BufferedImage> entry, int batchIndex, int batchSize, Object result,
+							   Exception exception, StringWriter output, long durationNanos) {}
+
 	/**
 	 * Parse String arguments. If surrounded by square brackets, this is treated as a comma-separated list.
 	 * Otherwise, an array is returned containing a copy of the supplied args.
@@ -432,7 +639,7 @@ class ScriptCommand implements Runnable {
 	 * @param args
 	 * @return
 	 */
-	private static String[] parseArgs(String[] args) {
+	static String[] parseArgs(String[] args) {
 		if (args == null)
 			return new String[0];
 		if (args.length == 1) {
@@ -444,10 +651,80 @@ class ScriptCommand implements Runnable {
 	}
 	
 	
+	/**
+	 * Initialize QuPath for running scripts without the GUI.
+	 * This creates the tile cache, installs extensions in headless mode and sets the context class loader
+	 * of the current thread so that extensions are available to scripts.
+	 */
+	static void initializeHeadless() {
+		// Ensure we have a tile cache set
+		createTileCache();
+
+		// Load image server builders from extensions and install extensions in headless mode
+		ClassLoader extensionClassLoader = QuPathGUI.getExtensionCatalogManager().getExtensionClassLoader();
+
+		ImageServerProvider.setServiceLoader(ServiceLoader.load(ImageServerBuilder.class, extensionClassLoader));
+		Thread.currentThread().setContextClassLoader(extensionClassLoader);
+
+		for (QuPathExtension extension : ServiceLoader.load(QuPathExtension.class, extensionClassLoader)) {
+			extension.installHeadless();
+		}
+
+		// Unfortunately necessary to force initialization (including GsonTools registration of some classes)
+		QP.getCoreClasses();
+	}
+
+	/**
+	 * Write a summary of all metrics recorded by QuPath.
+	 * @param path the file to write, '-' to write to the log, or null if no summary is needed
+	 */
+	static void writeMetrics(String path) {
+		if (path == null || path.isBlank())
+			return;
+		var summary = Metrics.summarize();
+		if ("-".equals(path)) {
+			logger.info("Metrics:{}{}", System.lineSeparator(), summary);
+			return;
+		}
+		var file = new File(QuPath.getEncodedPath(path));
+		try {
+			Files.writeString(file.toPath(), summary + System.lineSeparator(), StandardCharsets.UTF_8);
+			logger.info("Metrics written to {}", file.getAbsolutePath());
+		} catch (IOException e) {
+			logger.error("Unable to write metrics to {}", file, e);
+		}
+	}
+
+	/**
+	 * Get the language used to run a script file.
+	 * @param scriptFile the script file, or null if the script is passed as a string (in which case Groovy is used)
+	 * @return the language
+	 * @throws IllegalArgumentException if no runnable language is available
+	 */
+	static ExecutableLanguage getExecutableLanguage(String scriptFile) {
+		String ext = DEFAULT_SCRIPT_EXTENSION;
+		if (scriptFile != null)
+			ext = GeneralTools.getExtension(scriptFile).orElse(DEFAULT_SCRIPT_EXTENSION);
+
+		ScriptLanguage scriptLanguage = ScriptLanguageProvider.getLanguageFromExtension(ext);
+		if (scriptLanguage == null || !(scriptLanguage instanceof ExecutableLanguage))
+			throw new IllegalArgumentException("No runnable script language found for " + scriptFile);
+		return (ExecutableLanguage)scriptLanguage;
+	}
+
+	/**
+	 * Create a builder for script parameters, with the default imports used by QuPath's command line.
+	 */
+	static ScriptParameters.Builder createParametersBuilder() {
+		return ScriptParameters.builder()
+				.setDefaultImports(QPEx.getCoreClasses()) // TODO: Consider adding QP rather than QPEx
+				.setDefaultStaticImports(Collections.singletonList(QPEx.class));
+	}
+
 	/**
 	 * The tile cache is usually set when initializing the GUI; here, we need to create one for performance
 	 */
-	private void createTileCache() {
+	private static void createTileCache() {
 		// TODO: Refactor this to avoid replicating logic from QuPathGUI private method
 		Runtime rt = Runtime.getRuntime();
 		long maxAvailable = rt.maxMemory(); // Max available memory
@@ -476,40 +753,32 @@ class ScriptCommand implements Runnable {
 	}
 	
 	private Object runBatchScript(Project<BufferedImage> project, ImageData<BufferedImage> imageData, int batchIndex, int batchSize, boolean batchSave) throws IOException, ScriptException {
+		// Try to make sure that the standard outputs are used
+		PrintWriter outWriter = new PrintWriter(System.out, true);
+		PrintWriter errWriter = new PrintWriter(System.err, true);
+		return runBatchScript(project, imageData, batchIndex, batchSize, batchSave, outWriter, errWriter);
+	}
+
+	private Object runBatchScript(Project<BufferedImage> project, ImageData<BufferedImage> imageData, int batchIndex, int batchSize, boolean batchSave,
+								  PrintWriter outWriter, PrintWriter errWriter) throws IOException, ScriptException {
 		Object result = null;
 		String script = scriptCommand;
-		ExecutableLanguage language;
-		
-		String ext = DEFAULT_SCRIPT_EXTENSION;
-		if (scriptFile != null)
-			ext = GeneralTools.getExtension(scriptFile).orElse(DEFAULT_SCRIPT_EXTENSION);
-		
-		ScriptLanguage scriptLanguage = ScriptLanguageProvider.getLanguageFromExtension(ext);
-		if (scriptLanguage == null || !(scriptLanguage instanceof ExecutableLanguage))
-			throw new IllegalArgumentException("No runnable script language found for " + scriptFile);
-			
-		language = (ExecutableLanguage)scriptLanguage;
+		ExecutableLanguage language = getExecutableLanguage(scriptFile);
 			
 			// Read & try to run the script
 		File file = null;
 		if (script == null) {
-			var filePath = QuPath.getEncodedPath(scriptFile);
-			file = new File(filePath);
-			script = GeneralTools.readFileAsString(filePath);
+			file = new File(QuPath.getEncodedPath(scriptFile));
+			script = readScript();
 		} else {
 			if (GeneralTools.isWindows() && !StandardCharsets.US_ASCII.newEncoder().canEncode(script))
 				logger.warn("Non-ASCII characters detected in the specified script! If you experience encoding issues, try passing a script file instead.");
 		}
-		
-		// Try to make sure that the standard outputs are used
-		PrintWriter outWriter = new PrintWriter(System.out, true);
-		PrintWriter errWriter = new PrintWriter(System.err, true);
-		var params = ScriptParameters.builder()
+
+		var params = createParametersBuilder()
 				.setArgs(parseArgs(args))
 				.setProject(project)
 				.setImageData(imageData)
-				.setDefaultImports(QPEx.getCoreClasses()) // TODO: Consider adding QP rather than QPEx
-				.setDefaultStaticImports(Collections.singletonList(QPEx.class))
 				.setFile(file)
 				.setScript(script)
 				.setBatchSize(batchSize)
@@ -517,6 +786,7 @@ class ScriptCommand implements Runnable {
 				.setBatchSaveResult(batchSave)
 				.setWriter(outWriter)
 				.setErrorWriter(errWriter)
+				.useCompiled(CompiledScriptCache.getDirectory() != null)
 				.build();
 		
 		// Evaluate the script
@@ -531,5 +801,11 @@ class ScriptCommand implements Runnable {
 		// return output, which may be null
 		return result;
 	}
+
+	private String readScript() throws IOException {
+		if (scriptCommand != null)
+			return scriptCommand;
+		return GeneralTools.readFileAsString(QuPath.getEncodedPath(scriptFile));
+	}
 	
 }
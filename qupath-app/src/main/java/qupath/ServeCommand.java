@@ -0,0 +1,716 @@
+/*-
+ * #%L
+ * This file is part of QuPath.
+ * %%
+ * Copyright (C) 2026 QuPath developers, The University of Edinburgh
+ * %%
+ * QuPath is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * QuPath is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with QuPath.  If not, see <https://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package qupath;
+
+import com.google.gson.JsonParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+import picocli.CommandLine.Parameters;
+import qupath.lib.common.GeneralTools;
+import qupath.lib.common.ThreadTools;
+import qupath.lib.gui.scripting.languages.CompiledScriptCache;
+import qupath.lib.images.ImageData;
+import qupath.lib.images.servers.ImageServer;
+import qupath.lib.images.servers.ImageServers;
+import qupath.lib.io.GsonTools;
+import qupath.lib.projects.Project;
+import qupath.lib.projects.ProjectIO;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Command to keep QuPath running headless, processing script jobs as they are added to a queue directory.
+ * <p>
+ * This avoids the cost of starting the JVM, loading extensions and compiling scripts for every job,
+ * and means that image tiles can be reused between jobs.
+ * Each job is a JSON file written to the queue directory; once processed, a JSON result with the same
+ * name is written to the {@code results} subdirectory.
+ * Jobs are claimed by moving them to the {@code running} subdirectory, so several QuPath processes can
+ * share the same queue.
+ * <p>
+ * Running jobs are locked by the process running them.
+ * When the command starts, any unlocked jobs in the {@code running} directory must have been left by a
+ * process that stopped unexpectedly; these are reported as failed (rather than requeued, in case the job
+ * caused the process to stop).
+ * This relies upon file locks, which may not be reliable for queues on network file systems.
+ *
+ * @author Pete Bankhead
+ * @since v0.8.0
+ */
+@Command(name = "serve", description = {
+		"Runs a headless worker that processes script jobs from a queue directory.",
+		"Each job is a JSON file, which may contain the following properties:",
+		"  script  - path to a script file",
+		"  cmd     - Groovy script passed as a string (if no script file is given)",
+		"  project - path to a project file (.qpproj)",
+		"  image   - image name if a project is given, otherwise the full image path",
+		"  args    - list of arguments to pass to the script",
+		"  server  - list of arguments to pass when building an ImageServer",
+		"  save    - true if image data in the project should be saved",
+		"Relative paths are resolved against the queue directory.",
+		"Jobs should be written with a temporary name (e.g. starting with '.') and then renamed, so that " +
+				"incomplete files are never read.",
+		"Jobs left incomplete by a process that stopped unexpectedly are reported as failed on startup."},
+		sortOptions = false)
+class ServeCommand implements Runnable {
+
+	private static final Logger logger = LoggerFactory.getLogger(ServeCommand.class);
+
+	private static final String JOB_EXTENSION = ".json";
+
+	private static final String RUNNING_DIR = "running";
+
+	private static final String RESULTS_DIR = "results";
+
+	@Parameters(index = "0", description = "Path to the queue directory.", paramLabel = "queue")
+	private String queuePath;
+
+	@Option(names = {"-n", "--workers"}, description = {"Number of jobs to run in parallel (default = 1).",
+			"Use 0 to use the number of processors."},
+			paramLabel = "n")
+	private int nWorkers = 1;
+
+	@Option(names = {"--poll-interval"}, description = "Interval between checks for new jobs, in milliseconds (default = 500).",
+			paramLabel = "millis")
+	private long pollInterval = 500;
+
+	@Option(names = {"--idle-timeout"}, description = {"Stop after no jobs have been received for the specified number of seconds.",
+			"Use 0 to keep running until the process is terminated (default = 0)."},
+			paramLabel = "seconds")
+	private long idleTimeout = 0;
+
+	@Option(names = {"--max-servers"}, description = "Maximum number of unused image servers to keep open between jobs (default = 8).",
+			paramLabel = "n")
+	private int maxServers = 8;
+
+	@Option(names = {"--script-cache"}, description = "Directory in which to store compiled scripts, so they can be reused by later calls.",
+			paramLabel = "directory")
+	private String scriptCacheDir;
+
+	@Option(names = {"--metrics"}, description = {"File in which to write a summary of performance metrics when the service stops.",
+			"Use '-' to write the summary to the log."},
+			paramLabel = "file")
+	private String metricsPath;
+
+	@Option(names = {"-h", "--help"}, usageHelp = true, description = "Show this help message and exit.")
+	private boolean usageHelpRequested;
+
+	private volatile boolean stopRequested;
+
+	private ServerPool serverPool;
+
+	private final ProjectPool projectPool = new ProjectPool();
+
+	/**
+	 * Fields read from a job file.
+	 * Any of these may be null.
+	 */
+	record Job(String script, String cmd, String project, String image, List<String> args,
+			   List<String> server, Boolean save) {}
+
+	/**
+	 * Result written when a job has finished.
+	 * @param job name of the job file
+	 * @param status either "completed" or "failed"
+	 * @param result string representation of the value returned by the script (may be null)
+	 * @param error error message, if the job failed
+	 * @param output output written by the script
+	 * @param durationMillis time taken to run the job
+	 */
+	record JobResult(String job, String status, String result, String error, String output, long durationMillis) {}
+
+	@Override
+	public void run() {
+		try {
+			var queueDir = new File(QuPath.getEncodedPath(queuePath)).toPath().toAbsolutePath();
+			var runningDir = queueDir.resolve(RUNNING_DIR);
+			var resultsDir = queueDir.resolve(RESULTS_DIR);
+			Files.createDirectories(runningDir);
+			Files.createDirectories(resultsDir);
+
+			if (scriptCacheDir != null && !scriptCacheDir.isBlank())
+				CompiledScriptCache.setDirectory(new File(QuPath.getEncodedPath(scriptCacheDir)).toPath());
+
+			recoverJobs(runningDir, resultsDir);
+
+			ScriptCommand.initializeHeadless();
+			serverPool = new ServerPool(Math.max(0, maxServers));
+
+			int n = nWorkers > 0 ? nWorkers : ThreadTools.getParallelism();
+			// Worker threads need the same context class loader, so that extensions are available to scripts
+			var classLoader = Thread.currentThread().getContextClassLoader();
+			var threadFactory = ThreadTools.createThreadFactory("qupath-serve-", false);
+			var pool = Executors.newFixedThreadPool(n, r -> {
+				var thread = threadFactory.newThread(r);
+				thread.setContextClassLoader(classLoader);
+				return thread;
+			});
+
+			var finished = new CountDownLatch(1);
+			var shutdownHook = new Thread(() -> {
+				stopRequested = true;
+				try {
+					finished.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+			Runtime.getRuntime().addShutdownHook(shutdownHook);
+
+			logger.info("Waiting for jobs in {} with {} worker(s)", queueDir, n);
+			try {
+				poll(queueDir, runningDir, resultsDir, pool, n);
+			} finally {
+				logger.info("Stopping - waiting for running jobs to complete");
+				pool.shutdown();
+				pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+				serverPool.closeAll();
+				ScriptCommand.writeMetrics(metricsPath);
+				finished.countDown();
+			}
+			if (!stopRequested)
+				Runtime.getRuntime().removeShutdownHook(shutdownHook);
+		} catch (Exception e) {
+			logger.error(e.getLocalizedMessage(), e);
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Check the queue for new jobs until a stop is requested or the idle timeout is reached.
+	 * Jobs are only claimed when a worker is available to run them, so that other processes sharing the
+	 * queue can pick them up in the meantime.
+	 */
+	private void poll(Path queueDir, Path runningDir, Path resultsDir, ExecutorService pool, int nWorkers) throws IOException, InterruptedException {
+		var available = new Semaphore(nWorkers);
+		long lastActive = System.currentTimeMillis();
+		while (!stopRequested) {
+			var jobs = listJobs(queueDir);
+			for (var job : jobs) {
+				if (stopRequested || !available.tryAcquire())
+					break;
+				var running = claimJob(job, runningDir);
+				if (running == null) {
+					available.release();
+					continue;
+				}
+				pool.submit(() -> {
+					try {
+						runJob(queueDir, running, resultsDir);
+					} finally {
+						available.release();
+					}
+				});
+			}
+			if (!jobs.isEmpty() || available.availablePermits() < nWorkers)
+				lastActive = System.currentTimeMillis();
+			else if (idleTimeout > 0 && System.currentTimeMillis() - lastActive > TimeUnit.SECONDS.toMillis(idleTimeout)) {
+				logger.info("No jobs received for {} seconds", idleTimeout);
+				break;
+			}
+			Thread.sleep(Math.max(1, pollInterval));
+		}
+	}
+
+	/**
+	 * List job files in the queue, oldest first.
+	 */
+	static List<Path> listJobs(Path queueDir) throws IOException {
+		try (Stream<Path> stream = Files.list(queueDir)) {
+			return stream
+					.filter(ServeCommand::isJobFile)
+					.map(p -> Map.entry(p, lastModified(p)))
+					.sorted(Map.Entry.<Path, FileTime>comparingByValue().thenComparing(Map.Entry.comparingByKey()))
+					.map(Map.Entry::getKey)
+					.toList();
+		}
+	}
+
+	private static boolean isJobFile(Path path) {
+		var name = path.getFileName().toString();
+		return !name.startsWith(".") && name.toLowerCase().endsWith(JOB_EXTENSION) && Files.isRegularFile(path);
+	}
+
+	private static FileTime lastModified(Path path) {
+		try {
+			return Files.getLastModifiedTime(path);
+		} catch (IOException e) {
+			return FileTime.fromMillis(Long.MAX_VALUE);
+		}
+	}
+
+	/**
+	 * Claim a job by moving it to the running directory.
+	 * @return the new path of the job, or null if it was claimed by another process
+	 */
+	static Path claimJob(Path job, Path runningDir) {
+		var target = runningDir.resolve(job.getFileName());
+		// An atomic move may replace an existing file, so leave the job in the queue if one with the same name is running
+		if (Files.exists(target)) {
+			logger.debug("Job {} is already running", job.getFileName());
+			return null;
+		}
+		try {
+			return Files.move(job, target, StandardCopyOption.ATOMIC_MOVE);
+		} catch (NoSuchFileException | FileAlreadyExistsException e) {
+			logger.debug("Job {} already claimed", job.getFileName());
+		} catch (IOException e) {
+			logger.warn("Unable to claim job {}: {}", job.getFileName(), e.getLocalizedMessage());
+		}
+		return null;
+	}
+
+	/**
+	 * Report any jobs in the running directory that aren't locked by another process as failed.
+	 * These must have been left by a process that stopped before the jobs completed.
+	 * @return the names of the jobs that were recovered
+	 */
+	static List<String> recoverJobs(Path runningDir, Path resultsDir) throws IOException {
+		List<Path> jobs;
+		try (Stream<Path> stream = Files.list(runningDir)) {
+			jobs = stream.filter(ServeCommand::isJobFile).toList();
+		}
+		List<String> recovered = new ArrayList<>();
+		for (var jobPath : jobs) {
+			var name = jobPath.getFileName().toString();
+			try (var channel = FileChannel.open(jobPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+				 var lock = channel.tryLock()) {
+				if (lock == null || !Files.exists(jobPath))
+					continue;
+				logger.warn("Job {} did not complete - it will be reported as failed", name);
+				writeResult(resultsDir.resolve(name), new JobResult(name, "failed", null,
+						"Job did not complete, the process running it may have stopped", "", 0L));
+				Files.delete(jobPath);
+				recovered.add(name);
+			} catch (OverlappingFileLockException e) {
+				logger.debug("Job {} is running in this process", name);
+			} catch (NoSuchFileException e) {
+				logger.debug("Job {} completed while checking for incomplete jobs", name);
+			}
+		}
+		return recovered;
+	}
+
+	private void runJob(Path queueDir, Path jobPath, Path resultsDir) {
+		var name = jobPath.getFileName().toString();
+		// Lock the job while it is running, so that it isn't treated as incomplete if another process starts
+		try (var channel = FileChannel.open(jobPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			 var lock = channel.lock()) {
+			if (!Files.exists(jobPath)) {
+				logger.warn("Job {} was removed before it could be run", name);
+				return;
+			}
+			var jobResult = runJob(queueDir, name, readString(channel));
+			writeResult(resultsDir.resolve(name), jobResult);
+			// Delete while locked, so that another process can't see the job after the result is written
+			Files.delete(jobPath);
+		} catch (IOException e) {
+			logger.error("Unable to run job {}", name, e);
+		}
+	}
+
+	private JobResult runJob(Path queueDir, String name, String content) {
+		logger.info("Starting job {}", name);
+		var output = new StringWriter();
+		// Use the same writer for output and errors, so that they are kept in order
+		var writer = new PrintWriter(output, true);
+		long startTime = System.nanoTime();
+		Object result = null;
+		Exception exception = null;
+		try {
+			result = runJob(queueDir, parseJob(content), writer);
+		} catch (Exception e) {
+			exception = e;
+			e.printStackTrace(writer);
+		}
+		writer.flush();
+		long durationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+		if (exception == null)
+			logger.info("Completed job {} in {} ms", name, durationMillis);
+		else
+			logger.error("Error running job {}", name, exception);
+
+		return new JobResult(
+				name,
+				exception == null ? "completed" : "failed",
+				result == null ? null : String.valueOf(result),
+				exception == null ? null : String.valueOf(exception.getLocalizedMessage()),
+				output.toString(),
+				durationMillis);
+	}
+
+	/**
+	 * Parse the JSON content of a job file.
+	 * @throws IOException if the content is empty or can't be parsed
+	 */
+	static Job parseJob(String content) throws IOException {
+		Job job;
+		try {
+			job = GsonTools.getInstance().fromJson(content, Job.class);
+		} catch (JsonParseException e) {
+			throw new IOException("Unable to parse job: " + e.getLocalizedMessage(), e);
+		}
+		if (job == null)
+			throw new IOException("Job file is empty");
+		return job;
+	}
+
+	private static String readString(FileChannel channel) throws IOException {
+		var buffer = ByteBuffer.allocate((int)channel.size());
+		while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+			// Read until the buffer is full
+		}
+		return new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+	}
+
+	private Object runJob(Path queueDir, Job job, PrintWriter writer) throws Exception {
+		if (job.script() != null && job.cmd() != null)
+			throw new IllegalArgumentException("Either a script file or a script command may be provided, but not both!");
+		if (job.script() == null && job.cmd() == null)
+			throw new IllegalArgumentException("No script file or script command provided");
+
+		File file = null;
+		String script = job.cmd();
+		if (script == null) {
+			file = new File(resolve(queueDir, job.script()));
+			script = GeneralTools.readFileAsString(file.getPath());
+		}
+		var language = ScriptCommand.getExecutableLanguage(file == null ? null : file.getName());
+		String[] args = ScriptCommand.parseArgs(job.args() == null ? null : job.args().toArray(String[]::new));
+		boolean save = Boolean.TRUE.equals(job.save());
+
+		var params = ScriptCommand.createParametersBuilder()
+				.setArgs(args)
+				.setFile(file)
+				.setScript(script)
+				.setWriter(writer)
+				.setErrorWriter(writer)
+				// Always reuse compiled scripts, since the same script is likely to be run many times
+				.useCompiled(true);
+
+		if (job.project() != null) {
+			var projectPath = Path.of(resolve(queueDir, job.project()));
+			if (!projectPath.getFileName().toString().toLowerCase().endsWith(ProjectIO.getProjectExtension()))
+				throw new IOException("Project file must end with '.qpproj'");
+			var project = projectPool.acquire(projectPath);
+			try {
+				var imageList = project.getImageList();
+				if (job.image() != null)
+					imageList = imageList.stream().filter(e -> job.image().equals(e.getImageName())).toList();
+				if (imageList.isEmpty())
+					throw new IllegalArgumentException("No images found in project " + projectPath +
+							(job.image() == null ? "" : " with name " + job.image()));
+				Object result = null;
+				int batchSize = imageList.size();
+				for (int batchIndex = 0; batchIndex < batchSize; batchIndex++) {
+					var entry = imageList.get(batchIndex);
+					try (var imageData = entry.readImageData()) {
+						result = language.execute(params
+								.setProject(project)
+								.setImageData(imageData)
+								.setBatchIndex(batchIndex)
+								.setBatchSize(batchSize)
+								.setBatchSaveResult(save)
+								.build());
+						if (save)
+							entry.saveImageData(imageData);
+					}
+				}
+				if (save)
+					projectPool.save(projectPath);
+				return result;
+			} finally {
+				projectPool.release(projectPath);
+			}
+		} else if (job.image() != null) {
+			var uri = GeneralTools.toURI(resolve(queueDir, job.image()));
+			String[] serverArgs = ScriptCommand.parseArgs(job.server() == null ? null : job.server().toArray(String[]::new));
+			var server = serverPool.acquire(uri.toString(), serverArgs);
+			try {
+				// Don't close the image data, since this would close the server
+				var imageData = new ImageData<>(server);
+				return language.execute(params.setImageData(imageData).build());
+			} finally {
+				serverPool.release(server);
+			}
+		} else {
+			return language.execute(params.build());
+		}
+	}
+
+	/**
+	 * Resolve a path from a job, which may be relative to the queue directory.
+	 * URIs are returned unchanged.
+	 */
+	private static String resolve(Path queueDir, String path) {
+		var encoded = QuPath.getEncodedPath(path);
+		if (encoded.contains("://"))
+			return encoded;
+		return queueDir.resolve(encoded).normalize().toString();
+	}
+
+	/**
+	 * Write the result via a temp file, so that clients never read an incomplete file.
+	 */
+	static void writeResult(Path path, JobResult result) throws IOException {
+		var temp = Files.createTempFile(path.getParent(), ".result-", ".tmp");
+		try {
+			Files.writeString(temp, GsonTools.getInstance(true).toJson(result), StandardCharsets.UTF_8);
+			try {
+				Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+
+	/**
+	 * Share projects between jobs, so that there is only one {@link Project} for each project file.
+	 * This means that changes made by one job are seen by the others, and saves can't overwrite one another.
+	 * A project is only reloaded if it has been modified by another process, and isn't in use by any jobs.
+	 */
+	static class ProjectPool {
+
+		private final Map<Path, PooledProject> projects = new HashMap<>();
+
+		private static class PooledProject {
+
+			private final Project<BufferedImage> project;
+			private FileTime lastModified;
+			private int users;
+
+			private PooledProject(Project<BufferedImage> project, FileTime lastModified) {
+				this.project = project;
+				this.lastModified = lastModified;
+			}
+
+		}
+
+		Project<BufferedImage> acquire(Path path) throws IOException {
+			var lastModified = Files.getLastModifiedTime(path);
+			synchronized (this) {
+				var pooled = projects.get(path);
+				if (pooled != null && (pooled.users > 0 || pooled.lastModified.equals(lastModified))) {
+					pooled.users++;
+					return pooled.project;
+				}
+			}
+			// Load outside the lock, since this can be slow
+			var project = ProjectIO.loadProject(path.toFile(), BufferedImage.class);
+			synchronized (this) {
+				var pooled = projects.get(path);
+				// Use the project loaded by another job, unless it is out of date and no longer in use
+				if (pooled == null || (pooled.users == 0 && !pooled.lastModified.equals(lastModified))) {
+					pooled = new PooledProject(project, lastModified);
+					projects.put(path, pooled);
+				}
+				pooled.users++;
+				return pooled.project;
+			}
+		}
+
+		synchronized void release(Path path) {
+			var pooled = projects.get(path);
+			if (pooled != null)
+				pooled.users--;
+		}
+
+		/**
+		 * Save changes to a project.
+		 * This records the time the file was modified, so that the project isn't reloaded unnecessarily.
+		 */
+		void save(Path path) throws IOException {
+			PooledProject pooled;
+			synchronized (this) {
+				pooled = projects.get(path);
+			}
+			if (pooled == null)
+				throw new IllegalArgumentException("No project has been acquired for " + path);
+			synchronized (pooled) {
+				pooled.project.syncChanges();
+				var lastModified = Files.getLastModifiedTime(path);
+				synchronized (this) {
+					pooled.lastModified = lastModified;
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Function to build an image server.
+	 */
+	@FunctionalInterface
+	interface ServerBuilder {
+
+		ImageServer<BufferedImage> build(String uri, String... args) throws IOException;
+
+	}
+
+	/**
+	 * Keep image servers open between jobs, so that the same image doesn't need to be opened repeatedly.
+	 * Servers are shared between jobs running at the same time, and closed when they haven't been used
+	 * recently.
+	 */
+	static class ServerPool {
+
+		private final int maxUnused;
+
+		private final ServerBuilder builder;
+
+		private final Map<String, PooledServer> servers = new LinkedHashMap<>(16, 0.75f, true);
+
+		ServerPool(int maxUnused) {
+			this(maxUnused, ImageServers::buildServer);
+		}
+
+		ServerPool(int maxUnused, ServerBuilder builder) {
+			this.maxUnused = maxUnused;
+			this.builder = builder;
+		}
+
+		private static class PooledServer {
+
+			private final String key;
+			private final ImageServer<BufferedImage> server;
+			private int users;
+
+			private PooledServer(String key, ImageServer<BufferedImage> server) {
+				this.key = key;
+				this.server = server;
+			}
+
+		}
+
+		ImageServer<BufferedImage> acquire(String uri, String[] args) throws IOException {
+			var key = uri + "\n" + String.join("\n", args);
+			synchronized (this) {
+				var pooled = servers.get(key);
+				if (pooled != null) {
+					pooled.users++;
+					return pooled.server;
+				}
+			}
+			// Build outside the lock, since this can be slow
+			var server = builder.build(uri, args);
+			synchronized (this) {
+				var pooled = servers.get(key);
+				if (pooled == null) {
+					pooled = new PooledServer(key, server);
+					servers.put(key, pooled);
+				} else {
+					// Another job built the same server at the same time
+					closeServer(server);
+				}
+				pooled.users++;
+				return pooled.server;
+			}
+		}
+
+		synchronized void release(ImageServer<BufferedImage> server) {
+			var pooled = servers.values().stream().filter(p -> p.server == server).findFirst().orElse(null);
+			if (pooled != null) {
+				pooled.users--;
+				// Count the release as a use, so that the server is treated as recently used
+				servers.get(pooled.key);
+			}
+			evict();
+		}
+
+		/**
+		 * Close the least recently used servers that aren't in use, until no more than the maximum remain.
+		 */
+		private void evict() {
+			int nUnused = (int)servers.values().stream().filter(p -> p.users == 0).count();
+			if (nUnused <= maxUnused)
+				return;
+			List<PooledServer> toClose = new ArrayList<>();
+			for (var pooled : servers.values()) {
+				if (pooled.users == 0) {
+					toClose.add(pooled);
+					if (--nUnused <= maxUnused)
+						break;
+				}
+			}
+			for (var pooled : toClose) {
+				servers.remove(pooled.key);
+				closeServer(pooled.server);
+			}
+		}
+
+		/**
+		 * Get the number of servers that are currently open.
+		 */
+		synchronized int size() {
+			return servers.size();
+		}
+
+		synchronized void closeAll() {
+			for (var pooled : servers.values())
+				closeServer(pooled.server);
+			servers.clear();
+		}
+
+		private static void closeServer(ImageServer<BufferedImage> server) {
+			try {
+				logger.debug("Closing server {}", server.getPath());
+				server.close();
+			} catch (Exception e) {
+				logger.warn("Unable to close server: {}", e.getLocalizedMessage());
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,240 @@
+/*-
+ * #%L
+ * This file is part of QuPath.
+ * %%
+ * Copyright (C) 2026 QuPath developers, The University of Edinburgh
+ * %%
+ * QuPath is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * QuPath is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with QuPath.  If not, see <https://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package qupath;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import qupath.lib.images.servers.WrappedBufferedImageServer;
+import qupath.lib.io.GsonTools;
+import qupath.lib.projects.Projects;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SuppressWarnings("javadoc")
+public class TestServeCommand {
+
+	@Test
+	public void testParseJob() throws IOException {
+		var job = ServeCommand.parseJob("""
+				{"script": "script.groovy", "project": "project/project.qpproj", "image": "Image 1",
+				 "args": ["a", "b"], "save": true}
+				""");
+		assertEquals("script.groovy", job.script());
+		assertNull(job.cmd());
+		assertEquals("project/project.qpproj", job.project());
+		assertEquals("Image 1", job.image());
+		assertEquals(List.of("a", "b"), job.args());
+		assertNull(job.server());
+		assertTrue(job.save());
+
+		job = ServeCommand.parseJob("{\"cmd\": \"println 'Hello'\"}");
+		assertEquals("println 'Hello'", job.cmd());
+		assertNull(job.save());
+
+		assertThrows(IOException.class, () -> ServeCommand.parseJob(""));
+		assertThrows(IOException.class, () -> ServeCommand.parseJob("{\"script\": "));
+		assertThrows(IOException.class, () -> ServeCommand.parseJob("[1, 2]"));
+	}
+
+	@Test
+	public void testListJobs(@TempDir Path queueDir) throws IOException {
+		var second = writeJob(queueDir, "b.json", 2000);
+		var first = writeJob(queueDir, "c.json", 1000);
+		var third = writeJob(queueDir, "a.json", 2000);
+		// Temporary files, other files and directories should be ignored
+		writeJob(queueDir, ".temp.json", 0);
+		writeJob(queueDir, "notes.txt", 0);
+		Files.createDirectories(queueDir.resolve("dir.json"));
+		assertEquals(List.of(first, third, second), ServeCommand.listJobs(queueDir));
+	}
+
+	@Test
+	public void testClaimJob(@TempDir Path queueDir) throws IOException {
+		var runningDir = Files.createDirectories(queueDir.resolve("running"));
+		var job = writeJob(queueDir, "job.json", 1000);
+		var claimed = ServeCommand.claimJob(job, runningDir);
+		assertEquals(runningDir.resolve("job.json"), claimed);
+		assertFalse(Files.exists(job));
+		assertTrue(Files.exists(claimed));
+		// A job can't be claimed twice
+		assertNull(ServeCommand.claimJob(job, runningDir));
+		// A job shouldn't replace one that is already running with the same name
+		writeJob(queueDir, "job.json", 1000);
+		assertNull(ServeCommand.claimJob(job, runningDir));
+		assertTrue(Files.exists(job));
+	}
+
+	@Test
+	public void testRecoverJobs(@TempDir Path queueDir) throws IOException {
+		var runningDir = Files.createDirectories(queueDir.resolve("running"));
+		var resultsDir = Files.createDirectories(queueDir.resolve("results"));
+		var orphaned = writeJob(runningDir, "orphaned.json", 1000);
+		var running = writeJob(runningDir, "running.json", 1000);
+		try (var channel = FileChannel.open(running, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			 var lock = channel.lock()) {
+			assertEquals(List.of("orphaned.json"), ServeCommand.recoverJobs(runningDir, resultsDir));
+		}
+		assertFalse(Files.exists(orphaned));
+		assertTrue(Files.exists(running));
+		assertFalse(Files.exists(resultsDir.resolve("running.json")));
+
+		var result = GsonTools.getInstance().fromJson(
+				Files.readString(resultsDir.resolve("orphaned.json"), StandardCharsets.UTF_8),
+				ServeCommand.JobResult.class);
+		assertEquals("orphaned.json", result.job());
+		assertEquals("failed", result.status());
+		assertNotNull(result.error());
+
+		// Once unlocked, the remaining job is also treated as incomplete
+		assertEquals(List.of("running.json"), ServeCommand.recoverJobs(runningDir, resultsDir));
+		assertTrue(ServeCommand.recoverJobs(runningDir, resultsDir).isEmpty());
+	}
+
+	@Test
+	public void testProjectPool(@TempDir Path dir) throws IOException {
+		var project = Projects.createProject(dir.toFile(), BufferedImage.class);
+		project.syncChanges();
+		var path = project.getPath();
+
+		var pool = new ServeCommand.ProjectPool();
+		var p1 = pool.acquire(path);
+		var p2 = pool.acquire(path);
+		assertSame(p1, p2);
+
+		// Saving shouldn't cause the project to be reloaded
+		pool.save(path);
+		Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+		pool.save(path);
+		pool.release(path);
+		pool.release(path);
+		assertSame(p1, pool.acquire(path));
+
+		// Changes by another process should only cause a reload when the project isn't in use
+		Files.setLastModifiedTime(path, FileTime.fromMillis(1000));
+		assertSame(p1, pool.acquire(path));
+		pool.release(path);
+		pool.release(path);
+		var p3 = pool.acquire(path);
+		assertNotSame(p1, p3);
+		assertSame(p3, pool.acquire(path));
+	}
+
+	@Test
+	public void testServerPool() throws IOException {
+		var built = new ArrayList<TestServer>();
+		var pool = new ServeCommand.ServerPool(1, (uri, args) -> {
+			var server = new TestServer(uri);
+			built.add(server);
+			return server;
+		});
+
+		// Servers should be shared while in use
+		var a1 = pool.acquire("a", new String[0]);
+		var a2 = pool.acquire("a", new String[0]);
+		assertSame(a1, a2);
+		assertEquals(1, built.size());
+		// Different args require a different server
+		var aArgs = pool.acquire("a", new String[] {"--series", "1"});
+		assertNotSame(a1, aArgs);
+		var b = pool.acquire("b", new String[0]);
+		assertEquals(3, pool.size());
+
+		// Servers in use should never be closed
+		pool.release(aArgs);
+		pool.release(b);
+		assertEquals(2, pool.size());
+		assertEquals(1, built.get(1).closeCount.get());
+		assertEquals(0, built.get(2).closeCount.get());
+
+		// Releasing once shouldn't close a server used by two jobs
+		pool.release(a1);
+		assertEquals(0, built.get(0).closeCount.get());
+		pool.release(a2);
+		// The least recently used unused server should be closed
+		assertEquals(1, pool.size());
+		assertEquals(0, built.get(0).closeCount.get());
+		assertEquals(1, built.get(2).closeCount.get());
+
+		// An unused server should be reused
+		assertSame(a1, pool.acquire("a", new String[0]));
+		assertEquals(3, built.size());
+		pool.release(a1);
+
+		pool.closeAll();
+		assertEquals(0, pool.size());
+		for (var server : built)
+			assertEquals(1, server.closeCount.get());
+	}
+
+	@Test
+	public void testServerPoolNoUnused() throws IOException {
+		var pool = new ServeCommand.ServerPool(0, (uri, args) -> new TestServer(uri));
+		var server = (TestServer)pool.acquire("a", new String[0]);
+		assertEquals(1, pool.size());
+		pool.release(server);
+		assertEquals(0, pool.size());
+		assertEquals(1, server.closeCount.get());
+	}
+
+	private static Path writeJob(Path dir, String name, long lastModified) throws IOException {
+		var path = dir.resolve(name);
+		Files.writeString(path, "{\"cmd\": \"println 'Hello'\"}", StandardCharsets.UTF_8);
+		Files.setLastModifiedTime(path, FileTime.fromMillis(lastModified));
+		return path;
+	}
+
+	private static class TestServer extends WrappedBufferedImageServer {
+
+		private final AtomicInteger closeCount = new AtomicInteger();
+
+		private TestServer(String name) {
+			super(name, new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB));
+		}
+
+		@Override
+		public void close() throws Exception {
+			closeCount.incrementAndGet();
+			super.close();
+		}
+
+	}
+
+}
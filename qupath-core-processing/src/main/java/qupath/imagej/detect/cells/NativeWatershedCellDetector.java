@@ -0,0 +1,715 @@
+/*-
+ * #%L
+ * This file is part of QuPath.
+ * %%
+ * Copyright (C) 2026 QuPath developers, The University of Edinburgh
+ * %%
+ * QuPath is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * QuPath is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with QuPath.  If not, see <https://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package qupath.imagej.detect.cells;
+
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.geom.util.AffineTransformation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import qupath.imagej.detect.cells.PixelFilters.RankType;
+import qupath.lib.analysis.algorithms.MorphologicalReconstruction;
+import qupath.lib.analysis.algorithms.Watershed;
+import qupath.lib.analysis.images.ContourTracing;
+import qupath.lib.analysis.images.SimpleImage;
+import qupath.lib.analysis.images.SimpleImages;
+import qupath.lib.analysis.images.SimpleModifiableImage;
+import qupath.lib.analysis.stats.RunningStatistics;
+import qupath.lib.analysis.stats.StatisticsHelper;
+import qupath.lib.color.ColorDeconvolutionHelper;
+import qupath.lib.color.ColorDeconvolutionStains;
+import qupath.lib.color.StainVector;
+import qupath.lib.geom.Point2;
+import qupath.lib.images.ImageData;
+import qupath.lib.images.servers.ImageChannel;
+import qupath.lib.images.servers.PixelCalibration;
+import qupath.lib.measurements.MeasurementList;
+import qupath.lib.measurements.MeasurementListFactory;
+import qupath.lib.objects.PathObject;
+import qupath.lib.objects.PathObjectTools;
+import qupath.lib.objects.PathObjects;
+import qupath.lib.plugins.parameters.ParameterList;
+import qupath.lib.regions.ImagePlane;
+import qupath.lib.regions.RegionRequest;
+import qupath.lib.roi.GeometryTools;
+import qupath.lib.roi.PolygonROI;
+import qupath.lib.roi.ROIs;
+import qupath.lib.roi.RectangleROI;
+import qupath.lib.roi.ShapeSimplifier;
+import qupath.lib.roi.interfaces.ROI;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.Raster;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementation of the watershed cell detection algorithm that works directly with float arrays,
+ * rather than ImageJ processors.
+ * <p>
+ * This follows the same steps as {@link WatershedCellDetection.WatershedCellDetector}, but avoids converting
+ * each tile to an {@code ImagePlus} and ImageJ {@code Roi}s back to QuPath ROIs.
+ * Results are very similar, but not identical, because some ImageJ filters (in particular the watershed
+ * used to split nuclei by shape) are implemented differently.
+ *
+ * @author Pete Bankhead
+ */
+class NativeWatershedCellDetector {
+
+	private static final Logger logger = LoggerFactory.getLogger(NativeWatershedCellDetector.class);
+
+	private boolean refineBoundary = true;
+
+	private double backgroundRadius = 15;
+	private double maxBackground = 0.3;
+
+	private int z = 0, t = 0;
+
+	private boolean includeNuclei = true;
+	private double cellExpansion = 0;
+
+	private double minArea = 0;
+	private double maxArea = 0;
+
+	private double medianRadius = 2;
+	private double sigma = 2.5;
+	private double threshold = 0.3;
+	private boolean watershedPostProcess = true;
+	private boolean excludeDAB = false;
+	private boolean smoothBoundaries = false;
+	private boolean backgroundByReconstruction = true;
+	private boolean makeMeasurements = true;
+
+	private final int width, height;
+	private final float[] pxDetection;
+	private final boolean[] mask;
+	private final Map<String, float[]> channels = new LinkedHashMap<>();
+	private final Map<String, float[]> channelsCell = new LinkedHashMap<>();
+	private final RegionRequest request;
+	private final double pixelWidth, pixelHeight;
+
+	private final List<PathObject> pathObjects = new ArrayList<>();
+
+	private NativeWatershedCellDetector(int width, int height, float[] pxDetection, boolean[] mask,
+			Map<String, float[]> channels, Map<String, float[]> channelsCell, RegionRequest request, PixelCalibration cal) {
+		this.width = width;
+		this.height = height;
+		this.pxDetection = pxDetection;
+		this.mask = mask;
+		this.channels.putAll(channels);
+		this.channelsCell.putAll(channelsCell);
+		this.request = request;
+		// Shape measurements should match those made with ImageJ, which uses the calibration of the downsampled image
+		if (cal.hasPixelSizeMicrons()) {
+			this.pixelWidth = cal.getPixelWidthMicrons();
+			this.pixelHeight = cal.getPixelHeightMicrons();
+		} else {
+			this.pixelWidth = 1.0 / request.getDownsample();
+			this.pixelHeight = 1.0 / request.getDownsample();
+		}
+	}
+
+	/**
+	 * Read the pixels required for cell detection.
+	 * @param imageData the image
+	 * @param params cell detection parameters
+	 * @param pathROI the ROI within which cells should be detected
+	 * @param request the region to read
+	 * @return a detector, ready for {@link #runDetection}
+	 * @throws IOException if the pixels could not be read
+	 */
+	static NativeWatershedCellDetector create(ImageData<BufferedImage> imageData, ParameterList params, ROI pathROI, RegionRequest request) throws IOException {
+		var server = imageData.getServer();
+		BufferedImage img = server.readRegion(request);
+		Raster raster = img.getRaster();
+		int w = img.getWidth();
+		int h = img.getHeight();
+
+		float[] pxDetection = null;
+		Map<String, float[]> channels = new LinkedHashMap<>();
+		Map<String, float[]> channelsCell = new LinkedHashMap<>();
+		ColorDeconvolutionStains stains = imageData.getColorDeconvolutionStains();
+
+		if (stains != null && imageData.isBrightfield()) {
+			if (raster.getNumBands() < 3)
+				throw new IllegalArgumentException("Unsupported image for color deconvolution: " + server.getPath());
+			float[][] fps = new float[3][];
+			for (int i = 0; i < 3; i++)
+				fps[i] = ColorDeconvolutionHelper.getPixels(raster, i);
+			ColorDeconvolutionHelper.colorDeconvolve(fps[0], fps[1], fps[2], stains);
+			for (int i = 0; i < 3; i++) {
+				StainVector stain = stains.getStain(i+1);
+				if (!stain.isResidual()) {
+					channels.put(stain.getName() + " OD", fps[i]);
+					channelsCell.put(stain.getName() + " OD", fps[i]);
+				}
+			}
+
+			if (!params.getParameters().get("detectionImageBrightfield").isHidden()) {
+				String stainChoice = (String)params.getChoiceParameterValue("detectionImageBrightfield");
+				if (stainChoice.equals(WatershedCellDetection.IMAGE_OPTICAL_DENSITY)) {
+					pxDetection = ColorDeconvolutionHelper.getOpticalDensities(raster, 0, stains.getMaxRed(), null);
+					float[] temp = ColorDeconvolutionHelper.getOpticalDensities(raster, 1, stains.getMaxGreen(), null);
+					for (int i = 0; i < temp.length; i++)
+						pxDetection[i] += temp[i];
+					temp = ColorDeconvolutionHelper.getOpticalDensities(raster, 2, stains.getMaxBlue(), temp);
+					for (int i = 0; i < temp.length; i++)
+						pxDetection[i] += temp[i];
+				} else if (stainChoice.equals(WatershedCellDetection.IMAGE_HEMATOXYLIN)) {
+					for (int i = 0; i < 3; i++) {
+						if (ColorDeconvolutionStains.isHematoxylin(stains.getStain(i+1))) {
+							pxDetection = fps[i].clone();
+							if (i > 0)
+								logger.warn("Hematoxylin expected to be stain 1, but here it is stain {}", i+1);
+						}
+					}
+					if (pxDetection == null) {
+						logger.warn("Hematoxylin stain not found! The first stain will be used by default ({}).", stains.getStain(1).getName());
+						pxDetection = fps[0].clone();
+					}
+				} else {
+					for (int i = 0; i < 3; i++) {
+						String currentStainName = stains.getStain(i+1).getName();
+						if (stainChoice.equals(currentStainName) || stainChoice.equals(currentStainName + " OD")) {
+							pxDetection = fps[i].clone();
+							logger.warn("Using stain {} for cell detection", currentStainName);
+						}
+					}
+					if (pxDetection == null) {
+						logger.warn("Unknown detection channel {}, I will use the first stain", stainChoice);
+						pxDetection = fps[0].clone();
+					}
+				}
+			}
+		}
+
+		if (pxDetection == null) {
+			if (imageData.isBrightfield())
+				throw new IllegalArgumentException("No valid detection channel is selected!");
+			List<ImageChannel> imageChannels = imageData.getServerMetadata().getChannels();
+			int nChannels = Math.min(raster.getNumBands(), imageChannels.size());
+			for (int c = 0; c < nChannels; c++) {
+				String name = imageChannels.get(c).getName();
+				if (channels.containsKey(name))
+					logger.warn("Channel with duplicate name '{}' - will be skipped", name);
+				else
+					channels.put(name, ColorDeconvolutionHelper.getPixels(raster, c));
+			}
+			channelsCell.putAll(channels);
+			pxDetection = channels.get((String)params.getChoiceParameterValue("detectionImage"));
+		}
+
+		return new NativeWatershedCellDetector(w, h, pxDetection, createMask(pathROI, request, w, h),
+				channels, channelsCell, request, server.getPixelCalibration());
+	}
+
+	/**
+	 * Create a binary mask for a ROI, or null if the ROI covers the full region.
+	 */
+	private static boolean[] createMask(ROI pathROI, RegionRequest request, int width, int height) {
+		if (pathROI instanceof RectangleROI &&
+				pathROI.getBoundsX() <= request.getX() && pathROI.getBoundsY() <= request.getY() &&
+				pathROI.getBoundsX() + pathROI.getBoundsWidth() >= request.getMaxX() &&
+				pathROI.getBoundsY() + pathROI.getBoundsHeight() >= request.getMaxY())
+			return null;
+		var imgMask = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_GRAY);
+		var g2d = imgMask.createGraphics();
+		g2d.scale(1.0 / request.getDownsample(), 1.0 / request.getDownsample());
+		g2d.translate(-request.getX(), -request.getY());
+		g2d.setColor(Color.WHITE);
+		g2d.fill(pathROI.getShape());
+		g2d.dispose();
+		byte[] bytes = ((DataBufferByte)imgMask.getRaster().getDataBuffer()).getData();
+		boolean[] mask = new boolean[bytes.length];
+		for (int i = 0; i < bytes.length; i++)
+			mask[i] = bytes[i] != 0;
+		return mask;
+	}
+
+
+	public List<PathObject> getPathObjects() {
+		return pathObjects;
+	}
+
+
+	public void runDetection(double backgroundRadius, double maxBackground, double medianRadius, double sigma,
+			double threshold, double minArea, double maxArea, boolean watershedPostProcess,
+			boolean excludeDAB, double cellExpansion, boolean smoothBoundaries, boolean includeNuclei, boolean makeMeasurements,
+			int z, int t,
+			boolean backgroundByReconstruction) {
+		this.medianRadius = medianRadius;
+		this.z = z;
+		this.t = t;
+		this.backgroundRadius = backgroundRadius;
+		this.sigma = sigma;
+		this.excludeDAB = excludeDAB;
+		this.minArea = minArea;
+		this.maxArea = maxArea;
+		this.maxBackground = maxBackground;
+		this.threshold = threshold;
+		this.watershedPostProcess = watershedPostProcess;
+		this.cellExpansion = cellExpansion;
+		this.smoothBoundaries = smoothBoundaries;
+		this.includeNuclei = includeNuclei;
+		this.makeMeasurements = makeMeasurements;
+		this.backgroundByReconstruction = backgroundByReconstruction;
+
+		doDetection();
+	}
+
+
+	private void doDetection() {
+		pathObjects.clear();
+		int n = width * height;
+
+		// Use Laplacian of Gaussian filtering followed by watershed transform to determine possible nucleus segments
+		float[] pxLoG = pxDetection.clone();
+		if (medianRadius > 0)
+			pxLoG = PixelFilters.rankFilter(pxLoG, width, height, medianRadius, RankType.MEDIAN);
+
+		if (excludeDAB && channels.containsKey("Hematoxylin OD") && channels.containsKey("DAB OD")) {
+			// If we are avoiding DAB, set pixels away from potential nuclei to zero
+			float[] pxH = channels.get("Hematoxylin OD");
+			float[] pxDAB = channels.get("DAB OD");
+			float[] pxKeep = new float[n];
+			for (int i = 0; i < n; i++)
+				pxKeep[i] = pxH[i] >= pxDAB[i] ? 1f : 0f;
+			pxKeep = PixelFilters.rankFilter(pxKeep, width, height, 2.5, RankType.MEDIAN);
+			pxKeep = PixelFilters.rankFilter(pxKeep, width, height, 2.5, RankType.MAX);
+			for (int i = 0; i < n; i++)
+				pxLoG[i] *= pxKeep[i];
+		}
+
+		// Subtract background first, if needed
+		float[] pxToMeasure;
+		boolean[] backgroundMask = null;
+		if (backgroundRadius > 0) {
+			float[] pxBackground = PixelFilters.rankFilter(pxLoG, width, height, backgroundRadius, RankType.MIN);
+			if (!Double.isNaN(maxBackground) && maxBackground > 0) {
+				float[] pxMask = null;
+				for (int i = 0; i < n; i++) {
+					if (pxBackground[i] > maxBackground) {
+						if (pxMask == null)
+							pxMask = new float[n];
+						pxMask[i] = 1f;
+					}
+				}
+				if (pxMask != null) {
+					pxMask = PixelFilters.rankFilter(pxMask, width, height, backgroundRadius*2, RankType.MAX);
+					backgroundMask = new boolean[n];
+					for (int i = 0; i < n; i++) {
+						if (pxMask[i] != 0f) {
+							pxBackground[i] = Float.NEGATIVE_INFINITY;
+							backgroundMask[i] = true;
+						}
+					}
+				}
+			}
+			if (backgroundByReconstruction)
+				MorphologicalReconstruction.morphologicalReconstruction(image(pxBackground), image(pxLoG));
+			else
+				pxBackground = PixelFilters.rankFilter(pxBackground, width, height, backgroundRadius, RankType.MAX);
+			for (int i = 0; i < n; i++)
+				pxLoG[i] -= pxBackground[i];
+			pxToMeasure = pxLoG.clone();
+		} else {
+			pxToMeasure = pxDetection;
+		}
+
+		// Apply (approximation of) Laplacian of Gaussian filter
+		PixelFilters.gaussianBlur(pxLoG, width, height, sigma);
+		PixelFilters.laplacian3x3(pxLoG, width, height);
+
+		boolean[] bpLoG = new boolean[n];
+		for (int i = 0; i < n; i++)
+			bpLoG[i] = pxLoG[i] > 0;
+
+		float[] pxMaxima = PixelFilters.findRegionalMaxima(pxLoG, width, height, 0.001f);
+		boolean[] bpMaxima = new boolean[n];
+		for (int i = 0; i < n; i++)
+			bpMaxima[i] = pxMaxima[i] > 0;
+		float[] labels = new float[n];
+		int nLabels = PixelFilters.labelConnected(bpMaxima, width, height, false, labels);
+		Watershed.doWatershed(image(pxLoG), image(labels), 0, false);
+
+		if (Thread.currentThread().isInterrupted())
+			return;
+
+		// Keep only the regions with a high enough mean intensity, and away from high background
+		double[] sums = new double[nLabels + 1];
+		int[] counts = new int[nLabels + 1];
+		boolean[] onBackground = new boolean[nLabels + 1];
+		for (int i = 0; i < n; i++) {
+			int label = (int)labels[i];
+			if (label == 0)
+				continue;
+			sums[label] += pxToMeasure[i];
+			counts[label]++;
+			if (backgroundMask != null && backgroundMask[i])
+				onBackground[label] = true;
+		}
+		boolean[] bp = new boolean[n];
+		for (int i = 0; i < n; i++) {
+			int label = (int)labels[i];
+			bp[i] = label != 0 && sums[label] / counts[label] > threshold && !onBackground[label];
+		}
+
+		if (Thread.currentThread().isInterrupted())
+			return;
+
+		// Merge the potential nucleus regions
+		bp = PixelFilters.filter3x3(bp, width, height, true);
+		for (int i = 0; i < n; i++)
+			bp[i] = bp[i] && bpLoG[i];
+		if (watershedPostProcess) {
+			PixelFilters.labelConnected(bp, width, height, false, labels);
+			PixelFilters.fillHoles(labels, width, height);
+			for (int i = 0; i < n; i++)
+				bp[i] = labels[i] != 0;
+			PixelFilters.watershedSplit(bp, width, height);
+		}
+		if (mask != null) {
+			for (int i = 0; i < n; i++)
+				bp[i] = bp[i] && mask[i];
+		}
+
+		// Minor boundary refinement, as for the ImageJ implementation
+		if (refineBoundary && sigma > 1.5) {
+			float[] pxBoundaryCleanup = pxDetection.clone();
+			PixelFilters.gaussianBlur(pxBoundaryCleanup, width, height, 1);
+			PixelFilters.laplacian3x3(pxBoundaryCleanup, width, height);
+			boolean[] bpEroded = PixelFilters.filter3x3(bp, width, height, false);
+			for (int i = 0; i < n; i++)
+				bp[i] = bpEroded[i] || (bp[i] && pxBoundaryCleanup[i] > 0);
+		}
+
+		// Label nuclei, then remove those with areas or intensities outside the permitted range
+		PixelFilters.labelConnected(bp, width, height, false, labels);
+		PixelFilters.fillHoles(labels, width, height);
+		int nNuclei = filterLabels(labels, pxToMeasure);
+		if (nNuclei == 0)
+			return;
+		for (int i = 0; i < n; i++)
+			bp[i] = labels[i] != 0;
+
+		if (Thread.currentThread().isInterrupted())
+			return;
+
+		// Measure nuclei for all required channels
+		SimpleImage imgLabels = image(labels);
+		Map<String, List<RunningStatistics>> statsMap = new LinkedHashMap<>();
+		if (makeMeasurements) {
+			for (var entry : channels.entrySet())
+				statsMap.put(entry.getKey(), computeStatistics(entry.getValue(), imgLabels, nNuclei));
+		}
+
+		double downsampleSqrt = Math.sqrt(request.getDownsample());
+		ImagePlane plane = ImagePlane.getPlane(z, t);
+
+		// Create nucleus objects
+		ROI[] nucleusROIs = createROIs(imgLabels, nNuclei, plane);
+		List<PathObject> nucleiObjects = new ArrayList<>();
+		for (int i = 0; i < nNuclei; i++) {
+			ROI pathROI = nucleusROIs[i];
+			if (pathROI == null) {
+				nucleiObjects.add(null);
+				continue;
+			}
+			if (smoothBoundaries && pathROI instanceof PolygonROI polygon)
+				pathROI = ShapeSimplifier.simplifyPolygon(smoothPolygon(polygon), downsampleSqrt/2);
+
+			MeasurementList measurementList = MeasurementListFactory.createMeasurementList(makeMeasurements ? 30 : 0, MeasurementList.MeasurementListType.FLOAT);
+			if (makeMeasurements) {
+				ObjectMeasurements.addShapeStatistics(measurementList, scaledGeometry(pathROI), "Nucleus: ");
+				for (String key : channels.keySet()) {
+					RunningStatistics stats = statsMap.get(key).get(i);
+					measurementList.put("Nucleus: " + key + " mean", stats.getMean());
+					measurementList.put("Nucleus: " + key + " sum", stats.getSum());
+					measurementList.put("Nucleus: " + key + " std dev", stats.getStdDev());
+					measurementList.put("Nucleus: " + key + " max", stats.getMax());
+					measurementList.put("Nucleus: " + key + " min", stats.getMin());
+					measurementList.put("Nucleus: " + key + " range", stats.getRange());
+				}
+			}
+			nucleiObjects.add(PathObjects.createDetectionObject(pathROI, null, measurementList));
+		}
+
+		if (Thread.currentThread().isInterrupted())
+			return;
+
+		// Optionally expand the nuclei to become cells
+		if (cellExpansion > 0) {
+			boolean[] notNucleus = new boolean[n];
+			for (int i = 0; i < n; i++)
+				notNucleus[i] = !bp[i];
+			float[] pxEDM = PixelFilters.distanceTransform(notNucleus, width, height);
+			for (int i = 0; i < n; i++)
+				pxEDM[i] = -pxEDM[i];
+
+			float[] labelsCells = labels.clone();
+			SimpleImage imgLabelsCells = image(labelsCells);
+			Watershed.doWatershed(image(pxEDM), image(labelsCells), -cellExpansion, false);
+			ROI[] cellROIs = createROIs(imgLabelsCells, nNuclei, plane);
+
+			Map<String, List<RunningStatistics>> statsMapCell = new LinkedHashMap<>();
+			Map<String, List<RunningStatistics>> statsMapCytoplasm = new LinkedHashMap<>();
+			if (makeMeasurements) {
+				for (var entry : channelsCell.entrySet())
+					statsMapCell.put(entry.getKey(), computeStatistics(entry.getValue(), imgLabelsCells, nNuclei));
+				// Create labelled image for cytoplasm, i.e. remove all nucleus pixels
+				for (int i = 0; i < n; i++) {
+					if (labels[i] != 0)
+						labelsCells[i] = 0f;
+				}
+				for (var entry : channelsCell.entrySet())
+					statsMapCytoplasm.put(entry.getKey(), computeStatistics(entry.getValue(), imgLabelsCells, nNuclei));
+			}
+
+			for (int i = 0; i < nNuclei; i++) {
+				ROI pathROI = cellROIs[i];
+				if (pathROI == null)
+					continue;
+				if (smoothBoundaries && pathROI instanceof PolygonROI polygon)
+					pathROI = ShapeSimplifier.simplifyPolygon(smoothPolygon(polygon), downsampleSqrt/2.0);
+
+				MeasurementList measurementList;
+				PathObject nucleus = null;
+				if (includeNuclei && nucleiObjects.get(i) != null) {
+					nucleus = nucleiObjects.get(i);
+					measurementList = nucleus.getMeasurementList();
+				} else {
+					measurementList = MeasurementListFactory.createMeasurementList(makeMeasurements ? 12 : 0, MeasurementList.MeasurementListType.GENERAL);
+				}
+
+				if (makeMeasurements) {
+					ObjectMeasurements.addShapeStatistics(measurementList, scaledGeometry(pathROI), "Cell: ");
+					for (String key : channelsCell.keySet()) {
+						RunningStatistics stats = statsMapCell.get(key).get(i);
+						measurementList.put("Cell: " + key + " mean", stats.getMean());
+						measurementList.put("Cell: " + key + " std dev", stats.getStdDev());
+						measurementList.put("Cell: " + key + " max", stats.getMax());
+						measurementList.put("Cell: " + key + " min", stats.getMin());
+					}
+					for (String key : channelsCell.keySet()) {
+						RunningStatistics stats = statsMapCytoplasm.get(key).get(i);
+						measurementList.put("Cytoplasm: " + key + " mean", stats.getMean());
+						measurementList.put("Cytoplasm: " + key + " std dev", stats.getStdDev());
+						measurementList.put("Cytoplasm: " + key + " max", stats.getMax());
+						measurementList.put("Cytoplasm: " + key + " min", stats.getMin());
+					}
+					if (nucleus != null && nucleus.getROI().isArea()) {
+						double nucleusArea = nucleus.getROI().getArea();
+						double cellArea = pathROI.getArea();
+						measurementList.put("Nucleus/Cell area ratio", Math.min(nucleusArea / cellArea, 1.0));
+					}
+				}
+				pathObjects.add(PathObjects.createCellObject(pathROI, nucleus == null ? null : nucleus.getROI(), null, measurementList));
+			}
+		} else {
+			for (var nucleus : nucleiObjects) {
+				if (nucleus != null)
+					pathObjects.add(nucleus);
+			}
+		}
+
+		// Close the measurement lists
+		for (PathObject pathObject : pathObjects)
+			pathObject.getMeasurementList().close();
+
+		// Sometimes smoothing can cause nuclei of cell boundaries to be removed - in this case,
+		// filter out the invalid ROIs now
+		int sizeBefore = pathObjects.size();
+		pathObjects.removeIf(p -> PathObjectTools.getROI(p, false).isEmpty() ||
+				PathObjectTools.getROI(p, true).isEmpty());
+		int sizeAfter = pathObjects.size();
+		if (sizeBefore != sizeAfter) {
+			logger.debug("Filtered out {} invalid cells (empty ROIs)", sizeBefore - sizeAfter);
+		}
+	}
+
+
+	/**
+	 * Remove labels with an area or mean intensity outside the permitted range, and relabel the
+	 * remaining regions consecutively.
+	 * @return the number of labels that remain
+	 */
+	private int filterLabels(float[] labels, float[] pxToMeasure) {
+		int nLabels = 0;
+		for (float label : labels)
+			nLabels = Math.max(nLabels, (int)label);
+		double[] sums = new double[nLabels + 1];
+		int[] counts = new int[nLabels + 1];
+		for (int i = 0; i < labels.length; i++) {
+			int label = (int)labels[i];
+			if (label != 0) {
+				sums[label] += pxToMeasure[i];
+				counts[label]++;
+			}
+		}
+		int[] newLabels = new int[nLabels + 1];
+		int nKept = 0;
+		for (int label = 1; label <= nLabels; label++) {
+			int area = counts[label];
+			if (area == 0)
+				continue;
+			if (minArea > 0 || maxArea > 0) {
+				double mean = sums[label] / area;
+				if (mean < threshold || (minArea > 0 && area < minArea) || (maxArea > 0 && area > maxArea))
+					continue;
+			}
+			newLabels[label] = ++nKept;
+		}
+		for (int i = 0; i < labels.length; i++)
+			labels[i] = newLabels[(int)labels[i]];
+		return nKept;
+	}
+
+
+	private static List<RunningStatistics> computeStatistics(float[] px, SimpleImage imgLabels, int nLabels) {
+		List<RunningStatistics> statsList = StatisticsHelper.createRunningStatisticsList(nLabels);
+		StatisticsHelper.computeRunningStatistics(
+				SimpleImages.createFloatImage(px, imgLabels.getWidth(), imgLabels.getHeight()), imgLabels, statsList);
+		return statsList;
+	}
+
+
+	/**
+	 * Trace the ROIs for each label, returning an array where element i corresponds to label i+1.
+	 */
+	private ROI[] createROIs(SimpleImage imgLabels, int nLabels, ImagePlane plane) {
+		ROI[] rois = new ROI[nLabels];
+		var map = ContourTracing.createGeometries(imgLabels, request, 1, nLabels);
+		for (var entry : map.entrySet()) {
+			int ind = entry.getKey().intValue() - 1;
+			var geom = entry.getValue();
+			if (ind >= 0 && ind < nLabels && geom != null && !geom.isEmpty()) {
+				// Keep only the largest polygon if tracing gave more than one (e.g. for regions that meet only diagonally)
+				if (geom.getNumGeometries() > 1)
+					geom = largestPolygon(geom);
+				rois[ind] = GeometryTools.geometryToROI(geom, plane);
+			}
+		}
+		return rois;
+	}
+
+	private static Geometry largestPolygon(Geometry geom) {
+		Geometry largest = null;
+		for (int i = 0; i < geom.getNumGeometries(); i++) {
+			var part = geom.getGeometryN(i);
+			if (part instanceof Polygon && (largest == null || part.getArea() > largest.getArea()))
+				largest = part;
+		}
+		return largest == null ? geom : largest;
+	}
+
+
+	/**
+	 * Get the geometry for a ROI, scaled according to the pixel calibration.
+	 */
+	private Geometry scaledGeometry(ROI roi) {
+		var geom = roi.getGeometry();
+		if (pixelWidth == 1 && pixelHeight == 1)
+			return geom;
+		return AffineTransformation.scaleInstance(pixelWidth, pixelHeight).transform(geom);
+	}
+
+
+	/**
+	 * Smooth a polygon in the same way as for the ImageJ implementation, i.e. by interpolating at 1 pixel intervals
+	 * (in the downsampled image), averaging neighboring vertices, and interpolating again.
+	 */
+	private PolygonROI smoothPolygon(PolygonROI polygon) {
+		double downsample = request.getDownsample();
+		double xOrigin = request.getX();
+		double yOrigin = request.getY();
+		List<Point2> points = polygon.getAllPoints();
+		int nPoints = points.size();
+		if (nPoints < 3)
+			return polygon;
+		double[] x = new double[nPoints];
+		double[] y = new double[nPoints];
+		for (int i = 0; i < nPoints; i++) {
+			x[i] = (points.get(i).getX() - xOrigin) / downsample;
+			y[i] = (points.get(i).getY() - yOrigin) / downsample;
+		}
+		double[][] interpolated = interpolate(x, y, 1.0);
+		int n = interpolated[0].length;
+		if (n < 3)
+			return polygon;
+		int nSmoothed = (n + 1) / 2;
+		double[] xs = new double[nSmoothed];
+		double[] ys = new double[nSmoothed];
+		for (int i = 0, j = 0; i < n; i += 2, j++) {
+			int iMinus = (i + n - 1) % n;
+			int iPlus = (i + 1) % n;
+			xs[j] = (interpolated[0][iMinus] + interpolated[0][iPlus] + interpolated[0][i]) / 3;
+			ys[j] = (interpolated[1][iMinus] + interpolated[1][iPlus] + interpolated[1][i]) / 3;
+		}
+		interpolated = interpolate(xs, ys, Math.min(2, nSmoothed * 0.1));
+		List<Point2> pointsSmoothed = new ArrayList<>(interpolated[0].length);
+		for (int i = 0; i < interpolated[0].length; i++)
+			pointsSmoothed.add(new Point2(interpolated[0][i] * downsample + xOrigin, interpolated[1][i] * downsample + yOrigin));
+		return ROIs.createPolygonROI(pointsSmoothed, polygon.getImagePlane());
+	}
+
+	/**
+	 * Interpolate points along a closed polygon at (approximately) fixed intervals.
+	 */
+	private static double[][] interpolate(double[] x, double[] y, double interval) {
+		int n = x.length;
+		double length = 0;
+		for (int i = 0; i < n; i++)
+			length += Math.hypot(x[(i+1) % n] - x[i], y[(i+1) % n] - y[i]);
+		if (!(interval > 0) || length <= interval)
+			return new double[][] {x, y};
+		int nOutput = (int)Math.max(3, Math.round(length / interval));
+		double step = length / nOutput;
+		double[] xOut = new double[nOutput];
+		double[] yOut = new double[nOutput];
+		int segment = 0;
+		double segmentStart = 0;
+		double segmentLength = Math.hypot(x[1 % n] - x[0], y[1 % n] - y[0]);
+		for (int k = 0; k < nOutput; k++) {
+			double pos = k * step;
+			while (pos > segmentStart + segmentLength && segment < n - 1) {
+				segmentStart += segmentLength;
+				segment++;
+				segmentLength = Math.hypot(x[(segment+1) % n] - x[segment], y[(segment+1) % n] - y[segment]);
+			}
+			double frac = segmentLength == 0 ? 0 : (pos - segmentStart) / segmentLength;
+			xOut[k] = x[segment] + frac * (x[(segment+1) % n] - x[segment]);
+			yOut[k] = y[segment] + frac * (y[(segment+1) % n] - y[segment]);
+		}
+		return new double[][] {xOut, yOut};
+	}
+
+
+	private SimpleModifiableImage image(float[] px) {
+		return SimpleImages.createFloatImage(px, width, height);
+	}
+
+}
@@ -28,6 +28,10 @@ import ij.gui.Roi;
 import ij.measure.Calibration;
 import ij.process.ImageProcessor;
 import ij.process.ImageStatistics;
+import org.locationtech.jts.algorithm.MinimumDiameter;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.geom.Polygon;
 import qupath.lib.measurements.MeasurementList;
 import qupath.lib.roi.PolygonROI;
 import qupath.lib.roi.RoiTools;
@@ -56,6 +60,75 @@ class ObjectMeasurements {
 		measurementList.put(prefix + "Solidity", roi.getSolidity());
 	}
 
+	/**
+	 * Add the same shape measurements as {@link #addShapeStatistics(MeasurementList, Roi, ImageProcessor, Calibration, String)}, 
+	 * but calculated from a geometry rather than an ImageJ Roi.
+	 * @param measurementList
+	 * @param geometry the geometry, which should already be scaled to calibrated units
+	 * @param prefix
+	 */
+	public static void addShapeStatistics(MeasurementList measurementList, Geometry geometry, String prefix) {
+		double area = geometry.getArea();
+		double perimeter = geometry.getLength();
+		if (geometry.getDimension() == 2)
+			measurementList.put(prefix + "Area", area);
+		measurementList.put(prefix + "Perimeter", perimeter);
+		measurementList.put(prefix + "Circularity", Math.min(4.0 * Math.PI * area / (perimeter * perimeter), 1));
+		
+		// Max caliper is the maximum distance between any two points on the convex hull
+		Coordinate[] hull = geometry.convexHull().getCoordinates();
+		double maxCaliper = 0;
+		for (int i = 0; i < hull.length; i++) {
+			for (int j = i + 1; j < hull.length; j++)
+				maxCaliper = Math.max(maxCaliper, hull[i].distance(hull[j]));
+		}
+		measurementList.put(prefix + "Max caliper", maxCaliper);
+		measurementList.put(prefix + "Min caliper", new MinimumDiameter(geometry).getLength());
+		
+		// Eccentricity from the second central moments, as for the best-fitting ellipse
+		double[] moments = new double[6];
+		for (int i = 0; i < geometry.getNumGeometries(); i++) {
+			if (geometry.getGeometryN(i) instanceof Polygon polygon) {
+				var normalized = (Polygon)polygon.norm();
+				addMoments(normalized.getExteriorRing().getCoordinates(), moments);
+				for (int r = 0; r < normalized.getNumInteriorRing(); r++)
+					addMoments(normalized.getInteriorRingN(r).getCoordinates(), moments);
+			}
+		}
+		double eccentricity = Double.NaN;
+		double a = moments[0];
+		if (a != 0) {
+			double cx = moments[1] / a;
+			double cy = moments[2] / a;
+			double uxx = moments[3] / a - cx * cx;
+			double uyy = moments[4] / a - cy * cy;
+			double uxy = moments[5] / a - cx * cy;
+			double common = Math.sqrt((uxx - uyy) * (uxx - uyy) + 4 * uxy * uxy);
+			double lambdaMax = (uxx + uyy + common) / 2;
+			double lambdaMin = (uxx + uyy - common) / 2;
+			if (lambdaMax > 0)
+				eccentricity = Math.sqrt(Math.max(0, 1 - Math.max(lambdaMin, 0) / lambdaMax));
+		}
+		measurementList.put(prefix + "Eccentricity", eccentricity);
+	}
+	
+	/**
+	 * Accumulate signed area, first and second moments for a closed ring using Green's theorem.
+	 */
+	private static void addMoments(Coordinate[] ring, double[] moments) {
+		for (int i = 0; i < ring.length - 1; i++) {
+			double x0 = ring[i].x, y0 = ring[i].y;
+			double x1 = ring[i+1].x, y1 = ring[i+1].y;
+			double c = x0 * y1 - x1 * y0;
+			moments[0] += c / 2;
+			moments[1] += (x0 + x1) * c / 6;
+			moments[2] += (y0 + y1) * c / 6;
+			moments[3] += (x0 * x0 + x0 * x1 + x1 * x1) * c / 12;
+			moments[4] += (y0 * y0 + y0 * y1 + y1 * y1) * c / 12;
+			moments[5] += (x0 * y1 + 2 * x0 * y0 + 2 * x1 * y1 + x1 * y0) * c / 24;
+		}
+	}
+
 	public static void addShapeStatistics(MeasurementList measurementList, Roi roi, ImageProcessor ip, Calibration cal, String prefix) {
 		ip.setRoi(roi);
 		ImageStatistics stats = ImageStatistics.getStatistics(ip, ShapeStatsIJ.SHAPE_MEASUREMENT_OPTIONS, cal);
@@ -0,0 +1,461 @@
+/*-
+ * #%L
+ * This file is part of QuPath.
+ * %%
+ * Copyright (C) 2026 QuPath developers, The University of Edinburgh
+ * %%
+ * QuPath is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * QuPath is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with QuPath.  If not, see <https://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package qupath.imagej.detect.cells;
+
+import qupath.lib.analysis.algorithms.MorphologicalReconstruction;
+import qupath.lib.analysis.algorithms.Watershed;
+import qupath.lib.analysis.images.SimpleImages;
+
+import java.util.Arrays;
+
+/**
+ * Basic filters applied to images stored as row-major float arrays.
+ * <p>
+ * These are intended to mimic the behavior of the corresponding ImageJ filters used for cell detection,
+ * without the need to create ImageJ objects.
+ * Pixels outside the image are treated as having the value of the nearest edge pixel.
+ *
+ * @author Pete Bankhead
+ */
+class PixelFilters {
+
+	enum RankType { MIN, MAX, MEDIAN }
+
+	/**
+	 * Apply a rank filter with a circular neighborhood, defined as in ImageJ's {@code RankFilters}.
+	 * @param px input pixels; these are not modified
+	 * @param width
+	 * @param height
+	 * @param radius filter radius
+	 * @param type
+	 * @return a new array containing the filtered pixels
+	 */
+	static float[] rankFilter(float[] px, int width, int height, double radius, RankType type) {
+		int[] lineRadii = getLineRadii(radius);
+		int kRadius = lineRadii.length / 2;
+		float[] output = new float[px.length];
+		if (type == RankType.MEDIAN) {
+			int n = 0;
+			for (int r : lineRadii)
+				n += 2 * r + 1;
+			float[] values = new float[n];
+			for (int y = 0; y < height; y++) {
+				for (int x = 0; x < width; x++) {
+					int count = 0;
+					for (int dy = -kRadius; dy <= kRadius; dy++) {
+						int row = clamp(y + dy, height) * width;
+						int r = lineRadii[dy + kRadius];
+						for (int dx = -r; dx <= r; dx++)
+							values[count++] = px[row + clamp(x + dx, width)];
+					}
+					Arrays.sort(values);
+					output[y * width + x] = values[n / 2];
+				}
+			}
+			return output;
+		}
+		boolean isMax = type == RankType.MAX;
+		float[] rowFiltered = new float[width];
+		float[] g = new float[width + 2 * kRadius + 2];
+		float[] h = new float[g.length];
+		Arrays.fill(output, isMax ? Float.NEGATIVE_INFINITY : Float.POSITIVE_INFINITY);
+		// Each line of the kernel is applied to the corresponding row as a 1D filter
+		for (int y = 0; y < height; y++) {
+			int offset = y * width;
+			for (int dy = -kRadius; dy <= kRadius; dy++) {
+				filter1D(px, clamp(y + dy, height) * width, width, lineRadii[dy + kRadius], isMax, rowFiltered, g, h);
+				if (isMax) {
+					for (int x = 0; x < width; x++)
+						output[offset + x] = Math.max(output[offset + x], rowFiltered[x]);
+				} else {
+					for (int x = 0; x < width; x++)
+						output[offset + x] = Math.min(output[offset + x], rowFiltered[x]);
+				}
+			}
+		}
+		return output;
+	}
+
+	/**
+	 * Get the half-width of each row of a circular kernel, using the same approach as ImageJ.
+	 */
+	private static int[] getLineRadii(double radius) {
+		if (radius >= 1.5 && radius < 1.75)
+			radius = 1.75;
+		else if (radius >= 2.5 && radius < 2.85)
+			radius = 2.85;
+		int r2 = (int)(radius * radius) + 1;
+		int kRadius = (int)Math.sqrt(r2 + 1e-10);
+		int[] lineRadii = new int[2 * kRadius + 1];
+		for (int y = -kRadius; y <= kRadius; y++)
+			lineRadii[y + kRadius] = (int)Math.sqrt(r2 - y * y + 1e-10);
+		return lineRadii;
+	}
+
+	/**
+	 * 1D min or max filter using the van Herk/Gil-Werman algorithm, so that the cost is independent of the radius.
+	 */
+	private static void filter1D(float[] px, int offset, int width, int radius, boolean isMax, float[] output, float[] g, float[] h) {
+		int k = 2 * radius + 1;
+		int n = width + 2 * radius;
+		for (int i = 0; i < n; i++) {
+			float v = px[offset + clamp(i - radius, width)];
+			if (i % k == 0)
+				g[i] = v;
+			else
+				g[i] = isMax ? Math.max(g[i-1], v) : Math.min(g[i-1], v);
+		}
+		for (int i = n - 1; i >= 0; i--) {
+			float v = px[offset + clamp(i - radius, width)];
+			if (i == n - 1 || (i + 1) % k == 0)
+				h[i] = v;
+			else
+				h[i] = isMax ? Math.max(h[i+1], v) : Math.min(h[i+1], v);
+		}
+		for (int x = 0; x < width; x++)
+			output[x] = isMax ? Math.max(h[x], g[x + k - 1]) : Math.min(h[x], g[x + k - 1]);
+	}
+
+	/**
+	 * Apply a 3x3 min or max filter to a binary image.
+	 * @param bp binary image; this is not modified
+	 * @param width
+	 * @param height
+	 * @param isMax true for a max filter (dilation), false for a min filter (erosion)
+	 * @return a new array containing the filtered image
+	 */
+	static boolean[] filter3x3(boolean[] bp, int width, int height, boolean isMax) {
+		boolean[] output = new boolean[bp.length];
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				boolean val = !isMax;
+				for (int dy = -1; dy <= 1 && val != isMax; dy++) {
+					int row = clamp(y + dy, height) * width;
+					for (int dx = -1; dx <= 1; dx++) {
+						if (bp[row + clamp(x + dx, width)] == isMax) {
+							val = isMax;
+							break;
+						}
+					}
+				}
+				output[y * width + x] = val;
+			}
+		}
+		return output;
+	}
+
+	/**
+	 * Apply a Gaussian filter in-place, using the same kernel accuracy as ImageJ for float images.
+	 * @param px
+	 * @param width
+	 * @param height
+	 * @param sigma
+	 */
+	static void gaussianBlur(float[] px, int width, int height, double sigma) {
+		if (!(sigma > 0))
+			return;
+		int kRadius = (int)Math.ceil(sigma * Math.sqrt(-2 * Math.log(0.0002))) + 1;
+		float[] kernel = new float[2 * kRadius + 1];
+		double sum = 0;
+		for (int i = -kRadius; i <= kRadius; i++) {
+			double val = Math.exp(-0.5 * i * i / (sigma * sigma));
+			kernel[i + kRadius] = (float)val;
+			sum += val;
+		}
+		for (int i = 0; i < kernel.length; i++)
+			kernel[i] /= sum;
+
+		float[] temp = new float[px.length];
+		// Horizontal
+		for (int y = 0; y < height; y++) {
+			int offset = y * width;
+			for (int x = 0; x < width; x++) {
+				double val = 0;
+				for (int k = -kRadius; k <= kRadius; k++)
+					val += kernel[k + kRadius] * px[offset + clamp(x + k, width)];
+				temp[offset + x] = (float)val;
+			}
+		}
+		// Vertical
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				double val = 0;
+				for (int k = -kRadius; k <= kRadius; k++)
+					val += kernel[k + kRadius] * temp[clamp(y + k, height) * width + x];
+				px[y * width + x] = (float)val;
+			}
+		}
+	}
+
+	/**
+	 * Apply the 3x3 Laplacian filter {@code [0, -1, 0, -1, 4, -1, 0, -1, 0]} in-place.
+	 * @param px
+	 * @param width
+	 * @param height
+	 */
+	static void laplacian3x3(float[] px, int width, int height) {
+		float[] input = px.clone();
+		for (int y = 0; y < height; y++) {
+			int row = y * width;
+			int rowAbove = clamp(y - 1, height) * width;
+			int rowBelow = clamp(y + 1, height) * width;
+			for (int x = 0; x < width; x++) {
+				px[row + x] = 4 * input[row + x]
+						- input[rowAbove + x] - input[rowBelow + x]
+						- input[row + clamp(x - 1, width)] - input[row + clamp(x + 1, width)];
+			}
+		}
+	}
+
+	/**
+	 * Calculate the Euclidean distance from each foreground pixel to the closest background pixel.
+	 * Pixels outside the image are not considered to be background.
+	 * @param foreground
+	 * @param width
+	 * @param height
+	 * @return
+	 */
+	static float[] distanceTransform(boolean[] foreground, int width, int height) {
+		// Exact transform, using the separable algorithm of Felzenszwalb & Huttenlocher
+		double inf = 1e20;
+		int n = Math.max(width, height);
+		double[] f = new double[n];
+		double[] d = new double[n];
+		double[] z = new double[n + 1];
+		int[] v = new int[n];
+		double[] dist = new double[foreground.length];
+		for (int i = 0; i < foreground.length; i++)
+			dist[i] = foreground[i] ? inf : 0;
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++)
+				f[y] = dist[y * width + x];
+			distanceTransform1D(f, height, d, v, z);
+			for (int y = 0; y < height; y++)
+				dist[y * width + x] = d[y];
+		}
+		for (int y = 0; y < height; y++) {
+			System.arraycopy(dist, y * width, f, 0, width);
+			distanceTransform1D(f, width, d, v, z);
+			System.arraycopy(d, 0, dist, y * width, width);
+		}
+		float[] output = new float[foreground.length];
+		for (int i = 0; i < output.length; i++)
+			output[i] = (float)Math.sqrt(dist[i]);
+		return output;
+	}
+
+	private static void distanceTransform1D(double[] f, int n, double[] d, int[] v, double[] z) {
+		int k = 0;
+		v[0] = 0;
+		z[0] = Double.NEGATIVE_INFINITY;
+		z[1] = Double.POSITIVE_INFINITY;
+		for (int q = 1; q < n; q++) {
+			double s = ((f[q] + q * q) - (f[v[k]] + v[k] * v[k])) / (2.0 * q - 2.0 * v[k]);
+			while (s <= z[k]) {
+				k--;
+				s = ((f[q] + q * q) - (f[v[k]] + v[k] * v[k])) / (2.0 * q - 2.0 * v[k]);
+			}
+			k++;
+			v[k] = q;
+			z[k] = s;
+			z[k+1] = Double.POSITIVE_INFINITY;
+		}
+		k = 0;
+		for (int q = 0; q < n; q++) {
+			while (z[k+1] < q)
+				k++;
+			d[q] = (q - v[k]) * (q - v[k]) + f[v[k]];
+		}
+	}
+
+	/**
+	 * Find regional maxima using morphological reconstruction, returning an image in which the value of each pixel is
+	 * the height of any maximum above its surroundings (or zero elsewhere).
+	 * @param px
+	 * @param width
+	 * @param height
+	 * @param threshold minimum value of a pixel for it to be considered as a maximum
+	 * @return
+	 */
+	static float[] findRegionalMaxima(float[] px, int width, int height, float threshold) {
+		float[] marker = px.clone();
+		for (int y = 1; y < height - 1; y++) {
+			for (int x = 1; x < width - 1; x++) {
+				int i = y * width + x;
+				float val = px[i];
+				if (val < threshold)
+					continue;
+				if (val >= px[i-1] && val >= px[i+1] &&
+						val >= px[i-width-1] && val >= px[i-width] && val >= px[i-width+1] &&
+						val >= px[i+width-1] && val >= px[i+width] && val >= px[i+width+1])
+					marker[i] = Float.NEGATIVE_INFINITY;
+			}
+		}
+		MorphologicalReconstruction.morphologicalReconstruction(
+				SimpleImages.createFloatImage(marker, width, height),
+				SimpleImages.createFloatImage(px, width, height));
+		for (int i = 0; i < marker.length; i++)
+			marker[i] = Math.abs(px[i] - marker[i]);
+		return marker;
+	}
+
+	/**
+	 * Label connected components of foreground pixels.
+	 * @param foreground
+	 * @param width
+	 * @param height
+	 * @param conn8 true if 8-connectivity should be used, false for 4-connectivity
+	 * @param labels array to store the output labels (starting at 1)
+	 * @return the number of labels
+	 */
+	static int labelConnected(boolean[] foreground, int width, int height, boolean conn8, float[] labels) {
+		Arrays.fill(labels, 0f);
+		int[] stack = new int[foreground.length];
+		int label = 0;
+		for (int i = 0; i < foreground.length; i++) {
+			if (!foreground[i] || labels[i] != 0)
+				continue;
+			label++;
+			labels[i] = label;
+			int n = 0;
+			stack[n++] = i;
+			while (n > 0) {
+				int ind = stack[--n];
+				int x = ind % width;
+				int y = ind / width;
+				for (int dy = -1; dy <= 1; dy++) {
+					int yy = y + dy;
+					if (yy < 0 || yy >= height)
+						continue;
+					for (int dx = -1; dx <= 1; dx++) {
+						int xx = x + dx;
+						if (xx < 0 || xx >= width || (dx == 0 && dy == 0) || (!conn8 && dx != 0 && dy != 0))
+							continue;
+						int ind2 = yy * width + xx;
+						if (foreground[ind2] && labels[ind2] == 0) {
+							labels[ind2] = label;
+							stack[n++] = ind2;
+						}
+					}
+				}
+			}
+		}
+		return label;
+	}
+
+	/**
+	 * Fill holes in labelled, 4-connected regions.
+	 * A hole is any zero-valued region that cannot be reached from the image boundary; it is
+	 * assigned the label of an adjacent region.
+	 * @param labels
+	 * @param width
+	 * @param height
+	 */
+	static void fillHoles(float[] labels, int width, int height) {
+		// Background regions of 4-connected objects are 8-connected
+		boolean[] background = new boolean[labels.length];
+		for (int i = 0; i < labels.length; i++)
+			background[i] = labels[i] == 0;
+		float[] backgroundLabels = new float[labels.length];
+		int n = labelConnected(background, width, height, true, backgroundLabels);
+		if (n == 0)
+			return;
+		// Identify background regions that touch the boundary
+		boolean[] isOutside = new boolean[n + 1];
+		for (int x = 0; x < width; x++) {
+			isOutside[(int)backgroundLabels[x]] = true;
+			isOutside[(int)backgroundLabels[(height - 1) * width + x]] = true;
+		}
+		for (int y = 0; y < height; y++) {
+			isOutside[(int)backgroundLabels[y * width]] = true;
+			isOutside[(int)backgroundLabels[y * width + width - 1]] = true;
+		}
+		// Find the label to use for each hole
+		float[] fillLabels = new float[n + 1];
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int i = y * width + x;
+				int b = (int)backgroundLabels[i];
+				if (b == 0 || isOutside[b] || fillLabels[b] != 0)
+					continue;
+				if (x > 0 && labels[i-1] != 0)
+					fillLabels[b] = labels[i-1];
+				else if (y > 0 && labels[i-width] != 0)
+					fillLabels[b] = labels[i-width];
+			}
+		}
+		for (int i = 0; i < labels.length; i++) {
+			int b = (int)backgroundLabels[i];
+			if (b != 0 && !isOutside[b])
+				labels[i] = fillLabels[b];
+		}
+	}
+
+	/**
+	 * Split binary objects using a watershed transform applied to the distance transform,
+	 * similar to ImageJ's {@code EDM.toWatershed}.
+	 * Separated objects are divided by lines of background pixels, so that they are no longer 4-connected.
+	 * @param bp binary image; this is modified in-place
+	 * @param width
+	 * @param height
+	 */
+	static void watershedSplit(boolean[] bp, int width, int height) {
+		float[] edm = distanceTransform(bp, width, height);
+		// Use h-maxima with a tolerance of 0.5 pixels as seeds, as ImageJ does
+		float[] marker = new float[edm.length];
+		for (int i = 0; i < edm.length; i++)
+			marker[i] = Math.max(edm[i] - 0.5f, 0f);
+		MorphologicalReconstruction.morphologicalReconstruction(
+				SimpleImages.createFloatImage(marker, width, height),
+				SimpleImages.createFloatImage(edm, width, height));
+		float[] maxima = findRegionalMaxima(marker, width, height, 0.5f);
+		boolean[] seeds = new boolean[maxima.length];
+		for (int i = 0; i < maxima.length; i++)
+			seeds[i] = maxima[i] > 0 && bp[i];
+		float[] labels = new float[edm.length];
+		labelConnected(seeds, width, height, true, labels);
+		Watershed.doWatershed(
+				SimpleImages.createFloatImage(edm, width, height),
+				SimpleImages.createFloatImage(labels, width, height),
+				0, false);
+		// Remove pixels at the boundary between different labels
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int i = y * width + x;
+				float label = labels[i];
+				if (!bp[i])
+					continue;
+				if (label == 0 ||
+						(x < width - 1 && labels[i+1] != 0 && labels[i+1] != label) ||
+						(y < height - 1 && labels[i+width] != 0 && labels[i+width] != label)) {
+					bp[i] = false;
+					labels[i] = 0;
+				}
+			}
+		}
+	}
+
+	private static int clamp(int v, int length) {
+		return v < 0 ? 0 : (v >= length ? length - 1 : v);
+	}
+
+}
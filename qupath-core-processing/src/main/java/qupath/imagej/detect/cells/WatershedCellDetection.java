@@ -129,6 +129,35 @@ public class WatershedCellDetection extends AbstractTileableDetectionPlugin<Buff
 		return debugMode;
 	}
 	
+	private static boolean nativeDetection = "true".equalsIgnoreCase(System.getProperty("qupath.detection.cells.native", "false"));
+	
+	/**
+	 * Set whether to use the implementation of cell detection that works directly with pixel arrays, 
+	 * rather than converting each tile to ImageJ objects.
+	 * <p>
+	 * This is typically faster and uses less memory, but results are not identical to those of the default 
+	 * implementation (which was used in all previous versions of QuPath).
+	 * The initial value is false, unless the system property {@code qupath.detection.cells.native} is "true".
+	 * Debug mode always uses the ImageJ implementation.
+	 * 
+	 * @param useNative
+	 * @since v0.8.0
+	 * @see #getNativeDetection()
+	 */
+	public static void setNativeDetection(boolean useNative) {
+		nativeDetection = useNative;
+	}
+	
+	/**
+	 * Get whether cell detection should use the implementation that works directly with pixel arrays.
+	 * @return
+	 * @since v0.8.0
+	 * @see #setNativeDetection(boolean)
+	 */
+	public static boolean getNativeDetection() {
+		return nativeDetection;
+	}
+	
 
 	private static final List<String> micronParameters = List.of(
 		"requestedPixelSizeMicrons",
@@ -429,6 +458,39 @@ public class WatershedCellDetection extends AbstractTileableDetectionPlugin<Buff
             ImageServer<BufferedImage> server = imageData.getServer();
             double downsample = ServerTools.getDownsampleFactor(server, getPreferredPixelSizeMicrons(imageData, params));
             var request = RegionRequest.createInstance(server.getPath(), downsample, pathROI);
+
+            // Create or reset the PathObjects list
+            if (pathObjects == null)
+                pathObjects = new ArrayList<>();
+            else
+                pathObjects.clear();
+
+            if (nativeDetection && !debugMode) {
+                var detector = NativeWatershedCellDetector.create(imageData, params, pathROI, request);
+                var cal = server.getPixelCalibration().createScaledInstance(request.getDownsample(), request.getDownsample());
+                double[] values = getScaledParameters(params, cal);
+                detector.runDetection(
+                        values[0],
+                        imageData.isBrightfield() ? params.getDoubleParameterValue("maxBackground") : Double.NEGATIVE_INFINITY,
+                        values[1],
+                        values[2],
+                        params.getDoubleParameterValue("threshold"),
+                        values[3],
+                        values[4],
+                        params.getBooleanParameterValue("watershedPostProcess"),
+                        params.getBooleanParameterValue("excludeDAB"),
+                        values[5],
+                        params.getBooleanParameterValue("smoothBoundaries"),
+                        params.getBooleanParameterValue("includeNuclei"),
+                        params.getBooleanParameterValue("makeMeasurements"),
+                        pathROI.getZ(),
+                        pathROI.getT(),
+                        params.getBooleanParameterValue("backgroundByReconstruction")
+                );
+                pathObjects.addAll(detector.getPathObjects());
+                return pathObjects;
+            }
+
             PathImage<ImagePlus> pathImage = IJTools.convertToImagePlus(server, request);
             logger.trace("Cell detection with downsample: {}", pathImage.getDownsampleFactor());
 
@@ -531,44 +593,21 @@ public class WatershedCellDetection extends AbstractTileableDetectionPlugin<Buff
             }
             WatershedCellDetector detector2 = new WatershedCellDetector(fpDetection, channels, channelsCell, roi, pathImage);
 
-            // Create or reset the PathObjects list
-            if (pathObjects == null)
-                pathObjects = new ArrayList<>();
-            else
-                pathObjects.clear();
-
-
             // Convert parameters where needed
-            double sigma, medianRadius, backgroundRadius, minArea, maxArea, cellExpansion;
-            if (pathImage.getPixelCalibration().hasPixelSizeMicrons()) {
-                double pixelSize = pathImage.getPixelCalibration().getAveragedPixelSizeMicrons();
-                backgroundRadius = params.getDoubleParameterValue("backgroundRadiusMicrons") / pixelSize;
-                medianRadius = params.getDoubleParameterValue("medianRadiusMicrons") / pixelSize;
-                sigma = params.getDoubleParameterValue("sigmaMicrons") / pixelSize;
-                minArea = params.getDoubleParameterValue("minAreaMicrons") / (pixelSize * pixelSize);
-                maxArea = params.getDoubleParameterValue("maxAreaMicrons") / (pixelSize * pixelSize);
-                cellExpansion = params.getDoubleParameterValue("cellExpansionMicrons") / (pixelSize);
-            } else {
-                backgroundRadius = params.getDoubleParameterValue("backgroundRadius");
-                medianRadius = params.getDoubleParameterValue("medianRadius");
-                sigma = params.getDoubleParameterValue("sigma");
-                minArea = params.getDoubleParameterValue("minArea");
-                maxArea = params.getDoubleParameterValue("maxArea");
-                cellExpansion = params.getDoubleParameterValue("cellExpansion");
-            }
+            double[] values = getScaledParameters(params, pathImage.getPixelCalibration());
 
             detector2.runDetection(
-                    backgroundRadius,
+                    values[0],
                     isBrightfield ? params.getDoubleParameterValue("maxBackground") : Double.NEGATIVE_INFINITY,
-                    medianRadius,
-                    sigma,
+                    values[1],
+                    values[2],
                     params.getDoubleParameterValue("threshold"),
-                    minArea,
-                    maxArea,
+                    values[3],
+                    values[4],
                     true, // always use 'merge all' params.getBooleanParameterValue("mergeAll"),
                     params.getBooleanParameterValue("watershedPostProcess"),
                     params.getBooleanParameterValue("excludeDAB"),
-                    cellExpansion,
+                    values[5],
                     params.getBooleanParameterValue("smoothBoundaries"),
                     params.getBooleanParameterValue("includeNuclei"),
                     params.getBooleanParameterValue("makeMeasurements"),
@@ -583,6 +622,34 @@ public class WatershedCellDetection extends AbstractTileableDetectionPlugin<Buff
         }
 
 
+        /**
+         * Get the parameters that depend upon the pixel size, converted to pixel units for the image being processed.
+         * @return an array containing background radius, median radius, sigma, min area, max area and cell expansion
+         */
+        private static double[] getScaledParameters(ParameterList params, PixelCalibration cal) {
+            if (cal.hasPixelSizeMicrons()) {
+                double pixelSize = cal.getAveragedPixelSizeMicrons();
+                return new double[] {
+                        params.getDoubleParameterValue("backgroundRadiusMicrons") / pixelSize,
+                        params.getDoubleParameterValue("medianRadiusMicrons") / pixelSize,
+                        params.getDoubleParameterValue("sigmaMicrons") / pixelSize,
+                        params.getDoubleParameterValue("minAreaMicrons") / (pixelSize * pixelSize),
+                        params.getDoubleParameterValue("maxAreaMicrons") / (pixelSize * pixelSize),
+                        params.getDoubleParameterValue("cellExpansionMicrons") / (pixelSize)
+                };
+            } else {
+                return new double[] {
+                        params.getDoubleParameterValue("backgroundRadius"),
+                        params.getDoubleParameterValue("medianRadius"),
+                        params.getDoubleParameterValue("sigma"),
+                        params.getDoubleParameterValue("minArea"),
+                        params.getDoubleParameterValue("maxArea"),
+                        params.getDoubleParameterValue("cellExpansion")
+                };
+            }
+        }
+
+
         @Override
         public String getLastResultsDescription() {
             if (pathObjects == null)
@@ -4,10 +4,10 @@ import qupath.lib.common.GeneralTools;
 
 import java.math.BigInteger;
 import java.text.NumberFormat;
+import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -16,7 +16,11 @@ import java.util.concurrent.atomic.AtomicLong;
  */
 class ValueFormatter {
 
-    private static final Map<Locale, Map<Integer, NumberFormat>> formatters = new ConcurrentHashMap<>();
+    /**
+     * NumberFormat isn't thread-safe, so each thread has its own formatters - to avoid contention when
+     * formatting in parallel (e.g. when exporting measurements).
+     */
+    private static final ThreadLocal<Map<Locale, Map<Integer, NumberFormat>>> formatters = ThreadLocal.withInitial(HashMap::new);
 
     /**
      * Get a string representation of an object for display in a table, or empty string if the object is null.
@@ -62,11 +66,9 @@ class ValueFormatter {
         } else {
             // Get a formatter with a fixed number of decimal places
             var locale = Locale.getDefault(Locale.Category.FORMAT);
-            var cache = formatters.computeIfAbsent(locale, k -> new ConcurrentHashMap<>());
+            var cache = formatters.get().computeIfAbsent(locale, k -> new HashMap<>());
             var format = cache.computeIfAbsent(decimalPlaces, n -> createFormat(locale, decimalPlaces));
-            synchronized (format) {
-                return format.format(val);
-            }
+            return format.format(val);
         }
     }
 
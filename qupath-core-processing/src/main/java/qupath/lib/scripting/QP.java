@@ -201,14 +201,16 @@ public class QP {
 	public static final ImageData.ImageType OTHER = ImageData.ImageType.OTHER;
 	
 	/**
-	 * Store ImageData accessible to the script thread
+	 * Store ImageData accessible to the script thread.
+	 * This is synchronized because scripts may be run in parallel for different images.
 	 */
-	private static Map<Thread, ImageData<BufferedImage>> batchImageData = new WeakHashMap<>();
+	private static final Map<Thread, ImageData<BufferedImage>> batchImageData = Collections.synchronizedMap(new WeakHashMap<>());
 
 	/**
-	 * Store Project accessible to the script thread
+	 * Store Project accessible to the script thread.
+	 * This is synchronized because scripts may be run in parallel for different images.
 	 */
-	private static Map<Thread, Project<BufferedImage>> batchProject = new WeakHashMap<>();
+	private static final Map<Thread, Project<BufferedImage>> batchProject = Collections.synchronizedMap(new WeakHashMap<>());
 	
 	/**
 	 * Placeholder for the path to the current project.
@@ -695,8 +697,7 @@ public class QP {
 		if (imageData != null || defaultTemp == null)
 			return imageData;
 		// If we don't have any other possible image data, return with debug logging
-		var batchImages = batchImageData.values();
-		if (batchImages.isEmpty() || (batchImages.size() == 1 && batchImages.contains(defaultTemp))) {
+		if (containsOnly(batchImageData, defaultTemp)) {
 			logger.debug("Returning the default ImageData: {}", defaultTemp);
 			return defaultTemp;
 		}
@@ -722,8 +723,7 @@ public class QP {
 		if (project != null || defaultTemp == null)
 			return project;
 		// If we don't have any other possible project, return with debug logging
-		var batchProjects = batchProject.values();
-		if (batchProjects.isEmpty() || (batchProjects.size() == 1 && batchProjects.contains(defaultTemp))) {
+		if (containsOnly(batchProject, defaultTemp)) {
 			logger.debug("Returning the default project: {}", defaultTemp);
 			return defaultTemp;
 		}
@@ -732,6 +732,16 @@ public class QP {
 		return defaultTemp;
 	}
 	
+	/**
+	 * Check if a synchronized map is empty, or the only value it contains is the specified value.
+	 */
+	private static boolean containsOnly(Map<Thread, ?> map, Object value) {
+		synchronized (map) {
+			var values = map.values();
+			return values.isEmpty() || (values.size() == 1 && values.contains(value));
+		}
+	}
+	
 	/**
 	 * Resolve a path, replacing any placeholders. Currently, this means only {@link #PROJECT_BASE_DIR}.
 	 * @param path
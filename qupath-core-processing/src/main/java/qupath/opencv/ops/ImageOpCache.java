@@ -0,0 +1,320 @@
+/*-
+ * #%L
+ * This file is part of QuPath.
+ * %%
+ * Copyright (C) 2026 QuPath developers, The University of Edinburgh
+ * %%
+ * QuPath is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * QuPath is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with QuPath.  If not, see <https://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package qupath.opencv.ops;
+
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import qupath.opencv.tools.OpenCVTools;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * A content-addressed cache for intermediate results computed by {@link ImageOp}s.
+ * <p>
+ * Entries are identified by a key that combines the input image, the JSON representation of the ops
+ * that were applied and the region that was requested.
+ * This means that identical stages appearing in different pipelines (e.g. the same multiscale features
+ * used by several pixel classifiers) only need to be computed once.
+ * <p>
+ * The cache has a memory tier, bounded by the total number of bytes it may hold, and an optional disk tier.
+ * Entries evicted from memory remain available on disk (if a directory has been set) until {@link #clear()} is called.
+ * Files on disk are named using a hash of the key, so the directory may be shared with other files.
+ * <p>
+ * Caching is disabled by default, and can be turned on by calling {@link #setDefaultInstance(ImageOpCache)}.
+ *
+ * @author Pete Bankhead
+ * @since v0.8.0
+ */
+public class ImageOpCache {
+
+	private static final Logger logger = LoggerFactory.getLogger(ImageOpCache.class);
+
+	private static final int DISK_FORMAT_VERSION = 1;
+
+	/**
+	 * Pattern matching the names of files written by a cache, including temporary files
+	 */
+	private static final Pattern FILE_NAME_PATTERN = Pattern.compile("[0-9a-f]{64}(\\.mat|-[0-9a-f\\-]{36}\\.tmp)");
+
+	private static ImageOpCache defaultInstance;
+
+	private final long maxMemoryBytes;
+	private final Path directory;
+
+	private long memoryBytes = 0L;
+
+	private final Map<String, CachedMat> memoryCache = new LinkedHashMap<>(16, 0.75f, true);
+
+	private ImageOpCache(long maxMemoryBytes, Path directory) {
+		this.maxMemoryBytes = maxMemoryBytes;
+		this.directory = directory;
+	}
+
+	/**
+	 * Create a cache that only stores results in memory.
+	 * @param maxMemoryBytes maximum number of bytes to retain in memory
+	 * @return the cache
+	 */
+	public static ImageOpCache createMemoryCache(long maxMemoryBytes) {
+		return createCache(maxMemoryBytes, null);
+	}
+
+	/**
+	 * Create a cache that stores results in memory and (optionally) on disk.
+	 * @param maxMemoryBytes maximum number of bytes to retain in memory
+	 * @param directory directory used to store results on disk; if null, only the memory tier will be used
+	 * @return the cache
+	 * @throws IllegalArgumentException if maxMemoryBytes is negative
+	 */
+	public static ImageOpCache createCache(long maxMemoryBytes, Path directory) throws IllegalArgumentException {
+		if (maxMemoryBytes < 0)
+			throw new IllegalArgumentException("Maximum memory for cache must be >= 0");
+		return new ImageOpCache(maxMemoryBytes, directory);
+	}
+
+	/**
+	 * Get the default cache used by the {@link ImageDataOp}s created by {@link ImageOps}.
+	 * @return the default cache, or null if caching is disabled
+	 */
+	public static synchronized ImageOpCache getDefaultInstance() {
+		return defaultInstance;
+	}
+
+	/**
+	 * Set the default cache used by the {@link ImageDataOp}s created by {@link ImageOps}.
+	 * Any previous cache will be cleared.
+	 * @param cache the new cache, or null if caching should be disabled
+	 */
+	public static synchronized void setDefaultInstance(ImageOpCache cache) {
+		if (defaultInstance == cache)
+			return;
+		if (defaultInstance != null)
+			defaultInstance.clear();
+		defaultInstance = cache;
+	}
+
+	/**
+	 * Create a key that may be used to identify a cached result.
+	 * The key is a hash of the input components, so may be used as a file name.
+	 * @param components the components that, taken together, uniquely identify the result
+	 * @return a hex-encoded SHA-256 hash of the components
+	 */
+	public static String createKey(String... components) {
+		try {
+			var digest = MessageDigest.getInstance("SHA-256");
+			for (var c : components) {
+				digest.update(Objects.toString(c).getBytes(StandardCharsets.UTF_8));
+				// Separator to avoid ambiguity when components are concatenated
+				digest.update((byte)0);
+			}
+			return HexFormat.of().formatHex(digest.digest());
+		} catch (NoSuchAlgorithmException e) {
+			// All Java implementations are required to support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Get a cached result.
+	 * The returned {@link Mat} is a new object, which the caller may modify.
+	 * @param key the key identifying the result
+	 * @return the cached result, or null if no result is available
+	 */
+	public Mat get(String key) {
+		CachedMat cached;
+		synchronized (memoryCache) {
+			cached = memoryCache.get(key);
+		}
+		if (cached == null && directory != null) {
+			cached = readFromDisk(key);
+			if (cached != null)
+				putInMemory(key, cached);
+		}
+		return cached == null ? null : cached.toMat();
+	}
+
+	/**
+	 * Store a result in the cache.
+	 * The {@link Mat} is copied, so may be modified after it has been added.
+	 * @param key the key identifying the result
+	 * @param mat the result to store
+	 */
+	public void put(String key, Mat mat) {
+		var cached = CachedMat.fromMat(mat);
+		putInMemory(key, cached);
+		if (directory != null)
+			writeToDisk(key, cached);
+	}
+
+	/**
+	 * Remove all cached results, from both memory and disk.
+	 * Only files written by a cache are deleted; any other files in the directory are unchanged.
+	 */
+	public void clear() {
+		synchronized (memoryCache) {
+			memoryCache.clear();
+			memoryBytes = 0L;
+		}
+		if (directory != null && Files.isDirectory(directory)) {
+			try (var stream = Files.list(directory)) {
+				for (var path : stream.filter(ImageOpCache::isCacheFile).toList())
+					Files.deleteIfExists(path);
+			} catch (IOException e) {
+				logger.warn("Unable to clear cache directory {}: {}", directory, e.getMessage());
+				logger.debug(e.getMessage(), e);
+			}
+		}
+	}
+
+	/**
+	 * Get the number of bytes currently held in the memory tier.
+	 * @return
+	 */
+	public long getMemoryBytes() {
+		synchronized (memoryCache) {
+			return memoryBytes;
+		}
+	}
+
+	private void putInMemory(String key, CachedMat cached) {
+		long nBytes = cached.data.length;
+		if (nBytes > maxMemoryBytes)
+			return;
+		synchronized (memoryCache) {
+			var previous = memoryCache.put(key, cached);
+			if (previous != null)
+				memoryBytes -= previous.data.length;
+			memoryBytes += nBytes;
+			var iter = memoryCache.entrySet().iterator();
+			while (memoryBytes > maxMemoryBytes && iter.hasNext()) {
+				var entry = iter.next();
+				memoryBytes -= entry.getValue().data.length;
+				iter.remove();
+			}
+		}
+	}
+
+	private static boolean isCacheFile(Path path) {
+		return Files.isRegularFile(path) && FILE_NAME_PATTERN.matcher(path.getFileName().toString()).matches();
+	}
+
+	/**
+	 * Get the path for a key. This uses a hash of the key, since keys aren't necessarily valid file names.
+	 */
+	private Path getPath(String key) {
+		return directory.resolve(createKey(key) + ".mat");
+	}
+
+	private CachedMat readFromDisk(String key) {
+		var path = getPath(key);
+		if (!Files.isRegularFile(path))
+			return null;
+		try (var stream = new DataInputStream(Files.newInputStream(path))) {
+			if (stream.readInt() != DISK_FORMAT_VERSION)
+				return null;
+			int rows = stream.readInt();
+			int cols = stream.readInt();
+			int type = stream.readInt();
+			var data = new byte[stream.readInt()];
+			stream.readFully(data);
+			return new CachedMat(rows, cols, type, data);
+		} catch (IOException e) {
+			logger.warn("Unable to read cached result from {}: {}", path, e.getMessage());
+			logger.debug(e.getMessage(), e);
+			return null;
+		}
+	}
+
+	private void writeToDisk(String key, CachedMat cached) {
+		var path = getPath(key);
+		if (Files.exists(path))
+			return;
+		try {
+			Files.createDirectories(directory);
+			// Write to a temp file first, so that other threads never see a partial result
+			var name = path.getFileName().toString();
+			var pathTemp = directory.resolve(name.substring(0, name.length() - 4) + "-" + UUID.randomUUID() + ".tmp");
+			try (var stream = new DataOutputStream(Files.newOutputStream(pathTemp))) {
+				stream.writeInt(DISK_FORMAT_VERSION);
+				stream.writeInt(cached.rows);
+				stream.writeInt(cached.cols);
+				stream.writeInt(cached.type);
+				stream.writeInt(cached.data.length);
+				stream.write(cached.data);
+			}
+			Files.move(pathTemp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			logger.warn("Unable to write cached result to {}: {}", path, e.getMessage());
+			logger.debug(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Pixels and dimensions of a Mat, stored on the Java heap so that we don't need to worry
+	 * about the lifecycle of native memory.
+	 */
+	private static class CachedMat {
+
+		private final int rows, cols, type;
+		private final byte[] data;
+
+		private CachedMat(int rows, int cols, int type, byte[] data) {
+			this.rows = rows;
+			this.cols = cols;
+			this.type = type;
+			this.data = data;
+		}
+
+		private static CachedMat fromMat(Mat mat) {
+			var matContinuous = OpenCVTools.ensureContinuous(mat, false);
+			var data = new byte[(int)(matContinuous.total() * matContinuous.elemSize())];
+			matContinuous.data().get(data);
+			var cached = new CachedMat(matContinuous.rows(), matContinuous.cols(), matContinuous.type(), data);
+			if (matContinuous != mat)
+				matContinuous.close();
+			return cached;
+		}
+
+		private Mat toMat() {
+			var mat = new Mat(rows, cols, type);
+			mat.data().put(data);
+			return mat;
+		}
+
+	}
+
+}
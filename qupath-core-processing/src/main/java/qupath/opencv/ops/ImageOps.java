@@ -25,6 +25,7 @@ import org.apache.commons.math3.util.FastMath;
 import org.bytedeco.javacpp.PointerScope;
 import org.bytedeco.javacpp.indexer.DoubleIndexer;
 import org.bytedeco.javacpp.indexer.FloatIndexer;
+import org.bytedeco.javacpp.indexer.Index;
 import org.bytedeco.opencv.global.opencv_core;
 import org.bytedeco.opencv.global.opencv_imgproc;
 import org.bytedeco.opencv.opencv_core.Mat;
@@ -40,6 +41,7 @@ import qupath.lib.common.ColorTools;
 import qupath.lib.common.GeneralTools;
 import qupath.lib.images.ImageData;
 import qupath.lib.images.servers.ColorTransforms.ColorTransform;
+import qupath.lib.images.servers.ColorTransforms.ColorTransformTypeAdapter;
 import qupath.lib.images.servers.ImageChannel;
 import qupath.lib.images.servers.ImageServer;
 import qupath.lib.images.servers.PixelCalibration;
@@ -317,6 +319,18 @@ public class ImageOps {
 				return OpenCVTools.imageToMat(img);
 			} else {
 				var padding = op.getPadding();
+				var cache = ImageOpCache.getDefaultInstance();
+				if (cache != null) {
+					var mat = new Mat();
+					try (var scope = new PointerScope()) {
+						mat.put(applyCached(cache, op, imageData.getServer().getPath(), request, () -> {
+							var matInput = OpenCVTools.imageToMat(ServerTools.getPaddedRequest(imageData.getServer(), request, padding));
+							matInput.convertTo(matInput, opencv_core.CV_32F);
+							return matInput;
+						}));
+						return mat;
+					}
+				}
 				img = ServerTools.getPaddedRequest(imageData.getServer(), request, padding);
 				var mat = OpenCVTools.imageToMat(img);
 				mat.convertTo(mat, opencv_core.CV_32F);
@@ -399,6 +413,33 @@ public class ImageOps {
 		@SuppressWarnings("unchecked")
 		@Override
 		public Mat apply(ImageData<BufferedImage> imageData, RegionRequest request) throws IOException {
+			var cache = ImageOpCache.getDefaultInstance();
+			if (cache != null && op != null) {
+				var inputKey = new StringBuilder(imageData.getServer().getPath());
+				var adapter = new ColorTransformTypeAdapter();
+				for (var t : colorTransforms)
+					inputKey.append("\n").append(adapter.toJson(t));
+				var mat = new Mat();
+				try (var scope = new PointerScope()) {
+					mat.put(applyCached(cache, op, inputKey.toString(), request, () -> extractChannels(imageData, request)));
+				}
+				return mat;
+			}
+			
+			var mat = extractChannels(imageData, request);
+			if (op != null) {
+				try (var scope = new PointerScope()) {
+					mat.put(op.apply(mat));
+				}
+			}
+			return mat;
+		}
+		
+		/**
+		 * Read the (padded) region and extract the channels using the color transforms, without applying any op.
+		 */
+		@SuppressWarnings("unchecked")
+		private Mat extractChannels(ImageData<BufferedImage> imageData, RegionRequest request) throws IOException {
 			BufferedImage img;
 			if (op == null)
 				img = imageData.getServer().readRegion(request);
@@ -421,9 +462,6 @@ public class ImageOps {
 					channels.add(matTemp);
 				}
 				OpenCVTools.mergeChannels(channels, mat);
-				if (op != null) {
-					mat.put(op.apply(mat));					
-				}
 //				scope.deallocate();
 			}
 			return mat;
@@ -630,7 +668,7 @@ public class ImageOps {
 		 * @since v0.3.1
 		 */
 		@OpType("sigmoid")
-		static class SigmoidOp implements ImageOp {
+		static class SigmoidOp implements PixelwiseOp {
 
 			@Override
 			public Mat apply(Mat input) {
@@ -638,6 +676,11 @@ public class ImageOps {
 				return input;
 			}
 			
+			@Override
+			public double applyToValue(double value, int channel) {
+				return sigmoid(value);
+			}
+			
 		}
 		
 		private static double sigmoid(double input) {
@@ -1151,8 +1194,8 @@ public class ImageOps {
 				try (var scope = new PointerScope()) {
 					var output = new ArrayList<Mat>();
 					var channels = OpenCVTools.splitChannels(input);
-					for (var mat : channels) {
-						var results = builder.build(mat);
+					// Build for all channels together, so that they may be processed in parallel
+					for (var results : builder.build(channels)) {
 						for (var f : features) {
 							var temp = results.get(f);
 							temp.retainReference();
@@ -2183,7 +2226,7 @@ public class ImageOps {
 		
 		
 		@OpType("identity")
-		static class IdentityOp implements ImageOp {
+		static class IdentityOp implements PixelwiseOp {
 
 			IdentityOp() {}
 			
@@ -2192,6 +2235,11 @@ public class ImageOps {
 				return input;
 			}
 			
+			@Override
+			public double applyToValue(double value, int channel) {
+				return value;
+			}
+			
 		}
 		
 		
@@ -2199,7 +2247,7 @@ public class ImageOps {
 		 * @since v0.3.1
 		 */
 		@OpType("clip")
-		static class ClipOp implements ImageOp {
+		static class ClipOp implements PixelwiseOp {
 			
 			private double min, max;
 			
@@ -2214,6 +2262,11 @@ public class ImageOps {
 				return input;
 			}
 			
+			@Override
+			public double applyToValue(double value, int channel) {
+				return GeneralTools.clipValue(value, min, max);
+			}
+			
 		}
 		
 		
@@ -2240,7 +2293,7 @@ public class ImageOps {
 		}
 		
 		@OpType("multiply")
-		static class MultiplyOp implements ImageOp {
+		static class MultiplyOp implements PixelwiseOp {
 
 			private double[] values;
 			
@@ -2265,10 +2318,20 @@ public class ImageOps {
 				return input;
 			}
 			
+			@Override
+			public boolean supportsChannels(int nChannels) {
+				return values.length == 1 || values.length == nChannels;
+			}
+			
+			@Override
+			public double applyToValue(double value, int channel) {
+				return value * values[values.length == 1 ? 0 : channel];
+			}
+			
 		}
 		
 		@OpType("replace-values")
-		static class ReplaceValueOp implements ImageOp {
+		static class ReplaceValueOp implements PixelwiseOp {
 			
 			private double originalValue;
 			private double newValue;
@@ -2284,10 +2347,16 @@ public class ImageOps {
 				return input;
 			}
 			
+			@Override
+			public double applyToValue(double value, int channel) {
+				// Compare at float precision, since only 32-bit images are fused
+				return (float)value == (float)originalValue ? newValue : value;
+			}
+			
 		}
 		
 		@OpType("replace-nans")
-		static class ReplaceNaNsOp implements ImageOp {
+		static class ReplaceNaNsOp implements PixelwiseOp {
 			
 			private double value;
 			
@@ -2301,11 +2370,16 @@ public class ImageOps {
 				return input;
 			}
 			
+			@Override
+			public double applyToValue(double value, int channel) {
+				return Double.isNaN(value) ? this.value : value;
+			}
+			
 		}
 		
 		
 		@OpType("round")
-		static class RoundOp implements ImageOp {
+		static class RoundOp implements PixelwiseOp {
 
 			@Override
 			public Mat apply(Mat input) {
@@ -2313,10 +2387,15 @@ public class ImageOps {
 				return input;
 			}
 			
+			@Override
+			public double applyToValue(double value, int channel) {
+				return Double.isFinite(value) ? Math.round(value) : value;
+			}
+			
 		}
 		
 		@OpType("ceil")
-		static class CeilOp implements ImageOp {
+		static class CeilOp implements PixelwiseOp {
 
 			@Override
 			public Mat apply(Mat input) {
@@ -2324,10 +2403,15 @@ public class ImageOps {
 				return input;
 			}
 			
+			@Override
+			public double applyToValue(double value, int channel) {
+				return Double.isFinite(value) ? Math.ceil(value) : value;
+			}
+			
 		}
 		
 		@OpType("floor")
-		static class FloorOp implements ImageOp {
+		static class FloorOp implements PixelwiseOp {
 
 			@Override
 			public Mat apply(Mat input) {
@@ -2335,10 +2419,15 @@ public class ImageOps {
 				return input;
 			}
 			
+			@Override
+			public double applyToValue(double value, int channel) {
+				return Double.isFinite(value) ? Math.floor(value) : value;
+			}
+			
 		}
 		
 		@OpType("divide")
-		static class DivideOp implements ImageOp {
+		static class DivideOp implements PixelwiseOp {
 
 			private double[] values;
 			
@@ -2363,10 +2452,20 @@ public class ImageOps {
 				return input;
 			}
 			
+			@Override
+			public boolean supportsChannels(int nChannels) {
+				return values.length == 1 || values.length == nChannels;
+			}
+			
+			@Override
+			public double applyToValue(double value, int channel) {
+				return value / values[values.length == 1 ? 0 : channel];
+			}
+			
 		}
 		
 		@OpType("add")
-		static class AddOp implements ImageOp {
+		static class AddOp implements PixelwiseOp {
 
 			private double[] values;
 			
@@ -2391,10 +2490,20 @@ public class ImageOps {
 				return input;
 			}
 			
+			@Override
+			public boolean supportsChannels(int nChannels) {
+				return values.length == 1 || values.length == nChannels;
+			}
+			
+			@Override
+			public double applyToValue(double value, int channel) {
+				return value + values[values.length == 1 ? 0 : channel];
+			}
+			
 		}
 		
 		@OpType("subtract")
-		static class SubtractOp implements ImageOp {
+		static class SubtractOp implements PixelwiseOp {
 
 			private double[] values;
 			
@@ -2419,10 +2528,20 @@ public class ImageOps {
 				return input;
 			}
 			
+			@Override
+			public boolean supportsChannels(int nChannels) {
+				return values.length == 1 || values.length == nChannels;
+			}
+			
+			@Override
+			public double applyToValue(double value, int channel) {
+				return value - values[values.length == 1 ? 0 : channel];
+			}
+			
 		}
 		
 		@OpType("sqrt")
-		static class SqrtOp implements ImageOp {
+		static class SqrtOp implements PixelwiseOp {
 			
 			@Override
 			public Mat apply(Mat input) {
@@ -2430,11 +2549,16 @@ public class ImageOps {
 				return input;
 			}
 			
+			@Override
+			public double applyToValue(double value, int channel) {
+				return Math.sqrt(value);
+			}
+			
 		}
 		
 		
 		@OpType("log")
-		static class LogOp implements ImageOp {
+		static class LogOp implements PixelwiseOp {
 			
 			LogOp() {}
 			
@@ -2445,11 +2569,16 @@ public class ImageOps {
 				return input;
 			}
 			
+			@Override
+			public double applyToValue(double value, int channel) {
+				return FastMath.log(value);
+			}
+			
 		}
 		
 		
 		@OpType("exp")
-		static class ExponentialOp implements ImageOp {
+		static class ExponentialOp implements PixelwiseOp {
 			
 			ExponentialOp() {}
 			
@@ -2459,10 +2588,15 @@ public class ImageOps {
 				return input;
 			}
 			
+			@Override
+			public double applyToValue(double value, int channel) {
+				return Math.exp(value);
+			}
+			
 		}
 		
 		@OpType("pow")
-		static class PowerOp implements ImageOp {
+		static class PowerOp implements PixelwiseOp {
 			
 			private double power;
 			
@@ -2498,6 +2632,11 @@ public class ImageOps {
 //				return input;
 			}
 			
+			@Override
+			public double applyToValue(double value, int channel) {
+				return FastMath.pow(value, power);
+			}
+			
 		}
 		
 		
@@ -2522,15 +2661,7 @@ public class ImageOps {
 
 			@Override
 			public Mat apply(Mat input) {
-				for (var t : ops) {
-					var output = t.apply(input);
-					// Effectively work in-place, deallocating quickly to avoid 
-					// accumulating a lot of references and relying on the garbage collector
-					if (output != input) {
-						input.put(output);
-						output.close();
-					}
-				}
+				applySequential(ops, input);
 				return input;
 			}
 			
@@ -3149,6 +3280,34 @@ public class ImageOps {
         }
     }
 	
+	/**
+	 * An {@link ImageOp} that transforms each pixel value independently of all other pixels.
+	 * <p>
+	 * This makes it possible to fuse consecutive ops, applying them in a single pass.
+	 */
+	interface PixelwiseOp extends ImageOp {
+		
+		/**
+		 * Apply the op to a single pixel value.
+		 * @param value the input value
+		 * @param channel the channel containing the value
+		 * @return the output value
+		 */
+		double applyToValue(double value, int channel);
+		
+		/**
+		 * Query whether the op can be applied to an image with the specified number of channels.
+		 * The default is to return true.
+		 * @param nChannels
+		 * @return
+		 */
+		default boolean supportsChannels(int nChannels) {
+			return true;
+		}
+		
+	}
+	
+	
 	/**
 	 * Abstract {@link ImageOp} to simplify the process of handling padding.
 	 */
@@ -3200,6 +3359,156 @@ public class ImageOps {
 	}
 	
 	
+	/**
+	 * Supply the input for an op, which may require reading pixels.
+	 */
+	@FunctionalInterface
+	interface MatSupplier {
+		
+		Mat get() throws IOException;
+		
+	}
+	
+	/**
+	 * Apply an op using an {@link ImageOpCache} to reuse intermediate results.
+	 * <p>
+	 * The op is split into stages (by unpacking any sequential ops), and the output of the last stage that 
+	 * requires padding is cached. Because all later stages are applied pixel-by-pixel, this intermediate result 
+	 * corresponds exactly to the requested region - and can be reused by any other op that starts with the same 
+	 * stages (e.g. different classifiers applied to the same features).
+	 * 
+	 * @param cache the cache to use
+	 * @param op the op to apply
+	 * @param inputKey a string identifying the input image and any transforms applied before the op
+	 * @param request the region being requested
+	 * @param input supplier for the padded input, which is only called if a cached result is not available
+	 * @return the output of the op
+	 * @throws IOException if the input could not be read
+	 */
+	static Mat applyCached(ImageOpCache cache, ImageOp op, String inputKey, RegionRequest request, MatSupplier input) throws IOException {
+		var stages = new ArrayList<ImageOp>();
+		addStages(op, stages);
+		int lastPadded = -1;
+		for (int i = 0; i < stages.size(); i++) {
+			if (!stages.get(i).getPadding().isEmpty())
+				lastPadded = i;
+		}
+		// Pixel-wise ops are cheap, so there's no need to cache them
+		if (lastPadded < 0)
+			return op.apply(input.get());
+		
+		var gson = GsonTools.getInstance();
+		var keyStages = new StringBuilder();
+		for (int i = 0; i <= lastPadded; i++)
+			keyStages.append(gson.toJson(stages.get(i), ImageOp.class)).append("\n");
+		var key = ImageOpCache.createKey(
+				inputKey,
+				keyStages.toString(),
+				request.getPath(),
+				Double.toString(request.getDownsample()),
+				request.getX() + "," + request.getY() + "," + request.getWidth() + "," + request.getHeight(),
+				request.getZ() + "," + request.getT()
+				);
+		
+		var mat = cache.get(key);
+		if (mat == null) {
+			mat = input.get();
+			applySequential(stages.subList(0, lastPadded + 1), mat);
+			cache.put(key, mat);
+			logger.trace("Added cached result for {}", request);
+		} else
+			logger.trace("Using cached result for {}", request);
+		applySequential(stages.subList(lastPadded + 1, stages.size()), mat);
+		return mat;
+	}
+	
+	private static void addStages(ImageOp op, List<ImageOp> stages) {
+		if (op instanceof Core.SequentialMultiOp seq) {
+			for (var o : seq.ops)
+				addStages(o, stages);
+		} else
+			stages.add(op);
+	}
+	
+	/**
+	 * Apply ops sequentially, updating the input {@link Mat} in-place.
+	 * <p>
+	 * Runs of two or more consecutive {@link PixelwiseOp}s are fused, so that they are applied in a single 
+	 * pass over the pixels of a 32-bit image without creating any intermediate images.
+	 * 
+	 * @param ops the ops to apply
+	 * @param mat the input, which will be updated to contain the output
+	 */
+	static void applySequential(List<? extends ImageOp> ops, Mat mat) {
+		int n = ops.size();
+		int i = 0;
+		while (i < n) {
+			int nChannels = mat.channels();
+			int end = i;
+			while (end < n && ops.get(end) instanceof PixelwiseOp op && op.supportsChannels(nChannels))
+				end++;
+			if (end - i > 1 && mat.depth() == opencv_core.CV_32F) {
+				var pixelwise = new ArrayList<PixelwiseOp>();
+				for (var op : ops.subList(i, end))
+					pixelwise.add((PixelwiseOp)op);
+				applyPixelwise(pixelwise, mat);
+				i = end;
+			} else {
+				applyInPlace(ops.get(i), mat);
+				i++;
+			}
+		}
+	}
+	
+	private static void applyInPlace(ImageOp op, Mat mat) {
+		var output = op.apply(mat);
+		// Effectively work in-place, deallocating quickly to avoid 
+		// accumulating a lot of references and relying on the garbage collector
+		if (output != mat) {
+			mat.put(output);
+			output.close();
+		}
+	}
+	
+	/**
+	 * Length of the per-thread buffer used when applying pixelwise ops.
+	 * This is small enough to remain in cache, and avoids allocating an array for the full image.
+	 */
+	private static final int PIXELWISE_BUFFER_LENGTH = 16 * 1024;
+	
+	private static final ThreadLocal<float[]> PIXELWISE_BUFFER = ThreadLocal.withInitial(() -> new float[PIXELWISE_BUFFER_LENGTH]);
+	
+	/**
+	 * Apply pixelwise ops to a 32-bit image in-place, in a single pass.
+	 * @param ops
+	 * @param mat
+	 */
+	static void applyPixelwise(List<? extends PixelwiseOp> ops, Mat mat) {
+		OpenCVTools.ensureContinuous(mat, true);
+		int nChannels = mat.channels();
+		long total = mat.total() * nChannels;
+		var buffer = PIXELWISE_BUFFER.get();
+		// Ensure each block starts at the first channel
+		int blockLength = buffer.length - buffer.length % nChannels;
+		var opArray = ops.toArray(PixelwiseOp[]::new);
+		try (FloatIndexer indexer = mat.createIndexer();
+				FloatIndexer idx = indexer.reindex(Index.create(total))) {
+			for (long start = 0; start < total; start += blockLength) {
+				int len = (int)Math.min(blockLength, total - start);
+				idx.get(start, buffer, 0, len);
+				for (int k = 0; k < len; k++) {
+					int c = k % nChannels;
+					double val = buffer[k];
+					for (var op : opArray)
+						val = op.applyToValue(val, c);
+					buffer[k] = (float)val;
+				}
+				idx.put(start, buffer, 0, len);
+			}
+		}
+	}
+	
+	
 	static Mat stripPadding(Mat mat, Padding padding) {
 		if (padding.isEmpty())
 			return mat;
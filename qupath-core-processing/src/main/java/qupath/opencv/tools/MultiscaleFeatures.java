@@ -22,6 +22,7 @@
 package qupath.opencv.tools;
 
 import org.bytedeco.javacpp.FloatPointer;
+import org.bytedeco.javacpp.PointerScope;
 import org.bytedeco.javacpp.indexer.FloatIndexer;
 import org.bytedeco.javacpp.indexer.IntIndexer;
 import org.bytedeco.opencv.global.opencv_core;
@@ -29,6 +30,7 @@ import org.bytedeco.opencv.global.opencv_imgproc;
 import org.bytedeco.opencv.opencv_core.Mat;
 import org.bytedeco.opencv.opencv_core.MatExpr;
 import org.bytedeco.opencv.opencv_core.Rect;
+import org.bytedeco.opencv.opencv_core.Scalar;
 import qupath.lib.images.servers.PixelCalibration;
 
 import java.util.AbstractMap;
@@ -196,6 +198,33 @@ public class MultiscaleFeatures {
 	 */
 	private static final FilterBorderType BORDER_DEFAULT = FilterBorderType.REPLICATE;
 	
+	private static boolean parallelDefault = "true".equalsIgnoreCase(System.getProperty("qupath.features.parallel", "false"));
+	
+	/**
+	 * Set whether features for different channels should be calculated in parallel by default.
+	 * <p>
+	 * This can help make use of more processors when only a few large images are being processed 
+	 * (e.g. when calculating features for a preview), but may be counterproductive if many images 
+	 * are already being processed in parallel.
+	 * The initial value is false, unless the system property {@code qupath.features.parallel} is "true".
+	 * 
+	 * @param parallel
+	 * @since v0.8.0
+	 */
+	public static void setParallel(boolean parallel) {
+		parallelDefault = parallel;
+	}
+	
+	/**
+	 * Query whether features for different channels should be calculated in parallel by default.
+	 * @return
+	 * @see #setParallel(boolean)
+	 * @since v0.8.0
+	 */
+	public static boolean isParallel() {
+		return parallelDefault;
+	}
+	
 
 
 	
@@ -227,6 +256,8 @@ public class MultiscaleFeatures {
 		
 		private boolean retainHessian = false;
 		
+		private boolean parallel = isParallel();
+		
 		private int paddingXY = 0;
 		
 		private int border = BORDER_DEFAULT.getOpenCVCode();
@@ -293,6 +324,21 @@ public class MultiscaleFeatures {
 //			this.hessianEigenvectors = builder.hessianEigenvectors;
 			this.hessianDeterminant = builder.hessianDeterminant;
 			this.border = builder.border;
+			this.parallel = builder.parallel;
+		}
+		
+		/**
+		 * Request that features for different 2D images passed to {@link #build(List)} are calculated in parallel.
+		 * The default is taken from {@link MultiscaleFeatures#isParallel()}.
+		 * <p>
+		 * Note that this has no effect if the Hessian is retained, or a z-stack is being processed.
+		 * @param parallel
+		 * @return
+		 * @since v0.8.0
+		 */
+		public MultiscaleResultsBuilder parallel(boolean parallel) {
+			this.parallel = parallel;
+			return this;
 		}
 		
 		/**
@@ -561,187 +607,248 @@ public class MultiscaleFeatures {
 		
 		private List<FeatureMap> build2D(List<Mat> mats) {
 			
-			List<FeatureMap> results = new ArrayList<>();
-//			List<Mat> resultMats = new ArrayList<>();
+			double sigmaX = this.sigmaX;
+			double sigmaY = this.sigmaY;
+			if (pixelCalibration.hasPixelSizeMicrons()) {
+				sigmaX /= pixelCalibration.getPixelWidthMicrons() * downsampleXY;
+				sigmaY /= pixelCalibration.getPixelHeightMicrons() * downsampleXY;
+			}
+			double sigmaXScaled = sigmaX;
+			double sigmaYScaled = sigmaY;
 			
-//			try (var scope = new PointerScope()) {
+			// TODO: Consder if some calculations need to be done in 64-bit
+//			int depth = structureTensorEigenvalues || doHessian ? opencv_core.CV_64F : opencv_core.CV_32F;
+			int depth = mats.stream().allMatch(m -> m.depth() == opencv_core.CV_64F) ? opencv_core.CV_64F : opencv_core.CV_32F;
 			
-				double sigmaX = this.sigmaX;
-				double sigmaY = this.sigmaY;
-				if (pixelCalibration.hasPixelSizeMicrons()) {
-					sigmaX /= pixelCalibration.getPixelWidthMicrons() * downsampleXY;
-					sigmaY /= pixelCalibration.getPixelHeightMicrons() * downsampleXY;
+			try (var kernels = new Kernels2D(sigmaX, sigmaY)) {
+				// The Hessian retains references to intermediate Mats, so only parallelize if it isn't needed
+				if (parallel && !retainHessian && mats.size() > 1) {
+					var results = mats.parallelStream()
+							.map(mat -> buildFeatureMap2DRetained(mat, kernels, sigmaXScaled, sigmaYScaled, depth))
+							.toList();
+					// Features were created on other threads, so hand them over to any scope of the calling thread - 
+					// so that they are released in the same way as if they had been created here
+					var scope = PointerScope.getInnerScope();
+					if (scope != null) {
+						for (var featureMap : results) {
+							for (var m : featureMap.features.values()) {
+								scope.attach(m);
+								m.releaseReference();
+							}
+						}
+					}
+					return results;
 				}
+				List<FeatureMap> results = new ArrayList<>();
+				for (Mat mat : mats)
+					results.add(buildFeatureMap2D(mat, kernels, sigmaX, sigmaY, depth));
+				return results;
+			}
+		}
+		
+		/**
+		 * Calculate features for a single 2D image from another thread, using a {@link PointerScope} to release 
+		 * intermediate Mats quickly.
+		 * The features are retained so that they survive the scope, but are not attached to any other scope; 
+		 * the caller is responsible for them.
+		 */
+		private FeatureMap buildFeatureMap2DRetained(Mat mat, Kernels2D kernels, double sigmaX, double sigmaY, int depth) {
+			try (var scope = new PointerScope()) {
+				var featureMap = buildFeatureMap2D(mat, kernels, sigmaX, sigmaY, depth);
+				for (var m : featureMap.features.values())
+					m.retainReference();
+				return featureMap;
+			}
+		}
+		
+		/**
+		 * Calculate features for a single 2D image.
+		 * <p>
+		 * Because the Gaussian derivative filters are separable, the horizontal filtering is performed once for 
+		 * each derivative order and then shared between all features that require it.
+		 */
+		private FeatureMap buildFeatureMap2D(Mat mat, Kernels2D kernels, double sigmaX, double sigmaY, int depth) {
+			
+			Map<MultiscaleFeature, Mat> features = new LinkedHashMap<>();
+			
+			// Check if we do Hessian or Structure Tensor-based features
+			boolean doSmoothed = weightedStdDev || gaussianSmoothed;
+			boolean doHessian = hessianDeterminant || hessianEigenvalues || laplacianOfGaussian; // || hessianEigenvectors;
+			boolean doSmoothedFiltered = doSmoothed && (sigmaX > 0 || sigmaY > 0);
+			
+			// Horizontally-filtered images, shared between features
+			Mat rowX0 = null, rowX1 = null, rowX2 = null;
+			if (doSmoothedFiltered || gradientMagnitude || doHessian)
+				rowX0 = filterRows(mat, kernels.kx0, kernels, depth);
+			if (gradientMagnitude || doHessian)
+				rowX1 = filterRows(mat, kernels.kx1, kernels, depth);
+			if (doHessian)
+				rowX2 = filterRows(mat, kernels.kx2, kernels, depth);
+			
+			Hessian2D hessian = null;
+			
+			if (doSmoothed) {
+				Mat matSmooth;
+				if (doSmoothedFiltered)
+					matSmooth = filterColumns(rowX0, kernels.ky0, kernels, depth);
+				else
+					matSmooth = mat.clone();
 				
-				Mat kx0 = OpenCVTools.getGaussianDerivKernel(sigmaX, 0, false);
-				Mat kx1 = OpenCVTools.getGaussianDerivKernel(sigmaX, 1, false);
-				Mat kx2 = OpenCVTools.getGaussianDerivKernel(sigmaX, 2, false);
-				
-				Mat ky0 = OpenCVTools.getGaussianDerivKernel(sigmaY, 0, true);
-				Mat ky1 = OpenCVTools.getGaussianDerivKernel(sigmaY, 1, true);
-				Mat ky2 = OpenCVTools.getGaussianDerivKernel(sigmaY, 2, true);
+				stripPadding(matSmooth);
+				if (gaussianSmoothed)
+					features.put(MultiscaleFeature.GAUSSIAN, matSmooth);
 				
-				// Calculate image derivatives
-				Mat dxx = new Mat();
+				if (weightedStdDev) {
+					MatExpr squared = mat.mul(mat);
+					Mat matSquaredSmoothed = squared.asMat();
+					squared.close();
+					opencv_imgproc.sepFilter2D(matSquaredSmoothed, matSquaredSmoothed, depth, kernels.kx0, kernels.ky0, null, 0.0, border);
+					stripPadding(matSquaredSmoothed);
+					MatExpr smoothSquared = matSmooth.mul(matSmooth);
+					MatExpr variance = opencv_core.subtract(matSquaredSmoothed, smoothSquared);
+					matSquaredSmoothed.put(variance);
+					variance.close();
+					smoothSquared.close();
+					opencv_core.sqrt(matSquaredSmoothed, matSquaredSmoothed);
+					features.put(MultiscaleFeature.WEIGHTED_STD_DEV, matSquaredSmoothed);
+				}
+				// The smoothed image may only have been needed to calculate other features
+				if (!gaussianSmoothed)
+					matSmooth.close();
+			}
+			
+			if (structureTensorEigenvalues) {
+				Mat dx = new Mat();
+				Mat dy = new Mat();
 				Mat dxy = new Mat();
-				Mat dyy = new Mat();
+				opencv_imgproc.Sobel(mat, dx, depth, 1, 0);
+				opencv_imgproc.Sobel(mat, dy, depth, 0, 1);
+				dxy.put(dx.mul(dy));
+				dx.put(dx.mul(dx));
+				dy.put(dy.mul(dy));
+				opencv_imgproc.sepFilter2D(dx, dx, depth, kernels.kx0, kernels.ky0, null, 0.0, border);
+				opencv_imgproc.sepFilter2D(dy, dy, depth, kernels.kx0, kernels.ky0, null, 0.0, border);
+				opencv_imgproc.sepFilter2D(dxy, dxy, depth, kernels.kx0, kernels.ky0, null, 0.0, border);
 				
-				// Check if we do Hessian or Structure Tensor-based features
-				boolean doSmoothed = weightedStdDev || gaussianSmoothed;
-	//			boolean doStructureTensor = structureTensorEigenvalues;
-				boolean doHessian = hessianDeterminant || hessianEigenvalues || laplacianOfGaussian; // || hessianEigenvectors;
-					
-				Hessian2D hessian = null;
+				var temp = new EigenSymm2(dx, dxy, dy, false);
+				var stMax = stripPadding(temp.eigvalMax);
+				var stMin = stripPadding(temp.eigvalMin);
+				var coherence = calculateCoherence(stMax, stMin);
+				
+				features.put(MultiscaleFeature.STRUCTURE_TENSOR_EIGENVALUE_MAX, stMax);
+				features.put(MultiscaleFeature.STRUCTURE_TENSOR_EIGENVALUE_MIN, stMin);
+				features.put(MultiscaleFeature.STRUCTURE_TENSOR_COHERENCE, coherence);
+				
+				dx.close();
+				dy.close();
+				dxy.close();
+			}
+			
+			if (gradientMagnitude) {
+				Mat dx = filterColumns(rowX1, kernels.ky0, kernels, depth);
+				Mat dy = filterColumns(rowX0, kernels.ky1, kernels, depth);
+				Mat magnitude = new Mat();
+				opencv_core.magnitude(dx, dy, magnitude);
+				features.put(MultiscaleFeature.GRADIENT_MAGNITUDE, stripPadding(magnitude));
+				dx.close();
+				dy.close();
+			}
+			
+			if (doHessian) {
+				Mat dxx = filterColumns(rowX2, kernels.ky0, kernels, depth);
+				Mat dyy = filterColumns(rowX0, kernels.ky2, kernels, depth);
+				Mat dxy = filterColumns(rowX1, kernels.ky1, kernels, depth);
 				
-	//			double scaleT = sigmaX * sigmaY;
+				// Strip padding now to reduce necessary calculations
+				stripPadding(dxx);
+				stripPadding(dxy);
+				stripPadding(dyy);
 				
-				// TODO: Consder if some calculations need to be done in 64-bit
-	//			int depth = structureTensorEigenvalues || doHessian ? opencv_core.CV_64F : opencv_core.CV_32F;
+				hessian = new Hessian2D(dxx, dxy, dyy, retainHessian);
+				if (laplacianOfGaussian) {
+					Mat temp = hessian.getLaplacian();
+					features.put(MultiscaleFeature.LAPLACIAN, temp);
+				}
 				
-				int depth = mats.stream().allMatch(m -> m.depth() == opencv_core.CV_64F) ? opencv_core.CV_64F : opencv_core.CV_32F;
-	
-				for (Mat mat : mats) {
-					
-					Map<MultiscaleFeature, Mat> features = new LinkedHashMap<>();
-					
-					Mat matSmooth = null;
-					if (doSmoothed) {
-						if (sigmaX > 0 || sigmaY > 0) {
-							matSmooth = new Mat();
-							opencv_imgproc.sepFilter2D(mat, matSmooth, depth, kx0, ky0, null, 0.0, border);
-						} else
-							matSmooth = mat.clone();
-						
-						stripPadding(matSmooth);
-						if (gaussianSmoothed)
-							features.put(MultiscaleFeature.GAUSSIAN, matSmooth);
-						
-						if (weightedStdDev) {
-							Mat matSquaredSmoothed = mat.mul(mat).asMat();
-							opencv_imgproc.sepFilter2D(matSquaredSmoothed, matSquaredSmoothed, depth, kx0, ky0, null, 0.0, border);
-							stripPadding(matSquaredSmoothed);
-							matSquaredSmoothed.put(opencv_core.subtract(matSquaredSmoothed, matSmooth.mul(matSmooth)));
-							opencv_core.sqrt(matSquaredSmoothed, matSquaredSmoothed);
-							features.put(MultiscaleFeature.WEIGHTED_STD_DEV, matSquaredSmoothed);					
-						}
-					}
-									
-					if (structureTensorEigenvalues) {
-						// Allow use of the same Mats as we might need for derivatives later
-						opencv_imgproc.Sobel(mat, dxx, depth, 1, 0);
-						opencv_imgproc.Sobel(mat, dyy, depth, 0, 1);
-						dxy.put(dxx.mul(dyy));
-						dxx.put(dxx.mul(dxx));
-						dyy.put(dyy.mul(dyy));
-						opencv_imgproc.sepFilter2D(dxx, dxx, depth, kx0, ky0, null, 0.0, border);
-						opencv_imgproc.sepFilter2D(dyy, dyy, depth, kx0, ky0, null, 0.0, border);					
-						opencv_imgproc.sepFilter2D(dxy, dxy, depth, kx0, ky0, null, 0.0, border);
-						
-						var temp = new EigenSymm2(dxx, dxy, dyy, false);
-						var stMax = stripPadding(temp.eigvalMax);
-						var stMin = stripPadding(temp.eigvalMin);
-						var coherence = calculateCoherence(stMax, stMin);
-						
-						features.put(MultiscaleFeature.STRUCTURE_TENSOR_EIGENVALUE_MAX, stMax);
-						features.put(MultiscaleFeature.STRUCTURE_TENSOR_EIGENVALUE_MIN, stMin);
-						features.put(MultiscaleFeature.STRUCTURE_TENSOR_COHERENCE, coherence);
-					}
-					
-					if (gradientMagnitude) {
-						opencv_imgproc.sepFilter2D(mat, dxx, depth, kx1, ky0, null, 0.0, border);
-						opencv_imgproc.sepFilter2D(mat, dyy, depth, kx0, ky1, null, 0.0, border);					
-						Mat magnitude = new Mat();
-						opencv_core.magnitude(dxx, dyy, magnitude);
-						features.put(MultiscaleFeature.GRADIENT_MAGNITUDE, stripPadding(magnitude));
-					}
-					
-					if (doHessian) {
-						opencv_imgproc.sepFilter2D(mat, dxx, depth, kx2, ky0, null, 0.0, border);
-						opencv_imgproc.sepFilter2D(mat, dyy, depth, kx0, ky2, null, 0.0, border);
-						opencv_imgproc.sepFilter2D(mat, dxy, depth, kx1, ky1, null, 0.0, border);
-						
-						// Strip padding now to reduce necessary calculations
-						stripPadding(dxx);
-						stripPadding(dxy);
-						stripPadding(dyy);
-						
-						hessian = new Hessian2D(dxx, dxy, dyy, retainHessian);
-						if (laplacianOfGaussian) {
-							Mat temp = hessian.getLaplacian();
-	//						if (scaleNormalize)
-	//							opencv_core.multiplyPut(temp, scaleT);
-							features.put(MultiscaleFeature.LAPLACIAN, temp);
-						}
-						
-						if (hessianDeterminant) {
-							Mat temp = hessian.getDeterminant();
-	//						if (scaleNormalize)
-	//							opencv_core.multiplyPut(temp, scaleT * scaleT);
-							features.put(MultiscaleFeature.HESSIAN_DETERMINANT, temp);
-						}
-						
-						if (hessianEigenvalues) {
-							List<Mat> eigenvalues = hessian.getEigenvalues(false);
-							assert eigenvalues.size() == 2;
-							features.put(MultiscaleFeature.HESSIAN_EIGENVALUE_MAX, eigenvalues.get(0));
-							features.put(MultiscaleFeature.HESSIAN_EIGENVALUE_MIN, eigenvalues.get(1));
-						}
-						
-					}
-					
-					// Ensure our output is 32-bit
-					if (depth != opencv_core.CV_32F) {
-						for (var matFeature : features.values()) {
-							matFeature.convertTo(matFeature, opencv_core.CV_32F);
-						}
-					}
-					
-					results.add(new FeatureMap(features, retainHessian ? hessian : null));
+				if (hessianDeterminant) {
+					Mat temp = hessian.getDeterminant();
+					features.put(MultiscaleFeature.HESSIAN_DETERMINANT, temp);
 				}
 				
-//				// Make sure we retain the Mats that we need
-//				for (var r : results) {
-//					for (var m : r.features.values()) {
-//						m.retainReference();
-//						resultMats.add(m);
-//						if (r.getHessian() != null) {
-//							// TODO: Retain Hessian!
-//						}
-//					}
-//				}
-//				
-//			}
+				if (hessianEigenvalues) {
+					List<Mat> eigenvalues = hessian.getEigenvalues(false);
+					assert eigenvalues.size() == 2;
+					features.put(MultiscaleFeature.HESSIAN_EIGENVALUE_MAX, eigenvalues.get(0));
+					features.put(MultiscaleFeature.HESSIAN_EIGENVALUE_MIN, eigenvalues.get(1));
+				}
+				
+				// Derivatives are only needed if the Hessian is retained - any eigenvalues are now owned by the features
+				if (!retainHessian) {
+					dxx.close();
+					dxy.close();
+					dyy.close();
+				}
+			}
 			
-//			var currentScope = PointerScope.getInnerScope();
-//			if (currentScope != null) {
-//				for (var m : resultMats) {
-//					currentScope.attach(m);
-//				}
-//			}
+			if (rowX0 != null)
+				rowX0.close();
+			if (rowX1 != null)
+				rowX1.close();
+			if (rowX2 != null)
+				rowX2.close();
 			
+			// Ensure our output is 32-bit
+			if (depth != opencv_core.CV_32F) {
+				for (var matFeature : features.values()) {
+					matFeature.convertTo(matFeature, opencv_core.CV_32F);
+				}
+			}
 			
-//			if (hessian != null && !retainHessian) {
-//				hessian.dxx.close();
-//				hessian.dxy.close();
-//				hessian.dyy.close();
-//			}//				hessian.close();
-//
-			if (dxx != null)
-				dxx.close();
-			if (dxy != null)
-				dxy.close();
-			if (dyy != null)
-				dyy.close();
+			return new FeatureMap(features, retainHessian ? hessian : null);
+		}
+		
+		private Mat filterRows(Mat mat, Mat kernelX, Kernels2D kernels, int depth) {
+			var output = new Mat();
+			opencv_imgproc.sepFilter2D(mat, output, depth, kernelX, kernels.identity, null, 0.0, border);
+			return output;
+		}
+		
+		private Mat filterColumns(Mat mat, Mat kernelY, Kernels2D kernels, int depth) {
+			var output = new Mat();
+			opencv_imgproc.sepFilter2D(mat, output, depth, kernels.identity, kernelY, null, 0.0, border);
+			return output;
+		}
+		
+		/**
+		 * Gaussian derivative kernels for 2D filtering.
+		 */
+		private static class Kernels2D implements AutoCloseable {
 			
-			kx0.close();
-			kx1.close();
-			kx2.close();
-			ky0.close();
-			ky1.close();
-			ky2.close();
+			private final Mat kx0, kx1, kx2;
+			private final Mat ky0, ky1, ky2;
+			private final Mat identity;
 			
-			return results;
+			private Kernels2D(double sigmaX, double sigmaY) {
+				kx0 = OpenCVTools.getGaussianDerivKernel(sigmaX, 0, false);
+				kx1 = OpenCVTools.getGaussianDerivKernel(sigmaX, 1, false);
+				kx2 = OpenCVTools.getGaussianDerivKernel(sigmaX, 2, false);
+				ky0 = OpenCVTools.getGaussianDerivKernel(sigmaY, 0, true);
+				ky1 = OpenCVTools.getGaussianDerivKernel(sigmaY, 1, true);
+				ky2 = OpenCVTools.getGaussianDerivKernel(sigmaY, 2, true);
+				identity = new Mat(1, 1, opencv_core.CV_64F, Scalar.ONE);
+			}
 
+			@Override
+			public void close() {
+				kx0.close();
+				kx1.close();
+				kx2.close();
+				ky0.close();
+				ky1.close();
+				ky2.close();
+				identity.close();
+			}
+			
 		}
 		
 		
@@ -1218,7 +1325,9 @@ public class MultiscaleFeatures {
 		
 		@Override
 		public Mat getLaplacian() {
-			return opencv_core.add(dxx, dyy).asMat();
+			try (var expr = opencv_core.add(dxx, dyy)) {
+				return expr.asMat();
+			}
 		}
 		
 		private void ensureEigenvalues() {
@@ -1263,7 +1372,9 @@ public class MultiscaleFeatures {
 		
 		@Override
 		public Mat getDeterminant() {
-			return EigenSymm2.getDeterminantExpr2x2(dxx, dxy, dyy).asMat();
+			try (var expr = EigenSymm2.getDeterminantExpr2x2(dxx, dxy, dyy)) {
+				return expr.asMat();
+			}
 		}
 
 		@Override
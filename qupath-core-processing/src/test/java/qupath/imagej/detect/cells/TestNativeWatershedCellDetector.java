@@ -0,0 +1,215 @@
+/*-
+ * #%L
+ * This file is part of QuPath.
+ * %%
+ * Copyright (C) 2026 QuPath developers, The University of Edinburgh
+ * %%
+ * QuPath is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * QuPath is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with QuPath.  If not, see <https://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package qupath.imagej.detect.cells;
+
+import org.junit.jupiter.api.Test;
+import qupath.lib.images.ImageData;
+import qupath.lib.images.ImageData.ImageType;
+import qupath.lib.images.servers.WrappedBufferedImageServer;
+import qupath.lib.objects.PathCellObject;
+import qupath.lib.objects.PathObject;
+import qupath.lib.plugins.parameters.ParameterList;
+import qupath.lib.regions.ImagePlane;
+import qupath.lib.roi.ROIs;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Check that the native implementation of cell detection gives results equivalent to the ImageJ implementation.
+ * The results aren't expected to be identical, so this checks that (almost) every nucleus detected by one
+ * implementation has a close match in the other.
+ */
+@SuppressWarnings("javadoc")
+public class TestNativeWatershedCellDetector {
+
+	private static final int SIZE = 256;
+
+	@Test
+	public void testFluorescenceSameAsImageJ() throws Exception {
+		var nuclei = createNuclei(new Random(100));
+		var img = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_BYTE_GRAY);
+		var raster = img.getRaster();
+		var random = new Random(101);
+		for (int y = 0; y < SIZE; y++) {
+			for (int x = 0; x < SIZE; x++) {
+				double val = 10 + random.nextGaussian() * 3 + 150 * coverage(nuclei, x, y);
+				raster.setSample(x, y, 0, clip(val));
+			}
+		}
+		var imageData = createImageData(img, ImageType.FLUORESCENCE);
+		var params = createParameters(imageData, 40.0);
+
+		checkEquivalent(imageData, params, nuclei.size());
+	}
+
+	@Test
+	public void testBrightfieldSameAsImageJ() throws Exception {
+		var nuclei = createNuclei(new Random(200));
+		var img = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_RGB);
+		var raster = img.getRaster();
+		var random = new Random(201);
+		// Blend from a near-white background towards a hematoxylin-like blue
+		int[] background = {240, 235, 240};
+		int[] hematoxylin = {90, 70, 160};
+		for (int y = 0; y < SIZE; y++) {
+			for (int x = 0; x < SIZE; x++) {
+				double weight = coverage(nuclei, x, y);
+				for (int b = 0; b < 3; b++) {
+					double val = background[b] * (1 - weight) + hematoxylin[b] * weight + random.nextGaussian() * 3;
+					raster.setSample(x, y, b, clip(val));
+				}
+			}
+		}
+		var imageData = createImageData(img, ImageType.BRIGHTFIELD_H_DAB);
+		var params = createParameters(imageData, 0.1);
+
+		checkEquivalent(imageData, params, nuclei.size());
+	}
+
+	private static void checkEquivalent(ImageData<BufferedImage> imageData, ParameterList params, int nNuclei) throws Exception {
+		var expected = detect(imageData, params, false);
+		var actual = detect(imageData, params, true);
+
+		// Synthetic nuclei are well-separated or just touching, so both should find (nearly) all of them
+		assertTrue(Math.abs(expected.size() - nNuclei) <= nNuclei / 20, "ImageJ detected " + expected.size() + " of " + nNuclei);
+		assertTrue(Math.abs(actual.size() - expected.size()) <= Math.max(1, expected.size() / 20),
+				"Native detected " + actual.size() + ", ImageJ detected " + expected.size());
+		assertTrue(actual.stream().allMatch(PathCellObject.class::isInstance));
+
+		int nMatched = countMatches(expected, actual);
+		assertTrue(nMatched >= expected.size() * 0.95, "Only " + nMatched + " of " + expected.size() + " nuclei matched");
+		assertTrue(countMatches(actual, expected) >= actual.size() * 0.95);
+
+		// Measurements should also be made for the same features
+		var expectedNames = expected.getFirst().getMeasurementList().getNames();
+		var actualNames = actual.getFirst().getMeasurementList().getNames();
+		assertFalse(actualNames.isEmpty());
+		for (var name : expectedNames) {
+			if (name.contains("Area"))
+				assertTrue(actualNames.contains(name), "Missing measurement " + name);
+		}
+	}
+
+	/**
+	 * Count the objects in the first collection with a nucleus that has a close match in the second collection,
+	 * based upon centroid and area.
+	 */
+	private static int countMatches(Collection<PathObject> first, Collection<PathObject> second) {
+		int n = 0;
+		for (var cell : first) {
+			var nucleus = ((PathCellObject)cell).getNucleusROI();
+			for (var other : second) {
+				var nucleusOther = ((PathCellObject)other).getNucleusROI();
+				double dx = nucleus.getCentroidX() - nucleusOther.getCentroidX();
+				double dy = nucleus.getCentroidY() - nucleusOther.getCentroidY();
+				if (dx*dx + dy*dy < 2*2 && Math.abs(nucleus.getArea() / nucleusOther.getArea() - 1) < 0.15) {
+					n++;
+					break;
+				}
+			}
+		}
+		return n;
+	}
+
+	private static List<PathObject> detect(ImageData<BufferedImage> imageData, ParameterList params, boolean useNative) throws Exception {
+		boolean previous = WatershedCellDetection.getNativeDetection();
+		try {
+			WatershedCellDetection.setNativeDetection(useNative);
+			var roi = ROIs.createRectangleROI(0, 0, SIZE, SIZE, ImagePlane.getDefaultPlane());
+			return List.copyOf(new WatershedCellDetection.CellDetector().runDetection(imageData, params, roi));
+		} finally {
+			WatershedCellDetection.setNativeDetection(previous);
+		}
+	}
+
+	private static ImageData<BufferedImage> createImageData(BufferedImage img, ImageType type) {
+		return new ImageData<>(new WrappedBufferedImageServer("Synthetic", img), type);
+	}
+
+	private static ParameterList createParameters(ImageData<BufferedImage> imageData, double threshold) {
+		var params = new WatershedCellDetection().getDefaultParameterList(imageData);
+		ParameterList.updateParameterList(params, Map.of(
+				"backgroundRadius", "15",
+				"sigma", "1.5",
+				"minArea", "10",
+				"maxArea", "1000",
+				"cellExpansion", "5",
+				"threshold", Double.toString(threshold)
+		), Locale.US);
+		return params;
+	}
+
+	private record Nucleus(double x, double y, double rx, double ry) {}
+
+	/**
+	 * Create elliptical nuclei on a jittered grid, with some pairs of nuclei touching.
+	 */
+	private static List<Nucleus> createNuclei(Random random) {
+		List<Nucleus> nuclei = new ArrayList<>();
+		double spacing = 36;
+		for (double y = spacing / 2; y < SIZE - spacing / 2; y += spacing) {
+			for (double x = spacing / 2; x < SIZE - spacing / 2; x += spacing) {
+				double rx = 5 + random.nextDouble() * 2;
+				double ry = 5 + random.nextDouble() * 2;
+				double cx = x + random.nextDouble() * 4 - 2;
+				double cy = y + random.nextDouble() * 4 - 2;
+				if (random.nextDouble() < 0.2) {
+					// Touching pair
+					nuclei.add(new Nucleus(cx - rx * 0.9, cy, rx, ry));
+					nuclei.add(new Nucleus(cx + rx * 0.9, cy, rx, ry));
+				} else {
+					nuclei.add(new Nucleus(cx, cy, rx, ry));
+				}
+			}
+		}
+		return nuclei;
+	}
+
+	/**
+	 * Get the proportion of a pixel covered by nuclei, with a soft edge.
+	 */
+	private static double coverage(List<Nucleus> nuclei, int x, int y) {
+		double max = 0;
+		for (var nucleus : nuclei) {
+			double dx = (x + 0.5 - nucleus.x()) / nucleus.rx();
+			double dy = (y + 0.5 - nucleus.y()) / nucleus.ry();
+			double d = Math.sqrt(dx*dx + dy*dy);
+			max = Math.max(max, Math.min(1, Math.max(0, (1.15 - d) / 0.3)));
+		}
+		return max;
+	}
+
+	private static int clip(double val) {
+		return (int)Math.round(Math.max(0, Math.min(255, val)));
+	}
+
+}
@@ -0,0 +1,132 @@
+/*-
+ * #%L
+ * This file is part of QuPath.
+ * %%
+ * Copyright (C) 2026 QuPath developers, The University of Edinburgh
+ * %%
+ * QuPath is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * QuPath is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with QuPath.  If not, see <https://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package qupath.imagej.detect.cells;
+
+import ij.plugin.filter.RankFilters;
+import ij.process.FloatProcessor;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.junit.jupiter.api.Test;
+import qupath.imagej.detect.cells.PixelFilters.RankType;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SuppressWarnings("javadoc")
+public class TestPixelFilters {
+
+	private static final int WIDTH = 47;
+	private static final int HEIGHT = 31;
+
+	@ParameterizedTest
+	@ValueSource(doubles = {0.5, 1.0, 1.5, 2.5, 4.0, 7.3})
+	public void testRankFiltersMatchImageJ(double radius) {
+		float[] px = createRandomPixels();
+		var rf = new RankFilters();
+		for (var type : RankType.values()) {
+			var fp = new FloatProcessor(WIDTH, HEIGHT, px.clone());
+			int ijType = switch (type) {
+				case MIN -> RankFilters.MIN;
+				case MAX -> RankFilters.MAX;
+				case MEDIAN -> RankFilters.MEDIAN;
+			};
+			rf.rank(fp, radius, ijType);
+			float[] expected = (float[])fp.getPixels();
+			float[] actual = PixelFilters.rankFilter(px, WIDTH, HEIGHT, radius, type);
+			assertArrayEquals(expected, actual, 1e-6f, "Rank filter " + type + " with radius " + radius);
+		}
+	}
+
+	@Test
+	public void testDistanceTransform() {
+		boolean[] foreground = new boolean[WIDTH * HEIGHT];
+		for (int y = 5; y < 20; y++) {
+			for (int x = 10; x < 30; x++)
+				foreground[y * WIDTH + x] = true;
+		}
+		float[] dist = PixelFilters.distanceTransform(foreground, WIDTH, HEIGHT);
+		for (int y = 0; y < HEIGHT; y++) {
+			for (int x = 0; x < WIDTH; x++) {
+				int i = y * WIDTH + x;
+				if (!foreground[i]) {
+					assertEquals(0f, dist[i]);
+				} else {
+					int expected = Math.min(Math.min(x - 9, 30 - x), Math.min(y - 4, 20 - y));
+					assertEquals(expected, dist[i], 1e-6);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testFillHoles() {
+		boolean[] foreground = new boolean[WIDTH * HEIGHT];
+		// Square ring, with a hole in the middle
+		for (int y = 5; y < 15; y++) {
+			for (int x = 5; x < 15; x++)
+				foreground[y * WIDTH + x] = x < 7 || x > 12 || y < 7 || y > 12;
+		}
+		// Separate square without a hole, touching the boundary
+		for (int y = 0; y < 5; y++) {
+			for (int x = 30; x < 35; x++)
+				foreground[y * WIDTH + x] = true;
+		}
+		float[] labels = new float[foreground.length];
+		assertEquals(2, PixelFilters.labelConnected(foreground, WIDTH, HEIGHT, false, labels));
+		float ringLabel = labels[5 * WIDTH + 5];
+		PixelFilters.fillHoles(labels, WIDTH, HEIGHT);
+		assertEquals(ringLabel, labels[10 * WIDTH + 10]);
+		int count = 0;
+		for (float label : labels) {
+			if (label == ringLabel)
+				count++;
+		}
+		assertEquals(100, count);
+		assertEquals(0f, labels[20 * WIDTH + 20]);
+	}
+
+	@Test
+	public void testWatershedSplit() {
+		// Two overlapping circles should be split into two objects
+		boolean[] bp = new boolean[WIDTH * HEIGHT];
+		for (int y = 0; y < HEIGHT; y++) {
+			for (int x = 0; x < WIDTH; x++) {
+				bp[y * WIDTH + x] = Math.hypot(x - 15, y - 15) < 8 || Math.hypot(x - 29, y - 15) < 8;
+			}
+		}
+		float[] labels = new float[bp.length];
+		assertEquals(1, PixelFilters.labelConnected(bp, WIDTH, HEIGHT, false, labels));
+		PixelFilters.watershedSplit(bp, WIDTH, HEIGHT);
+		assertEquals(2, PixelFilters.labelConnected(bp, WIDTH, HEIGHT, false, labels));
+	}
+
+	private static float[] createRandomPixels() {
+		var random = new Random(100);
+		float[] px = new float[WIDTH * HEIGHT];
+		for (int i = 0; i < px.length; i++)
+			px[i] = (float)random.nextGaussian();
+		return px;
+	}
+
+}
@@ -26,6 +26,8 @@ package qupath.lib.scripting;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import qupath.lib.analysis.features.ObjectMeasurements.ShapeFeatures;
+import qupath.lib.images.ImageData;
+import qupath.lib.images.servers.WrappedBufferedImageServer;
 import qupath.lib.io.PathIO.GeoJsonExportOptions;
 import qupath.lib.objects.PathObject;
 import qupath.lib.objects.PathObjects;
@@ -34,7 +36,11 @@ import qupath.lib.objects.hierarchy.PathObjectHierarchy;
 import qupath.lib.regions.ImagePlane;
 import qupath.lib.roi.ROIs;
 
+import java.awt.image.BufferedImage;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 
@@ -58,6 +64,32 @@ public class TestQP {
 				new ShapeFeatures[] {ShapeFeatures.AREA, ShapeFeatures.MAX_DIAMETER});
 	}
 
+	@Test
+	public void test_parallelBatchImageData() throws Exception {
+		int nThreads = 8;
+		var img = new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB);
+		List<Callable<Boolean>> tasks = IntStream.range(0, nThreads * 10)
+				.mapToObj(i -> (Callable<Boolean>)() -> {
+					var imageData = new ImageData<>(new WrappedBufferedImageServer("Image " + i, img));
+					try {
+						for (int j = 0; j < 100; j++) {
+							QP.setBatchImageData(imageData);
+							if (QP.getCurrentImageData() != imageData)
+								return false;
+							QP.setBatchImageData(null);
+						}
+						return QP.getBatchImageData() == null;
+					} finally {
+						QP.resetBatchProjectAndImage();
+					}
+				})
+				.toList();
+		try (var pool = Executors.newFixedThreadPool(nThreads)) {
+			for (var future : pool.invokeAll(tasks))
+				Assertions.assertTrue(future.get());
+		}
+	}
+
 	@Test
 	void Check_Annotations_Not_Merged_If_Different_Image_Planes() {
 		PathObjectHierarchy hierarchy = new PathObjectHierarchy();
@@ -0,0 +1,165 @@
+/*-
+ * #%L
+ * This file is part of QuPath.
+ * %%
+ * Copyright (C) 2026 QuPath developers, The University of Edinburgh
+ * %%
+ * QuPath is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * QuPath is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with QuPath.  If not, see <https://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package qupath.opencv.ops;
+
+import org.bytedeco.opencv.global.opencv_core;
+import org.bytedeco.opencv.opencv_core.Mat;
+import org.junit.jupiter.api.Test;
+import qupath.lib.regions.RegionRequest;
+import qupath.opencv.tools.OpenCVTools;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SuppressWarnings("javadoc")
+public class TestImageOpCache {
+
+	static {
+		// Need to force class initialization
+		new ImageOps();
+	}
+
+	@Test
+	public void testKeys() {
+		assertEquals(ImageOpCache.createKey("a", "b"), ImageOpCache.createKey("a", "b"));
+		assertNotEquals(ImageOpCache.createKey("ab", "c"), ImageOpCache.createKey("a", "bc"));
+	}
+
+	@Test
+	public void testMemoryCache() {
+		var mat = createMat(32, 32, 1);
+		long nBytes = mat.total() * mat.elemSize();
+
+		var cache = ImageOpCache.createMemoryCache(nBytes * 2);
+		cache.put("first", mat);
+		var cached = cache.get("first");
+		assertNotNull(cached);
+		assertEquals(mat.type(), cached.type());
+		assertArrayEquals(OpenCVTools.extractFloats(mat), OpenCVTools.extractFloats(cached));
+
+		// Adding two more entries should evict the first
+		cache.put("second", mat);
+		cache.put("third", mat);
+		assertNull(cache.get("first"));
+		assertNotNull(cache.get("third"));
+		assertEquals(nBytes * 2, cache.getMemoryBytes());
+
+		cache.clear();
+		assertNull(cache.get("third"));
+		assertEquals(0, cache.getMemoryBytes());
+	}
+
+	@Test
+	public void testDiskCache() throws IOException {
+		var dir = Files.createTempDirectory("op-cache");
+		var mat = createMat(16, 8, 3);
+
+		// No memory, so everything must come from disk
+		var cache = ImageOpCache.createCache(0, dir);
+		cache.put("key", mat);
+		assertEquals(0, cache.getMemoryBytes());
+		var cached = cache.get("key");
+		assertNotNull(cached);
+		assertEquals(mat.rows(), cached.rows());
+		assertEquals(mat.cols(), cached.cols());
+		assertEquals(mat.channels(), cached.channels());
+		assertArrayEquals(OpenCVTools.extractFloats(mat), OpenCVTools.extractFloats(cached));
+
+		cache.clear();
+		assertNull(cache.get("key"));
+	}
+
+	@Test
+	public void testClearOnlyRemovesCacheFiles() throws IOException {
+		var dir = Files.createTempDirectory("op-cache");
+		var other = Files.writeString(dir.resolve("other.mat"), "Not from the cache");
+		var notes = Files.writeString(dir.resolve("notes.txt"), "Not from the cache");
+		var subdir = Files.createDirectories(dir.resolve(ImageOpCache.createKey("subdir") + ".mat"));
+
+		var cache = ImageOpCache.createCache(0, dir);
+		cache.put("key", createMat(4, 4, 1));
+		// Keys needn't be valid file names, and mustn't be able to write outside the directory
+		cache.put("../key", createMat(4, 4, 1));
+		cache.put("key/with/separators", createMat(4, 4, 1));
+		assertNotNull(cache.get("../key"));
+		assertNotNull(cache.get("key/with/separators"));
+		assertFalse(Files.exists(dir.getParent().resolve("key.mat")));
+
+		cache.clear();
+		assertNull(cache.get("key"));
+		assertNull(cache.get("../key"));
+		assertTrue(Files.exists(other));
+		assertTrue(Files.exists(notes));
+		assertTrue(Files.isDirectory(subdir));
+		try (var stream = Files.list(dir)) {
+			assertEquals(3, stream.count());
+		}
+	}
+
+	@Test
+	public void testSharedStages() throws IOException {
+		var cache = ImageOpCache.createMemoryCache(Long.MAX_VALUE);
+		var request = RegionRequest.createInstance("anything", 1.0, 0, 0, 32, 32);
+
+		var opFeatures = ImageOps.Filters.gaussianBlur(2.0);
+		var padding = opFeatures.getPadding();
+		var input = createMat(32 + padding.getYSum(), 32 + padding.getXSum(), 1);
+		var count = new AtomicInteger();
+		ImageOps.MatSupplier supplier = () -> {
+			count.incrementAndGet();
+			return input.clone();
+		};
+
+		// Two different pipelines that share the same (padded) first stage
+		var op1 = ImageOps.Core.sequential(opFeatures, ImageOps.Core.multiply(2.0));
+		var op2 = ImageOps.Core.sequential(opFeatures, ImageOps.Core.add(1.0));
+
+		var mat1 = ImageOps.applyCached(cache, op1, "input", request, supplier);
+		assertEquals(1, count.get());
+		var mat2 = ImageOps.applyCached(cache, op2, "input", request, supplier);
+		assertEquals(1, count.get());
+
+		// Results should match applying the ops without the cache
+		assertArrayEquals(OpenCVTools.extractFloats(op1.apply(input.clone())), OpenCVTools.extractFloats(mat1), 1e-6f);
+		assertArrayEquals(OpenCVTools.extractFloats(op2.apply(input.clone())), OpenCVTools.extractFloats(mat2), 1e-6f);
+
+		// A different input must not reuse the result
+		ImageOps.applyCached(cache, op1, "another input", request, supplier);
+		assertEquals(2, count.get());
+	}
+
+	private static Mat createMat(int rows, int cols, int channels) {
+		var mat = new Mat(rows, cols, opencv_core.CV_32FC(channels));
+		OpenCVTools.addNoise(mat, 10, 2);
+		return mat;
+	}
+
+}
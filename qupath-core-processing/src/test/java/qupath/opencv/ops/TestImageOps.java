@@ -29,6 +29,7 @@ import org.bytedeco.opencv.global.opencv_core;
 import org.bytedeco.opencv.opencv_core.Mat;
 import org.bytedeco.opencv.opencv_core.Scalar;
 import org.junit.jupiter.api.Test;
+import qupath.lib.images.servers.PixelType;
 import qupath.lib.io.GsonTools;
 import qupath.opencv.tools.OpenCVTools;
 
@@ -468,6 +469,35 @@ public class TestImageOps {
 	}
 	
 	
+	@Test
+	public void testFusedPixelwiseOps() {
+		try (var scope = new PointerScope()) {
+			opencv_core.setRNGSeed(100);
+			var mat = new Mat(50, 40, opencv_core.CV_32FC3);
+			OpenCVTools.addNoise(mat, 5, 2);
+			
+			var ops = Arrays.asList(
+					ImageOps.Core.multiply(2.0, 3.0, 4.0),
+					ImageOps.Core.subtract(1.0),
+					ImageOps.Core.clip(0, 15),
+					ImageOps.Core.sqrt(),
+					ImageOps.Normalize.sigmoid(),
+					ImageOps.Core.ensureType(PixelType.FLOAT64),
+					ImageOps.Core.add(1.0)
+					);
+			
+			// Apply ops one at a time, without fusion
+			var matExpected = mat.clone();
+			for (var op : ops)
+				matExpected.put(op.apply(matExpected));
+			
+			// Apply as a sequential op, where the first 5 ops should be fused
+			var matFused = ImageOps.Core.sequential(ops).apply(mat.clone());
+			
+			assertEquals(opencv_core.CV_64F, matFused.depth());
+			assertTrue(matsEqual(matExpected, matFused, 1e-5));
+		}
+	}
 	
 	
 	/**
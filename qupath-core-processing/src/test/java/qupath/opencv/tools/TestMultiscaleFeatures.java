@@ -23,18 +23,21 @@ package qupath.opencv.tools;
 
 import org.bytedeco.javacpp.PointerScope;
 import org.bytedeco.opencv.global.opencv_core;
+import org.bytedeco.opencv.global.opencv_imgproc;
 import org.bytedeco.opencv.opencv_core.Mat;
 import org.bytedeco.opencv.opencv_core.Scalar;
 import org.junit.jupiter.api.Test;
 import qupath.opencv.tools.MultiscaleFeatures.Hessian;
 
 import java.nio.DoubleBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -216,7 +219,92 @@ public class TestMultiscaleFeatures {
 	}
 	
 	
+	@Test
+	public void test_parallelFeatures2D() {
+		
+		try (var scope = new PointerScope()) {
+			
+			var mats = new ArrayList<Mat>();
+			for (int i = 0; i < 4; i++) {
+				var mat = new Mat(256, 200, opencv_core.CV_32FC1);
+				opencv_core.randn(mat, new Mat(1, 1, opencv_core.CV_32FC1, Scalar.all(i)), new Mat(1, 1, opencv_core.CV_32FC1, Scalar.ONE));
+				mats.add(mat);
+			}
+			
+			var features = Arrays.stream(MultiscaleFeatures.MultiscaleFeature.values())
+					.filter(f -> f.supports2D())
+					.toList();
+			var builder = new MultiscaleFeatures.MultiscaleResultsBuilder(features)
+					.sigmaX(2.0)
+					.sigmaY(3.0);
+			
+			var sequential = builder.parallel(false).build(mats);
+			var parallel = builder.parallel(true).build(mats);
+			assertEquals(mats.size(), sequential.size());
+			assertEquals(mats.size(), parallel.size());
+			
+			for (int i = 0; i < mats.size(); i++) {
+				for (var feature : features) {
+					assertArrayEquals(
+							getAllValues(sequential.get(i).get(feature)),
+							getAllValues(parallel.get(i).get(feature)),
+							1e-6);
+				}
+				
+				// Gaussian filtering is performed in two passes - check this matches a single separable filter
+				var kx = OpenCVTools.getGaussianDerivKernel(2.0, 0, false);
+				var ky = OpenCVTools.getGaussianDerivKernel(3.0, 0, true);
+				var matSmoothed = new Mat();
+				opencv_imgproc.sepFilter2D(mats.get(i), matSmoothed, opencv_core.CV_32F, kx, ky, null, 0.0, opencv_core.BORDER_REPLICATE);
+				assertArrayEquals(
+						getAllValues(matSmoothed),
+						getAllValues(sequential.get(i).get(MultiscaleFeatures.MultiscaleFeature.GAUSSIAN)),
+						1e-4);
+			}
+		}
+	}
 	
+	@Test
+	public void test_parallelFeaturesReleased() {
+		var features = List.of(
+				MultiscaleFeatures.MultiscaleFeature.WEIGHTED_STD_DEV,
+				MultiscaleFeatures.MultiscaleFeature.HESSIAN_EIGENVALUE_MAX);
+		var builder = new MultiscaleFeatures.MultiscaleResultsBuilder(features)
+				.sigmaX(2.0)
+				.sigmaY(2.0)
+				.parallel(true);
+		
+		var mats = new ArrayList<Mat>();
+		for (int i = 0; i < 4; i++)
+			mats.add(new Mat(64, 64, opencv_core.CV_32FC1, Scalar.all(i)));
+		
+		// Features should be released along with the scope of the caller, even though they were created on other threads
+		var released = new ArrayList<Mat>();
+		var retained = new ArrayList<Mat>();
+		try (var scope = new PointerScope()) {
+			for (var results : builder.build(mats)) {
+				released.add(results.get(features.get(0)));
+				var temp = results.get(features.get(1));
+				temp.retainReference();
+				retained.add(temp);
+			}
+		}
+		assertTrue(released.stream().allMatch(m -> m.isNull()));
+		assertTrue(retained.stream().noneMatch(m -> m.isNull()));
+		for (var mat : retained) {
+			mat.releaseReference();
+			assertTrue(mat.isNull());
+		}
+		
+		// Without a scope, the caller should be able to close the features
+		for (var results : builder.build(mats)) {
+			for (var mat : results.values()) {
+				assertFalse(mat.isNull());
+				mat.close();
+				assertTrue(mat.isNull());
+			}
+		}
+	}
 	
 	
 	private static double getValue(Mat mat) {
@@ -597,10 +597,10 @@ public class ContourTracing {
 					if (val != label)
 						continue;
 					// Update our max label if required
-					if (label > maxLabel) {
+					if (label > maxLabelFound) {
 						maxLabelFound = label;
-						if (searchingMaxLabel)
-							maxLabel = maxLabelFound;
+						if (searchingMaxLabel && label > maxLabel)
+							maxLabel = label;
 					}
 					// Update envelope if required
 					if (selected(label, minLabel, maxLabel)) {
@@ -0,0 +1,381 @@
+/*-
+ * #%L
+ * This file is part of QuPath.
+ * %%
+ * Copyright (C) 2026 QuPath developers, The University of Edinburgh
+ * %%
+ * QuPath is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * QuPath is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with QuPath.  If not, see <https://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package qupath.lib.awt.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferDouble;
+import java.awt.image.DataBufferFloat;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferShort;
+import java.awt.image.DataBufferUShort;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.lang.reflect.Array;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An opt-in pool of primitive arrays that can be used to back rasters with a short, well-defined lifetime.
+ * <p>
+ * Whole slide image processing often creates large numbers of same-sized, short-lived arrays
+ * (e.g. when assembling or converting tiles). Reusing these can reduce garbage collection pressure,
+ * particularly for arrays large enough to be treated as 'humongous' allocations by the G1 collector.
+ * <p>
+ * Arrays are grouped into buckets by data type and length. Each thread keeps a small number of
+ * released arrays locally, with any others returned to a shared pool up to a maximum size in bytes.
+ * Borrowed arrays are always zeroed, so that they may be used exactly like newly-allocated arrays.
+ * <p>
+ * <b>Important!</b> An array (or raster) should only be released when it is certain that it is no
+ * longer referenced anywhere else; otherwise its contents may be changed unexpectedly.
+ * In particular, images that are cached or returned from an {@code ImageServer} should not be released.
+ * <p>
+ * Pooling is turned off by default, in which case the methods here simply allocate new arrays.
+ * It can be turned on with {@link #setEnabled(boolean)} or the system property {@code qupath.rasters.pooled}.
+ *
+ * @author Pete Bankhead
+ * @since v0.8.0
+ */
+public final class RasterPool {
+
+	private static final Logger logger = LoggerFactory.getLogger(RasterPool.class);
+
+	private static final int MAX_LOCAL_ARRAYS = 4;
+
+	private static boolean enabled = "true".equalsIgnoreCase(System.getProperty("qupath.rasters.pooled", "false"));
+
+	private static long maxPoolBytes = Math.min(Runtime.getRuntime().maxMemory() / 16, 512L * 1024L * 1024L);
+
+	private static final Map<Key, Deque<Object>> buckets = new ConcurrentHashMap<>();
+
+	private static final AtomicLong pooledBytes = new AtomicLong();
+
+	private static final ThreadLocal<Deque<Object>> localArrays = ThreadLocal.withInitial(ArrayDeque::new);
+
+	private record Key(int dataType, int length) {}
+
+	// Suppress default constructor for non-instantiability
+	private RasterPool() {
+		throw new AssertionError();
+	}
+
+	/**
+	 * Turn pooling on or off. If turned off, any pooled arrays are discarded.
+	 * @param enable
+	 */
+	public static void setEnabled(boolean enable) {
+		enabled = enable;
+		if (!enable)
+			clear();
+	}
+
+	/**
+	 * Query whether pooling is turned on.
+	 * @return
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Set the approximate maximum number of bytes that may be retained in the shared pool.
+	 * This does not include the small number of arrays that may be retained by each thread.
+	 * @param maxBytes
+	 */
+	public static void setMaxPoolBytes(long maxBytes) {
+		maxPoolBytes = Math.max(0, maxBytes);
+	}
+
+	/**
+	 * Get the approximate maximum number of bytes that may be retained in the shared pool.
+	 * @return
+	 */
+	public static long getMaxPoolBytes() {
+		return maxPoolBytes;
+	}
+
+	/**
+	 * Get the approximate number of bytes currently retained in the shared pool.
+	 * @return
+	 */
+	public static long getPooledBytes() {
+		return pooledBytes.get();
+	}
+
+	/**
+	 * Discard all arrays in the shared pool, and those retained by the current thread.
+	 */
+	public static void clear() {
+		buckets.clear();
+		pooledBytes.set(0);
+		localArrays.remove();
+	}
+
+	/**
+	 * Borrow a zeroed byte array.
+	 * @param length the required length
+	 * @return
+	 */
+	public static byte[] borrowBytes(int length) {
+		return (byte[])borrow(DataBuffer.TYPE_BYTE, length);
+	}
+
+	/**
+	 * Borrow a zeroed short array.
+	 * @param length the required length
+	 * @return
+	 */
+	public static short[] borrowShorts(int length) {
+		return (short[])borrow(DataBuffer.TYPE_SHORT, length);
+	}
+
+	/**
+	 * Borrow a zeroed int array.
+	 * @param length the required length
+	 * @return
+	 */
+	public static int[] borrowInts(int length) {
+		return (int[])borrow(DataBuffer.TYPE_INT, length);
+	}
+
+	/**
+	 * Borrow a zeroed float array.
+	 * @param length the required length
+	 * @return
+	 */
+	public static float[] borrowFloats(int length) {
+		return (float[])borrow(DataBuffer.TYPE_FLOAT, length);
+	}
+
+	/**
+	 * Borrow a zeroed double array.
+	 * @param length the required length
+	 * @return
+	 */
+	public static double[] borrowDoubles(int length) {
+		return (double[])borrow(DataBuffer.TYPE_DOUBLE, length);
+	}
+
+	/**
+	 * Create a writable raster, backed by pooled arrays if possible.
+	 * @param sampleModel the sample model defining the raster layout
+	 * @return a raster with all samples set to zero
+	 */
+	public static WritableRaster createWritableRaster(SampleModel sampleModel) {
+		int bankSize = getBankSize(sampleModel);
+		if (!enabled || bankSize <= 0)
+			return Raster.createWritableRaster(sampleModel, null);
+		int nBanks = sampleModel instanceof ComponentSampleModel csm ?
+				Arrays.stream(csm.getBankIndices()).max().orElse(0) + 1 : 1;
+		int dataType = sampleModel.getDataType();
+		int bufferType = dataType == DataBuffer.TYPE_USHORT ? DataBuffer.TYPE_SHORT : dataType;
+		Object[] banks = new Object[nBanks];
+		for (int b = 0; b < nBanks; b++)
+			banks[b] = borrow(bufferType, bankSize);
+		DataBuffer buffer = switch (dataType) {
+			case DataBuffer.TYPE_BYTE -> new DataBufferByte(Arrays.copyOf(banks, nBanks, byte[][].class), bankSize);
+			case DataBuffer.TYPE_USHORT -> new DataBufferUShort(Arrays.copyOf(banks, nBanks, short[][].class), bankSize);
+			case DataBuffer.TYPE_SHORT -> new DataBufferShort(Arrays.copyOf(banks, nBanks, short[][].class), bankSize);
+			case DataBuffer.TYPE_INT -> new DataBufferInt(Arrays.copyOf(banks, nBanks, int[][].class), bankSize);
+			case DataBuffer.TYPE_FLOAT -> new DataBufferFloat(Arrays.copyOf(banks, nBanks, float[][].class), bankSize);
+			case DataBuffer.TYPE_DOUBLE -> new DataBufferDouble(Arrays.copyOf(banks, nBanks, double[][].class), bankSize);
+			default -> throw new IllegalArgumentException("Unsupported data type " + dataType);
+		};
+		return Raster.createWritableRaster(sampleModel, buffer, null);
+	}
+
+	/**
+	 * Create a writable raster with the same layout as an existing raster, but a different size.
+	 * This is equivalent to {@link Raster#createCompatibleWritableRaster(int, int)}, but backed by pooled arrays if possible.
+	 * @param raster the raster defining the layout
+	 * @param width
+	 * @param height
+	 * @return a raster with all samples set to zero
+	 */
+	public static WritableRaster createCompatibleWritableRaster(Raster raster, int width, int height) {
+		if (!enabled)
+			return raster.createCompatibleWritableRaster(width, height);
+		return createWritableRaster(raster.getSampleModel().createCompatibleSampleModel(width, height));
+	}
+
+	/**
+	 * Create an image using a color model, backed by pooled arrays if possible.
+	 * @param colorModel
+	 * @param width
+	 * @param height
+	 * @return an image with all samples set to zero
+	 */
+	public static BufferedImage createImage(ColorModel colorModel, int width, int height) {
+		var raster = createWritableRaster(colorModel.createCompatibleSampleModel(width, height));
+		return new BufferedImage(colorModel, raster, colorModel.isAlphaPremultiplied(), null);
+	}
+
+	/**
+	 * Return the arrays backing an image to the pool.
+	 * The image should not be used again after calling this method.
+	 * @param img the image; may be null, in which case this method does nothing
+	 */
+	public static void release(BufferedImage img) {
+		if (img != null)
+			release(img.getRaster());
+	}
+
+	/**
+	 * Return the arrays backing a raster to the pool.
+	 * The raster should not be used again after calling this method.
+	 * @param raster the raster; may be null, in which case this method does nothing
+	 */
+	public static void release(Raster raster) {
+		if (!enabled || raster == null || raster.getParent() != null)
+			return;
+		var buffer = raster.getDataBuffer();
+		for (int b = 0; b < buffer.getNumBanks(); b++) {
+			Object array = switch (buffer) {
+				case DataBufferByte db -> db.getData(b);
+				case DataBufferUShort db -> db.getData(b);
+				case DataBufferShort db -> db.getData(b);
+				case DataBufferInt db -> db.getData(b);
+				case DataBufferFloat db -> db.getData(b);
+				case DataBufferDouble db -> db.getData(b);
+				default -> null;
+			};
+			if (array == null)
+				return;
+			release(array);
+		}
+	}
+
+	/**
+	 * Return a primitive array to the pool.
+	 * The array should not be used again after calling this method.
+	 * @param array a byte, short, int, float or double array; other objects are ignored
+	 */
+	public static void release(Object array) {
+		if (!enabled || array == null)
+			return;
+		int dataType = getDataType(array);
+		if (dataType == DataBuffer.TYPE_UNDEFINED)
+			return;
+		var local = localArrays.get();
+		if (local.size() < MAX_LOCAL_ARRAYS) {
+			local.push(array);
+			return;
+		}
+		int length = Array.getLength(array);
+		long bytes = (long)length * DataBuffer.getDataTypeSize(dataType) / 8;
+		if (pooledBytes.addAndGet(bytes) > maxPoolBytes) {
+			pooledBytes.addAndGet(-bytes);
+			logger.trace("Raster pool is full - discarding array of length {}", length);
+			return;
+		}
+		buckets.computeIfAbsent(new Key(dataType, length), k -> new ConcurrentLinkedDeque<>()).push(array);
+	}
+
+	private static Object borrow(int dataType, int length) {
+		if (enabled) {
+			Object array = null;
+			// Check for a suitable array retained by this thread first
+			var local = localArrays.get();
+			for (var iter = local.iterator(); iter.hasNext();) {
+				var candidate = iter.next();
+				if (getDataType(candidate) == dataType && Array.getLength(candidate) == length) {
+					iter.remove();
+					array = candidate;
+					break;
+				}
+			}
+			if (array == null) {
+				var bucket = buckets.get(new Key(dataType, length));
+				array = bucket == null ? null : bucket.poll();
+				if (array != null)
+					pooledBytes.addAndGet(-(long)length * DataBuffer.getDataTypeSize(dataType) / 8);
+			}
+			if (array != null) {
+				clearArray(array);
+				return array;
+			}
+		}
+		return switch (dataType) {
+			case DataBuffer.TYPE_BYTE -> new byte[length];
+			case DataBuffer.TYPE_SHORT -> new short[length];
+			case DataBuffer.TYPE_INT -> new int[length];
+			case DataBuffer.TYPE_FLOAT -> new float[length];
+			case DataBuffer.TYPE_DOUBLE -> new double[length];
+			default -> throw new IllegalArgumentException("Unsupported data type " + dataType);
+		};
+	}
+
+	private static void clearArray(Object array) {
+		switch (array) {
+			case byte[] a -> Arrays.fill(a, (byte)0);
+			case short[] a -> Arrays.fill(a, (short)0);
+			case int[] a -> Arrays.fill(a, 0);
+			case float[] a -> Arrays.fill(a, 0f);
+			case double[] a -> Arrays.fill(a, 0.0);
+			default -> throw new IllegalArgumentException("Unsupported array " + array);
+		}
+	}
+
+	/**
+	 * Get the data type used to bucket an array. Note that short arrays are used for both
+	 * {@link DataBuffer#TYPE_SHORT} and {@link DataBuffer#TYPE_USHORT}.
+	 */
+	private static int getDataType(Object array) {
+		return switch (array) {
+			case byte[] a -> DataBuffer.TYPE_BYTE;
+			case short[] a -> DataBuffer.TYPE_SHORT;
+			case int[] a -> DataBuffer.TYPE_INT;
+			case float[] a -> DataBuffer.TYPE_FLOAT;
+			case double[] a -> DataBuffer.TYPE_DOUBLE;
+			default -> DataBuffer.TYPE_UNDEFINED;
+		};
+	}
+
+	/**
+	 * Get the number of elements required for each bank of a sample model, or -1 if this is unknown.
+	 */
+	private static int getBankSize(SampleModel sampleModel) {
+		int width = sampleModel.getWidth();
+		int height = sampleModel.getHeight();
+		if (sampleModel instanceof SinglePixelPackedSampleModel sppsm) {
+			return sppsm.getScanlineStride() * (height - 1) + width;
+		} else if (sampleModel instanceof ComponentSampleModel csm) {
+			int maxOffset = Arrays.stream(csm.getBandOffsets()).max().orElse(0);
+			return maxOffset + csm.getScanlineStride() * (height - 1) + csm.getPixelStride() * (width - 1) + 1;
+		}
+		return -1;
+	}
+
+}
@@ -571,9 +571,10 @@ public final class GeneralTools {
 	}
 	
 	/**
-	 * Cache of NumberFormat objects
+	 * Cache of NumberFormat objects.
+	 * NumberFormat isn't thread-safe, so each thread has its own cache - to avoid contention when formatting in parallel.
 	 */
-	private static final Map<Locale, NumberFormat> formatters = new HashMap<>();
+	private static final ThreadLocal<Map<Locale, NumberFormat>> formatters = ThreadLocal.withInitial(HashMap::new);
 	
 	/**
 	 * Format a value with a maximum number of decimal places, using the default Locale.
@@ -582,7 +583,7 @@ public final class GeneralTools {
 	 * @param maxDecimalPlaces
 	 * @return
 	 */
-	public static synchronized String formatNumber(final double value, final int maxDecimalPlaces) {
+	public static String formatNumber(final double value, final int maxDecimalPlaces) {
 		return formatNumber(Locale.getDefault(Category.FORMAT), value, maxDecimalPlaces);
 	}
 	
@@ -594,15 +595,14 @@ public final class GeneralTools {
 	 * @param maxDecimalPlaces
 	 * @return
 	 */
-	public static synchronized String formatNumber(Locale locale, final double value, final int maxDecimalPlaces) {
+	public static String formatNumber(Locale locale, final double value, final int maxDecimalPlaces) {
 		if (locale == null)
 			locale = Locale.getDefault(Category.FORMAT);
-		NumberFormat nf = formatters.get(locale);
-		if (nf == null) {
-			nf = NumberFormat.getInstance(locale);
-			nf.setGroupingUsed(false);
-			formatters.put(locale, nf);
-		}
+		NumberFormat nf = formatters.get().computeIfAbsent(locale, l -> {
+			var format = NumberFormat.getInstance(l);
+			format.setGroupingUsed(false);
+			return format;
+		});
 		nf.setMaximumFractionDigits(maxDecimalPlaces);
 		return nf.format(value);
 	}
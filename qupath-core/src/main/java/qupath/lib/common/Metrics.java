@@ -0,0 +1,531 @@
+/*-
+ * #%L
+ * This file is part of QuPath.
+ * %%
+ * Copyright (C) 2026 QuPath developers, The University of Edinburgh
+ * %%
+ * QuPath is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * QuPath is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with QuPath.  If not, see <https://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package qupath.lib.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Lightweight metrics to help understand where time is spent when processing images.
+ * <p>
+ * Metrics are identified by name, and are created the first time they are requested.
+ * They are intended to be cheap enough to use in frequently-called code, so should be requested once and
+ * stored in a static field:
+ * <pre>{@code
+ * private static final Metrics.Timer READ_TIMER = Metrics.timer("tile.read");
+ *
+ * try (var sample = READ_TIMER.start()) {
+ *     // Read the tile
+ * }
+ * }
+ * </pre>
+ * <p>
+ * Timers also create JDK Flight Recorder events when a recording is active, and the current value of all
+ * metrics is recorded periodically. This means that a recording made with {@code -XX:StartFlightRecording}
+ * shows QuPath's own operations alongside I/O, lock contention and garbage collection.
+ * <p>
+ * Use {@link #summarize()} to get a summary of all metrics that have been recorded.
+ *
+ * @author Pete Bankhead
+ * @since v0.8.0
+ */
+public final class Metrics {
+
+	private static final Logger logger = LoggerFactory.getLogger(Metrics.class);
+
+	/**
+	 * Flight Recorder is an optional module, which might not be included in a custom Java runtime.
+	 */
+	private static final boolean JFR_AVAILABLE = ModuleLayer.boot().findModule("jdk.jfr").isPresent();
+
+	private static final Map<String, Metric> metrics = new ConcurrentHashMap<>();
+
+	private Metrics() {
+		throw new AssertionError("This class is not instantiable.");
+	}
+
+	/**
+	 * Get a counter, creating it if necessary.
+	 * @param name the name of the counter
+	 * @return the counter
+	 * @throws IllegalArgumentException if a different type of metric has already been created with the same name
+	 */
+	public static Counter counter(String name) {
+		return getOrCreate(name, Counter.class, Counter::new);
+	}
+
+	/**
+	 * Get a timer, creating it if necessary.
+	 * @param name the name of the timer
+	 * @return the timer
+	 * @throws IllegalArgumentException if a different type of metric has already been created with the same name
+	 */
+	public static Timer timer(String name) {
+		return getOrCreate(name, Timer.class, Timer::new);
+	}
+
+	/**
+	 * Get a histogram, creating it if necessary.
+	 * @param name the name of the histogram
+	 * @return the histogram
+	 * @throws IllegalArgumentException if a different type of metric has already been created with the same name
+	 */
+	public static Histogram histogram(String name) {
+		return getOrCreate(name, Histogram.class, Histogram::new);
+	}
+
+	private static <M extends Metric> M getOrCreate(String name, Class<M> cls, Function<String, M> creator) {
+		var metric = metrics.computeIfAbsent(name, creator);
+		if (!cls.isInstance(metric))
+			throw new IllegalArgumentException("Metric '" + name + "' already exists with type " + metric.getClass().getSimpleName());
+		return cls.cast(metric);
+	}
+
+	/**
+	 * Get all the metrics that have been created.
+	 * @return the metrics, sorted by name
+	 */
+	public static List<Metric> getMetrics() {
+		return metrics.values().stream()
+				.sorted(Comparator.comparing(Metric::getName))
+				.toList();
+	}
+
+	/**
+	 * Reset all metrics.
+	 * This is useful to measure a specific task, without including anything that happened before.
+	 */
+	public static void resetAll() {
+		for (var metric : metrics.values())
+			metric.reset();
+	}
+
+	/**
+	 * Create a summary of all metrics that have been used, with one metric per line.
+	 * @return the summary
+	 */
+	public static String summarize() {
+		return getMetrics().stream()
+				.filter(m -> m.getCount() > 0)
+				.map(Metric::summarize)
+				.collect(Collectors.joining(System.lineSeparator()));
+	}
+
+	/**
+	 * A named metric.
+	 */
+	public sealed interface Metric permits Counter, Histogram, Timer {
+
+		/**
+		 * Get the name of the metric.
+		 * @return the name
+		 */
+		String getName();
+
+		/**
+		 * Get the number of times the metric has been updated (or the total, for a counter).
+		 * @return the count
+		 */
+		long getCount();
+
+		/**
+		 * Reset the metric to its initial state.
+		 */
+		void reset();
+
+		/**
+		 * Get a single-line summary of the metric.
+		 * @return the summary
+		 */
+		String summarize();
+
+	}
+
+	/**
+	 * A metric that counts events.
+	 */
+	public static final class Counter implements Metric {
+
+		private final String name;
+		private final LongAdder count = new LongAdder();
+
+		private Counter(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Increment the counter by one.
+		 */
+		public void increment() {
+			count.increment();
+		}
+
+		/**
+		 * Add a value to the counter.
+		 * @param n the value to add
+		 */
+		public void add(long n) {
+			count.add(n);
+		}
+
+		@Override
+		public long getCount() {
+			return count.sum();
+		}
+
+		@Override
+		public void reset() {
+			count.reset();
+		}
+
+		@Override
+		public String summarize() {
+			return String.format("%s: count=%d", name, getCount());
+		}
+
+		@Override
+		public String toString() {
+			return summarize();
+		}
+
+	}
+
+	/**
+	 * A metric that records the distribution of values.
+	 * Values are stored in buckets that each cover a quarter of a power of two, so percentiles are
+	 * approximate (to within 25%).
+	 * Negative values are treated as zero.
+	 */
+	public static final class Histogram implements Metric {
+
+		private final String name;
+		private final LongAdder count = new LongAdder();
+		private final LongAdder sum = new LongAdder();
+		private final LongAccumulator max = new LongAccumulator(Math::max, 0L);
+		// Number of bits used to divide each power of two into buckets
+		private static final int SUB_BITS = 2;
+		private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+		private final AtomicLongArray buckets = new AtomicLongArray(bucketIndex(Long.MAX_VALUE) + 1);
+
+		private Histogram(String name) {
+			this.name = name;
+		}
+
+		@Override
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Record a value.
+		 * @param value the value to record
+		 */
+		public void record(long value) {
+			value = Math.max(0, value);
+			count.increment();
+			sum.add(value);
+			max.accumulate(value);
+			buckets.incrementAndGet(bucketIndex(value));
+		}
+
+		/**
+		 * Get the bucket for a value.
+		 * Small values have their own buckets; otherwise, the bucket is determined by the position of the highest
+		 * bit and the bits that follow it.
+		 */
+		static int bucketIndex(long value) {
+			if (value < SUB_BUCKETS)
+				return (int)value;
+			int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+			int sub = (int)(value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+			return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+		}
+
+		/**
+		 * Get the largest value that would be stored in a bucket.
+		 */
+		static long bucketUpperBound(int index) {
+			if (index < SUB_BUCKETS)
+				return index;
+			int shift = index / SUB_BUCKETS - 1;
+			long next = ((long)(SUB_BUCKETS + index % SUB_BUCKETS + 1)) << shift;
+			// Handle overflow for the last bucket
+			return next <= 0 ? Long.MAX_VALUE : next - 1;
+		}
+
+		@Override
+		public long getCount() {
+			return count.sum();
+		}
+
+		/**
+		 * Get the sum of all recorded values.
+		 * @return the sum
+		 */
+		public long getSum() {
+			return sum.sum();
+		}
+
+		/**
+		 * Get the maximum recorded value.
+		 * @return the maximum, or 0 if no values have been recorded
+		 */
+		public long getMax() {
+			return max.get();
+		}
+
+		/**
+		 * Get the mean of all recorded values.
+		 * @return the mean, or NaN if no values have been recorded
+		 */
+		public double getMean() {
+			long n = getCount();
+			return n == 0 ? Double.NaN : getSum() / (double)n;
+		}
+
+		/**
+		 * Get an approximate percentile of the recorded values.
+		 * This is the upper bound of the bucket containing the percentile, limited by the maximum value.
+		 * @param percentile the percentile, between 0 and 100
+		 * @return the approximate percentile, or 0 if no values have been recorded
+		 */
+		public long getPercentile(double percentile) {
+			if (percentile < 0 || percentile > 100)
+				throw new IllegalArgumentException("Percentile must be between 0 and 100, but was " + percentile);
+			long[] counts = new long[buckets.length()];
+			long total = 0;
+			for (int i = 0; i < counts.length; i++) {
+				counts[i] = buckets.get(i);
+				total += counts[i];
+			}
+			if (total == 0)
+				return 0;
+			long target = Math.max(1, (long)Math.ceil(total * percentile / 100.0));
+			long cumulative = 0;
+			for (int i = 0; i < counts.length; i++) {
+				cumulative += counts[i];
+				if (cumulative >= target) {
+					return Math.min(bucketUpperBound(i), getMax());
+				}
+			}
+			return getMax();
+		}
+
+		@Override
+		public void reset() {
+			count.reset();
+			sum.reset();
+			max.reset();
+			for (int i = 0; i < buckets.length(); i++)
+				buckets.set(i, 0);
+		}
+
+		@Override
+		public String summarize() {
+			return String.format("%s: count=%d, mean=%.1f, p50=%d, p95=%d, max=%d",
+					name, getCount(), getMean(), getPercentile(50), getPercentile(95), getMax());
+		}
+
+		@Override
+		public String toString() {
+			return summarize();
+		}
+
+	}
+
+	/**
+	 * A metric that records how long something takes.
+	 * <p>
+	 * Use {@link #start()} to time code and create a Flight Recorder event, or {@link #record(long)}
+	 * to record a duration that has already been measured (without an event).
+	 */
+	public static final class Timer implements Metric {
+
+		private final String name;
+		private final Histogram nanos;
+
+		private Timer(String name) {
+			this.name = name;
+			this.nanos = new Histogram(name);
+		}
+
+		@Override
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Start timing.
+		 * The returned sample should be stopped when the timed operation is complete, ideally using
+		 * try-with-resources.
+		 * @return the sample
+		 */
+		public Sample start() {
+			return new Sample(this, JFR_AVAILABLE ? MetricsEvents.begin() : null);
+		}
+
+		/**
+		 * Record a duration.
+		 * @param durationNanos the duration, in nanoseconds
+		 */
+		public void record(long durationNanos) {
+			nanos.record(durationNanos);
+		}
+
+		@Override
+		public long getCount() {
+			return nanos.getCount();
+		}
+
+		/**
+		 * Get the total of all recorded durations.
+		 * @return the total time, in nanoseconds
+		 */
+		public long getTotalNanos() {
+			return nanos.getSum();
+		}
+
+		/**
+		 * Get the longest recorded duration.
+		 * @return the maximum time, in nanoseconds
+		 */
+		public long getMaxNanos() {
+			return nanos.getMax();
+		}
+
+		/**
+		 * Get the mean recorded duration.
+		 * @return the mean time, in nanoseconds, or NaN if nothing has been recorded
+		 */
+		public double getMeanNanos() {
+			return nanos.getMean();
+		}
+
+		/**
+		 * Get an approximate percentile of the recorded durations.
+		 * @param percentile the percentile, between 0 and 100
+		 * @return the approximate percentile, in nanoseconds
+		 * @see Histogram#getPercentile(double)
+		 */
+		public long getPercentileNanos(double percentile) {
+			return nanos.getPercentile(percentile);
+		}
+
+		@Override
+		public void reset() {
+			nanos.reset();
+		}
+
+		@Override
+		public String summarize() {
+			return String.format("%s: count=%d, total=%.1f ms, mean=%.3f ms, p50=%.3f ms, p95=%.3f ms, max=%.3f ms",
+					name, getCount(),
+					toMillis(getTotalNanos()), toMillis(getMeanNanos()),
+					toMillis(getPercentileNanos(50)), toMillis(getPercentileNanos(95)), toMillis(getMaxNanos()));
+		}
+
+		private static double toMillis(double nanos) {
+			return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+		}
+
+		@Override
+		public String toString() {
+			return summarize();
+		}
+
+	}
+
+	/**
+	 * A single timing measurement, started by {@link Timer#start()}.
+	 */
+	public static final class Sample implements AutoCloseable {
+
+		private final Timer timer;
+		private final Object event;
+		private final long startTime;
+		private boolean stopped;
+
+		private Sample(Timer timer, Object event) {
+			this.timer = timer;
+			this.event = event;
+			this.startTime = System.nanoTime();
+		}
+
+		/**
+		 * Stop timing and record the duration.
+		 * Calling this more than once has no effect.
+		 * @return the duration, in nanoseconds
+		 */
+		public long stop() {
+			return stop(null);
+		}
+
+		/**
+		 * Stop timing and record the duration, with details that are added to any Flight Recorder event.
+		 * Calling this more than once has no effect.
+		 * @param detail supplier for a description of what was timed; this is only called if an event is recorded
+		 * @return the duration, in nanoseconds
+		 */
+		public long stop(Supplier<String> detail) {
+			long duration = System.nanoTime() - startTime;
+			if (stopped)
+				return duration;
+			stopped = true;
+			timer.record(duration);
+			if (event != null)
+				MetricsEvents.commit(event, timer.getName(), detail);
+			return duration;
+		}
+
+		@Override
+		public void close() {
+			stop();
+		}
+
+	}
+
+	static {
+		if (JFR_AVAILABLE)
+			MetricsEvents.registerPeriodicEvent(Metrics::getMetrics);
+		else
+			logger.debug("Flight Recorder not available - metrics will not be recorded as events");
+	}
+
+}
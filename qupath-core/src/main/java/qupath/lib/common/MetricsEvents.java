@@ -0,0 +1,144 @@
+/*-
+ * #%L
+ * This file is part of QuPath.
+ * %%
+ * Copyright (C) 2026 QuPath developers, The University of Edinburgh
+ * %%
+ * QuPath is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * QuPath is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with QuPath.  If not, see <https://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package qupath.lib.common;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Flight Recorder events for {@link Metrics}.
+ * <p>
+ * This is kept separate so that the {@code jdk.jfr} module is only needed if it is available at runtime.
+ * Events are passed to {@link Metrics} as objects for the same reason.
+ */
+class MetricsEvents {
+
+	private static final Logger logger = LoggerFactory.getLogger(MetricsEvents.class);
+
+	/**
+	 * Event recording a single timed operation.
+	 */
+	@Name("qupath.Timer")
+	@Label("QuPath Timer")
+	@Description("Operation timed by a QuPath metric")
+	@Category("QuPath")
+	@StackTrace(false)
+	static class TimerEvent extends Event {
+
+		@Label("Metric")
+		String metric;
+
+		@Label("Detail")
+		String detail;
+
+	}
+
+	/**
+	 * Event recording the current value of a metric.
+	 */
+	@Name("qupath.Metric")
+	@Label("QuPath Metric")
+	@Description("Periodic summary of a QuPath metric")
+	@Category("QuPath")
+	@StackTrace(false)
+	@Period("10 s")
+	static class MetricEvent extends Event {
+
+		@Label("Metric")
+		String metric;
+
+		@Label("Count")
+		long count;
+
+		@Label("Total")
+		@Description("Sum of all values (in nanoseconds for timers)")
+		long total;
+
+		@Label("Maximum")
+		@Description("Maximum value (in nanoseconds for timers)")
+		long max;
+
+		@Label("Mean Time")
+		@Description("Mean duration, for timers only")
+		@Timespan(Timespan.NANOSECONDS)
+		long meanTime;
+
+	}
+
+	static Object begin() {
+		var event = new TimerEvent();
+		event.begin();
+		return event;
+	}
+
+	static void commit(Object event, String metric, Supplier<String> detail) {
+		var timerEvent = (TimerEvent)event;
+		timerEvent.end();
+		if (timerEvent.shouldCommit()) {
+			timerEvent.metric = metric;
+			timerEvent.detail = detail == null ? null : detail.get();
+			timerEvent.commit();
+		}
+	}
+
+	static void registerPeriodicEvent(Supplier<List<Metrics.Metric>> metrics) {
+		try {
+			FlightRecorder.addPeriodicEvent(MetricEvent.class, () -> {
+				for (var metric : metrics.get()) {
+					var event = new MetricEvent();
+					if (!event.isEnabled())
+						return;
+					event.metric = metric.getName();
+					event.count = metric.getCount();
+					switch (metric) {
+						case Metrics.Counter counter -> event.total = counter.getCount();
+						case Metrics.Histogram histogram -> {
+							event.total = histogram.getSum();
+							event.max = histogram.getMax();
+						}
+						case Metrics.Timer timer -> {
+							event.total = timer.getTotalNanos();
+							event.max = timer.getMaxNanos();
+							event.meanTime = event.count == 0 ? 0 : event.total / event.count;
+						}
+					}
+					event.commit();
+				}
+			});
+		} catch (Exception e) {
+			logger.debug("Unable to register periodic metrics event: {}", e.getLocalizedMessage(), e);
+		}
+	}
+
+}
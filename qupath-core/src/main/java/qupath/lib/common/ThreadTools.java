@@ -26,6 +26,8 @@ package qupath.lib.common;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -43,6 +45,9 @@ public class ThreadTools {
 	private static final Logger logger = LoggerFactory.getLogger(ThreadTools.class);
 	
 	private static int requestedThreads = ForkJoinPool.getCommonPoolParallelism();
+	
+	private static ExecutorService ioExecutor;
+	private static ExecutorService computeExecutor;
 
 	static {
 		logger.debug("Common ForkJoinPool parallelism: {}", ThreadTools.getParallelism());
@@ -96,6 +101,39 @@ public class ThreadTools {
 	
 	
 	
+	/**
+	 * Get a shared executor intended for tasks that spend most of their time blocked, e.g. reading from files.
+	 * This uses virtual threads, so blocking does not tie up a platform thread.
+	 * <p>
+	 * The executor should not be shut down.
+	 * @return a shared executor for I/O-bound tasks
+	 * @since v0.8.0
+	 * @see #getComputeExecutor()
+	 */
+	public static synchronized ExecutorService getIOExecutor() {
+		if (ioExecutor == null)
+			ioExecutor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("qupath-io-", 1).factory());
+		return ioExecutor;
+	}
+	
+	/**
+	 * Get a shared executor intended for CPU-bound tasks, e.g. transforming pixels.
+	 * This uses a fixed number of daemon platform threads, determined by {@link #getParallelism()} 
+	 * when the executor is first requested.
+	 * <p>
+	 * Tasks submitted here should avoid blocking, and instead be chained onto tasks submitted 
+	 * to {@link #getIOExecutor()}.
+	 * The executor should not be shut down.
+	 * @return a shared executor for CPU-bound tasks
+	 * @since v0.8.0
+	 */
+	public static synchronized ExecutorService getComputeExecutor() {
+		if (computeExecutor == null)
+			computeExecutor = Executors.newFixedThreadPool(getParallelism(), createThreadFactory("qupath-compute-", true));
+		return computeExecutor;
+	}
+	
+	
 	static class SimpleThreadFactory implements ThreadFactory {
 		
 		private final ThreadGroup group;
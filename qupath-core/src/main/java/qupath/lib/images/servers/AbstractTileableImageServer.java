@@ -25,7 +25,10 @@ import java.util.concurrent.Future;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import qupath.lib.awt.common.BufferedImageTools;
+import qupath.lib.awt.common.RasterPool;
 import qupath.lib.color.ColorModelFactory;
+import qupath.lib.common.Metrics;
+import qupath.lib.common.ThreadTools;
 import qupath.lib.images.servers.ImageServerMetadata.ChannelType;
 import qupath.lib.regions.RegionRequest;
 
@@ -33,9 +36,13 @@ import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
 import java.awt.image.ColorModel;
+import java.awt.image.ComponentSampleModel;
 import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
 import java.awt.image.WritableRaster;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -43,6 +50,8 @@ import java.util.Hashtable;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.FutureTask;
@@ -60,6 +69,11 @@ import java.util.concurrent.FutureTask;
 public abstract class AbstractTileableImageServer extends AbstractImageServer<BufferedImage> {
 	
 	private static final Logger logger = LoggerFactory.getLogger(AbstractTileableImageServer.class);
+
+	private static final Metrics.Timer TILE_READ_TIMER = Metrics.timer("tile.read");
+	private static final Metrics.Counter TILE_CACHE_HITS = Metrics.counter("tile.cache.hit");
+	private static final Metrics.Counter TILE_CACHE_MISSES = Metrics.counter("tile.cache.miss");
+	private static final Metrics.Counter TILE_DUPLICATE_REQUESTS = Metrics.counter("tile.duplicate");
 	
 	private ColorModel colorModel;
 	private final Map<String, BufferedImage> emptyTileMap = new HashMap<>();
@@ -70,10 +84,36 @@ public abstract class AbstractTileableImageServer extends AbstractImageServer<Bu
 	
 	// Maintain a record of tiles that could not be cached, so we warn for each only once
 	private final transient Set<RegionRequest> failedCacheTiles = new HashSet<>();
+
+	private static boolean shareCachedTiles = "true".equalsIgnoreCase(System.getProperty("qupath.tiles.shared", "false"));
 		
 	protected AbstractTileableImageServer() {
 		super(BufferedImage.class);
 	}
+
+	/**
+	 * Request that {@link #readRegion(RegionRequest)} returns cached tiles directly whenever a request exactly
+	 * matches a single tile, rather than a defensive copy.
+	 * <p>
+	 * This avoids copying pixels for what is often the most common kind of request, but it is only safe if
+	 * callers never modify the images that are returned - otherwise the cache will be corrupted.
+	 * The default is false, unless the system property {@code qupath.tiles.shared} is set to true.
+	 * @param share if true, return cached tiles without copying
+	 * @since v0.8.0
+	 */
+	public static void setShareCachedTiles(boolean share) {
+		shareCachedTiles = share;
+	}
+
+	/**
+	 * Query whether cached tiles are returned from {@link #readRegion(RegionRequest)} without copying.
+	 * @return
+	 * @see #setShareCachedTiles(boolean)
+	 * @since v0.8.0
+	 */
+	public static boolean getShareCachedTiles() {
+		return shareCachedTiles;
+	}
 	
 	protected BufferedImage getEmptyTile(int width, int height) throws IOException {
 		return getEmptyTile(width, height, true);
@@ -156,6 +196,18 @@ public abstract class AbstractTileableImageServer extends AbstractImageServer<Bu
 	 * @throws IOException 
 	 */
 	protected abstract BufferedImage readTile(final TileRequest tileRequest) throws IOException;
+
+	/**
+	 * Read a tile, recording the time taken.
+	 */
+	private BufferedImage readTileWithMetrics(final TileRequest tileRequest) throws IOException {
+		var sample = TILE_READ_TIMER.start();
+		try {
+			return readTile(tileRequest);
+		} finally {
+			sample.stop(tileRequest::toString);
+		}
+	}
 	
 	
 	/**
@@ -201,19 +253,22 @@ public abstract class AbstractTileableImageServer extends AbstractImageServer<Bu
 			var imgCached = cache.get(request);
 			if (imgCached != null) { 
 				logger.trace("Returning cached tile: {}", request);
+				TILE_CACHE_HITS.increment();
 				return imgCached;
 			}
 		}
 		logger.trace("Reading tile: {}", request);
+		TILE_CACHE_MISSES.increment();
 		
 		BufferedImage imgCached = null;
-		var futureTask = pendingTiles.computeIfAbsent(tileRequest, t -> new TileTask(Thread.currentThread(), () -> readTile(t)));
+		var futureTask = pendingTiles.computeIfAbsent(tileRequest, t -> new TileTask(Thread.currentThread(), () -> readTileWithMetrics(t)));
 		var myTask = futureTask.thread == Thread.currentThread();
 		try {
 			if (myTask)
 				futureTask.run();
 			else {
 				duplicateRequestClashCount++;
+				TILE_DUPLICATE_REQUESTS.increment();
 				logger.debug("Duplicate request for a pending tile ({} total) - {}", duplicateRequestClashCount, tileRequest.getRegionRequest());
 			}
 			imgCached = futureTask.get();
@@ -241,6 +296,55 @@ public abstract class AbstractTileableImageServer extends AbstractImageServer<Bu
 		return imgCached;
 	}
 	
+	/**
+	 * Request a tile asynchronously.
+	 * Cached and empty tiles are returned immediately; otherwise, the tile is read using a virtual thread 
+	 * so that any blocking (including waiting for a duplicate request to complete) is cheap.
+	 */
+	@Override
+	public CompletableFuture<BufferedImage> getTileAsync(final TileRequest tileRequest) {
+		if (emptyTiles.contains(tileRequest)) {
+			try {
+				return CompletableFuture.completedFuture(getEmptyTile(tileRequest.getTileWidth(), tileRequest.getTileHeight()));
+			} catch (IOException e) {
+				return CompletableFuture.failedFuture(e);
+			}
+		}
+		var imgCached = getCachedTile(tileRequest);
+		if (imgCached != null)
+			return CompletableFuture.completedFuture(imgCached);
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return getTile(tileRequest);
+			} catch (IOException e) {
+				throw new CompletionException(e);
+			}
+		}, ThreadTools.getIOExecutor());
+	}
+	
+	/**
+	 * Read a region asynchronously.
+	 * All the required tiles are requested concurrently, and the region is assembled once they are all available.
+	 * If the tiles are already cached, the region is assembled on the calling thread.
+	 */
+	@Override
+	public CompletableFuture<BufferedImage> readRegionAsync(final RegionRequest request) {
+		// Without a cache, we would need to read the tiles twice
+		if (getCache() == null)
+			return super.readRegionAsync(request);
+		var futures = getTileRequestManager().getTileRequests(request)
+				.stream()
+				.map(this::getTileAsync)
+				.toArray(CompletableFuture[]::new);
+		return CompletableFuture.allOf(futures).thenApply(v -> {
+			try {
+				return readRegion(request);
+			} catch (IOException e) {
+				throw new CompletionException(e);
+			}
+		});
+	}
+	
 	/**
 	 * Create the default (blank) RGB image for this server.
 	 * <p>
@@ -266,7 +370,7 @@ public abstract class AbstractTileableImageServer extends AbstractImageServer<Bu
 		if (request.getPath().equals(currentPath) && cache != null) {
 			BufferedImage img = cache.getOrDefault(request, null);
 			if (img != null)
-				return BufferedImageTools.duplicate(img);
+				return shareCachedTiles ? img : BufferedImageTools.duplicate(img);
 		}
 
 		// Figure out which tiles we need
@@ -285,7 +389,7 @@ public abstract class AbstractTileableImageServer extends AbstractImageServer<Bu
 				var imgTile = getTile(firstTile);
 				if (imgTile == null)
 					return null;
-				return BufferedImageTools.duplicate(imgTile);
+				return shareCachedTiles ? imgTile : BufferedImageTools.duplicate(imgTile);
 			}
 		}
 		
@@ -300,29 +404,47 @@ public abstract class AbstractTileableImageServer extends AbstractImageServer<Bu
 		// Handle the general case for RGB
 		if (isRGB()) {
 			BufferedImage imgResult = createRGBImage(request, tiles, width, height);
-			Graphics2D g2d = imgResult.createGraphics();
-			g2d.scale(1.0/request.getDownsample(), 1.0/request.getDownsample());
-			g2d.translate(-request.getX(), -request.getY());
-			// Interpolate if downsampling
-			if (request.getDownsample() > 1)
-				g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
-			
+			// If the tiles are at the requested resolution & aligned with the output pixels,
+			// we can copy pixels directly - and only need to draw (with scaling) otherwise
+			double downsample = request.getDownsample();
+			double x0 = request.getX() / downsample;
+			double y0 = request.getY() / downsample;
+			boolean directCopy = tiles.iterator().next().getDownsample() == downsample
+					&& x0 == Math.rint(x0) && y0 == Math.rint(y0)
+					&& isPackedRGBType(imgResult.getType());
+			Graphics2D g2d = null;
 			for (TileRequest tileRequest : tiles) {
 				BufferedImage imgTile = getTile(tileRequest);
+				if (imgTile == null || isEmptyTile(imgTile))
+					continue;
+				if (directCopy && imgTile.getType() == imgResult.getType() &&
+						copyPixelsDirect(imgTile.getRaster(), tileRequest.getTileX() - (int)x0, tileRequest.getTileY() - (int)y0, imgResult.getRaster()))
+					continue;
+				if (g2d == null) {
+					g2d = imgResult.createGraphics();
+					g2d.scale(1.0/downsample, 1.0/downsample);
+					g2d.translate(-request.getX(), -request.getY());
+					// Interpolate if downsampling
+					if (downsample > 1)
+						g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+				}
 				g2d.drawImage(imgTile, tileRequest.getImageX(), tileRequest.getImageY(), tileRequest.getImageWidth(), tileRequest.getImageHeight(), null);
 			}
-			g2d.dispose();
+			if (g2d != null)
+				g2d.dispose();
 			
 			long endTime = System.currentTimeMillis();
 			logger.trace("Requested " + tiles.size() + " tiles in " + (endTime - startTime) + " ms (RGB)");
 
-			return resizeIfNeeded(imgResult, width, height);
+			return resizeAndRelease(imgResult, width, height, true);
 		} else {
 			// Request all the tiles we need & figure out image dimensions
 			// Do all this at the pyramid level of the tiles
 			WritableRaster raster = null;
 			ColorModel colorModel = null;
 			boolean alphaPremultiplied = false;
+			// Only rasters that we have allocated here can be released (not rasters belonging to tiles)
+			boolean ownsRaster = false;
 			
 			// Get the dimensions, based on tile coordinates & at the tiled resolution
 			int tileMinX = Integer.MAX_VALUE;
@@ -362,7 +484,8 @@ public abstract class AbstractTileableImageServer extends AbstractImageServer<Bu
 						int tileHeight = tileMaxY - tileMinY;
 						// Preallocate a raster if we need to, and everything else the tile might give us
 						if (raster == null) {
-							raster = imgTile.getRaster().createCompatibleWritableRaster(tileWidth, tileHeight);
+							raster = RasterPool.createCompatibleWritableRaster(imgTile.getRaster(), tileWidth, tileHeight);
+							ownsRaster = true;
 							colorModel = imgTile.getColorModel();
 							alphaPremultiplied = imgTile.isAlphaPremultiplied();							
 						}
@@ -405,14 +528,17 @@ public abstract class AbstractTileableImageServer extends AbstractImageServer<Bu
 				int w = xEnd - xStart;
 				int h = yEnd - yStart;
 				
-				var raster2 = raster.createCompatibleWritableRaster(w, h);
+				var raster2 = RasterPool.createCompatibleWritableRaster(raster, w, h);
 				copyPixels(raster, -x, -y, raster2);
+				if (ownsRaster)
+					RasterPool.release(raster);
 				raster = raster2;
+				ownsRaster = true;
 			}
 
 			// Return the image, resizing if necessary (we determined the raster size based on tiles, not the request)
 			BufferedImage imgResult = new BufferedImage(colorModel, raster, alphaPremultiplied, null);
-			imgResult = resizeIfNeeded(imgResult, width, height);
+			imgResult = resizeAndRelease(imgResult, width, height, ownsRaster);
 
 			long endTime = System.currentTimeMillis();
             logger.trace("Requested {} tiles in {} ms (non-RGB)", tiles.size(), endTime - startTime);
@@ -438,6 +564,22 @@ public abstract class AbstractTileableImageServer extends AbstractImageServer<Bu
 	}
 
 
+	/**
+	 * Resize an image if needed, returning any arrays used by the original image to the {@link RasterPool}
+	 * if it is no longer required.
+	 * @param img the input image
+	 * @param width the required width
+	 * @param height the required height
+	 * @param canRelease true if the image was created for the current request, and isn't shared with any tile
+	 * @return the resized image if necessary, or the original image otherwise
+	 */
+	private BufferedImage resizeAndRelease(BufferedImage img, int width, int height, boolean canRelease) {
+		var imgResized = resizeIfNeeded(img, width, height);
+		if (canRelease && imgResized != img)
+			RasterPool.release(img);
+		return imgResized;
+	}
+
 	/**
 	 * Create an RGB image to fulfill a request with the given tiles.
 	 * This method exists because of https://github.com/qupath/qupath/issues/1527
@@ -511,7 +653,7 @@ public abstract class AbstractTileableImageServer extends AbstractImageServer<Bu
 		var cache = getCache();
 		for (var tile : tiles) {
 			if (cache == null || !cache.containsKey(tile.getRegionRequest()) && !pendingTiles.containsKey(tile)) {
-				var futureTask = pendingTiles.computeIfAbsent(tile, t -> new TileTask(Thread.currentThread(), () -> readTile(t)));
+				var futureTask = pendingTiles.computeIfAbsent(tile, t -> new TileTask(Thread.currentThread(), () -> readTileWithMetrics(t)));
 				if (futureTask.thread == Thread.currentThread())
 					futureTask.run();
 			}
@@ -533,6 +675,8 @@ public abstract class AbstractTileableImageServer extends AbstractImageServer<Bu
 	 * @param dest destination raster to update
 	 */
 	private static void copyPixels(WritableRaster source, int dx, int dy, WritableRaster dest) {
+		if (copyPixelsDirect(source, dx, dy, dest))
+			return;
 		if (dest.getClass().getName().contains("ByteInterleavedRaster") && (dx < 0 || dy < 0)) {
 			int sx = Math.max(-dx, 0);
 			int sy = Math.max(-dy, 0);
@@ -546,6 +690,60 @@ public abstract class AbstractTileableImageServer extends AbstractImageServer<Bu
 	}
 	
 	
+	private static boolean isPackedRGBType(int type) {
+		return type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB || type == BufferedImage.TYPE_INT_ARGB_PRE;
+	}
+
+	/**
+	 * Copy pixels between compatible rasters one row at a time, using {@link Raster#getDataElements(int, int, int, int, Object)}
+	 * and {@link WritableRaster#setDataElements(int, int, int, int, Object)} with a single reusable array.
+	 * This avoids the per-sample conversions that {@link WritableRaster#setRect(int, int, Raster)} may require,
+	 * without accessing the data buffer arrays directly (which would prevent Java2D from accelerating the images).
+	 * <p>
+	 * Pixels falling outside the destination are clipped.
+	 *
+	 * @param source raster containing source pixels
+	 * @param dx x-origin of the pixels to copy in the destination raster (may be negative)
+	 * @param dy y-origin of the pixels to copy in the destination raster (may be negative)
+	 * @param dest destination raster to update
+	 * @return true if the pixels were copied, false if the rasters are not compatible (and nothing was copied)
+	 */
+	static boolean copyPixelsDirect(Raster source, int dx, int dy, WritableRaster dest) {
+		if (source.getTransferType() != dest.getTransferType() || source.getNumBands() != dest.getNumBands()
+				|| !hasSameDataElements(source.getSampleModel(), dest.getSampleModel()))
+			return false;
+
+		// Compute the overlapping region
+		int sx = Math.max(0, -dx);
+		int sy = Math.max(0, -dy);
+		int tx = Math.max(0, dx);
+		int ty = Math.max(0, dy);
+		int w = Math.min(source.getWidth() - sx, dest.getWidth() - tx);
+		int h = Math.min(source.getHeight() - sy, dest.getHeight() - ty);
+		if (w <= 0 || h <= 0)
+			return true;
+
+		Object row = null;
+		for (int y = 0; y < h; y++) {
+			row = source.getDataElements(source.getMinX() + sx, source.getMinY() + sy + y, w, 1, row);
+			dest.setDataElements(dest.getMinX() + tx, dest.getMinY() + ty + y, w, 1, row);
+		}
+		return true;
+	}
+
+	/**
+	 * Check whether the data elements for one sample model can be used directly with another.
+	 * This is true for component sample models with the same number of bands (regardless of whether these are banded
+	 * or interleaved), and for packed sample models using the same bit masks.
+	 */
+	private static boolean hasSameDataElements(SampleModel srcModel, SampleModel destModel) {
+		if (srcModel instanceof ComponentSampleModel && destModel instanceof ComponentSampleModel)
+			return srcModel.getNumDataElements() == destModel.getNumDataElements();
+		if (srcModel instanceof SinglePixelPackedSampleModel srcPacked && destModel instanceof SinglePixelPackedSampleModel destPacked)
+			return Arrays.equals(srcPacked.getBitMasks(), destPacked.getBitMasks());
+		return false;
+	}
+
 	/**
 	 * Returns true if this server is permitted to use smooth interpolation when resizing.
 	 * The default implementation returns true if the channel type is not {@link ChannelType#CLASSIFICATION}.
@@ -24,6 +24,7 @@ package qupath.lib.images.servers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import qupath.lib.color.ColorModelFactory;
+import qupath.lib.common.ThreadTools;
 import qupath.lib.images.servers.ColorTransforms.ExtractChannel;
 import qupath.lib.images.servers.ColorTransforms.ExtractChannelByName;
 import qupath.lib.images.servers.ImageServerBuilder.ServerBuilder;
@@ -41,6 +42,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 /**
@@ -135,7 +137,16 @@ public class ChannelTransformFeatureServer extends TransformingImageServer<Buffe
 	
 	@Override
 	public BufferedImage readRegion(final RegionRequest request) throws IOException {
-		BufferedImage img = getWrappedServer().readRegion(request);
+		return transform(getWrappedServer().readRegion(request));
+	}
+	
+	@Override
+	public CompletableFuture<BufferedImage> readRegionAsync(final RegionRequest request) {
+		return getWrappedServer().readRegionAsync(request)
+				.thenApplyAsync(this::transform, ThreadTools.getComputeExecutor());
+	}
+	
+	private BufferedImage transform(BufferedImage img) {
 		if (img == null)
 			return null;
 		
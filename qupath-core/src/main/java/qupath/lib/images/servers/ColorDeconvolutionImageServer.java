@@ -30,6 +30,7 @@ import qupath.lib.color.ColorModelFactory;
 import qupath.lib.color.ColorTransformer;
 import qupath.lib.color.ColorTransformer.ColorTransformMethod;
 import qupath.lib.color.StainVector;
+import qupath.lib.common.ThreadTools;
 import qupath.lib.images.servers.ImageServerBuilder.ServerBuilder;
 import qupath.lib.regions.RegionRequest;
 
@@ -46,6 +47,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * An ImageServer that applies color deconvolution to extract one or more stains from a wrapped (brightfield, RGB) ImageServer.
@@ -162,7 +164,16 @@ class ColorDeconvolutionImageServer extends TransformingImageServer<BufferedImag
 	
 	@Override
 	public BufferedImage readRegion(final RegionRequest request) throws IOException {
-		BufferedImage img = getWrappedServer().readRegion(request);
+		return transform(getWrappedServer().readRegion(request));
+	}
+	
+	@Override
+	public CompletableFuture<BufferedImage> readRegionAsync(final RegionRequest request) {
+		return getWrappedServer().readRegionAsync(request)
+				.thenApplyAsync(this::transform, ThreadTools.getComputeExecutor());
+	}
+	
+	private BufferedImage transform(BufferedImage img) {
 		if (img == null)
 			return null;
 		
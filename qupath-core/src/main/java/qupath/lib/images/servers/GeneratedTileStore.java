@@ -0,0 +1,377 @@
+/*-
+ * #%L
+ * This file is part of QuPath.
+ * %%
+ * Copyright (C) 2026 QuPath developers, The University of Edinburgh
+ * %%
+ * QuPath is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * QuPath is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with QuPath.  If not, see <https://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package qupath.lib.images.servers;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Simple store for tiles generated by a {@link PyramidGeneratingImageServer}, so that lower-resolution
+ * levels don't need to be recomputed when the same image is opened again.
+ * <p>
+ * Each tile is written to a separate deflate-compressed file, named according to a hash of the server ID and tile request.
+ * Packed RGB tiles are stored as RGB bytes (with alpha, if present); other tiles are stored band-by-band using 
+ * the width of the raster's data type, and restored using the server's default color model.
+ * <p>
+ * The total size of the stored tiles is limited. When the limit is exceeded, the least recently used tiles 
+ * are deleted. The size is only tracked approximately, since it doesn't include tiles written by other 
+ * processes after the store was created.
+ *
+ * @author Pete Bankhead
+ */
+class GeneratedTileStore {
+
+	private static final Logger logger = LoggerFactory.getLogger(GeneratedTileStore.class);
+
+	private static final int DISK_FORMAT_VERSION = 2;
+
+	private static final String EXTENSION = ".tile";
+
+	/**
+	 * Fraction of the maximum size to reduce the store to when evicting tiles, to avoid evicting after every write.
+	 */
+	private static final double EVICTION_TARGET = 0.9;
+
+	private static final Map<StoreKey, GeneratedTileStore> stores = new ConcurrentHashMap<>();
+
+	private record StoreKey(Path directory, long maxBytes) {}
+
+	private final Path directory;
+	private final long maxBytes;
+
+	private AtomicLong totalBytes;
+
+	GeneratedTileStore(Path directory, long maxBytes) {
+		this.directory = directory;
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Get a store for the specified directory, shared with any other servers using the same directory.
+	 * @param directory the directory containing the tiles
+	 * @param maxBytes the approximate maximum size of all the tiles in the directory
+	 * @return
+	 */
+	static GeneratedTileStore getInstance(Path directory, long maxBytes) {
+		return stores.computeIfAbsent(new StoreKey(directory, maxBytes), k -> new GeneratedTileStore(k.directory(), k.maxBytes()));
+	}
+
+	Path getDirectory() {
+		return directory;
+	}
+
+	long getMaxBytes() {
+		return maxBytes;
+	}
+
+	/**
+	 * Create a key to identify a tile.
+	 * @param serverKey string that uniquely identifies the server (and the version of the image it reads)
+	 * @param tileRequest
+	 * @return a hex-encoded SHA-256 hash
+	 */
+	static String createKey(String serverKey, TileRequest tileRequest) {
+		String text = serverKey + "|" + tileRequest.getLevel() + "|"
+				+ tileRequest.getTileX() + "|" + tileRequest.getTileY() + "|"
+				+ tileRequest.getTileWidth() + "|" + tileRequest.getTileHeight() + "|"
+				+ tileRequest.getZ() + "|" + tileRequest.getT();
+		try {
+			var digest = MessageDigest.getInstance("SHA-256");
+			return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+		} catch (NoSuchAlgorithmException e) {
+			// All Java implementations are required to support SHA-256
+			throw new RuntimeException(e);
+		}
+	}
+
+	private Path getPath(String key) {
+		return directory.resolve(key + EXTENSION);
+	}
+
+	/**
+	 * Read a tile from the store.
+	 * @param key the key for the tile
+	 * @param colorModel color model to use for non-RGB tiles
+	 * @return the tile, or null if the tile is not available (or is incompatible with the color model)
+	 */
+	BufferedImage read(String key, ColorModel colorModel) {
+		var path = getPath(key);
+		if (!Files.isRegularFile(path))
+			return null;
+		BufferedImage img;
+		try (var stream = new DataInputStream(new BufferedInputStream(new InflaterInputStream(Files.newInputStream(path))))) {
+			img = read(stream, colorModel);
+		} catch (IOException e) {
+			logger.warn("Unable to read stored tile from {}: {}", path, e.getMessage());
+			logger.debug(e.getMessage(), e);
+			return null;
+		}
+		if (img == null) {
+			logger.debug("Stored tile {} is incompatible with color model", path);
+			return null;
+		}
+		// Update the modified time, so that recently-used tiles are evicted last
+		try {
+			Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+		} catch (IOException e) {
+			logger.debug("Unable to update modified time for {}: {}", path, e.getMessage());
+		}
+		return img;
+	}
+
+	private static BufferedImage read(DataInputStream stream, ColorModel colorModel) throws IOException {
+		if (stream.readInt() != DISK_FORMAT_VERSION)
+			return null;
+		int width = stream.readInt();
+		int height = stream.readInt();
+		int imageType = stream.readInt();
+		int n = width * height;
+		if (imageType != BufferedImage.TYPE_CUSTOM) {
+			var img = new BufferedImage(width, height, imageType);
+			boolean hasAlpha = img.getColorModel().hasAlpha();
+			var buffer = readBytes(stream, n * (hasAlpha ? 4 : 3));
+			int[] rgb = new int[n];
+			for (int i = 0; i < n; i++) {
+				int alpha = hasAlpha ? buffer.get() & 0xFF : 0xFF;
+				rgb[i] = alpha << 24 | (buffer.get() & 0xFF) << 16 | (buffer.get() & 0xFF) << 8 | (buffer.get() & 0xFF);
+			}
+			img.setRGB(0, 0, width, height, rgb, 0, width);
+			return img;
+		}
+		int dataType = stream.readInt();
+		int nBands = stream.readInt();
+		var raster = colorModel.createCompatibleWritableRaster(width, height);
+		if (raster.getDataBuffer().getDataType() != dataType || raster.getNumBands() != nBands)
+			return null;
+		int bytesPerSample = DataBuffer.getDataTypeSize(dataType) / 8;
+		for (int b = 0; b < nBands; b++) {
+			var buffer = readBytes(stream, n * bytesPerSample);
+			switch (dataType) {
+				case DataBuffer.TYPE_FLOAT -> {
+					float[] samples = new float[n];
+					buffer.asFloatBuffer().get(samples);
+					raster.setSamples(0, 0, width, height, b, samples);
+				}
+				case DataBuffer.TYPE_DOUBLE -> {
+					double[] samples = new double[n];
+					buffer.asDoubleBuffer().get(samples);
+					raster.setSamples(0, 0, width, height, b, samples);
+				}
+				default -> {
+					int[] samples = new int[n];
+					for (int i = 0; i < n; i++) {
+						samples[i] = switch (dataType) {
+							case DataBuffer.TYPE_BYTE -> buffer.get() & 0xFF;
+							case DataBuffer.TYPE_USHORT -> buffer.getShort() & 0xFFFF;
+							case DataBuffer.TYPE_SHORT -> buffer.getShort();
+							default -> buffer.getInt();
+						};
+					}
+					raster.setSamples(0, 0, width, height, b, samples);
+				}
+			}
+		}
+		return new BufferedImage(colorModel, raster, colorModel.isAlphaPremultiplied(), null);
+	}
+
+	private static ByteBuffer readBytes(DataInputStream stream, int length) throws IOException {
+		byte[] bytes = new byte[length];
+		stream.readFully(bytes);
+		return ByteBuffer.wrap(bytes);
+	}
+
+	/**
+	 * Write a tile to the store, if it isn't already present.
+	 * This may cause other tiles to be deleted, if the maximum size of the store is exceeded.
+	 * @param key the key for the tile
+	 * @param img the tile
+	 */
+	void write(String key, BufferedImage img) {
+		var path = getPath(key);
+		if (Files.exists(path))
+			return;
+		try {
+			Files.createDirectories(directory);
+			// Write to a temp file first, so that other threads never see a partial result
+			var pathTemp = directory.resolve(key + "-" + UUID.randomUUID() + ".tmp");
+			var deflater = new Deflater(Deflater.BEST_SPEED);
+			try (var stream = new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(Files.newOutputStream(pathTemp), deflater)))) {
+				write(stream, img);
+			} finally {
+				deflater.end();
+			}
+			long size = Files.size(pathTemp);
+			Files.move(pathTemp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			if (getTotalBytes().addAndGet(size) > maxBytes)
+				evict();
+		} catch (IOException e) {
+			logger.warn("Unable to write tile to {}: {}", path, e.getMessage());
+			logger.debug(e.getMessage(), e);
+		}
+	}
+
+	private static void write(DataOutputStream stream, BufferedImage img) throws IOException {
+		int width = img.getWidth();
+		int height = img.getHeight();
+		int n = width * height;
+		stream.writeInt(DISK_FORMAT_VERSION);
+		stream.writeInt(width);
+		stream.writeInt(height);
+		if (isPackedRGB(img)) {
+			stream.writeInt(img.getType());
+			boolean hasAlpha = img.getColorModel().hasAlpha();
+			var buffer = ByteBuffer.allocate(n * (hasAlpha ? 4 : 3));
+			for (int rgb : img.getRGB(0, 0, width, height, null, 0, width)) {
+				if (hasAlpha)
+					buffer.put((byte)(rgb >> 24));
+				buffer.put((byte)(rgb >> 16));
+				buffer.put((byte)(rgb >> 8));
+				buffer.put((byte)rgb);
+			}
+			stream.write(buffer.array());
+			return;
+		}
+		var raster = img.getRaster();
+		int dataType = raster.getDataBuffer().getDataType();
+		stream.writeInt(BufferedImage.TYPE_CUSTOM);
+		stream.writeInt(dataType);
+		stream.writeInt(raster.getNumBands());
+		var buffer = ByteBuffer.allocate(n * DataBuffer.getDataTypeSize(dataType) / 8);
+		for (int b = 0; b < raster.getNumBands(); b++) {
+			buffer.clear();
+			switch (dataType) {
+				case DataBuffer.TYPE_FLOAT -> buffer.asFloatBuffer().put(raster.getSamples(0, 0, width, height, b, (float[])null));
+				case DataBuffer.TYPE_DOUBLE -> buffer.asDoubleBuffer().put(raster.getSamples(0, 0, width, height, b, (double[])null));
+				default -> {
+					for (int v : raster.getSamples(0, 0, width, height, b, (int[])null)) {
+						switch (dataType) {
+							case DataBuffer.TYPE_BYTE -> buffer.put((byte)v);
+							case DataBuffer.TYPE_USHORT, DataBuffer.TYPE_SHORT -> buffer.putShort((short)v);
+							default -> buffer.putInt(v);
+						}
+					}
+				}
+			}
+			stream.write(buffer.array());
+		}
+	}
+
+	/**
+	 * Get the total size of the stored tiles, checking the directory the first time this is called.
+	 */
+	private synchronized AtomicLong getTotalBytes() {
+		if (totalBytes == null) {
+			long total = 0;
+			for (var file : listTiles())
+				total += file.size();
+			totalBytes = new AtomicLong(total);
+		}
+		return totalBytes;
+	}
+
+	/**
+	 * Delete the least recently used tiles, until the total size is comfortably below the maximum.
+	 */
+	private synchronized void evict() {
+		if (totalBytes.get() <= maxBytes)
+			return;
+		var files = listTiles();
+		files.sort(Comparator.comparingLong(TileFile::lastModified));
+		long total = files.stream().mapToLong(TileFile::size).sum();
+		long target = (long)(maxBytes * EVICTION_TARGET);
+		int nDeleted = 0;
+		for (var file : files) {
+			if (total <= target)
+				break;
+			try {
+				Files.deleteIfExists(file.path());
+				total -= file.size();
+				nDeleted++;
+			} catch (IOException e) {
+				logger.debug("Unable to delete {}: {}", file.path(), e.getMessage());
+			}
+		}
+		totalBytes.set(total);
+		logger.debug("Deleted {} stored tiles from {} ({} bytes remaining)", nDeleted, directory, total);
+	}
+
+	private record TileFile(Path path, long size, long lastModified) {}
+
+	private List<TileFile> listTiles() {
+		List<TileFile> files = new ArrayList<>();
+		if (!Files.isDirectory(directory))
+			return files;
+		try (Stream<Path> stream = Files.list(directory)) {
+			for (var path : (Iterable<Path>)stream::iterator) {
+				if (!path.getFileName().toString().endsWith(EXTENSION))
+					continue;
+				try {
+					files.add(new TileFile(path, Files.size(path), Files.getLastModifiedTime(path).toMillis()));
+				} catch (IOException e) {
+					// Most likely deleted since the directory was listed
+					logger.debug("Unable to read attributes for {}: {}", path, e.getMessage());
+				}
+			}
+		} catch (IOException e) {
+			logger.warn("Unable to list stored tiles in {}: {}", directory, e.getMessage());
+			logger.debug(e.getMessage(), e);
+		}
+		return files;
+	}
+
+	private static boolean isPackedRGB(BufferedImage img) {
+		int type = img.getType();
+		return (type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB || type == BufferedImage.TYPE_INT_ARGB_PRE)
+				&& img.getSampleModel() instanceof SinglePixelPackedSampleModel;
+	}
+
+}
@@ -24,6 +24,7 @@
 package qupath.lib.images.servers;
 
 import org.slf4j.LoggerFactory;
+import qupath.lib.common.ThreadTools;
 import qupath.lib.images.servers.ImageServerBuilder.ServerBuilder;
 import qupath.lib.regions.ImagePlane;
 import qupath.lib.regions.RegionRequest;
@@ -33,6 +34,8 @@ import java.net.URI;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * 
@@ -229,6 +232,48 @@ public interface ImageServer<T> extends AutoCloseable {
 		throw new UnsupportedOperationException("readRegion is not implemented!");
 	}
 
+	/**
+	 * Read a 2D(+C) image region asynchronously.
+	 * <p>
+	 * This is equivalent to {@link #readRegion(RegionRequest)}, but returns immediately. 
+	 * Any {@link IOException} is wrapped in a {@link CompletionException}.
+	 * 
+	 * @param request the region for which pixels are requested
+	 * @return a future that completes with the pixels for the region
+	 * @since v0.8.0
+	 * 
+	 * @implNote The default implementation calls {@link #readRegion(RegionRequest)} using the shared 
+	 *           {@link ThreadTools#getIOExecutor()}, which uses virtual threads. 
+	 *           Implementations that wrap another server should ideally chain onto the wrapped server's future, 
+	 *           and perform any substantial processing using {@link ThreadTools#getComputeExecutor()}.
+	 */
+	public default CompletableFuture<T> readRegionAsync(RegionRequest request) {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				return readRegion(request);
+			} catch (IOException e) {
+				throw new CompletionException(e);
+			}
+		}, ThreadTools.getIOExecutor());
+	}
+	
+	/**
+	 * Request a tile asynchronously.
+	 * If the tile is already cached, the future returned will already be complete.
+	 * 
+	 * @param tile the tile to request
+	 * @return a future that completes with the tile
+	 * @since v0.8.0
+	 * @see #getCachedTile(TileRequest)
+	 * @see #readRegionAsync(RegionRequest)
+	 */
+	public default CompletableFuture<T> getTileAsync(TileRequest tile) {
+		var cached = getCachedTile(tile);
+		if (cached != null)
+			return CompletableFuture.completedFuture(cached);
+		return readRegionAsync(tile.getRegionRequest());
+	}
+
 	/**
 	 * Read a 2D(+C) image region for a specified z-plane and timepoint.
 	 * Coordinates and bounding box dimensions are in pixel units, at the full image resolution 
@@ -58,6 +58,8 @@ import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -218,6 +220,66 @@ public class ImageServers {
 		
 	}
 	
+	private static Path generatedPyramidDirectory = System.getProperty("qupath.pyramid.directory") == null ?
+			null : Paths.get(System.getProperty("qupath.pyramid.directory"));
+	
+	/**
+	 * Set a directory where tiles generated by servers created with {@link #pyramidalize(ImageServer, double...)} 
+	 * or {@link #pyramidalizeTiled(ImageServer, int, int, double...)} should be stored.
+	 * This means that lower-resolution tiles don't need to be generated again if the same image is reopened later.
+	 * <p>
+	 * By default this is null (no tiles are stored), unless the system property {@code qupath.pyramid.directory} is set.
+	 * Tiles are compressed, and the least recently used tiles are deleted when the total size exceeds 
+	 * {@link #getGeneratedPyramidMaxBytes()}.
+	 * 
+	 * @param directory the directory, or null if generated tiles should not be stored
+	 * @since v0.8.0
+	 * @see #setGeneratedPyramidMaxBytes(long)
+	 */
+	public static void setGeneratedPyramidDirectory(Path directory) {
+		generatedPyramidDirectory = directory;
+	}
+	
+	/**
+	 * Get the directory where generated pyramid tiles should be stored.
+	 * @return the directory, or null if generated tiles should not be stored
+	 * @see #setGeneratedPyramidDirectory(Path)
+	 * @since v0.8.0
+	 */
+	public static Path getGeneratedPyramidDirectory() {
+		return generatedPyramidDirectory;
+	}
+	
+	private static long generatedPyramidMaxBytes = Long.getLong("qupath.pyramid.maxBytes", 2L * 1024 * 1024 * 1024);
+	
+	/**
+	 * Set the approximate maximum number of bytes that tiles in the generated pyramid directory may use.
+	 * When this is exceeded, the least recently used tiles are deleted.
+	 * <p>
+	 * By default this is 2 GB, unless the system property {@code qupath.pyramid.maxBytes} is set.
+	 * The limit applies to tiles written by the current process; tiles written by other processes are only 
+	 * counted if they were already present when tiles were first stored.
+	 * 
+	 * @param maxBytes the maximum number of bytes
+	 * @since v0.8.0
+	 * @see #setGeneratedPyramidDirectory(Path)
+	 */
+	public static void setGeneratedPyramidMaxBytes(long maxBytes) {
+		if (maxBytes < 0)
+			throw new IllegalArgumentException("Maximum bytes must be >= 0, but was " + maxBytes);
+		generatedPyramidMaxBytes = maxBytes;
+	}
+	
+	/**
+	 * Get the approximate maximum number of bytes that tiles in the generated pyramid directory may use.
+	 * @return the maximum number of bytes
+	 * @see #setGeneratedPyramidMaxBytes(long)
+	 * @since v0.8.0
+	 */
+	public static long getGeneratedPyramidMaxBytes() {
+		return generatedPyramidMaxBytes;
+	}
+	
 	/**
 	 * Wrap an ImageServer to dynamically generate a pyramid. This does not involve writing any new image, 
 	 * and may be rather processor and memory-intensive as high-resolution tiles must be accessed to fulfil 
@@ -2,7 +2,7 @@
  * #%L
  * This file is part of QuPath.
  * %%
- * Copyright (C) 2018 - 2020 QuPath developers, The University of Edinburgh
+ * Copyright (C) 2018 - 2020, 2026 QuPath developers, The University of Edinburgh
  * %%
  * QuPath is free software: you can redistribute it and/or modify
  * it under the terms of the GNU General Public License as
@@ -21,6 +21,8 @@
 
 package qupath.lib.images.servers;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import qupath.lib.awt.common.BufferedImageTools;
 import qupath.lib.images.servers.ImageServerBuilder.ServerBuilder;
 import qupath.lib.objects.PathObject;
@@ -28,8 +30,13 @@ import qupath.lib.objects.PathObjectReader;
 import qupath.lib.regions.RegionRequest;
 
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.SinglePixelPackedSampleModel;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Collection;
 import java.util.Collections;
 
@@ -37,14 +44,23 @@ import java.util.Collections;
  * Helper class intended to make a single-resolution image act more like an image pyramid.
  * This does not avoid the fact that pixels must still be requested at the resolution of the original server, 
  * but enables tile caching at other resolutions - which may substantially improve performance in some cases.
+ * <p>
+ * Where the downsample between consecutive levels is an integer, each tile is generated from the
+ * corresponding (usually cached) tiles at the previous level using an area-averaging filter.
+ * Generated tiles may optionally be stored on disk, see {@link ImageServers#setGeneratedPyramidDirectory(Path)}.
  * 
  * @author Pete Bankhead
  */
 class PyramidGeneratingImageServer extends AbstractTileableImageServer implements PathObjectReader {
 	
+	private static final Logger logger = LoggerFactory.getLogger(PyramidGeneratingImageServer.class);
+	
 	private ImageServer<BufferedImage> server;
 	private ImageServerMetadata metadata;
 	
+	private transient String storeKey;
+	private transient GeneratedTileStore tileStore;
+	
 	PyramidGeneratingImageServer(ImageServer<BufferedImage> server, int tileWidth, int tileHeight, double... downsamples) {
 		this(server, createDefaultMetadata(server, tileWidth, tileHeight, downsamples));
 	}
@@ -86,21 +102,165 @@ class PyramidGeneratingImageServer extends AbstractTileableImageServer implement
 		if (level == 0 || closestOriginalDownsample >= getDownsampleForResolution(level - 1))
 			return server.readRegion(request.updatePath(server.getPath()));
 		
+		// Check if we have already generated the tile previously
+		var store = getTileStore();
+		String key = store == null ? null : GeneratedTileStore.createKey(getStoreKey(), tileRequest);
+		if (store != null) {
+			var imgStored = store.read(key, getDefaultColorModel());
+			if (imgStored != null)
+				return imgStored;
+		}
+		
 		// Read image from the 'previous' resolution
-		RegionRequest request2 = request.updateDownsample(getDownsampleForResolution(level - 1));
+		double previousDownsample = getDownsampleForResolution(level - 1);
+		RegionRequest request2 = request.updateDownsample(previousDownsample);
 		
 		// If we have an empty tile, we should also return an empty tile
 		BufferedImage img = readRegion(request2);
-//		if (img == null)
-//			return null;
 		if (img == null || isEmptyTile(img))
 			return getEmptyTile(tileRequest.getTileWidth(), tileRequest.getTileHeight());
 		
-//		if (img == null || isEmptyTile(img))
-//			return getEmptyTile(tileRequest.getTileWidth(), tileRequest.getTileHeight());
+		// Resize to the required size, using a fast area-average if we can
+		BufferedImage imgTile = null;
+		int factor = (int)Math.round(downsample / previousDownsample);
+		if (factor > 1 && Math.abs(downsample / previousDownsample - factor) < 1e-3)
+			imgTile = downsampleByArea(img, factor, tileRequest.getTileWidth(), tileRequest.getTileHeight(), allowSmoothInterpolation());
+		if (imgTile == null)
+			imgTile = BufferedImageTools.resize(img, tileRequest.getTileWidth(), tileRequest.getTileHeight(), allowSmoothInterpolation());
+		
+		if (store != null)
+			store.write(key, imgTile);
+		return imgTile;
+	}
+	
+	private GeneratedTileStore getTileStore() {
+		var dir = ImageServers.getGeneratedPyramidDirectory();
+		if (dir == null)
+			return null;
+		long maxBytes = ImageServers.getGeneratedPyramidMaxBytes();
+		// Only look up the store again if the directory or size limit have changed
+		var store = tileStore;
+		if (store == null || !dir.equals(store.getDirectory()) || maxBytes != store.getMaxBytes()) {
+			store = GeneratedTileStore.getInstance(dir, maxBytes);
+			tileStore = store;
+		}
+		return store;
+	}
+	
+	/**
+	 * Get a key to identify this server when storing tiles.
+	 * This includes the last modified time and size of any local files, so that stored tiles are 
+	 * not reused if the image changes.
+	 */
+	private String getStoreKey() {
+		if (storeKey == null) {
+			var sb = new StringBuilder(createID());
+			sb.append("|").append(getMetadata().getPreferredTileWidth()).append("x").append(getMetadata().getPreferredTileHeight());
+			for (double d : getPreferredDownsamples())
+				sb.append("|").append(d);
+			for (var uri : getURIs()) {
+				try {
+					if ("file".equals(uri.getScheme())) {
+						Path path = Paths.get(uri);
+						if (Files.isRegularFile(path))
+							sb.append("|").append(Files.getLastModifiedTime(path).toMillis()).append("|").append(Files.size(path));
+					}
+				} catch (Exception e) {
+					logger.debug("Unable to read file attributes for {}: {}", uri, e.getMessage());
+				}
+			}
+			storeKey = sb.toString();
+		}
+		return storeKey;
+	}
+	
+	/**
+	 * Downsample an image by an integer factor, by averaging the pixels in each factor x factor block.
+	 * Blocks that extend beyond the image bounds are averaged using only the pixels that are available.
+	 * 
+	 * @param img the input image
+	 * @param factor the downsample factor
+	 * @param width the width of the output image; should be approximately the input width divided by the factor
+	 * @param height the height of the output image; should be approximately the input height divided by the factor
+	 * @param smooth if true, average pixels; if false, use the central pixel of each block (e.g. for classification images)
+	 * @return the downsampled image, or null if the input image is not compatible with the requested size
+	 */
+	static BufferedImage downsampleByArea(BufferedImage img, int factor, int width, int height, boolean smooth) {
+		int srcWidth = img.getWidth();
+		int srcHeight = img.getHeight();
+		// Each output pixel must have at least one input pixel, and we can't skip input pixels
+		if (srcWidth <= factor * (width - 1) || srcWidth > factor * width + factor ||
+				srcHeight <= factor * (height - 1) || srcHeight > factor * height + factor)
+			return null;
+		
+		var srcRaster = img.getRaster();
+		var raster = srcRaster.createCompatibleWritableRaster(width, height);
 		
-		// Resize to the required size
-		return BufferedImageTools.resize(img, tileRequest.getTileWidth(), tileRequest.getTileHeight(), allowSmoothInterpolation());
+		int type = img.getType();
+		boolean isPackedRGB = (type == BufferedImage.TYPE_INT_RGB || type == BufferedImage.TYPE_INT_ARGB || type == BufferedImage.TYPE_INT_ARGB_PRE)
+				&& img.getSampleModel() instanceof SinglePixelPackedSampleModel;
+		if (isPackedRGB) {
+			int[] src = (int[])srcRaster.getDataElements(0, 0, srcWidth, srcHeight, null);
+			int[] dest = new int[width * height];
+			for (int y = 0; y < height; y++) {
+				int y0 = y * factor;
+				int y1 = Math.min(y0 + factor, srcHeight);
+				for (int x = 0; x < width; x++) {
+					int x0 = x * factor;
+					int x1 = Math.min(x0 + factor, srcWidth);
+					if (!smooth) {
+						dest[y * width + x] = src[Math.min(y0 + factor / 2, y1 - 1) * srcWidth + Math.min(x0 + factor / 2, x1 - 1)];
+						continue;
+					}
+					int a = 0, r = 0, g = 0, b = 0;
+					for (int yy = y0; yy < y1; yy++) {
+						for (int xx = x0; xx < x1; xx++) {
+							int val = src[yy * srcWidth + xx];
+							a += (val >>> 24);
+							r += (val >> 16) & 0xFF;
+							g += (val >> 8) & 0xFF;
+							b += val & 0xFF;
+						}
+					}
+					int n = (y1 - y0) * (x1 - x0);
+					int half = n / 2;
+					dest[y * width + x] = ((a + half) / n) << 24 | ((r + half) / n) << 16 | ((g + half) / n) << 8 | ((b + half) / n);
+				}
+			}
+			raster.setDataElements(0, 0, width, height, dest);
+		} else {
+			boolean isInteger = switch (raster.getDataBuffer().getDataType()) {
+				case DataBuffer.TYPE_FLOAT, DataBuffer.TYPE_DOUBLE -> false;
+				default -> true;
+			};
+			double[] src = null;
+			double[] dest = new double[width * height];
+			for (int band = 0; band < raster.getNumBands(); band++) {
+				src = srcRaster.getSamples(0, 0, srcWidth, srcHeight, band, src);
+				for (int y = 0; y < height; y++) {
+					int y0 = y * factor;
+					int y1 = Math.min(y0 + factor, srcHeight);
+					for (int x = 0; x < width; x++) {
+						int x0 = x * factor;
+						int x1 = Math.min(x0 + factor, srcWidth);
+						if (!smooth) {
+							dest[y * width + x] = src[Math.min(y0 + factor / 2, y1 - 1) * srcWidth + Math.min(x0 + factor / 2, x1 - 1)];
+							continue;
+						}
+						double sum = 0;
+						for (int yy = y0; yy < y1; yy++) {
+							for (int xx = x0; xx < x1; xx++)
+								sum += src[yy * srcWidth + xx];
+						}
+						double val = sum / ((y1 - y0) * (x1 - x0));
+						// Rasters truncate when setting integer samples, so round here
+						dest[y * width + x] = isInteger ? Math.floor(val + 0.5) : val;
+					}
+				}
+				raster.setSamples(0, 0, width, height, band, dest);
+			}
+		}
+		return new BufferedImage(img.getColorModel(), raster, img.isAlphaPremultiplied(), null);
 	}
 	
 	/**
@@ -23,6 +23,7 @@ package qupath.lib.images.servers;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import qupath.lib.common.ThreadTools;
 import qupath.lib.images.servers.ImageServerBuilder.ServerBuilder;
 import qupath.lib.regions.RegionRequest;
 
@@ -31,6 +32,7 @@ import java.awt.image.RasterOp;
 import java.awt.image.WritableRaster;
 import java.io.IOException;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * ImageServer capable of applying a {@code RasterOp} dynamically before returning pixels.
@@ -76,7 +78,16 @@ class RasterOpImageServer extends TransformingImageServer<BufferedImage> {
 	
 	@Override
 	public BufferedImage readRegion(final RegionRequest request) throws IOException {
-		BufferedImage img = getWrappedServer().readRegion(request);
+		return transform(getWrappedServer().readRegion(request));
+	}
+	
+	@Override
+	public CompletableFuture<BufferedImage> readRegionAsync(final RegionRequest request) {
+		return getWrappedServer().readRegionAsync(request)
+				.thenApplyAsync(this::transform, ThreadTools.getComputeExecutor());
+	}
+	
+	private BufferedImage transform(BufferedImage img) {
 		if (tryInPlace) {
 			try {
 				op.filter(img.getRaster(), img.getRaster());
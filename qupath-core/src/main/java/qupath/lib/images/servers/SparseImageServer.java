@@ -21,9 +21,12 @@
 
 package qupath.lib.images.servers;
 
+import org.locationtech.jts.geom.Envelope;
 import org.locationtech.jts.geom.Geometry;
+import org.locationtech.jts.index.strtree.STRtree;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import qupath.lib.common.ThreadTools;
 import qupath.lib.images.servers.ImageServerBuilder.ServerBuilder;
 import qupath.lib.regions.ImageRegion;
 import qupath.lib.regions.RegionRequest;
@@ -38,6 +41,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -46,6 +50,8 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * An ImageServer that combines regions from multiple separate ImageServers, 
@@ -61,6 +67,8 @@ public class SparseImageServer extends AbstractTileableImageServer {
 	
 	private static final Logger logger = LoggerFactory.getLogger(SparseImageServer.class);
 	
+	private static int maxOpenServers = Math.max(1, Integer.getInteger("qupath.sparse.servers.max", 64));
+	
 	private final ImageServerMetadata metadata;
 	
 	private String path;
@@ -170,11 +178,43 @@ public class SparseImageServer extends AbstractTileableImageServer {
 	@Override
 	public Collection<URI> getURIs() {
 		Set<URI> uris = new LinkedHashSet<>();
-		for (var builder : manager.serverMap.keySet())
-			uris.addAll(builder.getURIs());
+		for (var resolutions : manager.regionMap.values()) {
+			for (var resolution : resolutions) {
+				var builder = resolution.getServerBuilder();
+				if (builder != null)
+					uris.addAll(builder.getURIs());
+			}
+		}
 		return uris;
 	}
 	
+	/**
+	 * Set the maximum number of servers that may be kept open by each sparse image to supply pixels for its regions.
+	 * If more servers are needed, the least recently used ones are closed and rebuilt later if required.
+	 * This helps to limit the number of open files for sparse images that contain a large number of regions.
+	 * <p>
+	 * Servers that were provided when building the sparse image are never closed in this way, and do not 
+	 * count towards the limit.
+	 * @param maxServers the maximum number of open servers; must be at least 1
+	 * @since v0.8.0
+	 */
+	public static void setMaxOpenServers(int maxServers) {
+		if (maxServers < 1)
+			throw new IllegalArgumentException("Maximum number of open servers must be at least 1");
+		maxOpenServers = maxServers;
+	}
+	
+	/**
+	 * Get the maximum number of servers that may be kept open by each sparse image.
+	 * The default is 64, unless the system property {@code qupath.sparse.servers.max} is set.
+	 * @return
+	 * @since v0.8.0
+	 * @see #setMaxOpenServers(int)
+	 */
+	public static int getMaxOpenServers() {
+		return maxOpenServers;
+	}
+	
 	/**
 	 * Returns a UUID.
 	 */
@@ -219,56 +259,54 @@ public class SparseImageServer extends AbstractTileableImageServer {
 	@Override
 	protected BufferedImage readTile(final TileRequest tileRequest) throws IOException {
 		
-		WritableRaster raster = null;
+		var subRegions = manager.getRegions(
+				tileRequest.getImageX() + originX, tileRequest.getImageY() + originY,
+				tileRequest.getImageWidth(), tileRequest.getImageHeight(),
+				tileRequest.getZ() + originZ, tileRequest.getT() + originT);
+		
+		// Read overlapping regions in parallel, since these will often come from different files
+		List<RegionPixels> regionPixels = new ArrayList<>();
+		if (subRegions.size() == 1) {
+			regionPixels.add(readSubRegion(tileRequest, subRegions.getFirst()));
+		} else if (subRegions.size() > 1) {
+			var futures = subRegions.stream()
+					.map(subRegion -> CompletableFuture.supplyAsync(() -> {
+						try {
+							return readSubRegion(tileRequest, subRegion);
+						} catch (IOException e) {
+							throw new CompletionException(e);
+						}
+					}, ThreadTools.getIOExecutor()))
+					.toList();
+			try {
+				for (var future : futures)
+					regionPixels.add(future.join());
+			} catch (CompletionException e) {
+				if (e.getCause() instanceof IOException ioException)
+					throw ioException;
+				throw new IOException(e.getCause());
+			}
+		}
 		
-		for (ImageRegion subRegion : manager.getRegions()) {
-			
-			if (subRegion.getZ() != tileRequest.getZ() + originZ ||
-					subRegion.getT() != tileRequest.getT() + originT)
+		// Combine the regions in order, so that later regions are drawn on top of earlier ones
+		WritableRaster raster = null;
+		double downsample = tileRequest.getRegionRequest().getDownsample();
+		for (var pixels : regionPixels) {
+			if (pixels == null)
 				continue;
 			
-			double downsample = tileRequest.getRegionRequest().getDownsample();
-			if (subRegion.intersects(tileRequest.getImageX() + originX, tileRequest.getImageY() + originY, tileRequest.getImageWidth(), tileRequest.getImageHeight())) {
-				// If we overlap, request the overlapping portion
-				ImageServer<BufferedImage> serverTemp = manager.getServer(subRegion, downsample);
-				
-				// Get image coordinates for bounding box of valid region
-				int x1 = Math.max(tileRequest.getImageX() + originX, subRegion.getX());
-				int y1 = Math.max(tileRequest.getImageY() + originY, subRegion.getY());
-				int x2 = Math.min(tileRequest.getImageX() + originX + tileRequest.getImageWidth(), subRegion.getX() + subRegion.getWidth());
-				int y2 = Math.min(tileRequest.getImageY() + originY + tileRequest.getImageHeight(), subRegion.getY() + subRegion.getHeight());
-				
-				// Determine request coordinates
-				// TODO: Test whether sparse images with pyramidal regions work, or images stored as single planes at pre-specified downsamples
-				int xr = x1 - subRegion.getX();
-				int yr = y1 - subRegion.getY();
-				int xr2 = x2 - subRegion.getX();
-				int yr2 = y2 - subRegion.getY();
-				double requestDownsample = downsample;
-
-				RegionRequest requestTemp = RegionRequest.createInstance(
-						serverTemp.getPath(), requestDownsample,
-						xr, yr, xr2-xr, yr2-yr, tileRequest.getZ() + originZ, tileRequest.getT() + originT);
-				
-				BufferedImage imgTemp = null;
-				synchronized (serverTemp) {
-					imgTemp = serverTemp.readRegion(requestTemp);					
-				}
-				
-				if (imgTemp == null)
-					continue;
-				
-				// If we don't have an output image yet, create a compatible one
-				if (raster == null) {
-					raster = imgTemp.getRaster().createCompatibleWritableRaster(tileRequest.getTileWidth(), tileRequest.getTileHeight());					
-				}
-				
-				int x = (int)Math.round((x1 - tileRequest.getImageX() - originX) / downsample);
-				int y = (int)Math.round((y1 - tileRequest.getImageY() - originY) / downsample);
-				int w = Math.min(imgTemp.getWidth(), raster.getWidth()-x);
-				int h = Math.min(imgTemp.getHeight(), raster.getHeight()-y);
-				raster.setDataElements(x, y, w, h, imgTemp.getRaster().getDataElements(0, 0, w, h, null));
+			BufferedImage imgTemp = pixels.image();
+			
+			// If we don't have an output image yet, create a compatible one
+			if (raster == null) {
+				raster = imgTemp.getRaster().createCompatibleWritableRaster(tileRequest.getTileWidth(), tileRequest.getTileHeight());					
 			}
+			
+			int x = (int)Math.round((pixels.x() - tileRequest.getImageX() - originX) / downsample);
+			int y = (int)Math.round((pixels.y() - tileRequest.getImageY() - originY) / downsample);
+			int w = Math.min(imgTemp.getWidth(), raster.getWidth()-x);
+			int h = Math.min(imgTemp.getHeight(), raster.getHeight()-y);
+			raster.setDataElements(x, y, w, h, imgTemp.getRaster().getDataElements(0, 0, w, h, null));
 		}
 		
 		// To avoid problems with returning nulls, create an empty compatible raster where needed - 
@@ -279,6 +317,47 @@ public class SparseImageServer extends AbstractTileableImageServer {
 		return new BufferedImage(colorModel, raster, false, null);
 	}
 	
+	/**
+	 * Pixels read for a sub-region, along with the coordinates of their top left corner in the full image.
+	 */
+	private record RegionPixels(BufferedImage image, int x, int y) {}
+	
+	private RegionPixels readSubRegion(final TileRequest tileRequest, final ImageRegion subRegion) throws IOException {
+		double downsample = tileRequest.getRegionRequest().getDownsample();
+		
+		// If we overlap, request the overlapping portion
+		ImageServer<BufferedImage> serverTemp = manager.acquireServer(subRegion, downsample);
+		if (serverTemp == null)
+			return null;
+		try {
+			// Get image coordinates for bounding box of valid region
+			int x1 = Math.max(tileRequest.getImageX() + originX, subRegion.getX());
+			int y1 = Math.max(tileRequest.getImageY() + originY, subRegion.getY());
+			int x2 = Math.min(tileRequest.getImageX() + originX + tileRequest.getImageWidth(), subRegion.getX() + subRegion.getWidth());
+			int y2 = Math.min(tileRequest.getImageY() + originY + tileRequest.getImageHeight(), subRegion.getY() + subRegion.getHeight());
+			
+			// Determine request coordinates
+			// TODO: Test whether sparse images with pyramidal regions work, or images stored as single planes at pre-specified downsamples
+			int xr = x1 - subRegion.getX();
+			int yr = y1 - subRegion.getY();
+			int xr2 = x2 - subRegion.getX();
+			int yr2 = y2 - subRegion.getY();
+			double requestDownsample = downsample;
+
+			RegionRequest requestTemp = RegionRequest.createInstance(
+					serverTemp.getPath(), requestDownsample,
+					xr, yr, xr2-xr, yr2-yr, tileRequest.getZ() + originZ, tileRequest.getT() + originT);
+			
+			BufferedImage imgTemp = null;
+			synchronized (serverTemp) {
+				imgTemp = serverTemp.readRegion(requestTemp);					
+			}
+			return imgTemp == null ? null : new RegionPixels(imgTemp, x1, y1);
+		} finally {
+			manager.releaseServer(serverTemp);
+		}
+	}
+	
 	
 	/**
 	 * Builder to create a new {@link SparseImageServer}.
@@ -420,7 +499,14 @@ public class SparseImageServer extends AbstractTileableImageServer {
 		private Set<Double> downsamples = new TreeSet<>();
 		
 		private transient List<ImageRegion> regionList;
-		private transient Map<ServerBuilder<BufferedImage>, ImageServer<BufferedImage>> serverMap = new HashMap<>();
+		private transient Map<PlaneKey, STRtree> regionIndex;
+		
+		// Servers are stored in access order, so that the least recently used can be closed first
+		private transient Map<ServerBuilder<BufferedImage>, ImageServer<BufferedImage>> serverMap = new LinkedHashMap<>(16, 0.75f, true);
+		private transient Set<ImageServer<BufferedImage>> providedServers = Collections.newSetFromMap(new IdentityHashMap<>());
+		private transient Map<ImageServer<BufferedImage>, Integer> serverUsers = new IdentityHashMap<>();
+		
+		private record PlaneKey(int z, int t) {}
 		
 		/**
 		 * Add the path to a new ImageServer for a specified region & downsample.
@@ -456,13 +542,16 @@ public class SparseImageServer extends AbstractTileableImageServer {
 		 */
 		private synchronized void addRegionServer(ImageRegion region, double downsample, ImageServer<BufferedImage> server) {
 			ServerBuilder<BufferedImage> builder = server.getBuilder();
-			 if (!serverMap.containsKey(builder))
+			 if (!serverMap.containsKey(builder)) {
 				serverMap.put(builder, server);
+				providedServers.add(server);
+			 }
 			 addRegionServer(region, downsample, builder);
 		 }
 		
 		private void resetCaches() {
 			regionList = null;
+			regionIndex = null;
 		}
 		
 
@@ -473,6 +562,10 @@ public class SparseImageServer extends AbstractTileableImageServer {
 		 * @return
 		 */
 		public synchronized Collection<ImageRegion> getRegions() {
+			return getRegionList();
+		}
+		
+		private synchronized List<ImageRegion> getRegionList() {
 			if (regionList == null) {
 				regionList = new ArrayList<>(regionMap.keySet());
 				regionList = Collections.unmodifiableList(regionList);
@@ -480,11 +573,65 @@ public class SparseImageServer extends AbstractTileableImageServer {
 			return regionList;
 		}
 		
+		/**
+		 * Get all the regions that intersect a bounding box on a specified plane.
+		 * <p>
+		 * This uses a spatial index, and so is much faster than checking all the regions from {@link #getRegions()} 
+		 * when there are many regions. The regions are returned in the same order as {@link #getRegions()}.
+		 * 
+		 * @param x x-coordinate of the bounding box
+		 * @param y y-coordinate of the bounding box
+		 * @param width width of the bounding box
+		 * @param height height of the bounding box
+		 * @param z z-slice of the regions
+		 * @param t time point of the regions
+		 * @return an unmodifiable list of intersecting regions
+		 * @since v0.8.0
+		 */
+		public List<ImageRegion> getRegions(int x, int y, int width, int height, int z, int t) {
+			List<ImageRegion> regions;
+			STRtree index;
+			synchronized (this) {
+				regions = getRegionList();
+				index = getRegionIndex().get(new PlaneKey(z, t));
+			}
+			if (index == null)
+				return Collections.emptyList();
+			@SuppressWarnings("unchecked")
+			List<Integer> indices = index.query(new Envelope(x, x + width, y, y + height));
+			return indices.stream()
+					.sorted()
+					.map(regions::get)
+					.filter(region -> region.intersects(x, y, width, height))
+					.toList();
+		}
+		
+		private synchronized Map<PlaneKey, STRtree> getRegionIndex() {
+			if (regionIndex == null) {
+				var regions = getRegionList();
+				var map = new HashMap<PlaneKey, STRtree>();
+				for (int i = 0; i < regions.size(); i++) {
+					var region = regions.get(i);
+					var envelope = new Envelope(region.getX(), region.getMaxX(), region.getY(), region.getMaxY());
+					map.computeIfAbsent(new PlaneKey(region.getZ(), region.getT()), k -> new STRtree())
+						.insert(envelope, i);
+				}
+				// Build now so that the indexes can be queried from multiple threads
+				for (var tree : map.values())
+					tree.build();
+				regionIndex = map;
+			}
+			return regionIndex;
+		}
+		
 		/**
 		 * Request the server for a specific downsample.
 		 * <p>
 		 * Note that this does not aim to return a server for any arbitrary region; rather, 
 		 * a server <i>must</i> exist for the specified region and downsample, otherwise this will return {@code null}. 
+		 * <p>
+		 * Servers that are built by the manager may be closed when too many are open (see {@link SparseImageServer#setMaxOpenServers(int)}), 
+		 * so the returned server should be used immediately rather than stored.
 		 * 
 		 * @param region specified region to which the server should correspond (must be found within {@code getRegions()})
 		 * @param downsample specified downsample for the server (must be found within {@code getDownsamples()})
@@ -492,7 +639,26 @@ public class SparseImageServer extends AbstractTileableImageServer {
 		 * @throws IOException 
 		 */
 		public synchronized ImageServer<BufferedImage> getServer(ImageRegion region, double downsample) throws IOException {
-			// Get the best resolution map for the specified region & return null if none found
+			ServerBuilder<BufferedImage> builder = getServerBuilder(region, downsample);
+			if (builder == null)
+				return null;
+			
+			// Create a new ImageServer if we need to, or reuse an existing one
+			// Note: the same server might be reused for multiple regions/resolutions if they have the same path
+			ImageServer<BufferedImage> server = serverMap.get(builder);
+			if (server == null) {
+				server = buildServer(builder);
+				serverMap.put(builder, server);
+				closeUnusedServers();
+			}
+			return server;
+		}
+		
+		/**
+		 * Get the builder for the best resolution available for the specified region and downsample, 
+		 * or null if the region is not found.
+		 */
+		private synchronized ServerBuilder<BufferedImage> getServerBuilder(ImageRegion region, double downsample) {
 			List<SparseImageServerManagerResolution> resolutions = regionMap.get(region);
 			if (resolutions == null || resolutions.isEmpty())
 				return null;
@@ -500,23 +666,98 @@ public class SparseImageServer extends AbstractTileableImageServer {
 			while (level > 0 && resolutions.get(level).getDownsample() > downsample) {
 				level--;
 			}
+			return resolutions.get(level).getServerBuilder();
+		}
+		
+		private static ImageServer<BufferedImage> buildServer(ServerBuilder<BufferedImage> builder) throws IOException {
+			try {
+				return builder.build();
+			} catch (IOException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new IOException(e);
+			}
+		}
+		
+		/**
+		 * Request the server for a specific downsample, ensuring it isn't closed until {@link #releaseServer(ImageServer)} is called.
+		 * <p>
+		 * Unlike {@link #getServer(ImageRegion, double)}, any new server is built without holding the manager's lock, 
+		 * so that other threads can continue to read from servers that are already open.
+		 */
+		private ImageServer<BufferedImage> acquireServer(ImageRegion region, double downsample) throws IOException {
+			ServerBuilder<BufferedImage> builder;
+			synchronized (this) {
+				builder = getServerBuilder(region, downsample);
+				if (builder == null)
+					return null;
+				var server = serverMap.get(builder);
+				if (server != null) {
+					serverUsers.merge(server, 1, Integer::sum);
+					return server;
+				}
+			}
 			
-			// Create a new ImageServer if we need to, or reuse an existing one
-			// Note: the same server might be reused for multiple regions/resolutions if they have the same path
-			ServerBuilder<BufferedImage> builder = resolutions.get(level).getServerBuilder();
-			ImageServer<BufferedImage> server = serverMap.get(builder);
-			if (server == null) {
+			var serverBuilt = buildServer(builder);
+			ImageServer<BufferedImage> server;
+			synchronized (this) {
+				// Another thread may have built the same server in the meantime
+				server = serverMap.get(builder);
+				if (server == null) {
+					server = serverBuilt;
+					serverBuilt = null;
+					serverMap.put(builder, server);
+				}
+				serverUsers.merge(server, 1, Integer::sum);
+				closeUnusedServers();
+			}
+			if (serverBuilt != null) {
 				try {
-					server = builder.build();
-				} catch (IOException e) {
-					throw e;
+					logger.trace("Closing duplicate server {}", serverBuilt);
+					serverBuilt.close();
 				} catch (Exception e) {
-					throw new IOException(e);
+					logger.warn("Exception closing server: {}", e.getMessage(), e);
 				}
-				serverMap.put(builder, server);
 			}
 			return server;
 		}
+		
+		private synchronized void releaseServer(ImageServer<BufferedImage> server) {
+			if (serverUsers.merge(server, -1, Integer::sum) <= 0) {
+				serverUsers.remove(server);
+				closeUnusedServers();
+			}
+		}
+		
+		/**
+		 * Close the least recently used servers that we built ourselves, if there are too many open.
+		 * Servers that are currently in use are skipped, and may be closed later.
+		 */
+		private void closeUnusedServers() {
+			int maxServers = getMaxOpenServers();
+			int nOpen = serverMap.size() - providedServers.size();
+			var iter = serverMap.values().iterator();
+			while (nOpen > maxServers && iter.hasNext()) {
+				var server = iter.next();
+				if (providedServers.contains(server) || serverUsers.containsKey(server))
+					continue;
+				iter.remove();
+				nOpen--;
+				try {
+					logger.trace("Closing server {}", server);
+					server.close();
+				} catch (Exception e) {
+					logger.warn("Exception closing server: {}", e.getMessage(), e);
+				}
+			}
+		}
+		
+		/**
+		 * Get the number of servers that have been built by the manager and are currently open.
+		 */
+		synchronized int getOpenServerCount() {
+			return serverMap.size() - providedServers.size();
+		}
 
 		@Override
 		public void close() throws Exception {
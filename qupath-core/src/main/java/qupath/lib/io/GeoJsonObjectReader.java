@@ -0,0 +1,287 @@
+/*-
+ * #%L
+ * This file is part of QuPath.
+ * %%
+ * Copyright (C) 2026 QuPath developers, The University of Edinburgh
+ * %%
+ * QuPath is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * QuPath is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with QuPath.  If not, see <https://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package qupath.lib.io;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import qupath.lib.common.ThreadTools;
+import qupath.lib.io.QuPathTypeAdapters.PathObjectTypeAdapter;
+import qupath.lib.objects.PathObject;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+
+/**
+ * Reader for {@link PathObject PathObjects} stored as GeoJSON, which streams through the input
+ * rather than first deserializing it to a single JSON element.
+ * <p>
+ * Features are decoded one at a time, so that reading a large FeatureCollection doesn't require
+ * the full JSON tree to be held in memory along with all the objects created from it.
+ * Objects are passed to a consumer in batches, so that (for example) they can be added to an
+ * object hierarchy without the entire list of objects being created first.
+ * <p>
+ * The handling of different GeoJSON representations matches {@link GsonTools#parseObjectsFromGeoJSON(JsonElement)}.
+ *
+ * @author Pete Bankhead
+ * @since v0.8.0
+ * @see PathIO#readObjectsFromGeoJSON(InputStream)
+ */
+public class GeoJsonObjectReader {
+
+	private int batchSize = 1000;
+
+	private boolean parallel = true;
+
+	/**
+	 * Create a new reader with default settings.
+	 */
+	public GeoJsonObjectReader() {}
+
+	/**
+	 * Set the maximum number of objects to pass to the consumer at a time.
+	 * @param batchSize the batch size; must be at least 1
+	 * @return this reader
+	 */
+	public GeoJsonObjectReader batchSize(int batchSize) {
+		if (batchSize < 1)
+			throw new IllegalArgumentException("Batch size must be at least 1");
+		this.batchSize = batchSize;
+		return this;
+	}
+
+	/**
+	 * Specify whether objects should be created from features in parallel.
+	 * If true, batches of features are decoded by {@link ThreadTools#getComputeExecutor()} while the next
+	 * batch is read from the input. Objects are always passed to the consumer in the order they are read.
+	 * @param parallel
+	 * @return this reader
+	 */
+	public GeoJsonObjectReader parallel(boolean parallel) {
+		this.parallel = parallel;
+		return this;
+	}
+
+	/**
+	 * Read all the objects from an input stream.
+	 * @param stream the input stream containing GeoJSON; this is not closed by this method
+	 * @return a list containing any objects that could be parsed from the stream
+	 * @throws IOException if the stream could not be read
+	 * @throws JsonParseException if the JSON is invalid
+	 */
+	public List<PathObject> readAll(InputStream stream) throws IOException, JsonParseException {
+		List<PathObject> pathObjects = new ArrayList<>();
+		read(stream, pathObjects::addAll);
+		return pathObjects;
+	}
+
+	/**
+	 * Read objects from an input stream, passing them to a consumer in batches.
+	 * The consumer is always called from the calling thread.
+	 * @param stream the input stream containing GeoJSON; this is not closed by this method
+	 * @param consumer consumer for each batch of objects, in the order they are read
+	 * @throws IOException if the stream could not be read
+	 * @throws JsonParseException if the JSON is invalid
+	 */
+	public void read(InputStream stream, Consumer<? super List<PathObject>> consumer) throws IOException, JsonParseException {
+		var gson = GsonTools.getInstance();
+		var in = gson.newJsonReader(new InputStreamReader(new BufferedInputStream(stream), StandardCharsets.UTF_8));
+		try {
+			in.peek();
+		} catch (EOFException e) {
+			// Empty input
+			return;
+		}
+		var batches = new Batches(consumer);
+		readElement(in, gson, batches);
+		batches.finish();
+	}
+
+	/**
+	 * Read the next element, which may be a Feature, FeatureCollection, Geometry or array of any of these.
+	 */
+	private void readElement(JsonReader in, Gson gson, Batches batches) throws IOException {
+		switch (in.peek()) {
+			case BEGIN_ARRAY -> {
+				in.beginArray();
+				while (in.hasNext())
+					readElement(in, gson, batches);
+				in.endArray();
+			}
+			case BEGIN_OBJECT -> readObject(in, gson, batches);
+			default -> in.skipValue();
+		}
+	}
+
+	private void readObject(JsonReader in, Gson gson, Batches batches) throws IOException {
+		String type = null;
+		// Only store other members if we might need them, i.e. this isn't a FeatureCollection
+		var jsonObject = new JsonObject();
+		// Features read before we know the type must be retained until we do
+		List<JsonObject> unconfirmedFeatures = null;
+		in.beginObject();
+		while (in.hasNext()) {
+			String name = in.nextName();
+			if ("type".equals(name) && in.peek() == JsonToken.STRING) {
+				type = in.nextString();
+				jsonObject.addProperty(name, type);
+			} else if ("features".equals(name) && in.peek() == JsonToken.BEGIN_ARRAY && (type == null || "FeatureCollection".equals(type))) {
+				if (type == null)
+					unconfirmedFeatures = new ArrayList<>();
+				in.beginArray();
+				while (in.hasNext()) {
+					JsonElement element = gson.fromJson(in, JsonElement.class);
+					if (element == null || !element.isJsonObject())
+						continue;
+					if (unconfirmedFeatures == null)
+						batches.addFeature(element.getAsJsonObject());
+					else
+						unconfirmedFeatures.add(element.getAsJsonObject());
+				}
+				in.endArray();
+			} else if ("FeatureCollection".equals(type)) {
+				in.skipValue();
+			} else {
+				jsonObject.add(name, gson.fromJson(in, JsonElement.class));
+			}
+		}
+		in.endObject();
+
+		if (type == null)
+			return;
+		if ("FeatureCollection".equals(type)) {
+			if (unconfirmedFeatures != null) {
+				for (var feature : unconfirmedFeatures)
+					batches.addFeature(feature);
+			}
+		} else if ("Feature".equals(type)) {
+			batches.addFeature(jsonObject);
+		} else if (GsonTools.isGeometryType(type)) {
+			batches.addGeometry(jsonObject, type);
+		}
+	}
+
+
+	private record PendingObject(JsonObject json, String geometryType) {
+
+		private PathObject toPathObject(Gson gson) {
+			if (geometryType == null)
+				return PathObjectTypeAdapter.INSTANCE.fromJsonTree(json);
+			else
+				return GsonTools.createAnnotationFromGeometry(json, geometryType, gson);
+		}
+
+	}
+
+	/**
+	 * Helper class to create objects in batches, and pass them to the consumer in order.
+	 */
+	private class Batches {
+
+		private final Consumer<? super List<PathObject>> consumer;
+		private final Deque<CompletableFuture<List<PathObject>>> pending = new ArrayDeque<>();
+		private final int maxPending = parallel ? Math.max(1, ThreadTools.getParallelism()) : 0;
+
+		private List<PendingObject> batch = new ArrayList<>();
+
+		private Batches(Consumer<? super List<PathObject>> consumer) {
+			this.consumer = consumer;
+		}
+
+		private void addFeature(JsonObject json) {
+			add(new PendingObject(json, null));
+		}
+
+		private void addGeometry(JsonObject json, String type) {
+			add(new PendingObject(json, type));
+		}
+
+		private void add(PendingObject pendingObject) {
+			batch.add(pendingObject);
+			if (batch.size() >= batchSize)
+				submitBatch();
+		}
+
+		private void submitBatch() {
+			if (batch.isEmpty())
+				return;
+			var currentBatch = batch;
+			batch = new ArrayList<>();
+			if (maxPending == 0) {
+				accept(createObjects(currentBatch));
+				return;
+			}
+			pending.add(CompletableFuture.supplyAsync(() -> createObjects(currentBatch), ThreadTools.getComputeExecutor()));
+			// Limit the number of features held in memory
+			while (pending.size() > maxPending)
+				accept(join(pending.poll()));
+		}
+
+		private void finish() {
+			submitBatch();
+			while (!pending.isEmpty())
+				accept(join(pending.poll()));
+		}
+
+		private void accept(List<PathObject> pathObjects) {
+			if (!pathObjects.isEmpty())
+				consumer.accept(pathObjects);
+		}
+
+		private List<PathObject> createObjects(List<PendingObject> pendingObjects) {
+			var gson = GsonTools.getInstance();
+			List<PathObject> pathObjects = new ArrayList<>(pendingObjects.size());
+			for (var pendingObject : pendingObjects) {
+				var pathObject = pendingObject.toPathObject(gson);
+				if (pathObject != null)
+					pathObjects.add(pathObject);
+			}
+			return pathObjects;
+		}
+
+		private List<PathObject> join(CompletableFuture<List<PathObject>> future) {
+			try {
+				return future.join();
+			} catch (CompletionException e) {
+				if (e.getCause() instanceof RuntimeException runtimeException)
+					throw runtimeException;
+				throw e;
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,266 @@
+/*-
+ * #%L
+ * This file is part of QuPath.
+ * %%
+ * Copyright (C) 2026 QuPath developers, The University of Edinburgh
+ * %%
+ * QuPath is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * QuPath is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with QuPath.  If not, see <https://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package qupath.lib.io;
+
+import com.google.gson.Gson;
+import qupath.lib.common.ThreadTools;
+import qupath.lib.io.QuPathTypeAdapters.PathObjectTypeAdapter;
+import qupath.lib.objects.PathObject;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Writer for {@link PathObject PathObjects} as GeoJSON, which encodes features in parallel and streams
+ * them to the output in order.
+ * <p>
+ * Objects are split into batches, and each batch is encoded to bytes by {@link ThreadTools#getComputeExecutor()}
+ * while earlier batches are written. Measurements can be excluded without needing to create copies of the objects.
+ * <p>
+ * The output is the same as writing the objects (or a {@link FeatureCollection}) with {@link GsonTools#getInstance(boolean)}.
+ * Pretty-printed output is always written from the calling thread, since it is intended to be readable rather than
+ * compact or fast.
+ *
+ * @author Pete Bankhead
+ * @since v0.8.0
+ * @see PathIO#exportObjectsAsGeoJSON(OutputStream, Collection, PathIO.GeoJsonExportOptions...)
+ */
+public class GeoJsonObjectWriter {
+
+	private int batchSize = 1000;
+
+	private boolean parallel = true;
+
+	private boolean prettyPrint = false;
+
+	private boolean includeMeasurements = true;
+
+	private boolean featureCollection = false;
+
+	/**
+	 * Create a new writer with default settings.
+	 */
+	public GeoJsonObjectWriter() {}
+
+	/**
+	 * Set the number of objects to encode in each batch.
+	 * @param batchSize the batch size; must be at least 1
+	 * @return this writer
+	 */
+	public GeoJsonObjectWriter batchSize(int batchSize) {
+		if (batchSize < 1)
+			throw new IllegalArgumentException("Batch size must be at least 1");
+		this.batchSize = batchSize;
+		return this;
+	}
+
+	/**
+	 * Specify whether batches of objects should be encoded in parallel.
+	 * @param parallel
+	 * @return this writer
+	 */
+	public GeoJsonObjectWriter parallel(boolean parallel) {
+		this.parallel = parallel;
+		return this;
+	}
+
+	/**
+	 * Request pretty-printing for the JSON. This is more readable, but results in larger files and is slower to write.
+	 * @param prettyPrint
+	 * @return this writer
+	 */
+	public GeoJsonObjectWriter prettyPrint(boolean prettyPrint) {
+		this.prettyPrint = prettyPrint;
+		return this;
+	}
+
+	/**
+	 * Specify whether measurements and metadata should be included for each object.
+	 * Excluding these can reduce the file size substantially if they are not needed.
+	 * @param includeMeasurements
+	 * @return this writer
+	 */
+	public GeoJsonObjectWriter includeMeasurements(boolean includeMeasurements) {
+		this.includeMeasurements = includeMeasurements;
+		return this;
+	}
+
+	/**
+	 * Specify whether objects should be written as a FeatureCollection.
+	 * If not, individual objects are written as Features - in an array if necessary.
+	 * @param featureCollection
+	 * @return this writer
+	 */
+	public GeoJsonObjectWriter featureCollection(boolean featureCollection) {
+		this.featureCollection = featureCollection;
+		return this;
+	}
+
+	/**
+	 * Write objects to an output stream.
+	 * @param stream the output stream; this is flushed, but not closed
+	 * @param pathObjects the objects to write
+	 * @throws IOException if the objects could not be written
+	 */
+	public void write(OutputStream stream, Collection<? extends PathObject> pathObjects) throws IOException {
+		var buffered = new BufferedOutputStream(stream);
+		var writer = new OutputStreamWriter(buffered, StandardCharsets.UTF_8);
+		var gson = GsonTools.getInstance(prettyPrint);
+		if (prettyPrint) {
+			writeSequential(writer, gson, pathObjects);
+			writer.flush();
+			return;
+		}
+		var adapter = includeMeasurements ? PathObjectTypeAdapter.INSTANCE : PathObjectTypeAdapter.INSTANCE_NO_MEASUREMENTS;
+		if (!featureCollection && pathObjects.size() == 1) {
+			var pathObject = pathObjects.iterator().next();
+			writeFeature(writer, gson, getAdapter(pathObject), pathObject);
+			writer.flush();
+			return;
+		}
+		if (featureCollection)
+			writer.write("{\"type\":\"FeatureCollection\",\"features\":[");
+		else
+			writer.write("[");
+		// Encoded batches are written directly as bytes
+		writer.flush();
+		writeBatches(buffered, gson, adapter, pathObjects);
+		writer.write(featureCollection ? "]}" : "]");
+		writer.flush();
+	}
+
+	/**
+	 * Write all the objects through a single JSON writer.
+	 */
+	private void writeSequential(Writer writer, Gson gson, Collection<? extends PathObject> pathObjects) throws IOException {
+		var out = gson.newJsonWriter(writer);
+		var adapter = includeMeasurements ? PathObjectTypeAdapter.INSTANCE : PathObjectTypeAdapter.INSTANCE_NO_MEASUREMENTS;
+		if (!featureCollection && pathObjects.size() == 1) {
+			var pathObject = pathObjects.iterator().next();
+			getAdapter(pathObject).write(out, pathObject);
+		} else {
+			if (featureCollection) {
+				out.beginObject();
+				out.name("type");
+				out.value("FeatureCollection");
+				out.name("features");
+			}
+			out.beginArray();
+			for (var pathObject : pathObjects)
+				adapter.write(out, pathObject);
+			out.endArray();
+			if (featureCollection)
+				out.endObject();
+		}
+		out.flush();
+	}
+
+	/**
+	 * Get the adapter to use for an object written on its own.
+	 * Root objects are written with their descendants, as they are by Gson.
+	 */
+	private PathObjectTypeAdapter getAdapter(PathObject pathObject) {
+		if (pathObject.isRootObject())
+			return includeMeasurements ? PathObjectTypeAdapter.INSTANCE_HIERARCHY : PathObjectTypeAdapter.INSTANCE_HIERARCHY_NO_MEASUREMENTS;
+		else
+			return includeMeasurements ? PathObjectTypeAdapter.INSTANCE : PathObjectTypeAdapter.INSTANCE_NO_MEASUREMENTS;
+	}
+
+	private void writeBatches(OutputStream stream, Gson gson, PathObjectTypeAdapter adapter, Collection<? extends PathObject> pathObjects) throws IOException {
+		int maxPending = parallel ? Math.max(1, ThreadTools.getParallelism()) : 0;
+		Deque<CompletableFuture<byte[]>> pending = new ArrayDeque<>();
+		List<PathObject> batch = new ArrayList<>(Math.min(batchSize, pathObjects.size()));
+		boolean isFirst = true;
+		for (var pathObject : pathObjects) {
+			batch.add(pathObject);
+			if (batch.size() < batchSize)
+				continue;
+			var currentBatch = batch;
+			boolean currentIsFirst = isFirst;
+			batch = new ArrayList<>(batchSize);
+			isFirst = false;
+			if (maxPending == 0) {
+				stream.write(encodeBatch(gson, adapter, currentBatch, currentIsFirst));
+			} else {
+				pending.add(CompletableFuture.supplyAsync(() -> encodeBatch(gson, adapter, currentBatch, currentIsFirst), ThreadTools.getComputeExecutor()));
+				// Limit the number of encoded batches held in memory
+				while (pending.size() > maxPending)
+					stream.write(join(pending.poll()));
+			}
+		}
+		while (!pending.isEmpty())
+			stream.write(join(pending.poll()));
+		if (!batch.isEmpty())
+			stream.write(encodeBatch(gson, adapter, batch, isFirst));
+	}
+
+	/**
+	 * Encode a batch of features as UTF-8 bytes, with a separator before each feature (except the first in the output).
+	 */
+	private static byte[] encodeBatch(Gson gson, PathObjectTypeAdapter adapter, List<PathObject> pathObjects, boolean isFirst) {
+		var bytes = new ByteArrayOutputStream(pathObjects.size() * 256);
+		try (var writer = new OutputStreamWriter(bytes, StandardCharsets.UTF_8)) {
+			for (var pathObject : pathObjects) {
+				if (isFirst)
+					isFirst = false;
+				else
+					writer.write(',');
+				writeFeature(writer, gson, adapter, pathObject);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static void writeFeature(Writer writer, Gson gson, PathObjectTypeAdapter adapter, PathObject pathObject) throws IOException {
+		var out = gson.newJsonWriter(writer);
+		adapter.write(out, pathObject);
+		out.flush();
+	}
+
+	private static byte[] join(CompletableFuture<byte[]> future) throws IOException {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof UncheckedIOException ioException)
+				throw ioException.getCause();
+			if (e.getCause() instanceof RuntimeException runtimeException)
+				throw runtimeException;
+			throw e;
+		}
+	}
+
+}
@@ -426,18 +426,34 @@ public class GsonTools {
 					case "Polygon":
 					case "MultiPolygon":
 					case "GeometryCollection":
-						logger.warn("Creating annotation from GeoJSON geometry {}", type);
-						var geometry = gson.fromJson(jsonObject, Geometry.class);
-						geometry = GeometryTools.homogenizeGeometryCollection(geometry);
-						// TODO: Check for plane properties!
-						var roi = GeometryTools.geometryToROI(geometry, ImagePlane.getDefaultPlane());
-						var annotation = PathObjects.createAnnotationObject(roi);
-						return pathObjects.add(annotation);
+						return pathObjects.add(createAnnotationFromGeometry(jsonObject, type, gson));
 				}
 			}
 		}
 		return false;
 	}
+	
+	/**
+	 * Check if a GeoJSON type represents a geometry (rather than a Feature or FeatureCollection).
+	 */
+	static boolean isGeometryType(String type) {
+		return switch (type) {
+			case "Point", "MultiPoint", "LineString", "MultiLineString", "Polygon", "MultiPolygon", "GeometryCollection" -> true;
+			default -> false;
+		};
+	}
+	
+	/**
+	 * Create an annotation from a JSON object representing a GeoJSON geometry.
+	 */
+	static PathObject createAnnotationFromGeometry(JsonObject jsonObject, String type, Gson gson) {
+		logger.warn("Creating annotation from GeoJSON geometry {}", type);
+		var geometry = gson.fromJson(jsonObject, Geometry.class);
+		geometry = GeometryTools.homogenizeGeometryCollection(geometry);
+		// TODO: Check for plane properties!
+		var roi = GeometryTools.geometryToROI(geometry, ImagePlane.getDefaultPlane());
+		return PathObjects.createAnnotationObject(roi);
+	}
 
 	
 	/**
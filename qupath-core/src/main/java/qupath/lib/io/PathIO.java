@@ -23,22 +23,20 @@
 
 package qupath.lib.io;
 
-import com.google.gson.JsonElement;
 import com.google.gson.JsonParseException;
 import com.google.gson.JsonSyntaxException;
-import com.google.gson.reflect.TypeToken;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import qupath.lib.color.ColorDeconvolutionStains;
 import qupath.lib.common.GeneralTools;
 import qupath.lib.common.LogTools;
+import qupath.lib.common.Metrics;
 import qupath.lib.images.ImageData;
 import qupath.lib.images.servers.ImageServer;
 import qupath.lib.images.servers.ImageServerBuilder.DefaultImageServerBuilder;
 import qupath.lib.images.servers.ImageServerBuilder.ServerBuilder;
 import qupath.lib.images.servers.ImageServerProvider;
 import qupath.lib.objects.PathObject;
-import qupath.lib.objects.PathObjectTools;
 import qupath.lib.objects.hierarchy.PathObjectHierarchy;
 import qupath.lib.plugins.workflow.Workflow;
 
@@ -51,17 +49,14 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.ObjectInputFilter;
 import java.io.ObjectInputFilter.FilterInfo;
 import java.io.ObjectInputFilter.Status;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.io.Serializable;
 import java.net.URI;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -91,6 +86,11 @@ import java.util.zip.ZipOutputStream;
 public class PathIO {
 	
 	private static final Logger logger = LoggerFactory.getLogger(PathIO.class);
+
+	private static final Metrics.Timer READ_TIMER = Metrics.timer("io.imagedata.read");
+	private static final Metrics.Timer WRITE_TIMER = Metrics.timer("io.imagedata.write");
+	private static final Metrics.Timer READ_HIERARCHY_TIMER = Metrics.timer("io.hierarchy.read");
+	private static final Metrics.Histogram WRITE_OBJECTS = Metrics.histogram("io.imagedata.write.objects");
 	
 	/**
 	 * Data file version identifier, written within the .qpdata file.
@@ -297,6 +297,7 @@ public class PathIO {
 															ServerBuilder<T> requestedServerBuilder) throws IOException {
 		
 		long startTime = System.currentTimeMillis();
+		var sample = READ_TIMER.start();
 		Locale locale = Locale.getDefault(Category.FORMAT);
 		boolean localeChanged = false;
 
@@ -410,6 +411,7 @@ public class PathIO {
 		} finally {
 			if (localeChanged)
 				Locale.setDefault(Category.FORMAT, locale);
+			sample.stop();
 		}
 	}
 
@@ -651,7 +653,8 @@ public class PathIO {
 
 	private static void writeImageDataSerialized(final OutputStream stream, final ImageData<?> imageData) throws IOException {
 				
-		try (OutputStream outputStream = new BufferedOutputStream(stream)) {
+		try (var sample = WRITE_TIMER.start();
+			 OutputStream outputStream = new BufferedOutputStream(stream)) {
 			long startTime = System.currentTimeMillis();
 			
 			ObjectOutputStream outStream = new ObjectOutputStream(outputStream);
@@ -684,7 +687,9 @@ public class PathIO {
 			
 			// Write the rest of the main image metadata
 			PathObjectHierarchy hierarchy = imageData.getHierarchy();
-			logger.info(String.format("Writing object hierarchy with %d object(s)...", hierarchy.nObjects()));
+			int nObjects = hierarchy.nObjects();
+			logger.info(String.format("Writing object hierarchy with %d object(s)...", nObjects));
+			WRITE_OBJECTS.record(nObjects);
 			outStream.writeObject(hierarchy);
 			
 			// Write any remaining (serializable) properties
@@ -741,6 +746,7 @@ public class PathIO {
 	 */
 	public static PathObjectHierarchy readHierarchy(final InputStream fileIn) throws IOException {
 
+		var sample = READ_HIERARCHY_TIMER.start();
 		Locale locale = Locale.getDefault(Category.FORMAT);
 		boolean localeChanged = false;
 
@@ -781,6 +787,7 @@ public class PathIO {
 		} finally {
 			if (localeChanged)
 				Locale.setDefault(Category.FORMAT, locale);
+			sample.stop();
 		}
 	}
 	
@@ -863,7 +870,8 @@ public class PathIO {
 	/**
 	 * Read a list of {@link PathObject} from an input stream.
 	 * <p>
-	 * This will attempt to handle different GeoJSON representations by first deserializing to a JSON element.
+	 * This will attempt to handle different GeoJSON representations, streaming through the input so that 
+	 * features are decoded one at a time.
 	 * <p>
 	 * If the element is a JSON object, its "type" property is checked and handled as follows
 	 * <ul>
@@ -879,12 +887,11 @@ public class PathIO {
 	 * @throws IOException
 	 * @throws JsonSyntaxException 
 	 * @throws JsonParseException 
+	 * @see GeoJsonObjectReader
 	 */
 	public static List<PathObject> readObjectsFromGeoJSON(InputStream stream) throws IOException, JsonSyntaxException, JsonParseException {
-		var gson = GsonTools.getInstance();
-		try (var reader = new InputStreamReader(new BufferedInputStream(stream), StandardCharsets.UTF_8)) {
-			var element = gson.fromJson(reader, JsonElement.class);
-			return GsonTools.parseObjectsFromGeoJSON(element);
+		try (stream) {
+			return new GeoJsonObjectReader().readAll(stream);
 		}
 	}
 	
@@ -980,6 +987,8 @@ public class PathIO {
 
 	/**
 	 * Export a collection of objects as a GeoJSON "FeatureCollection" to an output stream.
+	 * <p>
+	 * Objects are encoded in parallel, unless pretty-printing is requested.
 	 * @param stream
 	 * @param pathObjects
 	 * @param options
@@ -987,22 +996,11 @@ public class PathIO {
 	 */
 	public static void exportObjectsAsGeoJSON(OutputStream stream, Collection<? extends PathObject> pathObjects, GeoJsonExportOptions... options) throws IOException {
 		Collection<GeoJsonExportOptions> optionList = Arrays.asList(options);
-		
-		// If exclude measurements, 'transform' each PathObject to get rid of measurements
-		if (optionList.contains(GeoJsonExportOptions.EXCLUDE_MEASUREMENTS))
-			pathObjects = pathObjects.stream().map(e -> PathObjectTools.transformObject(e, null, false)).toList();
-		
-		var writer = new OutputStreamWriter(new BufferedOutputStream(stream), StandardCharsets.UTF_8);
-		var gson = GsonTools.getInstance(optionList.contains(GeoJsonExportOptions.PRETTY_JSON));
-		
-		if (optionList.contains(GeoJsonExportOptions.FEATURE_COLLECTION))
-			gson.toJson(FeatureCollection.wrap(pathObjects), writer);
-		else if (pathObjects.size() == 1) {
-			gson.toJson(pathObjects.iterator().next(), writer);
-		} else {
-			gson.toJson(pathObjects, new TypeToken<List<PathObject>>() {}.getType(), writer);				
-		}
-		writer.flush();
+		new GeoJsonObjectWriter()
+				.prettyPrint(optionList.contains(GeoJsonExportOptions.PRETTY_JSON))
+				.includeMeasurements(!optionList.contains(GeoJsonExportOptions.EXCLUDE_MEASUREMENTS))
+				.featureCollection(optionList.contains(GeoJsonExportOptions.FEATURE_COLLECTION))
+				.write(stream, pathObjects);
 	}
 	
 	
@@ -288,6 +288,16 @@ class QuPathTypeAdapters {
 		 */
 		static PathObjectTypeAdapter INSTANCE_HIERARCHY = new PathObjectTypeAdapter(true);
 		
+		/**
+		 * Get an instance that serializes a 'flat' object, excluding measurements and metadata
+		 */
+		static PathObjectTypeAdapter INSTANCE_NO_MEASUREMENTS = new PathObjectTypeAdapter(false, false);
+		
+		/**
+		 * Get an instance that serializes the object hierarchy, excluding measurements and metadata
+		 */
+		static PathObjectTypeAdapter INSTANCE_HIERARCHY_NO_MEASUREMENTS = new PathObjectTypeAdapter(true, false);
+		
 		/**
 		 * In v0.2 we unwisely stored object type in an "id" property.
 		 */
@@ -314,8 +324,15 @@ class QuPathTypeAdapters {
 		
 		private boolean doHierarchy = false;
 		
+		private boolean includeMeasurements = true;
+		
 		private PathObjectTypeAdapter(boolean doHierarchy) {
+			this(doHierarchy, true);
+		}
+		
+		private PathObjectTypeAdapter(boolean doHierarchy, boolean includeMeasurements) {
 			this.doHierarchy = doHierarchy;
+			this.includeMeasurements = includeMeasurements;
 		}
 		
 
@@ -393,7 +410,9 @@ class QuPathTypeAdapters {
 			}
 			
 			MeasurementList measurements = value.getMeasurementList();
-			if (flattenProperties) {
+			if (!includeMeasurements) {
+				// Skip measurements and metadata
+			} else if (flattenProperties) {
 				// Flattening properties probably not a good idea!
 				
 				// Add measurements
@@ -438,7 +457,7 @@ class QuPathTypeAdapters {
 			
 			// Write metadata (new in v0.5.0)
 			var metadata = value.getMetadata();
-			if (!metadata.isEmpty()) {
+			if (includeMeasurements && !metadata.isEmpty()) {
 				out.name("metadata");
 				gson.toJson(metadata, Map.class, out);
 			}
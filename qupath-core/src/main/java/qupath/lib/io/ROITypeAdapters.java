@@ -54,6 +54,8 @@ import qupath.lib.roi.ROIs;
 import qupath.lib.roi.interfaces.ROI;
 
 import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
@@ -356,6 +358,12 @@ class ROITypeAdapters {
 	}
 
 	static void writeCoordinatesLineString(LineString lineString, JsonWriter out, int nDecimals) throws IOException {
+		// For compact output, encode all the coordinates at once (this is the bulk of most GeoJSON)
+		var style = out.getFormattingStyle();
+		if (style.getNewline().isEmpty() && style.getIndent().isEmpty()) {
+			out.jsonValue(coordinatesToString(lineString.getCoordinateSequence(), nDecimals, style.usesSpaceAfterSeparators() ? ", " : ","));
+			return;
+		}
 		Coordinate[] coords = lineString.getCoordinates();
 		out.beginArray();
 		for (Coordinate c : coords)
@@ -420,8 +428,82 @@ class ROITypeAdapters {
 	}
 
 	static String coordinateToString(double x, double y, int nDecimals) {
-		return "[" + GeneralTools.formatNumber(Locale.US, x, nDecimals) + ", "
-				+ GeneralTools.formatNumber(Locale.US, y, nDecimals) + "]";		
+		var sb = new StringBuilder(24);
+		appendCoordinate(sb, x, y, nDecimals);
+		return sb.toString();
+	}
+	
+	/**
+	 * Create the JSON representation of an array of coordinates, equivalent to writing each coordinate 
+	 * with {@link #coordinateToString(double, double, int)} within a JSON array.
+	 */
+	static String coordinatesToString(CoordinateSequence coords, int nDecimals, String separator) {
+		int n = coords.size();
+		var sb = new StringBuilder(n * 16 + 2);
+		sb.append('[');
+		for (int i = 0; i < n; i++) {
+			if (i > 0)
+				sb.append(separator);
+			appendCoordinate(sb, coords.getX(i), coords.getY(i), nDecimals);
+		}
+		sb.append(']');
+		return sb.toString();
+	}
+	
+	private static void appendCoordinate(StringBuilder sb, double x, double y, int nDecimals) {
+		sb.append('[');
+		appendNumber(sb, x, nDecimals);
+		sb.append(", ");
+		appendNumber(sb, y, nDecimals);
+		sb.append(']');
+	}
+	
+	private static final double[] POWERS_OF_TEN = {1, 10, 100, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9};
+	private static final long[] LONG_POWERS_OF_TEN = {1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L, 1000000000L};
+	
+	/**
+	 * Append a number with a maximum number of decimal places.
+	 * <p>
+	 * The output is the same as {@link GeneralTools#formatNumber(Locale, double, int)} with {@link Locale#US}, 
+	 * but avoids the synchronization (and much of the overhead) of using a shared NumberFormat.
+	 */
+	static void appendNumber(StringBuilder sb, double value, int nDecimals) {
+		if (!Double.isFinite(value) || nDecimals < 0 || nDecimals >= POWERS_OF_TEN.length) {
+			sb.append(GeneralTools.formatNumber(Locale.US, value, nDecimals));
+			return;
+		}
+		double abs = Math.abs(value);
+		double scaled = abs * POWERS_OF_TEN[nDecimals];
+		// Large values might lose precision when scaled
+		if (scaled >= 1e12) {
+			sb.append(GeneralTools.formatNumber(Locale.US, value, nDecimals));
+			return;
+		}
+		long units;
+		if (Math.abs(scaled - Math.floor(scaled) - 0.5) < 1e-3) {
+			// Close to a tie, so round based on the exact decimal value (as NumberFormat does)
+			units = new BigDecimal(abs).setScale(nDecimals, RoundingMode.HALF_EVEN).unscaledValue().longValue();
+		} else {
+			units = Math.round(scaled);
+		}
+		// NumberFormat retains the sign of negative values that are rounded to zero
+		if (value < 0 || (value == 0 && 1.0 / value < 0))
+			sb.append('-');
+		long divisor = LONG_POWERS_OF_TEN[nDecimals];
+		sb.append(units / divisor);
+		long fraction = units % divisor;
+		if (fraction != 0) {
+			int nDigits = nDecimals;
+			while (fraction % 10 == 0) {
+				fraction /= 10;
+				nDigits--;
+			}
+			sb.append('.');
+			String digits = Long.toString(fraction);
+			for (int i = digits.length(); i < nDigits; i++)
+				sb.append('0');
+			sb.append(digits);
+		}
 	}
 	
 }
\ No newline at end of file
@@ -32,6 +32,7 @@ import org.locationtech.jts.index.SpatialIndex;
 import org.locationtech.jts.index.quadtree.Quadtree;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import qupath.lib.common.Metrics;
 import qupath.lib.objects.PathObject;
 import qupath.lib.objects.TemporaryObject;
 import qupath.lib.objects.hierarchy.events.PathObjectHierarchyEvent;
@@ -67,6 +68,11 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 class PathObjectTileCache implements PathObjectHierarchyListener {
 	
 	private static final Logger logger = LoggerFactory.getLogger(PathObjectTileCache.class);
+
+	private static final Metrics.Timer REBUILD_TIMER = Metrics.timer("hierarchy.cache.rebuild");
+	private static final Metrics.Timer QUERY_TIMER = Metrics.timer("hierarchy.cache.query");
+	private static final Metrics.Timer READ_LOCK_TIMER = Metrics.timer("hierarchy.cache.lock.read");
+	private static final Metrics.Timer WRITE_LOCK_TIMER = Metrics.timer("hierarchy.cache.lock.write");
 	
 	/**
 	 * Largest positive envelope, used when all objects are requested.
@@ -111,8 +117,8 @@ class PathObjectTileCache implements PathObjectHierarchyListener {
 //	int cacheCounter = 0;
 
 	private void constructCache(Class<? extends PathObject> limitToClass) {
-		w.lock();
-		try {
+		lock(w, WRITE_LOCK_TIMER);
+		try (var sample = REBUILD_TIMER.start()) {
 	//		logger.info("Skipping cache reconstruction...");
 			long startTime = System.currentTimeMillis();
 			isActive = true;
@@ -130,6 +136,16 @@ class PathObjectTileCache implements PathObjectHierarchyListener {
 //		logger.info("Cache count: " + (cacheCounter)/1000.);
 	}
 	
+	/**
+	 * Acquire a lock, recording the time spent waiting for it.
+	 * Only the duration is recorded (without events), since lock contention is already recorded by Flight Recorder.
+	 */
+	private static void lock(Lock lock, Metrics.Timer timer) {
+		long startTime = System.nanoTime();
+		lock.lock();
+		timer.record(System.nanoTime() - startTime);
+	}
+
 	private void ensureCacheConstructed() {
 		if (!isActive())
 			constructCache(null);
@@ -292,7 +308,8 @@ class PathObjectTileCache implements PathObjectHierarchyListener {
 		
 		int z = region == null ? -1 : region.getZ();
 		int t = region == null ? -1 : region.getT();
-		r.lock();
+		lock(r, READ_LOCK_TIMER);
+		long startTime = System.nanoTime();
 		try {
 			// Iterate through all the classes, getting objects of the specified class or subclasses thereof
 			for (Entry<Class<? extends PathObject>, SpatialIndex> entry : map.entrySet()) {
@@ -323,6 +340,7 @@ class PathObjectTileCache implements PathObjectHierarchyListener {
 			return pathObjects;
 		} finally {
 			r.unlock();
+			QUERY_TIMER.record(System.nanoTime() - startTime);
 		}
 	}
 	
@@ -333,7 +351,8 @@ class PathObjectTileCache implements PathObjectHierarchyListener {
 		
 		int z = region == null ? -1 : region.getZ();
 		int t = region == null ? -1 : region.getT();
-		r.lock();
+		lock(r, READ_LOCK_TIMER);
+		long startTime = System.nanoTime();
 		try {
 			// Iterate through all the classes, getting objects of the specified class or subclasses thereof
 			for (Entry<Class<? extends PathObject>, SpatialIndex> entry : map.entrySet()) {
@@ -358,13 +377,14 @@ class PathObjectTileCache implements PathObjectHierarchyListener {
 			return false;
 		} finally {
 			r.unlock();
+			QUERY_TIMER.record(System.nanoTime() - startTime);
 		}
 	}
 
 
 	@Override
 	public void hierarchyChanged(final PathObjectHierarchyEvent event) {
-		w.lock();
+		lock(w, WRITE_LOCK_TIMER);
 		try {
 			boolean singleChange = event.getChangedObjects().size() == 1;
 			PathObject singleObject = singleChange ? event.getChangedObjects().getFirst() : null;
@@ -25,6 +25,7 @@ package qupath.lib.plugins;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import qupath.lib.common.Metrics;
 import qupath.lib.common.ThreadTools;
 
 import java.util.Collection;
@@ -45,6 +46,10 @@ public abstract class AbstractTaskRunner implements TaskRunner {
 	
 	private static final Logger logger = LoggerFactory.getLogger(AbstractTaskRunner.class);
 
+	private static final Metrics.Timer RUN_TIMER = Metrics.timer("tasks.run");
+	private static final Metrics.Timer TASK_TIMER = Metrics.timer("tasks.task");
+	private static final Metrics.Timer TASK_WAIT_TIMER = Metrics.timer("tasks.wait");
+
 	private static int counter = 0;
 
 	private ExecutorService pool;
@@ -88,6 +93,15 @@ public abstract class AbstractTaskRunner implements TaskRunner {
 		if (tasks.isEmpty())
 			return;
 		
+		var sample = RUN_TIMER.start();
+		try {
+			runTasksImpl(message, tasks);
+		} finally {
+			sample.stop(() -> message + " (" + tasks.size() + " tasks)");
+		}
+	}
+
+	private void runTasksImpl(String message, Collection<? extends Runnable> tasks) {
 		// Reset cancelled status
 		tasksCancelled = false;
 		
@@ -108,7 +122,7 @@ public abstract class AbstractTaskRunner implements TaskRunner {
 				logger.warn("Skipping null task");
 				continue;
 			}
-			Future<Runnable> future = service.submit(task, task);
+			Future<Runnable> future = service.submit(withMetrics(task), task);
 			pendingTasks.put(future, task);
 		}
 		// TODO: See if this needs to be shutdown here, or there's a better way..?
@@ -121,6 +135,20 @@ public abstract class AbstractTaskRunner implements TaskRunner {
 	}
 
 	
+	/**
+	 * Wrap a task to record the time spent waiting for a thread, and the time taken to run it.
+	 */
+	private static Runnable withMetrics(Runnable task) {
+		long submitTime = System.nanoTime();
+		return () -> {
+			TASK_WAIT_TIMER.record(System.nanoTime() - submitTime);
+			try (var sample = TASK_TIMER.start()) {
+				task.run();
+			}
+		};
+	}
+
+	
 	/**
 	 * Await the completion of currently-running tasks, notifying any listener if necessary.
 	 */
@@ -25,10 +25,12 @@ package qupath.lib.plugins;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import qupath.lib.common.ThreadTools;
 import qupath.lib.geom.ImmutableDimension;
 import qupath.lib.images.ImageData;
 import qupath.lib.images.servers.ServerTools;
 import qupath.lib.objects.PathObject;
+import qupath.lib.objects.hierarchy.PathObjectHierarchy;
 import qupath.lib.plugins.parameters.ParameterList;
 import qupath.lib.regions.ImagePlane;
 import qupath.lib.roi.ROIs;
@@ -37,7 +39,9 @@ import qupath.lib.roi.interfaces.ROI;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
 
@@ -57,6 +61,65 @@ public abstract class AbstractTileableDetectionPlugin<T> extends AbstractDetecti
 
 	private static int PREFERRED_TILE_SIZE = 2048;
 	private static int MAX_TILE_SIZE = 3072;
+	
+	private static boolean streamingDefault = "true".equalsIgnoreCase(System.getProperty("qupath.detection.streaming", "false"));
+	
+	/**
+	 * Set whether the results of tiled detection should be added to the parent object as soon as 
+	 * each tile (and its neighbors) are complete, rather than only after all tiles have been processed.
+	 * <p>
+	 * Streaming results can reduce memory use and make it possible to view results progressively when 
+	 * detecting objects across large regions.
+	 * The initial value is false, unless the system property {@code qupath.detection.streaming} is "true".
+	 * 
+	 * @param streaming
+	 * @since v0.8.0
+	 * @see #streamTileResults(ImageData, ParameterList)
+	 */
+	public static void setStreamingDefault(boolean streaming) {
+		streamingDefault = streaming;
+	}
+	
+	/**
+	 * Query whether the results of tiled detection should be streamed by default.
+	 * @return
+	 * @since v0.8.0
+	 * @see #setStreamingDefault(boolean)
+	 */
+	public static boolean isStreamingDefault() {
+		return streamingDefault;
+	}
+	
+	private static int maxStreamingTiles = Integer.getInteger("qupath.detection.streaming.maxTiles", 0);
+	
+	/**
+	 * Set the maximum number of tiles that may be processed without their results being added to the parent 
+	 * object, when streaming results.
+	 * This limits how many detections are held in memory; the limit may be exceeded if this is 
+	 * necessary for processing to continue.
+	 * <p>
+	 * The initial value is given by the system property {@code qupath.detection.streaming.maxTiles}.
+	 * 
+	 * @param maxTiles the maximum number of tiles, or 0 to select this automatically
+	 * @since v0.8.0
+	 * @see #setStreamingDefault(boolean)
+	 */
+	public static void setMaxStreamingTiles(int maxTiles) {
+		maxStreamingTiles = Math.max(0, maxTiles);
+	}
+	
+	/**
+	 * Get the maximum number of tiles that may be processed without their results being added to the parent 
+	 * object, when streaming results.
+	 * @return
+	 * @since v0.8.0
+	 * @see #setMaxStreamingTiles(int)
+	 */
+	public static int getMaxStreamingTiles() {
+		if (maxStreamingTiles > 0)
+			return maxStreamingTiles;
+		return Math.max(16, ThreadTools.getParallelism() * 4);
+	}
 
 	/**
 	 * Get the preferred pixel size that would be used for the specified ImageData and ParameterList.
@@ -96,6 +159,21 @@ public abstract class AbstractTileableDetectionPlugin<T> extends AbstractDetecti
 	 * @return The overlap size in pixels, or 0 if overlapped tiles are not supported.
 	 */
 	protected abstract int getTileOverlap(final ImageData<T> imageData, final ParameterList params);
+	
+	/**
+	 * Query whether the results for each tile should be added to the parent object as soon as overlaps 
+	 * with all neighboring tiles have been resolved, rather than after all tiles have been processed.
+	 * <p>
+	 * The default implementation returns {@link #isStreamingDefault()}.
+	 * 
+	 * @param imageData
+	 * @param params
+	 * @return true if tile results should be streamed
+	 * @since v0.8.0
+	 */
+	protected boolean streamTileResults(final ImageData<T> imageData, final ParameterList params) {
+		return isStreamingDefault();
+	}
 
 	
 	/**
@@ -153,12 +231,12 @@ public abstract class AbstractTileableDetectionPlugin<T> extends AbstractDetecti
 //			return;
 //		}
 		
-		ParallelDetectionTileManager manager = new ParallelDetectionTileManager(parentObject); 
+		ParallelDetectionTileManager manager = new ParallelDetectionTileManager(
+				parentObject, imageData.getHierarchy(), streamTileResults(imageData, params)); 
 		
 		List<ParallelTileObject> tileList = new ArrayList<>();
-		AtomicInteger countdown = new AtomicInteger(pathROIs.size());
 		for (ROI pathROI : pathROIs) {
-			ParallelTileObject tile = new ParallelTileObject(manager, pathROI, imageData.getHierarchy(), countdown);
+			ParallelTileObject tile = new ParallelTileObject(manager, pathROI);
 			parentObject.addChildObject(tile);
 			for (ParallelTileObject tileTemp : tileList) {
 				if (tileTemp.suggestNeighbor(tile))
@@ -173,42 +251,200 @@ public abstract class AbstractTileableDetectionPlugin<T> extends AbstractDetecti
 	}
 	
 	
+	/**
+	 * Manage the tiles used to detect objects within a parent, and add the detected objects to the parent 
+	 * when processing is complete.
+	 * <p>
+	 * In streaming mode, the objects detected for each tile are added to the parent as soon as any overlaps with 
+	 * neighboring tiles have been resolved. Otherwise, all objects are added after the last tile is complete.
+	 * <p>
+	 * When streaming, the number of tiles that have been started but not committed is limited, to bound the 
+	 * number of detections held in memory. Tiles that are needed to commit others may always start, 
+	 * as may any tile if no others are being processed - so that processing can't stall.
+	 */
 	static class ParallelDetectionTileManager {
 		
 		private PathObject parent;
+		private PathObjectHierarchy hierarchy;
 		private List<PathObject> originalChildObjects;
+		private boolean streaming;
+		private int maxUncommittedTiles;
 		
 		private boolean wasCancelled = false;
+		private boolean isFinished = false;
 		
 		private AtomicInteger countdown;
 		private List<ParallelTileObject> tiles = new ArrayList<>();
+		private Set<ParallelTileObject> committedTiles = new HashSet<>();
+		private Set<ParallelTileObject> uncommittedTiles = new HashSet<>();
+		private Set<ParallelTileObject> processingTiles = new HashSet<>();
 		
 		ParallelDetectionTileManager(PathObject parent) {
+			this(parent, null, false);
+		}
+		
+		ParallelDetectionTileManager(PathObject parent, PathObjectHierarchy hierarchy, boolean streaming) {
+			this(parent, hierarchy, streaming, getMaxStreamingTiles());
+		}
+		
+		ParallelDetectionTileManager(PathObject parent, PathObjectHierarchy hierarchy, boolean streaming, int maxUncommittedTiles) {
 			this.parent = parent;
+			this.hierarchy = hierarchy;
+			this.streaming = streaming;
+			this.maxUncommittedTiles = Math.max(1, maxUncommittedTiles);
 			this.originalChildObjects = new ArrayList<>(parent.getChildObjects());
 		}
 		
-		public void setTiles(Collection<ParallelTileObject> tiles) {
+		public synchronized void setTiles(Collection<ParallelTileObject> tiles) {
 			this.tiles = new ArrayList<>(tiles);
 			countdown = new AtomicInteger(tiles.size());
 			this.parent.removeAllChildObjects();
 			this.parent.addChildObjects(tiles);
 		}
 		
-		public void tileComplete(PathObject tile, boolean wasCancelled) {
-			if (wasCancelled)
-				this.wasCancelled = true;
-			int remaining = countdown.decrementAndGet();
-			if (remaining == 0)
-				postprocess();
+		public boolean isStreaming() {
+			return streaming;
+		}
+		
+		/**
+		 * Notify the manager that processing is about to start for a tile, waiting if there are already 
+		 * too many uncommitted tiles.
+		 */
+		synchronized void tileStarting(ParallelTileObject tile) throws InterruptedException {
+			if (!streaming)
+				return;
+			while (!wasCancelled && !processingTiles.isEmpty() && uncommittedTiles.size() >= maxUncommittedTiles 
+					&& !isNeededToCommit(tile)) {
+				wait();
+			}
+			processingTiles.add(tile);
+			uncommittedTiles.add(tile);
+		}
+		
+		/**
+		 * Check if a tile needs to be processed before any of the uncommitted tiles can be committed.
+		 */
+		private boolean isNeededToCommit(ParallelTileObject tile) {
+			for (var temp : uncommittedTiles) {
+				if (temp.hasUnresolvedNeighbor(tile))
+					return true;
+			}
+			return false;
+		}
+		
+		/**
+		 * Get the number of tiles that have been started, but whose objects haven't yet been added to the parent.
+		 * This is only relevant when streaming.
+		 */
+		synchronized int getUncommittedTileCount() {
+			return uncommittedTiles.size();
+		}
+		
+		public void tileComplete(ParallelTileObject tile, boolean wasCancelled) {
+			boolean changed = false;
+			synchronized (this) {
+				processingTiles.remove(tile);
+				if (wasCancelled)
+					this.wasCancelled = true;
+				if (streaming && !this.wasCancelled)
+					changed = resolveAndCommit(tile);
+				int remaining = countdown.decrementAndGet();
+				if (remaining == 0)
+					postprocess();
+				notifyAll();
+			}
+			// Fire events without holding the lock, since listeners might do anything
+			if (changed && hierarchy != null)
+				hierarchy.fireHierarchyChangedEvent(this, parent);
+		}
+		
+		/**
+		 * Notify the manager that processing was cancelled, after a streaming tile has already been completed.
+		 */
+		public void tileCancelled() {
+			synchronized (this) {
+				if (wasCancelled)
+					return;
+				wasCancelled = true;
+				notifyAll();
+				// If we haven't finished, the original objects will be restored in postprocess
+				if (!isFinished)
+					return;
+				restoreOriginalObjects();
+			}
+			if (hierarchy != null)
+				hierarchy.fireHierarchyChangedEvent(this, parent);
+		}
+		
+		/**
+		 * Resolve overlaps between a tile and any completed neighbors, then add the objects for any 
+		 * tiles that no longer have unresolved neighbors to the parent.
+		 * @return true if objects were added to the parent
+		 */
+		private boolean resolveAndCommit(ParallelTileObject tile) {
+			// Hold the hierarchy lock while changing objects, since other threads may be accessing the hierarchy
+			synchronized (getHierarchyLock()) {
+				var candidates = tile.getUnresolvedNeighbors();
+				candidates.add(tile);
+				tile.resolveOverlaps();
+				
+				List<ParallelTileObject> toCommit = new ArrayList<>();
+				for (var candidate : candidates) {
+					if (candidate.isComplete() && candidate.checkAllTestsComplete() && !committedTiles.contains(candidate))
+						toCommit.add(candidate);
+				}
+				if (toCommit.isEmpty())
+					return false;
+				
+				for (var temp : toCommit) {
+					var childObjects = temp.getChildObjects();
+					parent.removeChildObject(temp);
+					parent.addChildObjects(childObjects);
+					committedTiles.add(temp);
+					uncommittedTiles.remove(temp);
+				}
+				logger.debug("Committed objects for {} tile(s)", toCommit.size());
+				return true;
+			}
+		}
+		
+		/**
+		 * Get the object to synchronize on when changing objects that may be in the hierarchy.
+		 */
+		Object getHierarchyLock() {
+			return hierarchy == null ? parent : hierarchy;
+		}
+		
+		private void restoreOriginalObjects() {
+			synchronized (getHierarchyLock()) {
+				parent.removeAllChildObjects();
+				parent.addChildObjects(originalChildObjects);
+			}
 		}
 		
 		private void postprocess() {
-			parent.removeAllChildObjects();
+			isFinished = true;
 			if (wasCancelled) {
 				// If anything was cancelled, then replace the original objects
-				parent.addChildObjects(originalChildObjects);
+				restoreOriginalObjects();
+			} else if (streaming) {
+				// Commit anything that remains (we don't expect this to be necessary)
+				synchronized (getHierarchyLock()) {
+					for (var tile : tiles) {
+						if (!committedTiles.contains(tile)) {
+							tile.resolveOverlaps();
+							var childObjects = tile.getChildObjects();
+							parent.removeChildObject(tile);
+							parent.addChildObjects(childObjects);
+							committedTiles.add(tile);
+						}
+					}
+					uncommittedTiles.clear();
+					if (parent.hasChildObjects())
+						parent.setLocked(true);
+				}
 			} else {
+				parent.removeAllChildObjects();
 				// Add the objects from all the children
 				for (var tile : tiles) {
 					tile.resolveOverlaps();
@@ -223,4 +459,4 @@ public abstract class AbstractTileableDetectionPlugin<T> extends AbstractDetecti
 	}
 	
 	
-}
\ No newline at end of file
+}
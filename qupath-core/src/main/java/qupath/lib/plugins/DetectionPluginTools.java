@@ -77,8 +77,8 @@ public class DetectionPluginTools {
 		private PathObject parentObject;
 		private ROI roi;
 		private ImageData<T> imageData;
-		private String result;
-		private Collection<PathObject> pathObjectsDetected;
+		private volatile String result;
+		private volatile Collection<PathObject> pathObjectsDetected;
 
 		public DetectionRunnable(final ObjectDetector<T> detector, final ParameterList params, final ImageData<T> imageData, final PathObject parentObject) {
 			this.detector = detector;
@@ -101,15 +101,27 @@ public class DetectionPluginTools {
 
 		@Override
 		public void run() {
+			// Use local variables, since taskComplete may be called while this is still running if the task is cancelled
+			var detector = this.detector;
+			var parentObject = this.parentObject;
+			var imageData = this.imageData;
+			var roi = this.roi;
+			if (parentObject == null)
+				return;
+			Collection<PathObject> detected = null;
+			boolean interrupted = false;
 			try {
 				long startTime = System.currentTimeMillis();
-				if (parentObject instanceof ParallelTileObject) {
-					((ParallelTileObject) parentObject).updateStatus(Status.PROCESSING);
+				if (parentObject instanceof ParallelTileObject tile) {
+					// Streaming tiles may need to wait, so that we don't have too many uncommitted tiles
+					tile.awaitProcessing();
+					tile.updateStatus(Status.PROCESSING);
 					imageData.getHierarchy().fireObjectClassificationsChangedEvent(this, Collections.singleton(parentObject));
 				}
 				if (checkROI()) {
 					try {
-						pathObjectsDetected = detector.runDetection(imageData, params, roi);
+						detected = detector.runDetection(imageData, params, roi);
+						pathObjectsDetected = detected;
 					} catch (IOException e) {
 						logger.error("Error processing " + roi, e);
 					}
@@ -122,10 +134,23 @@ public class DetectionPluginTools {
 				} else {
 					logger.info("Cannot run detection using ROI {}", roi);
 				}
+			} catch (InterruptedException e) {
+				logger.debug("Detection interrupted for {}", parentObject);
+				interrupted = true;
+				Thread.currentThread().interrupt();
 			} finally {
-				if (parentObject instanceof ParallelTileObject) {
-					((ParallelTileObject) parentObject).updateStatus(Status.DONE);
-					imageData.getHierarchy().fireObjectClassificationsChangedEvent(this, Collections.singleton(parentObject));
+				if (parentObject instanceof ParallelTileObject tile) {
+					if (tile.isStreaming()) {
+						// Hand over the results immediately, so they can be added to the parent without 
+						// waiting for all other tasks to finish
+						if (tile.complete(detected == null ? Collections.emptyList() : detected, interrupted)) {
+							pathObjectsDetected = null;
+							imageData.getHierarchy().fireObjectClassificationsChangedEvent(this, Collections.singleton(parentObject));
+						}
+					} else {
+						tile.updateStatus(Status.DONE);
+						imageData.getHierarchy().fireObjectClassificationsChangedEvent(this, Collections.singleton(parentObject));
+					}
 				}				
 			}
 		}
@@ -145,11 +170,11 @@ public class DetectionPluginTools {
 				return;
 			
 			try {
-//				// Tile objects handle their own completion
-				if (parentObject instanceof ParallelTileObject) {
-					parentObject.removeAllChildObjects();
-					parentObject.addChildObjects(pathObjectsDetected);
-					((ParallelTileObject)parentObject).setComplete(wasCancelled);
+				if (parentObject instanceof ParallelTileObject tile) {
+					// Tiles may have been completed already when streaming - in which case, we only need to 
+					// notify if the results should be reverted
+					if (!tile.complete(pathObjectsDetected, wasCancelled) && wasCancelled)
+						tile.setCancelled();
 				} else {
 					if (!wasCancelled) {
 						parentObject.removeAllChildObjects();
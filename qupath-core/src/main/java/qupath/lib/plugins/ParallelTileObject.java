@@ -30,17 +30,16 @@ import qupath.lib.common.ColorTools;
 import qupath.lib.objects.DefaultPathObjectComparator;
 import qupath.lib.objects.PathObject;
 import qupath.lib.objects.PathObjectTools;
-import qupath.lib.objects.PathROIObject;
 import qupath.lib.objects.PathTileObject;
 import qupath.lib.objects.TemporaryObject;
 import qupath.lib.objects.classes.PathClass;
-import qupath.lib.objects.hierarchy.PathObjectHierarchy;
 import qupath.lib.plugins.AbstractTileableDetectionPlugin.ParallelDetectionTileManager;
 import qupath.lib.regions.ImageRegion;
 import qupath.lib.roi.interfaces.ROI;
 
 import java.awt.geom.Rectangle2D;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -49,7 +48,6 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.TreeMap;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * A temporary object, used during parallel processing to represent a tile currently being used for object
@@ -93,20 +91,18 @@ public class ParallelTileObject extends PathTileObject implements TemporaryObjec
 
 	private ParallelDetectionTileManager manager;
 	
-	AtomicInteger countdown;
 	Rectangle2D bounds;
-	PathObjectHierarchy hierarchy;
 	Map<ParallelTileObject, Rectangle2D> map = new TreeMap<>(DefaultPathObjectComparator.getInstance());
 
 	private Status status = Status.PENDING;
 	
-	ParallelTileObject(final ParallelDetectionTileManager manager, final ROI pathROI, final PathObjectHierarchy hierarchy, final AtomicInteger countdown) {
+	private boolean completed = false;
+	
+	ParallelTileObject(final ParallelDetectionTileManager manager, final ROI pathROI) {
 		super(pathROI);
 		this.manager = manager;
 		setPathClass(pathClassPending);
 		this.bounds = getBounds2D(pathROI);
-		this.hierarchy = hierarchy;
-		this.countdown = countdown;
 		setColor(ColorTools.packRGB(128, 128, 128));
 	}
 
@@ -183,10 +179,80 @@ public class ParallelTileObject extends PathTileObject implements TemporaryObjec
 	 * detections made in adjacent tiles can be resolved.
 	 * @param wasCancelled 
 	 */
-	public synchronized void setComplete(boolean wasCancelled) {
-		// Flag that the processing is complete
+	public void setComplete(boolean wasCancelled) {
+		complete(null, wasCancelled);
+	}
+	
+	/**
+	 * Set the detected objects and notify the manager that processing is done, unless this has already happened.
+	 * This may be called from different threads if a task is cancelled, but the tile will only be completed once.
+	 * @param detections the detected objects to replace the child objects, or null if the child objects should be retained
+	 * @param wasCancelled
+	 * @return true if the tile was completed by this call, false if it had already been completed
+	 */
+	boolean complete(Collection<? extends PathObject> detections, boolean wasCancelled) {
+		synchronized (this) {
+			if (completed)
+				return false;
+			completed = true;
+		}
+		// Note that we shouldn't hold the lock for this tile while changing objects in the hierarchy 
+		// or notifying the manager, since the manager may need to access neighboring tiles
+		if (detections != null) {
+			synchronized (manager.getHierarchyLock()) {
+				removeAllChildObjects();
+				addChildObjects(detections);
+			}
+		}
 		updateStatus(Status.DONE);
 		manager.tileComplete(this, wasCancelled);
+		return true;
+	}
+	
+	/**
+	 * Wait until the manager permits processing of this tile to start.
+	 * This is used to limit the number of uncommitted tiles when streaming.
+	 * @throws InterruptedException
+	 */
+	void awaitProcessing() throws InterruptedException {
+		manager.tileStarting(this);
+	}
+	
+	/**
+	 * Query whether the results for this tile should be committed to the parent as soon as 
+	 * overlaps with all neighboring tiles have been resolved, rather than after all tiles are complete.
+	 * @return
+	 * @since v0.8.0
+	 */
+	public boolean isStreaming() {
+		return manager.isStreaming();
+	}
+	
+	/**
+	 * Notify the tile that processing was cancelled, after its results have already been passed 
+	 * to {@link #setComplete(boolean)}. This is only relevant for streaming tiles.
+	 * @see #isStreaming()
+	 * @since v0.8.0
+	 */
+	public void setCancelled() {
+		manager.tileCancelled();
+	}
+	
+	/**
+	 * Get the neighboring tiles with which overlaps still need to be resolved.
+	 * @return
+	 */
+	synchronized List<ParallelTileObject> getUnresolvedNeighbors() {
+		return new ArrayList<>(map.keySet());
+	}
+	
+	/**
+	 * Query whether overlaps with the specified tile still need to be resolved.
+	 * @param tile
+	 * @return
+	 */
+	synchronized boolean hasUnresolvedNeighbor(ParallelTileObject tile) {
+		return map.containsKey(tile);
 	}
 	
 	
@@ -314,8 +380,6 @@ public class ParallelTileObject extends PathTileObject implements TemporaryObjec
 
 	}
 
-	checkAllTestsComplete();
-
 	long endTime = System.currentTimeMillis();
 	logger.debug(String.format("Resolved %d overlaps: %.2f seconds", nRemoved, (endTime - startTime) / 1000.));
 	//			logger.info(String.format("Resolved %d possible overlaps with %d iterations (tested %d of %d): %.2f seconds", nOverlaps, counter, detectedCounter-skipCounter, detectedCounter, (endTime2 - startTime2) / 1000.));
@@ -341,40 +405,18 @@ public class ParallelTileObject extends PathTileObject implements TemporaryObjec
 
 
 
-	boolean checkAllTestsComplete() {
-//		return true;
-		if (map.isEmpty() && getParent() != null) {
-			if (countdown == null) {
-				hierarchy.removeObject(this, true);
-			} else if (countdown.decrementAndGet() == 0) {
-				PathObject parent = getParent();
-				List<PathObject> parallelObjects = new ArrayList<>();
-				for (PathObject temp : parent.getChildObjectsAsArray()) {
-					if (temp instanceof ParallelTileObject) {
-						parallelObjects.add(temp);
-					}
-				}
-				parent.removeChildObjects(parallelObjects);
-				for (PathObject temp : parallelObjects)
-					parent.addChildObjects(temp.getChildObjects());
-
-				if (parent.hasChildObjects() && parent instanceof PathROIObject)
-					((PathROIObject)parent).setLocked(true);
-
-				hierarchy.fireHierarchyChangedEvent(parent);
-			}
-			return true;
-			//				getParent().removePathObject(this);
-			//				getParent().addPathObjects(getPathObjectList());
-		}
-		return false;
+	/**
+	 * Check whether overlaps have been resolved with all neighboring tiles.
+	 * @return
+	 */
+	synchronized boolean checkAllTestsComplete() {
+		return map.isEmpty();
 	}
 
 
-	void notifyTestComplete(final ParallelTileObject pto) {
+	synchronized void notifyTestComplete(final ParallelTileObject pto) {
 		if (isComplete()) {
 			map.remove(pto);
-			checkAllTestsComplete();
 		}
 	}
 
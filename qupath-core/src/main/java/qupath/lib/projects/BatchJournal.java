@@ -0,0 +1,417 @@
+/*-
+ * #%L
+ * This file is part of QuPath.
+ * %%
+ * Copyright (C) 2026 QuPath developers, The University of Edinburgh
+ * %%
+ * QuPath is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * QuPath is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with QuPath.  If not, see <https://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package qupath.lib.projects;
+
+import com.google.gson.JsonParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import qupath.lib.io.GsonTools;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Journal to record the result of running a batch process (usually a script) for each image in a project.
+ * <p>
+ * Records are appended to a file in the project directory as soon as each image has been processed,
+ * so that a batch that is interrupted (e.g. by a crash or running out of memory) can be resumed by skipping
+ * images that were already completed.
+ * <p>
+ * Each record contains a key that identifies the batch process (e.g. a hash of the script and its arguments),
+ * along with a hash of the image data file after processing.
+ * An image is only considered to be completed if its data hasn't changed since it was processed with the same key.
+ * <p>
+ * The journal only stores records for the most recent batch process: when it is opened, records with a different key
+ * and records replaced by a later one for the same entry are removed.
+ * This keeps the file to around one record per image, however many batches are run.
+ *
+ * @author Pete Bankhead
+ * @since v0.8.0
+ */
+public class BatchJournal implements Closeable {
+
+	private static final Logger logger = LoggerFactory.getLogger(BatchJournal.class);
+
+	/**
+	 * Default name of the journal file, within the project directory.
+	 */
+	public static final String DEFAULT_FILENAME = "batch-journal.jsonl";
+
+	/**
+	 * Interval between checks of memory use, in milliseconds.
+	 */
+	private static final long MEMORY_SAMPLE_INTERVAL_MS = 250;
+
+	/**
+	 * Status of a processed image.
+	 */
+	public enum Status {
+		/**
+		 * The image was processed successfully.
+		 */
+		COMPLETED,
+		/**
+		 * Processing failed with an exception.
+		 */
+		FAILED
+	}
+
+	/**
+	 * Record for a single image in the journal.
+	 * @param key the key identifying the batch process
+	 * @param entryID the ID of the project entry
+	 * @param imageName the name of the image
+	 * @param status the status after processing
+	 * @param startTime the time processing started, as an ISO-8601 string
+	 * @param durationMillis the time taken to process the image, in milliseconds
+	 * @param peakMemoryBytes the peak heap memory used by QuPath while processing the image (including by any
+	 *                        other images processed in parallel)
+	 * @param error the error message, or null if the status is not {@link Status#FAILED}
+	 * @param dataHash hash of the image data file after processing, or null if no file is available
+	 */
+	public record Record(String key, String entryID, String imageName, Status status, String startTime,
+						 long durationMillis, long peakMemoryBytes, String error, String dataHash) {}
+
+	private final Path path;
+	private final String key;
+	private final BufferedWriter writer;
+
+	private final Map<String, Record> latestRecords = new LinkedHashMap<>();
+
+	private final Set<Recording> activeRecordings = ConcurrentHashMap.newKeySet();
+	private final ScheduledExecutorService memorySampler;
+
+	private BatchJournal(Path path, String key) throws IOException {
+		this.path = path;
+		this.key = key;
+		if (Files.isRegularFile(path)) {
+			int nLines = 0;
+			try (Stream<String> lines = Files.lines(path, StandardCharsets.UTF_8)) {
+				var gson = GsonTools.getInstance();
+				for (var line : (Iterable<String>)lines::iterator) {
+					if (line.isBlank())
+						continue;
+					nLines++;
+					try {
+						var record = gson.fromJson(line, Record.class);
+						if (record != null && record.entryID() != null && key.equals(record.key()))
+							latestRecords.put(record.entryID(), record);
+					} catch (JsonParseException e) {
+						// The last line may be incomplete if QuPath crashed while writing it
+						logger.warn("Unable to parse journal record: {}", line);
+					}
+				}
+			}
+			if (nLines > latestRecords.size())
+				compact(path, latestRecords.values());
+		}
+		this.writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		// Ensure any incomplete record is terminated, so that it doesn't affect the next one
+		if (!endsWithNewline(path)) {
+			writer.newLine();
+			writer.flush();
+		}
+		this.memorySampler = Executors.newSingleThreadScheduledExecutor(r -> {
+			var thread = new Thread(r, "qupath-batch-journal");
+			thread.setDaemon(true);
+			return thread;
+		});
+		memorySampler.scheduleAtFixedRate(this::sampleMemory, MEMORY_SAMPLE_INTERVAL_MS, MEMORY_SAMPLE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Open the journal for a project, using the default file within the project directory.
+	 * @param project the project
+	 * @param key the key identifying the batch process
+	 * @return the journal
+	 * @throws IOException if the journal could not be read or created, or the project has no local directory
+	 * @see #createKey(String...)
+	 */
+	public static BatchJournal open(Project<?> project, String key) throws IOException {
+		var dir = Projects.getBaseDirectory(project);
+		if (dir == null)
+			throw new IOException("Unable to find a directory for project " + project);
+		return open(dir.toPath().resolve(DEFAULT_FILENAME), key);
+	}
+
+	/**
+	 * Open a journal file, which will be created if it does not already exist.
+	 * Any records for a different batch process are removed from the file.
+	 * @param path the path to the journal file
+	 * @param key the key identifying the batch process
+	 * @return the journal
+	 * @throws IOException if the journal could not be read or created
+	 * @see #createKey(String...)
+	 */
+	public static BatchJournal open(Path path, String key) throws IOException {
+		return new BatchJournal(path, key);
+	}
+
+	/**
+	 * Create a key to identify a batch process, by hashing its defining values (e.g. a script and its arguments).
+	 * @param values the values that define the batch process
+	 * @return a hex-encoded SHA-256 hash
+	 */
+	public static String createKey(String... values) {
+		var digest = createDigest();
+		for (var value : values) {
+			digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+			digest.update((byte)0);
+		}
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	/**
+	 * Get the path to the journal file.
+	 * @return the path
+	 */
+	public Path getPath() {
+		return path;
+	}
+
+	/**
+	 * Get the most recent records for this batch process, for all entries that have been processed.
+	 * This includes records written before the journal was opened.
+	 * @return a map of entry IDs to the most recent record
+	 */
+	public synchronized Map<String, Record> getLatestRecords() {
+		return Collections.unmodifiableMap(new LinkedHashMap<>(latestRecords));
+	}
+
+	/**
+	 * Query whether an entry has already been processed successfully, and its data hasn't changed since.
+	 * @param entry the project entry
+	 * @return true if the entry can be skipped when resuming the batch, false otherwise
+	 * @throws IOException if the data file could not be read
+	 */
+	public boolean isCompleted(ProjectImageEntry<?> entry) throws IOException {
+		Record record;
+		synchronized (this) {
+			record = latestRecords.get(entry.getID());
+		}
+		if (record == null || record.status() != Status.COMPLETED)
+			return false;
+		var dataHash = computeDataHash(entry);
+		return dataHash == null ? record.dataHash() == null : dataHash.equals(record.dataHash());
+	}
+
+	/**
+	 * Start recording the processing of an entry.
+	 * One of {@link Recording#completed()} or {@link Recording#failed(Throwable)} should be called when
+	 * processing is finished, to write the record to the journal.
+	 * @param entry the project entry
+	 * @return the recording
+	 */
+	public Recording start(ProjectImageEntry<?> entry) {
+		var recording = new Recording(entry);
+		activeRecordings.add(recording);
+		return recording;
+	}
+
+	/**
+	 * Replace the journal file with one containing only the specified records.
+	 * This is written via a temp file, so that the existing records aren't lost if writing fails.
+	 */
+	private static void compact(Path path, Collection<Record> records) throws IOException {
+		logger.debug("Compacting batch journal {} to {} record(s)", path, records.size());
+		var temp = Files.createTempFile(path.toAbsolutePath().getParent(), "batch-journal-", ".tmp");
+		try {
+			try (var tempWriter = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+				var gson = GsonTools.getInstance();
+				for (var record : records) {
+					tempWriter.write(gson.toJson(record));
+					tempWriter.newLine();
+				}
+			}
+			try {
+				Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	private static boolean endsWithNewline(Path path) throws IOException {
+		try (var channel = Files.newByteChannel(path)) {
+			long size = channel.size();
+			if (size == 0)
+				return true;
+			var buffer = ByteBuffer.allocate(1);
+			channel.position(size - 1);
+			channel.read(buffer);
+			return buffer.get(0) == '\n';
+		}
+	}
+
+	private synchronized void write(Record record) throws IOException {
+		latestRecords.put(record.entryID(), record);
+		writer.write(GsonTools.getInstance().toJson(record));
+		writer.newLine();
+		writer.flush();
+	}
+
+	private void sampleMemory() {
+		if (activeRecordings.isEmpty())
+			return;
+		long used = getUsedMemory();
+		for (var recording : activeRecordings)
+			recording.peakMemory.accumulateAndGet(used, Math::max);
+	}
+
+	private static long getUsedMemory() {
+		var rt = Runtime.getRuntime();
+		return rt.totalMemory() - rt.freeMemory();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		memorySampler.shutdownNow();
+		writer.close();
+	}
+
+	/**
+	 * Compute a hash of the data files for a project entry.
+	 * If the entry path is a directory, this uses all the {@code .qpdata} files it contains.
+	 * @param entry the project entry
+	 * @return a hex-encoded SHA-256 hash, or null if the entry has no data files
+	 * @throws IOException if the data files could not be read
+	 */
+	static String computeDataHash(ProjectImageEntry<?> entry) throws IOException {
+		var entryPath = entry.getEntryPath();
+		if (entryPath == null)
+			return null;
+		List<Path> files;
+		if (Files.isDirectory(entryPath)) {
+			try (var stream = Files.list(entryPath)) {
+				files = stream
+						.filter(p -> Files.isRegularFile(p) && p.getFileName().toString().endsWith(".qpdata"))
+						.sorted()
+						.toList();
+			}
+		} else if (Files.isRegularFile(entryPath)) {
+			files = List.of(entryPath);
+		} else {
+			return null;
+		}
+		if (files.isEmpty())
+			return null;
+		var digest = createDigest();
+		var buffer = new byte[64 * 1024];
+		for (var file : files) {
+			try (InputStream stream = new DigestInputStream(Files.newInputStream(file), digest)) {
+				while (stream.read(buffer) >= 0) {
+					// Digest is updated while reading
+				}
+			}
+		}
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	private static MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// All Java implementations are required to support SHA-256
+			throw new RuntimeException(e);
+		}
+	}
+
+
+	/**
+	 * Recording of the processing for a single entry.
+	 */
+	public class Recording {
+
+		private final ProjectImageEntry<?> entry;
+		private final Instant startTime = Instant.now();
+		private final long startNanos = System.nanoTime();
+		private final AtomicLong peakMemory = new AtomicLong(getUsedMemory());
+
+		private Recording(ProjectImageEntry<?> entry) {
+			this.entry = entry;
+		}
+
+		/**
+		 * Record that the entry was processed successfully.
+		 * This should be called after any changes to the image data have been saved.
+		 * @throws IOException if the record could not be written
+		 */
+		public void completed() throws IOException {
+			finish(Status.COMPLETED, null);
+		}
+
+		/**
+		 * Record that processing failed.
+		 * @param t the reason for the failure
+		 * @throws IOException if the record could not be written
+		 */
+		public void failed(Throwable t) throws IOException {
+			finish(Status.FAILED, t == null ? null : t.getLocalizedMessage() == null ? t.getClass().getName() : t.getLocalizedMessage());
+		}
+
+		private void finish(Status status, String error) throws IOException {
+			activeRecordings.remove(this);
+			peakMemory.accumulateAndGet(getUsedMemory(), Math::max);
+			var record = new Record(
+					key,
+					entry.getID(),
+					entry.getImageName(),
+					status,
+					startTime.toString(),
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos),
+					peakMemory.get(),
+					error,
+					computeDataHash(entry));
+			write(record);
+		}
+
+	}
+
+}
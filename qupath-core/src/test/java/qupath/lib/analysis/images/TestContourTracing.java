@@ -22,6 +22,7 @@
 
 package qupath.lib.analysis.images;
 
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -124,6 +125,28 @@ public class TestContourTracing {
 		logger.debug("Contours traced for {} in {} ms", path.getFileName().toString(), time);
 	}
 
+	@Test
+	void testCreateGeometriesWithMaxLabel() {
+		float[] labels = {
+				1, 1, 0, 2,
+				1, 1, 0, 2,
+				0, 0, 0, 0,
+				3, 0, 0, 0
+		};
+		var image = SimpleImages.createFloatImage(labels, 4, 4);
+		// Result should be the same whether the max label is specified or found from the image
+		for (int maxLabel : new int[] {3, -1}) {
+			var map = ContourTracing.createGeometries(image, null, 1, maxLabel);
+			assertEquals(3, map.size());
+			assertEquals(4, map.get(1).getArea(), 1e-6);
+			assertEquals(2, map.get(2).getArea(), 1e-6);
+			assertEquals(1, map.get(3).getArea(), 1e-6);
+		}
+		// Labels above the max label should be excluded
+		assertEquals(2, ContourTracing.createGeometries(image, null, 1, 2).size());
+		assertEquals(0, ContourTracing.createGeometries(image, null, 4, 5).size());
+	}
+
 		
 	static void testImage(BufferedImage img) throws Exception {
 		
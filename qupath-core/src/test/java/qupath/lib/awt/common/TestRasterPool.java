@@ -0,0 +1,125 @@
+/*-
+ * #%L
+ * This file is part of QuPath.
+ * %%
+ * Copyright (C) 2026 QuPath developers, The University of Edinburgh
+ * %%
+ * QuPath is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * QuPath is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with QuPath.  If not, see <https://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package qupath.lib.awt.common;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.awt.image.BandedSampleModel;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+@SuppressWarnings("javadoc")
+public class TestRasterPool {
+
+	private final boolean wasEnabled = RasterPool.isEnabled();
+
+	@AfterEach
+	public void resetPool() {
+		RasterPool.clear();
+		RasterPool.setEnabled(wasEnabled);
+	}
+
+	@Test
+	public void testReuseWhenEnabled() {
+		RasterPool.setEnabled(true);
+		int[] array = RasterPool.borrowInts(100);
+		array[10] = 5;
+		RasterPool.release(array);
+		int[] array2 = RasterPool.borrowInts(100);
+		assertSame(array, array2);
+		// Borrowed arrays should always be zeroed
+		assertArrayEquals(new int[100], array2);
+		// Different lengths should be different arrays
+		RasterPool.release(array2);
+		assertNotSame(array2, RasterPool.borrowInts(101));
+	}
+
+	@Test
+	public void testNoReuseWhenDisabled() {
+		RasterPool.setEnabled(false);
+		int[] array = RasterPool.borrowInts(100);
+		RasterPool.release(array);
+		assertNotSame(array, RasterPool.borrowInts(100));
+	}
+
+	@Test
+	public void testSharedPool() {
+		RasterPool.setEnabled(true);
+		RasterPool.setMaxPoolBytes(1024L * 1024L);
+		// Release more arrays than can be retained locally
+		float[][] arrays = new float[10][];
+		for (int i = 0; i < arrays.length; i++)
+			arrays[i] = RasterPool.borrowFloats(1000);
+		for (var array : arrays)
+			RasterPool.release(array);
+		assertEquals(6 * 1000 * 4, RasterPool.getPooledBytes());
+		for (int i = 0; i < arrays.length; i++)
+			RasterPool.borrowFloats(1000);
+		assertEquals(0, RasterPool.getPooledBytes());
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = {
+			BufferedImage.TYPE_INT_RGB,
+			BufferedImage.TYPE_INT_ARGB_PRE,
+			BufferedImage.TYPE_3BYTE_BGR,
+			BufferedImage.TYPE_BYTE_GRAY,
+			BufferedImage.TYPE_USHORT_GRAY
+	})
+	public void testCreateImage(int type) {
+		RasterPool.setEnabled(true);
+		var expected = new BufferedImage(31, 17, type);
+		for (int i = 0; i < 2; i++) {
+			var img = RasterPool.createImage(expected.getColorModel(), expected.getWidth(), expected.getHeight());
+			assertEquals(expected.getRaster().getDataBuffer().getSize(), img.getRaster().getDataBuffer().getSize());
+			// Pooled arrays must have been zeroed
+			assertEquals(expected.getRGB(5, 5), img.getRGB(5, 5));
+			img.setRGB(5, 5, 0xFF00FF);
+			expected.setRGB(5, 5, 0xFF00FF);
+			assertEquals(expected.getRGB(5, 5), img.getRGB(5, 5));
+			expected.setRGB(5, 5, 0);
+			RasterPool.release(img);
+		}
+	}
+
+	@Test
+	public void testCreateBandedRaster() {
+		RasterPool.setEnabled(true);
+		var sampleModel = new BandedSampleModel(DataBuffer.TYPE_FLOAT, 20, 10, 3);
+		var raster = RasterPool.createWritableRaster(sampleModel);
+		assertEquals(3, raster.getDataBuffer().getNumBanks());
+		raster.setSample(19, 9, 2, 1.5f);
+		assertEquals(1.5f, raster.getSampleFloat(19, 9, 2));
+		RasterPool.release(raster);
+		var raster2 = RasterPool.createCompatibleWritableRaster(raster, 20, 10);
+		assertEquals(0f, raster2.getSampleFloat(19, 9, 2));
+	}
+
+}
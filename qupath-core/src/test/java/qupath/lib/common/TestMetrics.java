@@ -0,0 +1,124 @@
+/*-
+ * #%L
+ * This file is part of QuPath.
+ * %%
+ * Copyright (C) 2026 QuPath developers, The University of Edinburgh
+ * %%
+ * QuPath is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * QuPath is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with QuPath.  If not, see <https://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package qupath.lib.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SuppressWarnings("javadoc")
+public class TestMetrics {
+
+	@Test
+	public void testCounter() {
+		var counter = Metrics.counter("test.counter");
+		assertSame(counter, Metrics.counter("test.counter"));
+		counter.reset();
+		IntStream.range(0, 1000).parallel().forEach(i -> counter.increment());
+		counter.add(10);
+		assertEquals(1010, counter.getCount());
+		counter.reset();
+		assertEquals(0, counter.getCount());
+	}
+
+	@Test
+	public void testHistogram() {
+		var histogram = Metrics.histogram("test.histogram");
+		histogram.reset();
+		assertEquals(0, histogram.getPercentile(50));
+		assertTrue(Double.isNaN(histogram.getMean()));
+		for (int i = 1; i <= 100; i++)
+			histogram.record(i);
+		assertEquals(100, histogram.getCount());
+		assertEquals(5050, histogram.getSum());
+		assertEquals(100, histogram.getMax());
+		assertEquals(50.5, histogram.getMean(), 1e-6);
+		// Percentiles are approximate, but should be within 25%
+		long p50 = histogram.getPercentile(50);
+		assertTrue(p50 >= 50 && p50 <= 63, "Unexpected p50 " + p50);
+		assertEquals(100, histogram.getPercentile(100));
+		assertEquals(1, histogram.getPercentile(0));
+		assertThrows(IllegalArgumentException.class, () -> histogram.getPercentile(101));
+
+		// Negative values should be treated as zero
+		histogram.reset();
+		histogram.record(-1);
+		assertEquals(0, histogram.getSum());
+		assertEquals(0, histogram.getPercentile(50));
+
+		histogram.record(Long.MAX_VALUE);
+		assertEquals(Long.MAX_VALUE, histogram.getPercentile(100));
+	}
+
+	@Test
+	public void testHistogramBuckets() {
+		var values = new long[] {0, 1, 3, 4, 5, 7, 8, 9, 100, 1000, 123456789L, 1L << 40, (1L << 62) + 1, Long.MAX_VALUE};
+		for (long value : values) {
+			int index = Metrics.Histogram.bucketIndex(value);
+			assertTrue(value <= Metrics.Histogram.bucketUpperBound(index), "Bucket too small for " + value);
+			if (index > 0)
+				assertTrue(value > Metrics.Histogram.bucketUpperBound(index - 1), "Bucket too large for " + value);
+		}
+		for (int i = 1; i <= Metrics.Histogram.bucketIndex(Long.MAX_VALUE); i++)
+			assertTrue(Metrics.Histogram.bucketUpperBound(i) > Metrics.Histogram.bucketUpperBound(i - 1));
+	}
+
+	@Test
+	public void testTimer() throws Exception {
+		var timer = Metrics.timer("test.timer");
+		timer.reset();
+		try (var sample = timer.start()) {
+			Thread.sleep(5);
+		}
+		var sample = timer.start();
+		long duration = sample.stop(() -> "Details");
+		// Stopping again should have no effect
+		sample.stop();
+		assertEquals(2, timer.getCount());
+		assertTrue(timer.getMaxNanos() >= 5_000_000L);
+		assertTrue(timer.getTotalNanos() >= 5_000_000L + duration);
+
+		timer.record(1000);
+		assertEquals(3, timer.getCount());
+	}
+
+	@Test
+	public void testRegistry() {
+		Metrics.counter("test.registry.counter").increment();
+		Metrics.timer("test.registry.timer").record(10);
+		assertThrows(IllegalArgumentException.class, () -> Metrics.timer("test.registry.counter"));
+		assertThrows(IllegalArgumentException.class, () -> Metrics.histogram("test.registry.timer"));
+
+		var summary = Metrics.summarize();
+		assertTrue(summary.contains("test.registry.counter"));
+		assertTrue(summary.contains("test.registry.timer"));
+
+		var names = Metrics.getMetrics().stream().map(Metrics.Metric::getName).toList();
+		assertEquals(names.stream().sorted().toList(), names);
+	}
+
+}
@@ -0,0 +1,158 @@
+/*-
+ * #%L
+ * This file is part of QuPath.
+ * %%
+ * Copyright (C) 2026 QuPath developers, The University of Edinburgh
+ * %%
+ * QuPath is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * QuPath is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with QuPath.  If not, see <https://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package qupath.lib.images.servers;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import qupath.lib.regions.RegionRequest;
+
+import java.awt.image.BandedSampleModel;
+import java.awt.image.BufferedImage;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SuppressWarnings("javadoc")
+public class TestAbstractTileableImageServer {
+
+	private static final int[][] OFFSETS = {
+			{0, 0}, {5, 3}, {-4, 7}, {10, -6}, {-3, -2}, {40, 40}
+	};
+
+	@ParameterizedTest
+	@ValueSource(ints = {
+			BufferedImage.TYPE_INT_RGB,
+			BufferedImage.TYPE_INT_ARGB,
+			BufferedImage.TYPE_3BYTE_BGR,
+			BufferedImage.TYPE_BYTE_GRAY,
+			BufferedImage.TYPE_USHORT_GRAY
+	})
+	public void testCopyPixelsDirectImageTypes(int type) {
+		var random = new Random(type);
+		var source = new BufferedImage(17, 13, type);
+		for (int y = 0; y < source.getHeight(); y++) {
+			for (int x = 0; x < source.getWidth(); x++)
+				source.setRGB(x, y, random.nextInt());
+		}
+		for (int[] offset : OFFSETS) {
+			var expected = new BufferedImage(20, 15, type);
+			copySamples(source.getRaster(), offset[0], offset[1], expected.getRaster());
+			var actual = new BufferedImage(20, 15, type);
+			assertTrue(AbstractTileableImageServer.copyPixelsDirect(source.getRaster(), offset[0], offset[1], actual.getRaster()));
+			assertRastersEqual(expected.getRaster(), actual.getRaster());
+		}
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = {
+			DataBuffer.TYPE_BYTE,
+			DataBuffer.TYPE_USHORT,
+			DataBuffer.TYPE_SHORT,
+			DataBuffer.TYPE_INT,
+			DataBuffer.TYPE_FLOAT,
+			DataBuffer.TYPE_DOUBLE
+	})
+	public void testCopyPixelsDirectMultichannel(int dataType) {
+		int nBands = 3;
+		// Test banded and single-bank layouts, with each band in its own plane
+		var sampleModels = new SampleModel[] {
+				new BandedSampleModel(dataType, 17, 13, nBands),
+				new ComponentSampleModel(dataType, 17, 13, 1, 17, new int[nBands], new int[] {0, 17*13, 2*17*13})
+		};
+		for (var sampleModel : sampleModels) {
+			var random = new Random(dataType);
+			var source = Raster.createWritableRaster(sampleModel, null);
+			for (int b = 0; b < nBands; b++) {
+				for (int y = 0; y < source.getHeight(); y++) {
+					for (int x = 0; x < source.getWidth(); x++)
+						source.setSample(x, y, b, random.nextInt(100));
+				}
+			}
+			for (int[] offset : OFFSETS) {
+				var expected = source.createCompatibleWritableRaster(20, 15);
+				copySamples(source, offset[0], offset[1], expected);
+				var actual = source.createCompatibleWritableRaster(20, 15);
+				assertTrue(AbstractTileableImageServer.copyPixelsDirect(source, offset[0], offset[1], actual));
+				assertRastersEqual(expected, actual);
+			}
+		}
+	}
+
+	@Test
+	public void testReadRegionAsync() throws Exception {
+		var random = new Random(100);
+		var img = new BufferedImage(300, 200, BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < img.getHeight(); y++) {
+			for (int x = 0; x < img.getWidth(); x++)
+				img.setRGB(x, y, random.nextInt());
+		}
+		try (var server = new WrappedBufferedImageServer("async", img);
+			 var serverTransformed = new TransformedServerBuilder(server).extractChannels(0, 2).build()) {
+			for (var imageServer : List.of(server, serverTransformed)) {
+				var request = RegionRequest.createInstance(imageServer.getPath(), 2, 10, 20, 250, 170);
+				var expected = imageServer.readRegion(request);
+				var actual = imageServer.readRegionAsync(request).join();
+				assertEquals(expected.getWidth(), actual.getWidth());
+				assertEquals(expected.getHeight(), actual.getHeight());
+				assertRastersEqual(expected.getRaster(), actual.getRaster());
+			}
+			var tile = server.getTileRequestManager().getTileRequestsForLevel(0).iterator().next();
+			assertRastersEqual(
+					server.readRegion(tile.getRegionRequest()).getRaster(),
+					server.getTileAsync(tile).join().getRaster());
+		}
+	}
+
+	/**
+	 * Reference implementation, avoiding setRect because of https://bugs.openjdk.java.net/browse/JDK-4847156
+	 */
+	private static void copySamples(Raster source, int dx, int dy, WritableRaster dest) {
+		for (int y = 0; y < source.getHeight(); y++) {
+			for (int x = 0; x < source.getWidth(); x++) {
+				int xx = x + dx;
+				int yy = y + dy;
+				if (xx < 0 || yy < 0 || xx >= dest.getWidth() || yy >= dest.getHeight())
+					continue;
+				for (int b = 0; b < source.getNumBands(); b++)
+					dest.setSample(xx, yy, b, source.getSampleDouble(x, y, b));
+			}
+		}
+	}
+
+	private static void assertRastersEqual(WritableRaster expected, WritableRaster actual) {
+		for (int b = 0; b < expected.getNumBands(); b++) {
+			assertArrayEquals(
+					expected.getSamples(0, 0, expected.getWidth(), expected.getHeight(), b, (double[])null),
+					actual.getSamples(0, 0, actual.getWidth(), actual.getHeight(), b, (double[])null));
+		}
+	}
+
+}
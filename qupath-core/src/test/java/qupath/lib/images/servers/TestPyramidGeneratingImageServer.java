@@ -0,0 +1,255 @@
+/*-
+ * #%L
+ * This file is part of QuPath.
+ * %%
+ * Copyright (C) 2026 QuPath developers, The University of Edinburgh
+ * %%
+ * QuPath is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * QuPath is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with QuPath.  If not, see <https://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package qupath.lib.images.servers;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.junit.jupiter.params.provider.ValueSource;
+import qupath.lib.color.ColorModelFactory;
+
+import java.awt.image.BandedSampleModel;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.Raster;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SuppressWarnings("javadoc")
+public class TestPyramidGeneratingImageServer {
+
+	@ParameterizedTest
+	@ValueSource(ints = {2, 3, 4})
+	public void testDownsampleRGB(int factor) {
+		var random = new Random(factor);
+		var img = new BufferedImage(37, 22, BufferedImage.TYPE_INT_RGB);
+		for (int y = 0; y < img.getHeight(); y++) {
+			for (int x = 0; x < img.getWidth(); x++)
+				img.setRGB(x, y, random.nextInt());
+		}
+		int width = (int)Math.ceil(img.getWidth() / (double)factor);
+		int height = (int)Math.ceil(img.getHeight() / (double)factor);
+		var output = PyramidGeneratingImageServer.downsampleByArea(img, factor, width, height, true);
+		assertEquals(BufferedImage.TYPE_INT_RGB, output.getType());
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int rgb = output.getRGB(x, y);
+				for (int shift : new int[] {16, 8, 0}) {
+					double expected = blockMean(img.getRaster(), x, y, factor, shift == 16 ? 0 : shift == 8 ? 1 : 2);
+					assertEquals(expected, (rgb >> shift) & 0xFF, 0.5 + 1e-6);
+				}
+			}
+		}
+	}
+
+	@ParameterizedTest
+	@EnumSource(value = PixelType.class, names = {"UINT8", "UINT16", "FLOAT32"})
+	public void testDownsampleMultichannel(PixelType pixelType) {
+		int factor = 2;
+		int dataType = switch (pixelType) {
+			case UINT8 -> DataBuffer.TYPE_BYTE;
+			case UINT16 -> DataBuffer.TYPE_USHORT;
+			default -> DataBuffer.TYPE_FLOAT;
+		};
+		var random = new Random(dataType);
+		var raster = Raster.createWritableRaster(new BandedSampleModel(dataType, 21, 16, 3), null);
+		for (int b = 0; b < raster.getNumBands(); b++) {
+			for (int y = 0; y < raster.getHeight(); y++) {
+				for (int x = 0; x < raster.getWidth(); x++)
+					raster.setSample(x, y, b, random.nextInt(200));
+			}
+		}
+		var colorModel = ColorModelFactory.createColorModel(pixelType, ImageChannel.getDefaultChannelList(raster.getNumBands()));
+		var img = new BufferedImage(colorModel, raster, false, null);
+		var output = PyramidGeneratingImageServer.downsampleByArea(img, factor, 11, 8, true);
+		var outputRaster = output.getRaster();
+		for (int b = 0; b < raster.getNumBands(); b++) {
+			for (int y = 0; y < outputRaster.getHeight(); y++) {
+				for (int x = 0; x < outputRaster.getWidth(); x++) {
+					double expected = blockMean(raster, x, y, factor, b);
+					if (dataType != DataBuffer.TYPE_FLOAT)
+						expected = Math.floor(expected + 0.5);
+					assertEquals(expected, outputRaster.getSampleDouble(x, y, b), 1e-6);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testDownsampleNearest() {
+		var img = new BufferedImage(8, 8, BufferedImage.TYPE_BYTE_GRAY);
+		var raster = img.getRaster();
+		for (int y = 0; y < img.getHeight(); y++) {
+			for (int x = 0; x < img.getWidth(); x++)
+				raster.setSample(x, y, 0, y * 8 + x);
+		}
+		var output = PyramidGeneratingImageServer.downsampleByArea(img, 4, 2, 2, false);
+		assertArrayEquals(new int[] {18, 22, 50, 54}, output.getRaster().getSamples(0, 0, 2, 2, 0, (int[])null));
+	}
+
+	@Test
+	public void testDownsampleIncompatibleSize() {
+		var img = new BufferedImage(20, 20, BufferedImage.TYPE_INT_RGB);
+		assertNull(PyramidGeneratingImageServer.downsampleByArea(img, 2, 5, 5, true));
+		assertNull(PyramidGeneratingImageServer.downsampleByArea(img, 2, 15, 10, true));
+		assertNotNull(PyramidGeneratingImageServer.downsampleByArea(img, 2, 10, 10, true));
+	}
+
+	@Test
+	public void testTileStore(@TempDir Path dir) {
+		var store = new GeneratedTileStore(dir, Long.MAX_VALUE);
+		var random = new Random(1);
+
+		for (int type : new int[] {BufferedImage.TYPE_INT_ARGB, BufferedImage.TYPE_INT_RGB}) {
+			var imgRGB = new BufferedImage(16, 12, type);
+			for (int y = 0; y < imgRGB.getHeight(); y++) {
+				for (int x = 0; x < imgRGB.getWidth(); x++)
+					imgRGB.setRGB(x, y, random.nextInt());
+			}
+			String key = "rgb" + type;
+			store.write(key, imgRGB);
+			var readRGB = store.read(key, imgRGB.getColorModel());
+			assertEquals(imgRGB.getType(), readRGB.getType());
+			assertArrayEquals(
+					imgRGB.getRGB(0, 0, 16, 12, null, 0, 16),
+					readRGB.getRGB(0, 0, 16, 12, null, 0, 16));
+		}
+
+		var imgGray = new BufferedImage(16, 12, BufferedImage.TYPE_USHORT_GRAY);
+		for (int y = 0; y < imgGray.getHeight(); y++) {
+			for (int x = 0; x < imgGray.getWidth(); x++)
+				imgGray.getRaster().setSample(x, y, 0, random.nextInt(65536));
+		}
+		store.write("gray", imgGray);
+		var readGray = store.read("gray", imgGray.getColorModel());
+		assertArrayEquals(
+				imgGray.getRaster().getSamples(0, 0, 16, 12, 0, (int[])null),
+				readGray.getRaster().getSamples(0, 0, 16, 12, 0, (int[])null));
+
+		assertNull(store.read("missing", imgGray.getColorModel()));
+		// Incompatible color model
+		assertNull(store.read("gray", new BufferedImage(1, 1, BufferedImage.TYPE_BYTE_GRAY).getColorModel()));
+	}
+
+	@ParameterizedTest
+	@EnumSource(value = PixelType.class, names = {"UINT8", "UINT16", "INT16", "INT32", "FLOAT32", "FLOAT64"})
+	public void testTileStorePixelTypes(PixelType pixelType, @TempDir Path dir) throws Exception {
+		var store = new GeneratedTileStore(dir, Long.MAX_VALUE);
+		var colorModel = ColorModelFactory.createColorModel(pixelType, ImageChannel.getDefaultChannelList(2));
+		var raster = colorModel.createCompatibleWritableRaster(64, 48);
+		var random = new Random(pixelType.ordinal());
+		for (int b = 0; b < raster.getNumBands(); b++) {
+			for (int y = 0; y < raster.getHeight(); y++) {
+				for (int x = 0; x < raster.getWidth(); x++) {
+					// Smooth gradient with some noise, covering the full range of the pixel type
+					double value = x + y * 2 + b * 10 + random.nextInt(3);
+					if (pixelType.isFloatingPoint())
+						value = value * 0.25 - 20;
+					else if (pixelType.isSignedInteger())
+						value = value - 60;
+					if (x == 0 && y == 0)
+						value = pixelType.getUpperBound().doubleValue();
+					else if (x == 1 && y == 0)
+						value = pixelType.getLowerBound().doubleValue();
+					raster.setSample(x, y, b, value);
+				}
+			}
+		}
+		var img = new BufferedImage(colorModel, raster, false, null);
+		store.write("tile", img);
+
+		var read = store.read("tile", colorModel);
+		assertNotNull(read);
+		for (int b = 0; b < raster.getNumBands(); b++) {
+			assertArrayEquals(
+					raster.getSamples(0, 0, 64, 48, b, (double[])null),
+					read.getRaster().getSamples(0, 0, 64, 48, b, (double[])null));
+		}
+
+		// Samples should be stored using the width of the data type, and compressed
+		long size = Files.size(dir.resolve("tile.tile"));
+		long uncompressedSize = 64L * 48 * raster.getNumBands() * pixelType.getBytesPerPixel();
+		assertTrue(size < uncompressedSize, () -> "Stored tile is " + size + " bytes, expected < " + uncompressedSize);
+	}
+
+	@Test
+	public void testTileStoreEviction(@TempDir Path dir) throws Exception {
+		var img = new BufferedImage(32, 32, BufferedImage.TYPE_INT_RGB);
+		var random = new Random(2);
+		var store = new GeneratedTileStore(dir, Long.MAX_VALUE);
+		// Random pixels don't compress well, so tiles should all be about the same size
+		for (int i = 0; i < 4; i++) {
+			for (int y = 0; y < img.getHeight(); y++) {
+				for (int x = 0; x < img.getWidth(); x++)
+					img.setRGB(x, y, random.nextInt());
+			}
+			store.write("tile" + i, img);
+			Files.setLastModifiedTime(dir.resolve("tile" + i + ".tile"), FileTime.fromMillis(1000 * (i + 1)));
+		}
+		long tileSize = Files.size(dir.resolve("tile0.tile"));
+
+		// Reading a tile should mark it as recently used
+		assertNotNull(store.read("tile0", img.getColorModel()));
+
+		// A new store should find the existing tiles, and delete the least recently used to make space
+		store = new GeneratedTileStore(dir, tileSize * 4);
+		store.write("tile4", img);
+		assertFalse(Files.exists(dir.resolve("tile1.tile")));
+		assertFalse(Files.exists(dir.resolve("tile2.tile")));
+		assertTrue(Files.exists(dir.resolve("tile0.tile")));
+		assertTrue(Files.exists(dir.resolve("tile3.tile")));
+		assertTrue(Files.exists(dir.resolve("tile4.tile")));
+		assertNull(store.read("tile1", img.getColorModel()));
+		assertNotNull(store.read("tile4", img.getColorModel()));
+	}
+
+	@Test
+	public void testTileStoreShared(@TempDir Path dir) {
+		assertSame(GeneratedTileStore.getInstance(dir, 1000), GeneratedTileStore.getInstance(dir, 1000));
+		assertNotSame(GeneratedTileStore.getInstance(dir, 1000), GeneratedTileStore.getInstance(dir, 2000));
+	}
+
+	private static double blockMean(Raster raster, int x, int y, int factor, int band) {
+		double sum = 0;
+		int n = 0;
+		for (int yy = y * factor; yy < Math.min((y + 1) * factor, raster.getHeight()); yy++) {
+			for (int xx = x * factor; xx < Math.min((x + 1) * factor, raster.getWidth()); xx++) {
+				sum += raster.getSampleDouble(xx, yy, band);
+				n++;
+			}
+		}
+		return sum / n;
+	}
+
+}
@@ -0,0 +1,225 @@
+/*-
+ * #%L
+ * This file is part of QuPath.
+ * %%
+ * Copyright (C) 2026 QuPath developers, The University of Edinburgh
+ * %%
+ * QuPath is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * QuPath is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with QuPath.  If not, see <https://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package qupath.lib.images.servers;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import qupath.lib.images.servers.ImageServerBuilder.ServerBuilder;
+import qupath.lib.regions.ImageRegion;
+import qupath.lib.regions.RegionRequest;
+
+import java.awt.image.BufferedImage;
+import java.net.URI;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SuppressWarnings("javadoc")
+public class TestSparseImageServer {
+
+	private static final int FIELD_WIDTH = 50;
+	private static final int FIELD_HEIGHT = 40;
+
+	private final int maxOpenServers = SparseImageServer.getMaxOpenServers();
+
+	@AfterEach
+	public void resetMaxOpenServers() {
+		SparseImageServer.setMaxOpenServers(maxOpenServers);
+	}
+
+	@Test
+	public void testRegionIndex() throws Exception {
+		try (var server = createGridServer(4, 3)) {
+			var manager = server.getManager();
+			assertEquals(12, manager.getRegions().size());
+			// Regions should be returned in the order they were added
+			assertEquals(
+					List.of(ImageRegion.createInstance(50, 0, 50, 40, 0, 0), ImageRegion.createInstance(100, 0, 50, 40, 0, 0),
+							ImageRegion.createInstance(50, 40, 50, 40, 0, 0), ImageRegion.createInstance(100, 40, 50, 40, 0, 0)),
+					manager.getRegions(60, 10, 50, 40, 0, 0));
+			// Touching the boundary of a region shouldn't count as an intersection
+			assertEquals(List.of(ImageRegion.createInstance(0, 0, 50, 40, 0, 0)), manager.getRegions(0, 0, 50, 40, 0, 0));
+			assertTrue(manager.getRegions(0, 0, 50, 40, 1, 0).isEmpty());
+			assertTrue(manager.getRegions(1000, 1000, 50, 40, 0, 0).isEmpty());
+		}
+	}
+
+	@Test
+	public void testReadTiles() throws Exception {
+		try (var server = createGridServer(4, 3)) {
+			var img = server.readRegion(RegionRequest.createInstance(server.getPath(), 1, 0, 0, server.getWidth(), server.getHeight()));
+			assertEquals(4 * FIELD_WIDTH, img.getWidth());
+			assertEquals(3 * FIELD_HEIGHT, img.getHeight());
+			for (int y = 0; y < img.getHeight(); y += 10) {
+				for (int x = 0; x < img.getWidth(); x += 10) {
+					int ind = (y / FIELD_HEIGHT) * 4 + x / FIELD_WIDTH;
+					assertEquals(getColor(ind), img.getRGB(x, y) & 0xFFFFFF);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testOverlappingRegions() throws Exception {
+		var builder = new SparseImageServer.Builder();
+		builder.jsonRegion(ImageRegion.createInstance(0, 0, FIELD_WIDTH, FIELD_HEIGHT, 0, 0), 1, new FieldBuilder(0));
+		builder.jsonRegion(ImageRegion.createInstance(25, 20, FIELD_WIDTH, FIELD_HEIGHT, 0, 0), 1, new FieldBuilder(1));
+		try (var server = builder.build()) {
+			var img = server.readRegion(RegionRequest.createInstance(server.getPath(), 1, 0, 0, server.getWidth(), server.getHeight()));
+			assertEquals(getColor(0), img.getRGB(10, 10) & 0xFFFFFF);
+			// Later regions should be drawn on top
+			assertEquals(getColor(1), img.getRGB(30, 30) & 0xFFFFFF);
+			assertEquals(getColor(1), img.getRGB(70, 50) & 0xFFFFFF);
+		}
+	}
+
+	@Test
+	public void testMaxOpenServers() throws Exception {
+		SparseImageServer.setMaxOpenServers(2);
+		try (var server = createGridServer(5, 5)) {
+			assertTrue(server.getManager().getOpenServerCount() <= 2);
+			var img = server.readRegion(RegionRequest.createInstance(server.getPath(), 1, 0, 0, server.getWidth(), server.getHeight()));
+			assertTrue(server.getManager().getOpenServerCount() <= 2);
+			// Closed servers should be rebuilt when needed
+			assertEquals(getColor(24), img.getRGB(img.getWidth()-1, img.getHeight()-1) & 0xFFFFFF);
+			assertEquals(getColor(0), img.getRGB(0, 0) & 0xFFFFFF);
+		}
+	}
+
+	@Test
+	public void testBuildServerWithoutBlocking() throws Exception {
+		var started = new CountDownLatch(1);
+		var release = new CountDownLatch(1);
+		// Only keep one server open, so that the slow server is closed after the sparse server is built
+		SparseImageServer.setMaxOpenServers(1);
+		var builder = new SparseImageServer.Builder();
+		// Use a separate tile for the slow region
+		builder.jsonRegion(ImageRegion.createInstance(2048, 0, FIELD_WIDTH, FIELD_HEIGHT, 0, 0), 1,
+				new SlowFieldBuilder(1, new AtomicInteger(), started, release));
+		builder.jsonRegion(ImageRegion.createInstance(0, 0, FIELD_WIDTH, FIELD_HEIGHT, 0, 0), 1, new FieldBuilder(0));
+		try (var server = builder.build()) {
+			var slowRead = CompletableFuture.supplyAsync(() -> {
+				try {
+					return server.readRegion(RegionRequest.createInstance(server.getPath(), 1, 2048, 0, FIELD_WIDTH, FIELD_HEIGHT));
+				} catch (Exception e) {
+					throw new CompletionException(e);
+				}
+			});
+			assertTrue(started.await(10, TimeUnit.SECONDS));
+			// Other regions should be readable while a server is being built
+			var img = CompletableFuture.supplyAsync(() -> {
+				try {
+					return server.readRegion(RegionRequest.createInstance(server.getPath(), 1, 0, 0, FIELD_WIDTH, FIELD_HEIGHT));
+				} catch (Exception e) {
+					throw new CompletionException(e);
+				}
+			}).get(10, TimeUnit.SECONDS);
+			assertEquals(getColor(0), img.getRGB(10, 10) & 0xFFFFFF);
+			assertFalse(slowRead.isDone());
+			release.countDown();
+			assertEquals(getColor(1), slowRead.get(10, TimeUnit.SECONDS).getRGB(10, 10) & 0xFFFFFF);
+		} finally {
+			release.countDown();
+		}
+	}
+
+	private static SparseImageServer createGridServer(int nx, int ny) throws Exception {
+		var builder = new SparseImageServer.Builder();
+		for (int y = 0; y < ny; y++) {
+			for (int x = 0; x < nx; x++) {
+				var region = ImageRegion.createInstance(x * FIELD_WIDTH, y * FIELD_HEIGHT, FIELD_WIDTH, FIELD_HEIGHT, 0, 0);
+				builder.jsonRegion(region, 1, new FieldBuilder(y * nx + x));
+			}
+		}
+		return builder.build();
+	}
+
+	private static int getColor(int ind) {
+		return 0x404040 + ind * 0x010203;
+	}
+
+	/**
+	 * Builder for a field of view that waits to be released before building, except for the first time
+	 * (when the sparse image server is created).
+	 */
+	private record SlowFieldBuilder(int ind, AtomicInteger count, CountDownLatch started, CountDownLatch release) implements ServerBuilder<BufferedImage> {
+
+		@Override
+		public ImageServer<BufferedImage> build() throws Exception {
+			if (count.getAndIncrement() > 0) {
+				started.countDown();
+				if (!release.await(10, TimeUnit.SECONDS))
+					throw new TimeoutException("Server build was not released");
+			}
+			return new FieldBuilder(ind).build();
+		}
+
+		@Override
+		public Collection<URI> getURIs() {
+			return List.of();
+		}
+
+		@Override
+		public ServerBuilder<BufferedImage> updateURIs(Map<URI, URI> updateMap) {
+			return this;
+		}
+
+	}
+
+	/**
+	 * Builder for a field of view with a single color.
+	 */
+	private record FieldBuilder(int ind) implements ServerBuilder<BufferedImage> {
+
+		@Override
+		public ImageServer<BufferedImage> build() {
+			var img = new BufferedImage(FIELD_WIDTH, FIELD_HEIGHT, BufferedImage.TYPE_INT_RGB);
+			var g2d = img.createGraphics();
+			g2d.setColor(new java.awt.Color(getColor(ind)));
+			g2d.fillRect(0, 0, FIELD_WIDTH, FIELD_HEIGHT);
+			g2d.dispose();
+			return new WrappedBufferedImageServer("Field " + ind, img);
+		}
+
+		@Override
+		public Collection<URI> getURIs() {
+			return List.of();
+		}
+
+		@Override
+		public ServerBuilder<BufferedImage> updateURIs(Map<URI, URI> updateMap) {
+			return this;
+		}
+
+	}
+
+}
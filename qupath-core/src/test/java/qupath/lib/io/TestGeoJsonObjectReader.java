@@ -0,0 +1,139 @@
+/*-
+ * #%L
+ * This file is part of QuPath.
+ * %%
+ * Copyright (C) 2026 QuPath developers, The University of Edinburgh
+ * %%
+ * QuPath is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * QuPath is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with QuPath.  If not, see <https://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package qupath.lib.io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import qupath.lib.io.PathIO.GeoJsonExportOptions;
+import qupath.lib.objects.PathObject;
+import qupath.lib.objects.PathObjects;
+import qupath.lib.objects.classes.PathClass;
+import qupath.lib.regions.ImagePlane;
+import qupath.lib.roi.ROIs;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SuppressWarnings("javadoc")
+public class TestGeoJsonObjectReader {
+
+	@ParameterizedTest
+	@ValueSource(ints = {1, 7, 1000})
+	public void testReadFeatureCollection(int batchSize) throws IOException {
+		var pathObjects = createObjects(100);
+		var bytes = toGeoJson(pathObjects, GeoJsonExportOptions.FEATURE_COLLECTION);
+		for (boolean parallel : new boolean[] {false, true}) {
+			var batches = new ArrayList<List<PathObject>>();
+			new GeoJsonObjectReader()
+					.batchSize(batchSize)
+					.parallel(parallel)
+					.read(new ByteArrayInputStream(bytes), batches::add);
+			assertEquals((pathObjects.size() + batchSize - 1) / batchSize, batches.size());
+			assertTrue(batches.stream().allMatch(b -> b.size() <= batchSize));
+			assertSameObjects(pathObjects, batches.stream().flatMap(List::stream).toList());
+		}
+	}
+
+	@Test
+	public void testReadFeatureArray() throws IOException {
+		var pathObjects = createObjects(10);
+		var bytes = toGeoJson(pathObjects);
+		assertSameObjects(pathObjects, new GeoJsonObjectReader().readAll(new ByteArrayInputStream(bytes)));
+		assertSameObjects(pathObjects, GsonTools.parseObjectsFromGeoJSON(new String(bytes, StandardCharsets.UTF_8)));
+	}
+
+	@Test
+	public void testReadSingleFeature() throws IOException {
+		var pathObjects = createObjects(1);
+		var bytes = toGeoJson(pathObjects);
+		assertSameObjects(pathObjects, new GeoJsonObjectReader().readAll(new ByteArrayInputStream(bytes)));
+	}
+
+	@Test
+	public void testReadOtherRepresentations() throws IOException {
+		var pathObjects = createObjects(3);
+		var json = new String(toGeoJson(pathObjects), StandardCharsets.UTF_8);
+		var features = json.substring(json.indexOf('['), json.lastIndexOf(']') + 1);
+		// FeatureCollection type specified after the features
+		assertSameObjects(pathObjects, readAll("{\"features\": " + features + ", \"type\": \"FeatureCollection\"}"));
+		// Features should be ignored if the object isn't a FeatureCollection
+		assertTrue(readAll("{\"features\": " + features + ", \"type\": \"Something\"}").isEmpty());
+		// Geometries should be converted to annotations
+		var annotations = readAll("[{\"type\": \"Polygon\", \"coordinates\": [[[0, 0], [10, 0], [10, 10], [0, 0]]]}, {\"type\": \"Point\", \"coordinates\": [5, 5]}]");
+		assertEquals(2, annotations.size());
+		assertTrue(annotations.stream().allMatch(PathObject::isAnnotation));
+		assertEquals(50.0, annotations.get(0).getROI().getArea(), 1e-6);
+		// Empty input
+		assertTrue(readAll("").isEmpty());
+		assertTrue(readAll("{}").isEmpty());
+	}
+
+	private static List<PathObject> readAll(String json) throws IOException {
+		return new GeoJsonObjectReader().readAll(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private static List<PathObject> createObjects(int n) {
+		var pathClass = PathClass.fromString("Tumor");
+		var pathObjects = new ArrayList<PathObject>();
+		for (int i = 0; i < n; i++) {
+			var roi = ROIs.createRectangleROI(i * 10, i * 5, 8, 6, ImagePlane.getDefaultPlane());
+			PathObject pathObject;
+			if (i % 3 == 0)
+				pathObject = PathObjects.createAnnotationObject(roi, pathClass);
+			else if (i % 3 == 1)
+				pathObject = PathObjects.createDetectionObject(roi);
+			else
+				pathObject = PathObjects.createCellObject(roi, roi.scale(0.5, 0.5, roi.getCentroidX(), roi.getCentroidY()), pathClass, null);
+			pathObject.getMeasurementList().put("Index", i);
+			pathObjects.add(pathObject);
+		}
+		return pathObjects;
+	}
+
+	private static byte[] toGeoJson(List<PathObject> pathObjects, GeoJsonExportOptions... options) throws IOException {
+		var stream = new ByteArrayOutputStream();
+		PathIO.exportObjectsAsGeoJSON(stream, pathObjects, options);
+		return stream.toByteArray();
+	}
+
+	private static void assertSameObjects(List<PathObject> expected, List<PathObject> actual) {
+		assertEquals(expected.size(), actual.size());
+		for (int i = 0; i < expected.size(); i++) {
+			var e = expected.get(i);
+			var a = actual.get(i);
+			assertEquals(e.getID(), a.getID());
+			assertEquals(e.getClass(), a.getClass());
+			assertEquals(e.getPathClass(), a.getPathClass());
+			assertEquals(e.getROI().getArea(), a.getROI().getArea(), 1e-6);
+			assertEquals(e.getMeasurementList().get("Index"), a.getMeasurementList().get("Index"));
+		}
+	}
+
+}
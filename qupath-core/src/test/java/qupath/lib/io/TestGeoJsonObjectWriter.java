@@ -0,0 +1,154 @@
+/*-
+ * #%L
+ * This file is part of QuPath.
+ * %%
+ * Copyright (C) 2026 QuPath developers, The University of Edinburgh
+ * %%
+ * QuPath is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * QuPath is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with QuPath.  If not, see <https://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package qupath.lib.io;
+
+import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import qupath.lib.common.GeneralTools;
+import qupath.lib.objects.PathObject;
+import qupath.lib.objects.PathObjectTools;
+import qupath.lib.objects.PathObjects;
+import qupath.lib.objects.classes.PathClass;
+import qupath.lib.regions.ImagePlane;
+import qupath.lib.roi.ROIs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SuppressWarnings("javadoc")
+public class TestGeoJsonObjectWriter {
+
+	@ParameterizedTest
+	@ValueSource(ints = {1, 7, 1000})
+	public void testSameAsGson(int batchSize) throws IOException {
+		var pathObjects = createObjects(100);
+		var gson = GsonTools.getInstance();
+		var expectedCollection = gson.toJson(FeatureCollection.wrap(pathObjects));
+		var expectedArray = gson.toJson(pathObjects, new TypeToken<List<PathObject>>() {}.getType());
+		for (boolean parallel : new boolean[] {false, true}) {
+			var writer = new GeoJsonObjectWriter()
+					.batchSize(batchSize)
+					.parallel(parallel);
+			assertEquals(expectedArray, write(writer.featureCollection(false), pathObjects));
+			assertEquals(expectedCollection, write(writer.featureCollection(true), pathObjects));
+		}
+	}
+
+	@Test
+	public void testSingleObject() throws IOException {
+		var pathObjects = createObjects(1);
+		var writer = new GeoJsonObjectWriter();
+		assertEquals(GsonTools.getInstance().toJson(pathObjects.getFirst()), write(writer, pathObjects));
+		assertEquals(GsonTools.getInstance().toJson(FeatureCollection.wrap(pathObjects)), write(writer.featureCollection(true), pathObjects));
+	}
+
+	@Test
+	public void testEmpty() throws IOException {
+		var writer = new GeoJsonObjectWriter();
+		assertEquals("[]", write(writer, List.of()));
+		assertEquals(GsonTools.getInstance().toJson(FeatureCollection.wrap(List.of())), write(writer.featureCollection(true), List.of()));
+	}
+
+	@Test
+	public void testPrettyPrint() throws IOException {
+		var pathObjects = createObjects(10);
+		var gson = GsonTools.getInstance(true);
+		var writer = new GeoJsonObjectWriter().prettyPrint(true);
+		assertEquals(gson.toJson(pathObjects, new TypeToken<List<PathObject>>() {}.getType()), write(writer, pathObjects));
+		assertEquals(gson.toJson(FeatureCollection.wrap(pathObjects)), write(writer.featureCollection(true), pathObjects));
+		// Coordinates are encoded differently for compact output, but the values should be the same
+		assertEquals(
+				JsonParser.parseString(write(writer, pathObjects)),
+				JsonParser.parseString(write(writer.prettyPrint(false), pathObjects)));
+	}
+
+	@Test
+	public void testExcludeMeasurements() throws IOException {
+		var pathObjects = createObjects(20);
+		var copies = pathObjects.stream().map(p -> PathObjectTools.transformObject(p, null, false)).toList();
+		var expected = GsonTools.getInstance().toJson(FeatureCollection.wrap(copies));
+		var writer = new GeoJsonObjectWriter()
+				.includeMeasurements(false)
+				.featureCollection(true)
+				.batchSize(3);
+		assertEquals(expected, write(writer, pathObjects));
+	}
+
+	@Test
+	public void testAppendNumber() {
+		var random = new Random(100);
+		var values = new ArrayList<>(List.of(0.0, -0.0, -0.001, 0.005, 0.015, 1.005, 2.675, -2.675, 0.125, 9.995, -9.995, 1e20, Double.NaN));
+		for (int i = 0; i < 10_000; i++) {
+			values.add(random.nextDouble() * 100_000 - 50_000);
+			values.add((random.nextInt(200_000) - 100_000) * 0.005);
+		}
+		for (double value : values) {
+			for (int nDecimals = 0; nDecimals <= 4; nDecimals++) {
+				var sb = new StringBuilder();
+				ROITypeAdapters.appendNumber(sb, value, nDecimals);
+				assertEquals(GeneralTools.formatNumber(Locale.US, value, nDecimals), sb.toString());
+			}
+		}
+	}
+
+	private static String write(GeoJsonObjectWriter writer, List<PathObject> pathObjects) throws IOException {
+		var stream = new ByteArrayOutputStream();
+		writer.write(stream, pathObjects);
+		return stream.toString(StandardCharsets.UTF_8);
+	}
+
+	private static List<PathObject> createObjects(int n) {
+		var pathClass = PathClass.fromString("Tumor");
+		var random = new Random(n);
+		var pathObjects = new ArrayList<PathObject>();
+		for (int i = 0; i < n; i++) {
+			var roi = ROIs.createPolygonROI(
+					new double[] {i * 10 + 0.1234, i * 10 + 8.5, i * 10 + 4.005},
+					new double[] {-i * 5.0, -i * 5.0 + 1 + random.nextDouble() * 10, -i * 5.0 - 6},
+					ImagePlane.getDefaultPlane());
+			PathObject pathObject;
+			if (i % 3 == 0)
+				pathObject = PathObjects.createAnnotationObject(roi, pathClass);
+			else if (i % 3 == 1)
+				pathObject = PathObjects.createDetectionObject(ROIs.createEllipseROI(i, i, 5, 4, ImagePlane.getDefaultPlane()));
+			else
+				pathObject = PathObjects.createCellObject(roi, roi.scale(0.5, 0.5, roi.getCentroidX(), roi.getCentroidY()), pathClass, null);
+			pathObject.getMeasurementList().put("Index", i);
+			pathObject.getMeasurementList().put("Random", random.nextDouble());
+			pathObject.getMetadata().put("Key", "Value " + i);
+			pathObject.setName("Object " + i);
+			pathObjects.add(pathObject);
+		}
+		return pathObjects;
+	}
+
+}
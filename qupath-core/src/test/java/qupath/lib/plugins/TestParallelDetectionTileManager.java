@@ -0,0 +1,212 @@
+/*-
+ * #%L
+ * This file is part of QuPath.
+ * %%
+ * Copyright (C) 2026 QuPath developers, The University of Edinburgh
+ * %%
+ * QuPath is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * QuPath is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with QuPath.  If not, see <https://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package qupath.lib.plugins;
+
+import org.junit.jupiter.api.Test;
+import qupath.lib.objects.PathObject;
+import qupath.lib.objects.PathObjects;
+import qupath.lib.objects.hierarchy.PathObjectHierarchy;
+import qupath.lib.plugins.AbstractTileableDetectionPlugin.ParallelDetectionTileManager;
+import qupath.lib.regions.ImagePlane;
+import qupath.lib.roi.ROIs;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SuppressWarnings("javadoc")
+public class TestParallelDetectionTileManager {
+
+	@Test
+	public void testCompleteOnce() {
+		var hierarchy = new PathObjectHierarchy();
+		var parent = createParent(hierarchy, 400, 100);
+		var manager = new ParallelDetectionTileManager(parent, hierarchy, true, 100);
+		var tiles = createTiles(manager, parent, 4, 100, 0);
+
+		for (var tile : tiles) {
+			assertTrue(tile.complete(List.of(createDetection(tile)), false));
+			// Completing again, e.g. when the task is cancelled while running, should have no effect
+			assertFalse(tile.complete(List.of(createDetection(tile), createDetection(tile)), false));
+		}
+		assertEquals(4, parent.nChildObjects());
+		assertTrue(parent.getChildObjects().stream().allMatch(PathObject::isDetection));
+		assertTrue(parent.isLocked());
+		assertEquals(0, manager.getUncommittedTileCount());
+	}
+
+	@Test
+	public void testCancelAfterStreaming() {
+		var hierarchy = new PathObjectHierarchy();
+		var parent = createParent(hierarchy, 200, 100);
+		var original = createDetection(parent);
+		parent.addChildObject(original);
+		var manager = new ParallelDetectionTileManager(parent, hierarchy, true, 100);
+		var tiles = createTiles(manager, parent, 2, 100, 0);
+
+		for (var tile : tiles)
+			tile.complete(List.of(createDetection(tile)), false);
+		assertEquals(2, parent.nChildObjects());
+		// Cancelling after the results have been committed should restore the original objects
+		assertFalse(tiles.getFirst().complete(null, true));
+		tiles.getFirst().setCancelled();
+		assertEquals(List.of(original), List.copyOf(parent.getChildObjects()));
+	}
+
+	@Test
+	public void testStreamingCommitsWhenNeighborsComplete() {
+		var hierarchy = new PathObjectHierarchy();
+		var parent = createParent(hierarchy, 300, 100);
+		var manager = new ParallelDetectionTileManager(parent, hierarchy, true, 100);
+		// Overlapping tiles, so that each needs its neighbors to be complete before it can be committed
+		var tiles = createTiles(manager, parent, 3, 100, 10);
+
+		tiles.get(0).complete(List.of(), false);
+		assertEquals(3, parent.nChildObjects());
+		tiles.get(2).complete(List.of(), false);
+		assertEquals(3, parent.nChildObjects());
+		tiles.get(1).complete(List.of(createDetection(tiles.get(1))), false);
+		assertEquals(1, parent.nChildObjects());
+		assertTrue(parent.getChildObjects().iterator().next().isDetection());
+	}
+
+	@Test
+	public void testUncommittedTilesLimited() throws Exception {
+		var hierarchy = new PathObjectHierarchy();
+		var parent = createParent(hierarchy, 200, 100);
+		var manager = new ParallelDetectionTileManager(parent, hierarchy, true, 1);
+		var tiles = createTiles(manager, parent, 2, 100, 0);
+
+		tiles.get(0).awaitProcessing();
+		var started = new CountDownLatch(1);
+		var thread = new Thread(() -> {
+			try {
+				tiles.get(1).awaitProcessing();
+				started.countDown();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		thread.start();
+		// The second tile shouldn't start until the first has been committed
+		assertFalse(started.await(200, TimeUnit.MILLISECONDS));
+		tiles.get(0).complete(List.of(), false);
+		assertTrue(started.await(10, TimeUnit.SECONDS));
+		thread.join();
+	}
+
+	@Test
+	public void testUncommittedTilesNoDeadlock() throws Exception {
+		int nTiles = 50;
+		int maxUncommitted = 2;
+		var hierarchy = new PathObjectHierarchy();
+		var parent = createParent(hierarchy, nTiles * 100, 100);
+		var manager = new ParallelDetectionTileManager(parent, hierarchy, true, maxUncommitted);
+		// Overlapping tiles in a shuffled order, so that many may need to be processed before any can be committed
+		var tiles = createTiles(manager, parent, nTiles, 100, 10);
+		var order = new ArrayList<>(tiles);
+		Collections.shuffle(order, new Random(100));
+
+		var maxSeen = new AtomicInteger();
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		try {
+			for (var tile : order) {
+				pool.execute(() -> {
+					try {
+						tile.awaitProcessing();
+						maxSeen.accumulateAndGet(manager.getUncommittedTileCount(), Math::max);
+						tile.complete(List.of(createDetection(tile)), false);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+				});
+			}
+		} finally {
+			pool.shutdown();
+		}
+		assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+		assertEquals(nTiles, parent.nChildObjects());
+		assertTrue(parent.getChildObjects().stream().allMatch(PathObject::isDetection));
+		assertEquals(0, manager.getUncommittedTileCount());
+		// The limit may be exceeded to avoid stalling, but not by more than the number of tiles needed to commit
+		assertTrue(maxSeen.get() < nTiles, "Uncommitted tile count not bounded: " + maxSeen.get());
+	}
+
+	@Test
+	public void testNotStreaming() {
+		var hierarchy = new PathObjectHierarchy();
+		var parent = createParent(hierarchy, 200, 100);
+		var manager = new ParallelDetectionTileManager(parent, hierarchy, false, 1);
+		var tiles = createTiles(manager, parent, 2, 100, 0);
+
+		tiles.get(0).complete(List.of(createDetection(tiles.get(0))), false);
+		// Nothing should be committed until all tiles are complete
+		assertEquals(2, parent.nChildObjects());
+		assertTrue(parent.getChildObjects().contains(tiles.get(1)));
+		assertTrue(tiles.get(1).complete(null, false));
+		assertFalse(tiles.get(1).complete(null, false));
+		assertEquals(1, parent.nChildObjects());
+		assertTrue(parent.getChildObjects().iterator().next().isDetection());
+	}
+
+	private static PathObject createParent(PathObjectHierarchy hierarchy, double width, double height) {
+		var parent = PathObjects.createAnnotationObject(ROIs.createRectangleROI(0, 0, width, height, ImagePlane.getDefaultPlane()));
+		hierarchy.addObject(parent);
+		return parent;
+	}
+
+	private static List<ParallelTileObject> createTiles(ParallelDetectionTileManager manager, PathObject parent,
+			int nTiles, double tileSize, double overlap) {
+		List<ParallelTileObject> tiles = new ArrayList<>();
+		for (int i = 0; i < nTiles; i++) {
+			double x = Math.max(0, i * tileSize - overlap);
+			double width = tileSize + (i * tileSize - x) + overlap;
+			var tile = new ParallelTileObject(manager,
+					ROIs.createRectangleROI(x, 0, width, tileSize, ImagePlane.getDefaultPlane()));
+			for (var tileTemp : tiles) {
+				if (tileTemp.suggestNeighbor(tile))
+					tile.suggestNeighbor(tileTemp);
+			}
+			tiles.add(tile);
+		}
+		manager.setTiles(tiles);
+		return tiles;
+	}
+
+	private static PathObject createDetection(PathObject tile) {
+		var roi = tile.getROI();
+		double x = roi.getCentroidX();
+		double y = roi.getCentroidY();
+		return PathObjects.createDetectionObject(ROIs.createEllipseROI(x - 5, y - 5, 10, 10, ImagePlane.getDefaultPlane()));
+	}
+
+}
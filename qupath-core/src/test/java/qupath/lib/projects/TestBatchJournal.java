@@ -0,0 +1,182 @@
+/*-
+ * #%L
+ * This file is part of QuPath.
+ * %%
+ * Copyright (C) 2026 QuPath developers, The University of Edinburgh
+ * %%
+ * QuPath is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * QuPath is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with QuPath.  If not, see <https://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package qupath.lib.projects;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import qupath.lib.images.servers.ImageServer;
+import qupath.lib.images.servers.ImageServerBuilder.ServerBuilder;
+import qupath.lib.images.servers.WrappedBufferedImageServer;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SuppressWarnings("javadoc")
+public class TestBatchJournal {
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	public void testResume() throws IOException {
+		var project = Projects.createProject(tempDir.toFile(), BufferedImage.class);
+		var entry1 = project.addImage(new ImageBuilder("First"));
+		var entry2 = project.addImage(new ImageBuilder("Second"));
+		var entry3 = project.addImage(new ImageBuilder("Third"));
+		writeData(entry1, "Data 1");
+		writeData(entry2, "Data 2");
+
+		var key = BatchJournal.createKey("println 'Hello'", "arg");
+		try (var journal = BatchJournal.open(project, key)) {
+			assertFalse(journal.isCompleted(entry1));
+			journal.start(entry1).completed();
+			journal.start(entry2).failed(new IOException("Something went wrong"));
+			journal.start(entry3).completed();
+			assertTrue(journal.isCompleted(entry1));
+			assertFalse(journal.isCompleted(entry2));
+			assertTrue(journal.isCompleted(entry3));
+		}
+
+		// Records should be read again when the journal is reopened
+		writeData(entry3, "New data 3");
+		try (var journal = BatchJournal.open(project, key)) {
+			var records = journal.getLatestRecords();
+			assertEquals(3, records.size());
+			assertEquals(BatchJournal.Status.FAILED, records.get(entry2.getID()).status());
+			assertEquals("Something went wrong", records.get(entry2.getID()).error());
+			assertNull(records.get(entry1.getID()).error());
+			assertTrue(journal.isCompleted(entry1));
+			assertFalse(journal.isCompleted(entry2));
+			// Entry should be processed again if its data has changed
+			assertFalse(journal.isCompleted(entry3));
+		}
+
+		// Entries shouldn't be completed for a different batch process
+		try (var journal = BatchJournal.open(project, BatchJournal.createKey("println 'Hello'", "other arg"))) {
+			assertTrue(journal.getLatestRecords().isEmpty());
+			assertFalse(journal.isCompleted(entry1));
+		}
+	}
+
+	@Test
+	public void testIncompleteRecord() throws IOException {
+		var project = Projects.createProject(tempDir.toFile(), BufferedImage.class);
+		var entry = project.addImage(new ImageBuilder("Image"));
+		var key = BatchJournal.createKey("script");
+		Path path;
+		try (var journal = BatchJournal.open(project, key)) {
+			journal.start(entry).completed();
+			path = journal.getPath();
+		}
+		// Simulate a crash while writing a record
+		Files.writeString(path, Files.readString(path) + "{\"key\":\"" + key + "\",\"entryID\":");
+		try (var journal = BatchJournal.open(project, key)) {
+			assertTrue(journal.isCompleted(entry));
+			var record = journal.getLatestRecords().get(entry.getID());
+			assertTrue(record.peakMemoryBytes() > 0);
+			assertTrue(record.durationMillis() >= 0);
+			journal.start(entry).failed(new RuntimeException());
+		}
+		// New records should still be readable after an incomplete one
+		try (var journal = BatchJournal.open(project, key)) {
+			assertEquals(BatchJournal.Status.FAILED, journal.getLatestRecords().get(entry.getID()).status());
+		}
+	}
+
+	@Test
+	public void testCompact() throws IOException {
+		var project = Projects.createProject(tempDir.toFile(), BufferedImage.class);
+		var entry1 = project.addImage(new ImageBuilder("First"));
+		var entry2 = project.addImage(new ImageBuilder("Second"));
+		var key = BatchJournal.createKey("script");
+		Path path = null;
+		for (int i = 0; i < 5; i++) {
+			try (var journal = BatchJournal.open(project, key)) {
+				journal.start(entry1).completed();
+				journal.start(entry2).failed(new RuntimeException("Run " + i));
+				path = journal.getPath();
+			}
+		}
+		// Only the latest record for each entry should be kept, with the most recent records appended
+		assertEquals(4, Files.readAllLines(path).size());
+		try (var journal = BatchJournal.open(project, key)) {
+			assertEquals(2, Files.readAllLines(path).size());
+			assertTrue(journal.isCompleted(entry1));
+			assertEquals("Run 4", journal.getLatestRecords().get(entry2.getID()).error());
+		}
+
+		// Records for a different batch process should be removed
+		try (var journal = BatchJournal.open(project, BatchJournal.createKey("other script"))) {
+			assertTrue(Files.readAllLines(path).isEmpty());
+			journal.start(entry1).completed();
+		}
+		assertEquals(1, Files.readAllLines(path).size());
+		try (var stream = Files.list(tempDir)) {
+			assertTrue(stream.noneMatch(p -> p.getFileName().toString().endsWith(".tmp")));
+		}
+	}
+
+	@Test
+	public void testCreateKey() {
+		assertEquals(BatchJournal.createKey("a", "b"), BatchJournal.createKey("a", "b"));
+		assertNotEquals(BatchJournal.createKey("a", "b"), BatchJournal.createKey("ab"));
+		assertNotEquals(BatchJournal.createKey("a", "b"), BatchJournal.createKey("b", "a"));
+	}
+
+	private static void writeData(ProjectImageEntry<?> entry, String data) throws IOException {
+		var path = entry.getEntryPath();
+		Files.createDirectories(path);
+		Files.writeString(path.resolve("data.qpdata"), data);
+	}
+
+	private record ImageBuilder(String name) implements ServerBuilder<BufferedImage> {
+
+		@Override
+		public ImageServer<BufferedImage> build() {
+			return new WrappedBufferedImageServer(name, new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB));
+		}
+
+		@Override
+		public Collection<URI> getURIs() {
+			return List.of();
+		}
+
+		@Override
+		public ServerBuilder<BufferedImage> updateURIs(Map<URI, URI> updateMap) {
+			return this;
+		}
+
+	}
+
+}
@@ -417,7 +417,9 @@ public class BioFormatsImageServer extends AbstractTileableImageServer implement
 	@Override
 	public BufferedImage readTile(TileRequest tileRequest) throws IOException {
 		try {
-			return readerPool.openImage(tileRequest, series.getSeries(), nChannels(), isRGB(), colorModel);
+			var metadata = getMetadata();
+			return readerPool.openImage(tileRequest, metadata.getPreferredTileWidth(), metadata.getPreferredTileHeight(),
+					series.getSeries(), nChannels(), isRGB(), colorModel);
 		} catch (InterruptedException e) {
 			throw new IOException(e);
 		}
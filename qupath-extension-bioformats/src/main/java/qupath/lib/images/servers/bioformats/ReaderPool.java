@@ -2,12 +2,19 @@ package qupath.lib.images.servers.bioformats;
 
 import java.awt.image.BufferedImage;
 import java.awt.image.ColorModel;
+import java.awt.image.DataBuffer;
 import java.io.IOException;
 import java.lang.ref.Cleaner;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -34,6 +41,14 @@ import qupath.lib.images.servers.TileRequest;
  * By using a reader pool, there is no need for most code to interface directly with
  * {@link SynchronizedImageReader} or {@link loci.formats.IFormatReader}, or worry about the
  * fact that the latter is not threadsafe.
+ * <p>
+ * Additional readers are only created if requests are spending a substantial amount of time waiting
+ * for a reader (relative to the time taken to read), and there appears to be enough memory available.
+ * This can be turned off by setting the system property {@code bioformats.readerpool.adaptive} to false.
+ * <p>
+ * If the native chunk size of the image is larger than the tiles being requested, the pool reads each
+ * chunk once and extracts tiles from it - rather than decoding the same chunk for each tile.
+ * This can be turned off by setting the system property {@code bioformats.readerpool.coalesce} to false.
  */
 class ReaderPool implements AutoCloseable {
 
@@ -46,6 +61,11 @@ class ReaderPool implements AutoCloseable {
      */
     private static final int MAX_QUEUE_CAPACITY = 128;
 
+    /**
+     * Maximum number of pixels in a native chunk for tile requests to be coalesced
+     */
+    private static final long MAX_COALESCED_CHUNK_PIXELS = 4096L * 4096L;
+
     private final ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor();
 
     private static final Cleaner cleaner = Cleaner.create();
@@ -66,6 +86,14 @@ class ReaderPool implements AutoCloseable {
 
     private final int timeoutSeconds;
 
+    private final boolean adaptiveSize = !"false".equalsIgnoreCase(System.getProperty("bioformats.readerpool.adaptive", "true"));
+    private final boolean coalesceChunks = !"false".equalsIgnoreCase(System.getProperty("bioformats.readerpool.coalesce", "true"));
+
+    private final ReaderStats stats = new ReaderStats();
+
+    private final Map<String, int[]> chunkSizes = new ConcurrentHashMap<>();
+    private final ChunkCache chunkCache = new ChunkCache(Math.min(Runtime.getRuntime().maxMemory() / 32, 256L * 1024L * 1024L));
+
     private volatile boolean isClosed = false;
 
     // This may be reused by OMERO extension? Not sure, but need to change cautiously...
@@ -174,7 +202,12 @@ class ReaderPool implements AutoCloseable {
 
     private void createAndRegisterSubReader() {
         try {
-            registerReader(mainReader.createSubReader());
+            var runtime = Runtime.getRuntime();
+            long usedBefore = runtime.totalMemory() - runtime.freeMemory();
+            var reader = mainReader.createSubReader();
+            // This is only a rough estimate, since other threads may allocate memory at the same time
+            stats.recordReaderBytes(runtime.totalMemory() - runtime.freeMemory() - usedBefore);
+            registerReader(reader);
         } catch (Exception e) {
             logger.warn("Exception creating sub-reader: {}", e.getMessage(), e);
         }
@@ -182,19 +215,21 @@ class ReaderPool implements AutoCloseable {
 
     private SynchronizedImageReader nextQueuedReader() {
         var nextReader = queue.poll();
-        if (nextReader != null) {
+        // Only record the wait time when we actually need to wait
+        if (nextReader != null)
             return nextReader;
-        }
         if (isClosed)
             return null;
         synchronized (requestedReaders) {
-            if (!isClosed && requestedReaders.get() < getMaxReaders()) {
+            if (!isClosed && requestedReaders.get() < getMaxReaders() && (!adaptiveSize || stats.shouldAddReader())) {
                 requestedReaders.incrementAndGet();
                 pool.submit(this::createAndRegisterSubReader);
             }
         }
         try {
+            long startTime = System.nanoTime();
             var reader = queue.poll(timeoutSeconds, TimeUnit.SECONDS);
+            stats.recordWait(System.nanoTime() - startTime);
             // See https://github.com/qupath/qupath/issues/1265
             if (reader == null) {
                 logger.warn("Bio-Formats reader request timed out after {} seconds - returning main reader", timeoutSeconds);
@@ -210,21 +245,116 @@ class ReaderPool implements AutoCloseable {
 
 
 
-    BufferedImage openImage(TileRequest tileRequest, int series, int nChannels, boolean isRGB, ColorModel colorModel) throws IOException, InterruptedException {
+    /**
+     * Read a tile, extracting it from a larger native chunk where possible.
+     * @param tileRequest the tile to read
+     * @param tileWidth the width of the tile grid, which may be larger than the tile width at the image boundary
+     * @param tileHeight the height of the tile grid, which may be larger than the tile height at the image boundary
+     * @param series the series to read
+     * @param nChannels the number of channels
+     * @param isRGB true if the image is RGB
+     * @param colorModel the color model for the image
+     * @return the tile
+     * @throws IOException if the tile could not be read
+     * @throws InterruptedException if the thread is interrupted while waiting for a reader
+     */
+    BufferedImage openImage(TileRequest tileRequest, int tileWidth, int tileHeight, int series, int nChannels, boolean isRGB, ColorModel colorModel) throws IOException, InterruptedException {
+        int[] samplesPerPixel = getSamplesPerPixel(metadata, series);
+        int[] chunk = coalesceChunks ? getCoalescedChunk(tileRequest, tileWidth, tileHeight, series) : null;
+        if (chunk == null) {
+            return readWithNextReader(reader -> reader.openImage(
+                    tileRequest,
+                    series,
+                    nChannels,
+                    samplesPerPixel,
+                    isRGB,
+                    colorModel));
+        }
+        var key = new ChunkKey(series, tileRequest.getLevel(), tileRequest.getZ(), tileRequest.getT(), chunk[0], chunk[1]);
+        return chunkCache.getTile(key, chunk[4], tileRequest, () -> readWithNextReader(reader -> reader.openImage(
+                series,
+                tileRequest.getLevel(),
+                chunk[0], chunk[1], chunk[2], chunk[3],
+                tileRequest.getZ(), tileRequest.getT(),
+                nChannels,
+                samplesPerPixel,
+                isRGB,
+                colorModel)));
+    }
+
+    /**
+     * Get the bounds of the native chunk containing a tile, if the tile should be extracted from a larger chunk.
+     * @return the x, y, width and height of the chunk at the tile's resolution level, followed by the number of tiles
+     *         that will be extracted from it - or null if the tile should be read directly
+     */
+    private int[] getCoalescedChunk(TileRequest tileRequest, int gridWidth, int gridHeight, int series) throws IOException {
+        String sizeKey = series + ":" + tileRequest.getLevel();
+        int[] size = chunkSizes.get(sizeKey);
+        if (size == null) {
+            size = mainReader.getChunkSize(series, tileRequest.getLevel());
+            chunkSizes.put(sizeKey, size);
+        }
+        int chunkWidth = size[0];
+        int chunkHeight = size[1];
+        int tileWidth = tileRequest.getTileWidth();
+        int tileHeight = tileRequest.getTileHeight();
+        if (chunkWidth <= 0 || chunkHeight <= 0 || (chunkWidth <= tileWidth && chunkHeight <= tileHeight) ||
+                (long)chunkWidth * chunkHeight > MAX_COALESCED_CHUNK_PIXELS)
+            return null;
+        int x = tileRequest.getTileX() / chunkWidth * chunkWidth;
+        int y = tileRequest.getTileY() / chunkHeight * chunkHeight;
+        // Tiles that cross chunk boundaries are read directly
+        if (tileRequest.getTileX() + tileWidth > x + chunkWidth || tileRequest.getTileY() + tileHeight > y + chunkHeight)
+            return null;
+        int width = Math.min(chunkWidth, size[2] - x);
+        int height = Math.min(chunkHeight, size[3] - y);
+        int nTiles = countTilesInChunk(x, width, gridWidth, size[2]) * countTilesInChunk(y, height, gridHeight, size[3]);
+        return new int[] {x, y, width, height, nTiles};
+    }
+
+    /**
+     * Count the tiles along one axis that fall entirely inside a chunk, and so will be extracted from it.
+     * Tiles that cross the chunk boundary are read directly, and so must not be counted - otherwise the chunk
+     * would only be removed from the cache when it is evicted.
+     * @param chunkStart the first pixel of the chunk
+     * @param chunkSize the size of the chunk
+     * @param tileSize the size of the tile grid
+     * @param imageSize the size of the image, used to clip tiles at the boundary
+     * @return the number of tiles inside the chunk
+     */
+    static int countTilesInChunk(int chunkStart, int chunkSize, int tileSize, int imageSize) {
+        int chunkEnd = chunkStart + chunkSize;
+        int n = 0;
+        for (int t = (chunkStart + tileSize - 1) / tileSize * tileSize; t < chunkEnd; t += tileSize) {
+            if (Math.min(t + tileSize, imageSize) <= chunkEnd)
+                n++;
+        }
+        return n;
+    }
+
+    /**
+     * Get the number of chunks currently cached, so that tiles can be extracted from them.
+     */
+    int getCachedChunkCount() {
+        return chunkCache.size();
+    }
+
+    @FunctionalInterface
+    private interface ReaderFunction {
+        BufferedImage apply(SynchronizedImageReader reader) throws IOException;
+    }
+
+    private BufferedImage readWithNextReader(ReaderFunction fun) throws IOException, InterruptedException {
         SynchronizedImageReader reader = null;
         try {
             reader = nextQueuedReader();
             if (reader == null) {
                 throw new IOException("Reader is null - was the image already closed? " + id);
             }
-            int[] samplesPerPixel = getSamplesPerPixel(metadata, series);
-            return reader.openImage(
-                    tileRequest,
-                    series,
-                    nChannels,
-                    samplesPerPixel,
-                    isRGB,
-                    colorModel);
+            long startTime = System.nanoTime();
+            var img = fun.apply(reader);
+            stats.recordRead(System.nanoTime() - startTime);
+            return img;
         } finally {
             if (Thread.interrupted()) {
                 logger.debug("Thread interrupted, flag will be reset: {}", Thread.currentThread());
@@ -271,6 +401,7 @@ class ReaderPool implements AutoCloseable {
     public synchronized void close() {
         logger.debug("Closing ReaderManager");
         isClosed = true;
+        chunkCache.clear();
         pool.shutdownNow();
         for (var c : cleanables) {
             try {
@@ -281,4 +412,181 @@ class ReaderPool implements AutoCloseable {
         }
     }
 
+
+
+    /**
+     * Simple statistics used to decide whether it is worthwhile to create another reader.
+     */
+    private static class ReaderStats {
+
+        private static final double ALPHA = 0.2;
+
+        /**
+         * Create more readers only if average waiting time is at least this fraction of the average read time
+         */
+        private static final double MIN_WAIT_FRACTION = 0.25;
+
+        /**
+         * Create more readers only if the available memory is at least this multiple of the memory per reader
+         */
+        private static final int MEMORY_HEADROOM = 4;
+
+        private double readNanos = Double.NaN;
+        private double waitNanos = 0;
+        private double readerBytes = 0;
+
+        synchronized void recordRead(long nanos) {
+            readNanos = Double.isNaN(readNanos) ? nanos : readNanos + ALPHA * (nanos - readNanos);
+        }
+
+        /**
+         * Record the time spent waiting for a reader.
+         * This should only be called when no reader was immediately available, so that the average reflects
+         * how long requests wait when they are blocked.
+         */
+        synchronized void recordWait(long nanos) {
+            waitNanos += ALPHA * (nanos - waitNanos);
+        }
+
+        synchronized void recordReaderBytes(long bytes) {
+            if (bytes > 0)
+                readerBytes = readerBytes == 0 ? bytes : readerBytes + ALPHA * (bytes - readerBytes);
+        }
+
+        synchronized boolean shouldAddReader() {
+            if (readerBytes > 0) {
+                var runtime = Runtime.getRuntime();
+                long available = runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+                if (available < readerBytes * MEMORY_HEADROOM) {
+                    logger.debug("Not creating reader - estimated {} MB per reader, {} MB available",
+                            readerBytes / (1024 * 1024), available / (1024 * 1024));
+                    return false;
+                }
+            }
+            return Double.isNaN(readNanos) || waitNanos >= readNanos * MIN_WAIT_FRACTION;
+        }
+
+    }
+
+    private record ChunkKey(int series, int level, int z, int t, int x, int y) {}
+
+    @FunctionalInterface
+    private interface ChunkReader {
+        BufferedImage read() throws IOException, InterruptedException;
+    }
+
+    /**
+     * Cache for chunks that have been read so that tiles can be extracted from them.
+     * A chunk is removed once all the tiles it contains have been extracted, or when the cache exceeds its
+     * maximum size (with the least recently used chunk removed first).
+     */
+    private static class ChunkCache {
+
+        private final long maxBytes;
+        private long cachedBytes = 0;
+        private final LinkedHashMap<ChunkKey, Chunk> chunks = new LinkedHashMap<>(16, 0.75f, true);
+
+        private static class Chunk {
+
+            private final CompletableFuture<BufferedImage> future = new CompletableFuture<>();
+            private final int nTiles;
+            private final Set<Long> tilesRead = new HashSet<>();
+            private long bytes = 0;
+
+            private Chunk(int nTiles) {
+                this.nTiles = nTiles;
+            }
+
+        }
+
+        private ChunkCache(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        BufferedImage getTile(ChunkKey key, int nTiles, TileRequest tileRequest, ChunkReader reader) throws IOException, InterruptedException {
+            Chunk chunk;
+            boolean doRead;
+            synchronized (chunks) {
+                chunk = chunks.get(key);
+                doRead = chunk == null;
+                if (doRead) {
+                    chunk = new Chunk(nTiles);
+                    chunks.put(key, chunk);
+                }
+            }
+            if (doRead) {
+                try {
+                    var img = reader.read();
+                    chunk.future.complete(img);
+                    chunkRead(key, chunk, img);
+                } catch (IOException | InterruptedException | RuntimeException e) {
+                    synchronized (chunks) {
+                        chunks.remove(key, chunk);
+                    }
+                    chunk.future.completeExceptionally(e);
+                    throw e;
+                }
+            }
+            BufferedImage img;
+            try {
+                img = chunk.future.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException ioException)
+                    throw ioException;
+                throw new IOException(e.getCause());
+            }
+            var tile = crop(img, tileRequest.getTileX() - key.x(), tileRequest.getTileY() - key.y(),
+                    tileRequest.getTileWidth(), tileRequest.getTileHeight());
+            synchronized (chunks) {
+                chunk.tilesRead.add(((long)tileRequest.getTileX() << 32) | tileRequest.getTileY());
+                if (chunk.tilesRead.size() >= chunk.nTiles)
+                    remove(key, chunk);
+            }
+            return tile;
+        }
+
+        private void chunkRead(ChunkKey key, Chunk chunk, BufferedImage img) {
+            var buffer = img.getRaster().getDataBuffer();
+            synchronized (chunks) {
+                if (chunks.get(key) != chunk)
+                    return;
+                chunk.bytes = (long)buffer.getSize() * buffer.getNumBanks() * DataBuffer.getDataTypeSize(buffer.getDataType()) / 8;
+                cachedBytes += chunk.bytes;
+                var iter = chunks.entrySet().iterator();
+                while (cachedBytes > maxBytes && iter.hasNext()) {
+                    var entry = iter.next();
+                    if (entry.getValue() != chunk && entry.getValue().future.isDone()) {
+                        cachedBytes -= entry.getValue().bytes;
+                        iter.remove();
+                    }
+                }
+            }
+        }
+
+        private void remove(ChunkKey key, Chunk chunk) {
+            if (chunks.remove(key, chunk))
+                cachedBytes -= chunk.bytes;
+        }
+
+        int size() {
+            synchronized (chunks) {
+                return chunks.size();
+            }
+        }
+
+        void clear() {
+            synchronized (chunks) {
+                chunks.clear();
+                cachedBytes = 0;
+            }
+        }
+
+        private static BufferedImage crop(BufferedImage img, int x, int y, int width, int height) {
+            var raster = img.getRaster().createCompatibleWritableRaster(width, height);
+            raster.setDataElements(0, 0, img.getRaster().createChild(x, y, width, height, 0, 0, null));
+            return new BufferedImage(img.getColorModel(), raster, img.isAlphaPremultiplied(), null);
+        }
+
+    }
+
 }
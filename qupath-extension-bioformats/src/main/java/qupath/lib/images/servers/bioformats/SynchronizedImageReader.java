@@ -215,14 +215,20 @@ class SynchronizedImageReader implements Closeable {
 
 
     BufferedImage openImage(TileRequest tileRequest, int series, int nChannels, int[] samplesPerPixel, boolean isRGB, ColorModel colorModel) throws IOException {
-        int level = tileRequest.getLevel();
-        int tileX = tileRequest.getTileX();
-        int tileY = tileRequest.getTileY();
-        int tileWidth = tileRequest.getTileWidth();
-        int tileHeight = tileRequest.getTileHeight();
-        int z = tileRequest.getZ();
-        int t = tileRequest.getT();
+        return openImage(series, tileRequest.getLevel(),
+                tileRequest.getTileX(), tileRequest.getTileY(), tileRequest.getTileWidth(), tileRequest.getTileHeight(),
+                tileRequest.getZ(), tileRequest.getT(),
+                nChannels, samplesPerPixel, isRGB, colorModel);
+    }
 
+    /**
+     * Open a region of an image at a specified resolution level.
+     * This is similar to {@link #openImage(TileRequest, int, int, int[], boolean, ColorModel)}, but the region
+     * need not correspond to a QuPath tile (e.g. it may be a larger chunk, from which multiple tiles are extracted).
+     * Coordinates are in pixels at the resolution level.
+     */
+    BufferedImage openImage(int series, int level, int tileX, int tileY, int tileWidth, int tileHeight, int z, int t,
+                            int nChannels, int[] samplesPerPixel, boolean isRGB, ColorModel colorModel) throws IOException {
         byte[][] bytes;
         int effectiveC;
         ByteOrder order;
@@ -270,7 +276,7 @@ class SynchronizedImageReader implements Closeable {
                         byte[] bytesSimple = reader.openBytes(ind, tileX, tileY, tileWidth, tileHeight);
                         return AWTImageTools.openImage(bytesSimple, reader, tileWidth, tileHeight);
                     } catch (Exception | UnsatisfiedLinkError e) {
-                        logger.warn("Unable to open image {} for {}", ind, tileRequest.getRegionRequest());
+                        logger.warn("Unable to open image {} for level {}, region ({}, {}, {}, {})", ind, level, tileX, tileY, tileWidth, tileHeight);
                         throw ReaderUtils.convertToIOException(e);
                     }
                 }
@@ -313,6 +319,28 @@ class SynchronizedImageReader implements Closeable {
         return reader.getFormat();
     }
 
+    /**
+     * Get the native chunk size for a resolution level, as reported by the reader.
+     * @param series the series
+     * @param level the resolution level
+     * @return an array containing the optimal tile width and height, followed by the width and height of the level
+     */
+    int[] getChunkSize(int series, int level) throws IOException {
+        synchronized (reader) {
+            try {
+                ensureOpen();
+                reader.setSeries(series);
+                reader.setResolution(level);
+                return new int[] {
+                        reader.getOptimalTileWidth(), reader.getOptimalTileHeight(),
+                        reader.getSizeX(), reader.getSizeY()
+                };
+            } catch (FormatException e) {
+                throw new IOException(e);
+            }
+        }
+    }
+
 
     private void ensureOpen() throws IOException, FormatException {
         synchronized (reader) {
@@ -0,0 +1,463 @@
+/*-
+ * #%L
+ * This file is part of QuPath.
+ * %%
+ * Copyright (C) 2026 QuPath developers, The University of Edinburgh
+ * %%
+ * QuPath is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * QuPath is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with QuPath.  If not, see <https://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package qupath.lib.images.servers.zarr;
+
+import com.bc.zarr.ZarrArray;
+import com.bc.zarr.ZarrGroup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import qupath.lib.color.ColorModelFactory;
+import qupath.lib.common.ColorTools;
+import qupath.lib.images.servers.AbstractTileableImageServer;
+import qupath.lib.images.servers.ImageChannel;
+import qupath.lib.images.servers.ImageServerBuilder.DefaultImageServerBuilder;
+import qupath.lib.images.servers.ImageServerBuilder.ServerBuilder;
+import qupath.lib.images.servers.ImageServerMetadata;
+import qupath.lib.images.servers.ImageServerMetadata.ImageResolutionLevel;
+import qupath.lib.images.servers.PixelType;
+import qupath.lib.images.servers.ServerTools;
+import qupath.lib.images.servers.TileRequest;
+
+import java.awt.image.BandedSampleModel;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.ComponentSampleModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferDouble;
+import java.awt.image.DataBufferFloat;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferShort;
+import java.awt.image.DataBufferUShort;
+import java.awt.image.SampleModel;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+/**
+ * An {@link qupath.lib.images.servers.ImageServer} that reads multiscale OME-Zarr images
+ * (<a href="https://ngff.openmicroscopy.org/0.4/index.html">NGFF v0.4</a>) directly using jzarr.
+ * <p>
+ * In contrast to reading through Bio-Formats, no per-thread reader objects are required: the
+ * arrays for each resolution level are opened once and shared between all threads.
+ * The preferred tile size matches the chunk size of the full resolution array, so that each
+ * {@link TileRequest} is chunk-aligned. Where channels are stored in separate chunks, these are
+ * decoded in parallel and used directly as the banks of the raster, without further copying.
+ * <p>
+ * Only images stored locally are supported. INT8 and UINT32 images are not supported.
+ *
+ * @author Pete Bankhead
+ * @since v0.8.0
+ */
+public class OMEZarrImageServer extends AbstractTileableImageServer {
+
+	private static final Logger logger = LoggerFactory.getLogger(OMEZarrImageServer.class);
+
+	private static final String KEY_MULTISCALES = "multiscales";
+	private static final String KEY_OMERO = "omero";
+	private static final String KEY_BIOFORMATS2RAW = "bioformats2raw.layout";
+
+	private final URI uri;
+	private final String[] args;
+
+	private final ImageServerMetadata originalMetadata;
+	private final ColorModel colorModel;
+
+	private final List<ZarrArray> levels;
+
+	// Indices of each axis within the arrays (-1 if the axis is absent)
+	private final int nDims;
+	private final int indT, indC, indZ, indY, indX;
+	private final boolean channelsChunked;
+
+	/**
+	 * Create a server to read an OME-Zarr image.
+	 * @param uri URI of the root directory of the image (or the .zattrs or .zgroup file within it)
+	 * @param args optional arguments (currently unused)
+	 * @throws IOException if the image could not be opened or is not a supported OME-Zarr image
+	 */
+	public OMEZarrImageServer(URI uri, String... args) throws IOException {
+		this.uri = uri;
+		this.args = args;
+
+		Path path = getRootPath(uri);
+		if (path == null)
+			throw new IOException("Unable to find OME-Zarr image for " + uri);
+		ZarrGroup group = openImageGroup(path);
+		if (group == null)
+			throw new IOException("No multiscales found in " + path);
+
+		Map<String, Object> multiscales = firstMap(group.getAttributes().get(KEY_MULTISCALES));
+		if (multiscales == null)
+			throw new IOException("No multiscales found in " + path);
+
+		List<Map<String, Object>> axes = listOfMaps(multiscales.get("axes"));
+		List<Map<String, Object>> datasets = listOfMaps(multiscales.get("datasets"));
+		if (datasets.isEmpty())
+			throw new IOException("No datasets found in " + path);
+
+		List<String> axisNames = new ArrayList<>();
+		for (var axis : axes)
+			axisNames.add(String.valueOf(axis.get("name")).toLowerCase());
+
+		levels = new ArrayList<>();
+		for (var dataset : datasets) {
+			levels.add(group.openArray(String.valueOf(dataset.get("path"))));
+		}
+		ZarrArray fullResolution = levels.getFirst();
+		int[] shape = fullResolution.getShape();
+		int[] chunks = fullResolution.getChunks();
+		nDims = shape.length;
+
+		// v0.1 and v0.2 don't define axes, but always use 5 dimensions
+		if (axisNames.isEmpty() && nDims == 5)
+			axisNames.addAll(List.of("t", "c", "z", "y", "x"));
+		if (axisNames.size() != nDims)
+			throw new IOException("Number of axes (" + axisNames.size() + ") does not match number of dimensions (" + nDims + ")");
+		indT = axisNames.indexOf("t");
+		indC = axisNames.indexOf("c");
+		indZ = axisNames.indexOf("z");
+		indY = axisNames.indexOf("y");
+		indX = axisNames.indexOf("x");
+		if (indX < 0 || indY < 0)
+			throw new IOException("OME-Zarr image must have x and y axes, but axes are " + axisNames);
+
+		int width = shape[indX];
+		int height = shape[indY];
+		int nChannels = indC < 0 ? 1 : shape[indC];
+		channelsChunked = nChannels > 1 && chunks[indC] == 1;
+
+		PixelType pixelType = switch (fullResolution.getDataType()) {
+			case u1 -> PixelType.UINT8;
+			case u2 -> PixelType.UINT16;
+			case i2 -> PixelType.INT16;
+			case i4 -> PixelType.INT32;
+			case f4 -> PixelType.FLOAT32;
+			case f8 -> PixelType.FLOAT64;
+			default -> throw new IOException("Unsupported data type " + fullResolution.getDataType());
+		};
+
+		var resolutionBuilder = new ImageResolutionLevel.Builder(width, height);
+		for (var level : levels) {
+			int[] levelShape = level.getShape();
+			resolutionBuilder.addLevel(levelShape[indX], levelShape[indY]);
+		}
+
+		List<ImageChannel> channels = parseChannels(group.getAttributes().get(KEY_OMERO), nChannels);
+		boolean isRGB = pixelType == PixelType.UINT8 && channels.equals(ImageChannel.getDefaultRGBChannels());
+
+		String name = multiscales.get("name") instanceof String s && !s.isBlank() ? s : path.getFileName().toString();
+
+		var builder = new ImageServerMetadata.Builder(getClass(), path.toUri().toString(), width, height)
+				.name(name)
+				.channels(channels)
+				.rgb(isRGB)
+				.pixelType(pixelType)
+				.sizeZ(indZ < 0 ? 1 : shape[indZ])
+				.sizeT(indT < 0 ? 1 : shape[indT])
+				.preferredTileSize(chunks[indX], chunks[indY])
+				.levels(resolutionBuilder.build());
+
+		double[] scale = getScale(datasets.getFirst(), multiscales);
+		if (scale != null && scale.length == nDims) {
+			if (isMicrometer(axes, indX) && isMicrometer(axes, indY))
+				builder.pixelSizeMicrons(scale[indX], scale[indY]);
+			if (indZ >= 0 && isMicrometer(axes, indZ))
+				builder.zSpacingMicrons(scale[indZ]);
+		}
+		originalMetadata = builder.build();
+		colorModel = isRGB ? null : ColorModelFactory.createColorModel(pixelType, channels);
+	}
+
+	@Override
+	protected BufferedImage readTile(TileRequest tileRequest) throws IOException {
+		ZarrArray array = levels.get(tileRequest.getLevel());
+		int width = tileRequest.getTileWidth();
+		int height = tileRequest.getTileHeight();
+		int nChannels = nChannels();
+
+		Object[] banks;
+		try {
+			if (channelsChunked) {
+				// Each channel is in its own chunk, so we can decode these in parallel
+				banks = new Object[nChannels];
+				IntStream.range(0, nChannels).parallel().forEach(c -> banks[c] = readPixels(array, tileRequest, c));
+			} else {
+				banks = new Object[] {readPixels(array, tileRequest, -1)};
+			}
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+
+		if (isRGB())
+			return createRGBImage(banks, width, height);
+
+		DataBuffer dataBuffer = createDataBuffer(getPixelType(), banks, width * height * (banks.length == 1 ? nChannels : 1));
+		SampleModel sampleModel;
+		if (banks.length == nChannels) {
+			sampleModel = new BandedSampleModel(dataBuffer.getDataType(), width, height, nChannels);
+		} else {
+			// All channels are stored consecutively in a single bank
+			int[] bankIndices = new int[nChannels];
+			int[] offsets = new int[nChannels];
+			for (int c = 0; c < nChannels; c++)
+				offsets[c] = c * width * height;
+			sampleModel = new ComponentSampleModel(dataBuffer.getDataType(), width, height, 1, width, bankIndices, offsets);
+		}
+		var raster = WritableRaster.createWritableRaster(sampleModel, dataBuffer, null);
+		return new BufferedImage(colorModel, raster, false, null);
+	}
+
+	/**
+	 * Read the pixels for a tile.
+	 * @param array the array for the requested resolution level
+	 * @param tileRequest the tile to read
+	 * @param channel the channel to read, or -1 if all channels should be read together
+	 * @return a primitive array containing the pixels, in the order c, y, x
+	 * @throws UncheckedIOException if the pixels could not be read; this is unchecked so that channels can be read in a stream
+	 */
+	private Object readPixels(ZarrArray array, TileRequest tileRequest, int channel) {
+		int[] shape = new int[nDims];
+		int[] offset = new int[nDims];
+		for (int d = 0; d < nDims; d++)
+			shape[d] = 1;
+		if (indT >= 0)
+			offset[indT] = tileRequest.getT();
+		if (indZ >= 0)
+			offset[indZ] = tileRequest.getZ();
+		if (indC >= 0) {
+			if (channel < 0) {
+				shape[indC] = nChannels();
+			} else {
+				offset[indC] = channel;
+			}
+		}
+		shape[indY] = tileRequest.getTileHeight();
+		shape[indX] = tileRequest.getTileWidth();
+		offset[indY] = tileRequest.getTileY();
+		offset[indX] = tileRequest.getTileX();
+		try {
+			return array.read(shape, offset);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} catch (Exception e) {
+			throw new UncheckedIOException(new IOException("Unable to read " + tileRequest, e));
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T[] castBanks(Object[] banks, IntFunction<T[]> generator) {
+		T[] output = generator.apply(banks.length);
+		for (int i = 0; i < banks.length; i++)
+			output[i] = (T)banks[i];
+		return output;
+	}
+
+	private static DataBuffer createDataBuffer(PixelType pixelType, Object[] banks, int size) {
+		return switch (pixelType) {
+			case UINT8 -> new DataBufferByte(castBanks(banks, byte[][]::new), size);
+			case UINT16 -> new DataBufferUShort(castBanks(banks, short[][]::new), size);
+			case INT16 -> new DataBufferShort(castBanks(banks, short[][]::new), size);
+			case INT32 -> new DataBufferInt(castBanks(banks, int[][]::new), size);
+			case FLOAT32 -> new DataBufferFloat(castBanks(banks, float[][]::new), size);
+			case FLOAT64 -> new DataBufferDouble(castBanks(banks, double[][]::new), size);
+			case INT8, UINT32 -> throw new UnsupportedOperationException("Unsupported pixel type " + pixelType);
+		};
+	}
+
+	private static BufferedImage createRGBImage(Object[] banks, int width, int height) {
+		int n = width * height;
+		byte[] r, g, b;
+		if (banks.length == 3) {
+			r = (byte[])banks[0];
+			g = (byte[])banks[1];
+			b = (byte[])banks[2];
+		} else {
+			byte[] all = (byte[])banks[0];
+			r = all;
+			g = new byte[n];
+			b = new byte[n];
+			System.arraycopy(all, n, g, 0, n);
+			System.arraycopy(all, n * 2, b, 0, n);
+		}
+		int[] rgb = new int[n];
+		for (int i = 0; i < n; i++)
+			rgb[i] = ColorTools.packRGB(r[i] & 0xFF, g[i] & 0xFF, b[i] & 0xFF);
+		var img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		img.getRaster().setDataElements(0, 0, width, height, rgb);
+		return img;
+	}
+
+	@Override
+	public Collection<URI> getURIs() {
+		return Collections.singletonList(uri);
+	}
+
+	@Override
+	public String getServerType() {
+		return "OME-Zarr (jzarr)";
+	}
+
+	@Override
+	public ImageServerMetadata getOriginalMetadata() {
+		return originalMetadata;
+	}
+
+	@Override
+	protected ServerBuilder<BufferedImage> createServerBuilder() {
+		return DefaultImageServerBuilder.createInstance(OMEZarrServerBuilder.class, getMetadata(), uri, args);
+	}
+
+	@Override
+	protected String createID() {
+		return ServerTools.createDefaultID(getClass(), uri, args);
+	}
+
+	/**
+	 * Get the root directory of an OME-Zarr image from a URI, handling the case where
+	 * the URI refers to a metadata file within the directory.
+	 * @param uri
+	 * @return the root directory, or null if the URI does not refer to a local directory
+	 */
+	static Path getRootPath(URI uri) {
+		Path path;
+		try {
+			path = Paths.get(uri);
+		} catch (Exception e) {
+			logger.trace("Unable to get path from {}: {}", uri, e.getMessage());
+			return null;
+		}
+		String fileName = path.getFileName() == null ? "" : path.getFileName().toString();
+		if (".zattrs".equals(fileName) || ".zgroup".equals(fileName))
+			path = path.getParent();
+		return path != null && Files.isDirectory(path) ? path : null;
+	}
+
+	/**
+	 * Open the group containing the multiscales metadata, handling the "bioformats2raw.layout"
+	 * (where the first image is found in a subgroup named "0").
+	 * @param path the root directory
+	 * @return the group, or null if no multiscales metadata can be found
+	 * @throws IOException
+	 */
+	static ZarrGroup openImageGroup(Path path) throws IOException {
+		if (!Files.isRegularFile(path.resolve(".zattrs")))
+			return null;
+		ZarrGroup group = ZarrGroup.open(path);
+		var attributes = group.getAttributes();
+		if (attributes.containsKey(KEY_MULTISCALES))
+			return group;
+		if (attributes.containsKey(KEY_BIOFORMATS2RAW) && Files.isRegularFile(path.resolve("0").resolve(".zattrs"))) {
+			group = ZarrGroup.open(path.resolve("0"));
+			if (group.getAttributes().containsKey(KEY_MULTISCALES))
+				return group;
+		}
+		return null;
+	}
+
+	private static List<ImageChannel> parseChannels(Object omero, int nChannels) {
+		if (omero instanceof Map<?, ?> map) {
+			var channels = listOfMaps(map.get("channels"));
+			if (channels.size() == nChannels) {
+				List<ImageChannel> output = new ArrayList<>();
+				int c = 0;
+				for (var channel : channels) {
+					String name = channel.get("label") instanceof String s ? s : "Channel " + (c + 1);
+					Integer color = ImageChannel.getDefaultChannelColor(c);
+					if (channel.get("color") instanceof String s && s.length() == 6) {
+						try {
+							color = ColorTools.packRGB(
+									Integer.parseInt(s.substring(0, 2), 16),
+									Integer.parseInt(s.substring(2, 4), 16),
+									Integer.parseInt(s.substring(4, 6), 16));
+						} catch (NumberFormatException e) {
+							logger.debug("Unable to parse channel color {}", s);
+						}
+					}
+					output.add(ImageChannel.getInstance(name, color));
+					c++;
+				}
+				return output;
+			}
+		}
+		return ImageChannel.getDefaultChannelList(nChannels);
+	}
+
+	private static double[] getScale(Map<String, Object> dataset, Map<String, Object> multiscales) {
+		double[] scale = findScale(dataset.get("coordinateTransformations"));
+		// A global transform may also be applied to all datasets
+		double[] global = findScale(multiscales.get("coordinateTransformations"));
+		if (scale != null && global != null && global.length == scale.length) {
+			for (int i = 0; i < scale.length; i++)
+				scale[i] *= global[i];
+		}
+		return scale;
+	}
+
+	private static double[] findScale(Object transforms) {
+		for (var transform : listOfMaps(transforms)) {
+			if ("scale".equals(transform.get("type")) && transform.get("scale") instanceof List<?> list) {
+				double[] scale = new double[list.size()];
+				for (int i = 0; i < scale.length; i++) {
+					if (!(list.get(i) instanceof Number n))
+						return null;
+					scale[i] = n.doubleValue();
+				}
+				return scale;
+			}
+		}
+		return null;
+	}
+
+	private static boolean isMicrometer(List<Map<String, Object>> axes, int ind) {
+		return ind < axes.size() && "micrometer".equals(axes.get(ind).get("unit"));
+	}
+
+	private static Map<String, Object> firstMap(Object value) {
+		var list = listOfMaps(value);
+		return list.isEmpty() ? null : list.getFirst();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static List<Map<String, Object>> listOfMaps(Object value) {
+		if (!(value instanceof List<?> list))
+			return Collections.emptyList();
+		List<Map<String, Object>> output = new ArrayList<>();
+		for (var item : list) {
+			if (item instanceof Map<?, ?> map)
+				output.add((Map<String, Object>)map);
+		}
+		return output;
+	}
+
+}
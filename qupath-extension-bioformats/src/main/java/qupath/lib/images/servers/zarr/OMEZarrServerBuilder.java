@@ -0,0 +1,126 @@
+/*-
+ * #%L
+ * This file is part of QuPath.
+ * %%
+ * Copyright (C) 2026 QuPath developers, The University of Edinburgh
+ * %%
+ * QuPath is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * QuPath is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with QuPath.  If not, see <https://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package qupath.lib.images.servers.zarr;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import qupath.lib.images.servers.ImageServer;
+import qupath.lib.images.servers.ImageServerBuilder;
+
+import java.awt.image.BufferedImage;
+import java.net.URI;
+
+/**
+ * Builder for {@link OMEZarrImageServer}.
+ * <p>
+ * By default, this reports a lower support level than Bio-Formats, so that it is only used if
+ * Bio-Formats cannot open the image. Use {@link #setPreferNative(boolean)} or the system property
+ * {@code qupath.zarr.native} to prefer this builder for local OME-Zarr images.
+ *
+ * @author Pete Bankhead
+ * @since v0.8.0
+ */
+public class OMEZarrServerBuilder implements ImageServerBuilder<BufferedImage> {
+
+	private static final Logger logger = LoggerFactory.getLogger(OMEZarrServerBuilder.class);
+
+	private static boolean preferNative = "true".equalsIgnoreCase(System.getProperty("qupath.zarr.native", "false"));
+
+	/**
+	 * Request that OME-Zarr images are read directly with jzarr in preference to Bio-Formats.
+	 * @param prefer if true, report a higher support level than Bio-Formats for OME-Zarr images
+	 */
+	public static void setPreferNative(boolean prefer) {
+		preferNative = prefer;
+	}
+
+	/**
+	 * Query whether OME-Zarr images should be read directly with jzarr in preference to Bio-Formats.
+	 * @return
+	 * @see #setPreferNative(boolean)
+	 */
+	public static boolean getPreferNative() {
+		return preferNative;
+	}
+
+	@Override
+	public ImageServer<BufferedImage> buildServer(URI uri, String... args) {
+		try {
+			return new OMEZarrImageServer(uri, args);
+		} catch (Exception e) {
+			logger.error("Unable to open {} as OME-Zarr: {}", uri, e.getMessage(), e);
+		}
+		return null;
+	}
+
+	@Override
+	public UriImageSupport<BufferedImage> checkImageSupport(URI uri, String... args) {
+		float supportLevel = supportLevel(uri);
+		return UriImageSupport.createInstance(this.getClass(), supportLevel,
+				DefaultImageServerBuilder.createInstance(this.getClass(), uri, args));
+	}
+
+	private static float supportLevel(URI uri) {
+		if (!"file".equals(uri.getScheme()))
+			return 0;
+		var path = OMEZarrImageServer.getRootPath(uri);
+		if (path == null)
+			return 0;
+		try {
+			if (OMEZarrImageServer.openImageGroup(path) == null)
+				return 0;
+		} catch (Exception e) {
+			logger.debug("Unable to read {} as OME-Zarr: {}", uri, e.getMessage());
+			return 0;
+		}
+		return preferNative ? 4f : 2f;
+	}
+
+	@Override
+	public String getName() {
+		return "OME-Zarr builder";
+	}
+
+	@Override
+	public String getDescription() {
+		return "Provides direct access to multiscale OME-Zarr images using jzarr";
+	}
+
+	@Override
+	public Class<BufferedImage> getImageType() {
+		return BufferedImage.class;
+	}
+
+	@Override
+	public boolean matchClassName(String... classNames) {
+		for (var className : classNames) {
+			if (this.getClass().getName().equals(className) ||
+					this.getClass().getSimpleName().equals(className) ||
+					OMEZarrImageServer.class.getName().equals(className) ||
+					OMEZarrImageServer.class.getSimpleName().equals(className) ||
+					"ome-zarr".equalsIgnoreCase(className))
+				return true;
+		}
+		return false;
+	}
+
+}
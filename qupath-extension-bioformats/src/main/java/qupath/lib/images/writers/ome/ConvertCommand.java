@@ -114,6 +114,13 @@ public class ConvertCommand implements Runnable, Subcommand {
 	@Option(names = {"--tile-height"}, defaultValue = "512", description = "Set the tile height (default=512).")
 	private int tileHeight;
 	
+	@Option(names = {"--chunk-size"}, defaultValue = "-1", description = {
+			"Group tiles into larger chunks of this size (of equal height and width), so that fewer files are written.",
+			"Viewers need to read and decompress a whole chunk to display any part of it, so large chunks can make browsing the image slower.",
+			"Only relevant for Zarr files."
+	})
+	private int chunkSize;
+	
 	@Option(names = {"-c", "--compression"}, defaultValue = "DEFAULT", description = {
 			"Type of compression to use for writing TIFF files.",
 			"Only relevant for TIFF files",
@@ -267,6 +274,7 @@ public class ConvertCommand implements Runnable, Subcommand {
 				case ZARR -> {
 					OMEZarrWriter.Builder builder = new OMEZarrWriter.Builder(server)
 							.tileSize(tileWidth, tileHeight)
+							.chunkSize(chunkSize)
 							.region(boundingBox.orElse(null))
 							.zSlices(zSlicesRange.start(), zSlicesRange.end())
 							.timePoints(timepointsRange.start(), timepointsRange.end());
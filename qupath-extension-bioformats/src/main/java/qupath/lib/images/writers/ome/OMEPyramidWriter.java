@@ -42,6 +42,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import qupath.lib.color.ColorModelFactory;
 import qupath.lib.common.ColorTools;
+import qupath.lib.common.ThreadTools;
 import qupath.lib.images.servers.ImageChannel;
 import qupath.lib.images.servers.ImageServer;
 import qupath.lib.images.servers.ImageServerMetadata;
@@ -70,8 +71,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -695,173 +701,181 @@ public class OMEPyramidWriter {
             } catch (FormatException e) {
                 throw new IOException(e);
             }
-            for (int level = 0; level < downsamples.length; level++) {
-				
-				writer.setResolution(level);
-				
-				// Preallocate any IFD
-				if (isTiff) {
-					map.clear();
-					for (int i = 0; i < nPlanes; i++) {
-						IFD ifd = new IFD();
-						if (isTiled) {
-							ifd.put(IFD.TILE_WIDTH, tileWidth);
-							ifd.put(IFD.TILE_LENGTH, tileHeight);
+			// Share the same threads across all planes and levels, rather than creating new pools each time
+			try (var pipeline = parallelThreads > 1 ? new TilePipeline(parallelThreads) : null) {
+				for (int level = 0; level < downsamples.length; level++) {
+					
+					writer.setResolution(level);
+					
+					// Preallocate any IFD
+					if (isTiff) {
+						map.clear();
+						for (int i = 0; i < nPlanes; i++) {
+							IFD ifd = new IFD();
+							if (isTiled) {
+								ifd.put(IFD.TILE_WIDTH, tileWidth);
+								ifd.put(IFD.TILE_LENGTH, tileHeight);
+							}
+							if (nSamples > 1 && !isRGB)
+								ifd.put(IFD.EXTRA_SAMPLES, new short[nSamples-1]);
+							map.put(Integer.valueOf(i), ifd);
 						}
-						if (nSamples > 1 && !isRGB)
-							ifd.put(IFD.EXTRA_SAMPLES, new short[nSamples-1]);
-						map.put(Integer.valueOf(i), ifd);
 					}
-				}
-	
-				double d = downsamples[level];
-				
-				// Make extra sure we're using the same width & height that we said we'd use for the resolution level
-				int w = width;
-				int h = height;
-				if (meta instanceof IPyramidStore && level > 0) {
-					w = ((IPyramidStore)meta).getResolutionSizeX(series, level).getValue().intValue();
-					h = ((IPyramidStore)meta).getResolutionSizeY(series, level).getValue().intValue();
-				}
-	
-				int tInc = tEnd >= tStart ? 1 : -1;
-				int zInc = zEnd >= zStart ? 1 : -1;
-				int effectiveSizeC = nChannels / nSamples;
-				
-				AtomicInteger count = new AtomicInteger(0);
-								
-				int ti = 0;
-				for (int t = tStart; t < tEnd; t += tInc) {
-					int zi = 0;
-					for (int z = zStart; z < zEnd; z += zInc) {
-						
-						List<TileRequest> tiles = new ArrayList<>();
-						
-						// Use tiles directly if we aren't cropping and they exist as the requested resolution level
-						// This may not be necessary; it is a minor *potential* optimization intended to help ensure 
-						// we avoid any rounding errors that could thwart caching or introduce oddness
-						int levelTemp = ServerTools.getPreferredResolutionLevel(server, d);
-						if (d == server.getDownsampleForResolution(levelTemp) && 
-								x == 0 && y == 0 &&
-								w == server.getMetadata().getLevel(levelTemp).getWidth() &&
-								h == server.getMetadata().getLevel(levelTemp).getHeight() &&
-								tileWidth == server.getMetadata().getPreferredTileWidth() && tileHeight == server.getMetadata().getPreferredTileHeight()) {
+		
+					double d = downsamples[level];
+					
+					// Make extra sure we're using the same width & height that we said we'd use for the resolution level
+					int w = width;
+					int h = height;
+					if (meta instanceof IPyramidStore && level > 0) {
+						w = ((IPyramidStore)meta).getResolutionSizeX(series, level).getValue().intValue();
+						h = ((IPyramidStore)meta).getResolutionSizeY(series, level).getValue().intValue();
+					}
+		
+					int tInc = tEnd >= tStart ? 1 : -1;
+					int zInc = zEnd >= zStart ? 1 : -1;
+					int effectiveSizeC = nChannels / nSamples;
+					
+					AtomicInteger count = new AtomicInteger(0);
+									
+					int ti = 0;
+					for (int t = tStart; t < tEnd; t += tInc) {
+						int zi = 0;
+						for (int z = zStart; z < zEnd; z += zInc) {
 							
-							logger.debug("Using tile requests directly for level {}", level);
-							logger.trace("Tiled level: {} ({})", level, server.getMetadata().getLevel(level));
-							int thisZ = z;
-							int thisT = t;
-							server.getTileRequestManager()
-								.getTileRequestsForLevel(levelTemp)
-								.stream()
-								.filter(tile -> tile.getZ() == thisZ && tile.getT() == thisT)
-								.forEachOrdered(tiles::add);
-						} else {
-							// Create new tile requests
-							for (int yy = 0; yy < h; yy += tileHeight) {
-								int hh = Math.min(h - yy, tileHeight);
-								for (int xx = 0; xx < w; xx += tileWidth) {
-									int ww = Math.min(w - xx, tileWidth);
-									var region = ImageRegion.createInstance(xx, yy, ww, hh, z, t);
-									tiles.add(TileRequest.createInstance(server.getPath(), level, d, region));
+							List<TileRequest> tiles = new ArrayList<>();
+							
+							// Use tiles directly if we aren't cropping and they exist as the requested resolution level
+							// This may not be necessary; it is a minor *potential* optimization intended to help ensure 
+							// we avoid any rounding errors that could thwart caching or introduce oddness
+							int levelTemp = ServerTools.getPreferredResolutionLevel(server, d);
+							if (d == server.getDownsampleForResolution(levelTemp) && 
+									x == 0 && y == 0 &&
+									w == server.getMetadata().getLevel(levelTemp).getWidth() &&
+									h == server.getMetadata().getLevel(levelTemp).getHeight() &&
+									tileWidth == server.getMetadata().getPreferredTileWidth() && tileHeight == server.getMetadata().getPreferredTileHeight()) {
+								
+								logger.debug("Using tile requests directly for level {}", level);
+								logger.trace("Tiled level: {} ({})", level, server.getMetadata().getLevel(level));
+								int thisZ = z;
+								int thisT = t;
+								server.getTileRequestManager()
+									.getTileRequestsForLevel(levelTemp)
+									.stream()
+									.filter(tile -> tile.getZ() == thisZ && tile.getT() == thisT)
+									.forEachOrdered(tiles::add);
+							} else {
+								// Create new tile requests
+								for (int yy = 0; yy < h; yy += tileHeight) {
+									int hh = Math.min(h - yy, tileHeight);
+									for (int xx = 0; xx < w; xx += tileWidth) {
+										int ww = Math.min(w - xx, tileWidth);
+										var region = ImageRegion.createInstance(xx, yy, ww, hh, z, t);
+										tiles.add(TileRequest.createInstance(server.getPath(), level, d, region));
+									}
 								}
 							}
-						}
-						
-						int total = tiles.size() * (tEnd - tStart) * (zEnd - zStart);
-						if (z == zStart && t == tStart)
-							logger.info("Writing resolution {} of {} (downsample={}, {} tiles)", level+1, downsamples.length, d, total);
+							
+							int total = tiles.size() * (tEnd - tStart) * (zEnd - zStart);
+							if (z == zStart && t == tStart)
+								logger.info("Writing resolution {} of {} (downsample={}, {} tiles)", level+1, downsamples.length, d, total);
 
-						TileRequest firstTile = tiles.remove(0);
-						
-						// Show progress at key moments
-						int inc = total > 1000 ? 20 : 10;
-						Set<Integer> keyCounts = IntStream.range(1, inc).mapToObj(i -> (int)Math.round((double)total / inc * i)).collect(Collectors.toCollection(() -> new HashSet<>()));
-						keyCounts.add(total-1);
-						
-						// Loop through effective channels (which is 1 if we are writing interleaved)
-						for (int ci = 0; ci < effectiveSizeC; ci++) {
+							TileRequest firstTile = tiles.remove(0);
 							
-							/*
-							 *  It appears we can use parallelization for tile writing (thanks to synchronization in the writer),
-							 *  provided we write the (0,0) tile first.
-							 */
-							long planeStartTime = System.currentTimeMillis();
-							count.set(0);
+							// Show progress at key moments
+							int inc = total > 1000 ? 20 : 10;
+							Set<Integer> keyCounts = IntStream.range(1, inc).mapToObj(i -> (int)Math.round((double)total / inc * i)).collect(Collectors.toCollection(() -> new HashSet<>()));
+							keyCounts.add(total-1);
 							
-							int plane = ti * sizeZ * effectiveSizeC + zi * effectiveSizeC + ci;
-							IFD ifd = isTiff ? map.get(Integer.valueOf(plane)) : null;
-							int[] localChannels = effectiveSizeC == channels.length ? new int[] {channels[ci]} : channels;
-						
-							logger.info("Writing plane {}/{}", plane+1, nPlanes);
-								
-							// We *must* write the first region first
-                            try {
-                                writeRegion(writer, plane, ifd, server, firstTile, isRGB, localChannels);
-                            } catch (FormatException e) {
-                                throw new IOException(e);
-                            }
-                            if (!tiles.isEmpty()) {
+							// Loop through effective channels (which is 1 if we are writing interleaved)
+							for (int ci = 0; ci < effectiveSizeC; ci++) {
 								
-								// Reversing the regions means that for a large image we can still get some tiles from the cache
-								// Do this for channels and levels, since we sometimes need to request the same tiles when exporting 
-								// at a lower resolution
-								if (ci > 0 || level > 0) {
-									logger.trace("Reversing list if {} regions", tiles.size());
-									Collections.reverse(tiles);
-								}
+								/*
+								 *  It appears we can use parallelization for tile writing (thanks to synchronization in the writer),
+								 *  provided we write the (0,0) tile first.
+								 */
+								long planeStartTime = System.currentTimeMillis();
+								count.set(0);
 								
-								var localWriter = writer;
-								var tasks = tiles.stream().map(tile -> new Runnable() {
-									@Override
-									public void run() {
-										try {
-											if (Thread.currentThread().isInterrupted())
-												return;
-											writeRegion(localWriter, plane, ifd, server, tile, isRGB, localChannels);
-										} catch (Exception e) {
-											logger.error(String.format(
-													"Error writing %s (downsample=%.2f)",
-													tile.toString(), d),
-													e);
-										} finally {
-											int localCount = count.incrementAndGet();
-											if (total > 20 && keyCounts.size() > 1 && keyCounts.contains(localCount)) {
-												double percentage = localCount*100.0/total;
-												logger.info("Written {}% tiles", Math.round(percentage));
+								int plane = ti * sizeZ * effectiveSizeC + zi * effectiveSizeC + ci;
+								IFD ifd = isTiff ? map.get(Integer.valueOf(plane)) : null;
+								int[] localChannels = effectiveSizeC == channels.length ? new int[] {channels[ci]} : channels;
+							
+								logger.info("Writing plane {}/{}", plane+1, nPlanes);
+									
+								// We *must* write the first region first
+                                try {
+                                    writeRegion(writer, plane, ifd, server, firstTile, isRGB, localChannels);
+                                } catch (FormatException e) {
+                                    throw new IOException(e);
+                                }
+                                if (!tiles.isEmpty()) {
+									
+									// Reversing the regions means that for a large image we can still get some tiles from the cache
+									// Do this for channels and levels, since we sometimes need to request the same tiles when exporting 
+									// at a lower resolution
+									if (ci > 0 || level > 0) {
+										logger.trace("Reversing list if {} regions", tiles.size());
+										Collections.reverse(tiles);
+									}
+									
+									Runnable logProgress = () -> {
+										int localCount = count.incrementAndGet();
+										if (total > 20 && keyCounts.size() > 1 && keyCounts.contains(localCount)) {
+											double percentage = localCount*100.0/total;
+											logger.info("Written {}% tiles", Math.round(percentage));
+										}
+									};
+									
+									if (pipeline != null) {
+										// If we are generating the pyramid, request tiles for the next level as soon as we can
+										// (while the tiles they are generated from are still likely to be cached)
+										NextLevelPrefetcher prefetcher = null;
+										if (ci == 0 && serverPyramidalized != null && level + 1 < downsamples.length) {
+											int wNext = (int)Math.ceil(width / downsamples[level + 1]);
+											int hNext = (int)Math.ceil(height / downsamples[level + 1]);
+											if (meta instanceof IPyramidStore pyramidStore) {
+												wNext = pyramidStore.getResolutionSizeX(series, level + 1).getValue().intValue();
+												hNext = pyramidStore.getResolutionSizeY(series, level + 1).getValue().intValue();
 											}
+											prefetcher = new NextLevelPrefetcher(server, x, y, tileWidth, tileHeight,
+													level + 1, downsamples[level + 1], wNext, hNext, tiles, firstTile, parallelThreads);
 										}
-									}
-								}).toList();
-								
-								if (parallelThreads > 1) {
-									var pool = Executors.newWorkStealingPool(parallelThreads);
-									for (var task : tasks) {
-										pool.submit(task);
-									}
-									pool.shutdown();
-									try {
-										pool.awaitTermination(tiles.size(), TimeUnit.MINUTES);
+										writeRegionsParallel(pipeline, writer, plane, ifd, server, firstTile, tiles, isRGB, localChannels, prefetcher, logProgress);
 										logger.info("Plane written in {} ms", System.currentTimeMillis() - planeStartTime);
-									} catch (InterruptedException e) {
-										logger.warn("OME-TIFF export interrupted!");
-										pool.shutdownNow();
-										throw new IOException("Error writing regions", e);
-									}
-								} else {
-									for (var task : tasks) {
-										if (Thread.currentThread().isInterrupted()) {
-											throw new IOException("Interrupted writing regions!");
+									} else {
+										var localWriter = writer;
+										var tasks = tiles.stream().map(tile -> new Runnable() {
+											@Override
+											public void run() {
+												try {
+													if (Thread.currentThread().isInterrupted())
+														return;
+													writeRegion(localWriter, plane, ifd, server, tile, isRGB, localChannels);
+												} catch (Exception e) {
+													logger.error(String.format(
+															"Error writing %s (downsample=%.2f)",
+															tile.toString(), d),
+															e);
+												} finally {
+													logProgress.run();
+												}
+											}
+										}).toList();
+										for (var task : tasks) {
+											if (Thread.currentThread().isInterrupted()) {
+												throw new IOException("Interrupted writing regions!");
+											}
+											task.run();
 										}
-										task.run();
+										logger.info("Plane written in {} ms", System.currentTimeMillis() - planeStartTime);
 									}
-									logger.info("Plane written in {} ms", System.currentTimeMillis() - planeStartTime);
 								}
 							}
+							zi++;
 						}
-						zi++;
+						ti++;
 					}
-					ti++;
 				}
 			}
 			logger.trace("Image count: {}", meta.getImageCount());
@@ -891,6 +905,59 @@ public class OMEPyramidWriter {
 			return serverPyramidalized == null ? getOriginalServer() : serverPyramidalized;
 		}
 		
+		/**
+		 * Write regions in parallel, using a {@link TilePipeline} so that requesting pixels and writing 
+		 * (with compression) can overlap.
+		 * The first tile should already have been written.
+		 * 
+		 * @param pipeline the pipeline to use; this is shared between planes, and not closed by this method
+		 * @param writer
+		 * @param plane
+		 * @param ifd the IFD; only used if the writer is a TiffWriter
+		 * @param server
+		 * @param firstTile the tile that has already been written
+		 * @param tiles the remaining tiles to write
+		 * @param isRGB
+		 * @param channels
+		 * @param prefetcher optional prefetcher to notify whenever a tile has been written; may be null
+		 * @param logProgress called after each tile has been handled
+		 * @throws IOException
+		 */
+		private void writeRegionsParallel(TilePipeline pipeline, IFormatWriter writer, int plane, IFD ifd, ImageServer<BufferedImage> server, 
+				TileRequest firstTile, List<TileRequest> tiles, boolean isRGB, int[] channels, 
+				NextLevelPrefetcher prefetcher, Runnable logProgress) throws IOException {
+			if (prefetcher != null)
+				prefetcher.tileWritten(firstTile, pipeline.readPool);
+			List<CompletableFuture<?>> futures = new ArrayList<>();
+			try {
+				for (var tile : tiles) {
+					// Limit the number of tiles that have been read but not yet written
+					pipeline.permits.acquire();
+					futures.add(CompletableFuture
+							.supplyAsync(() -> prepareRegionUnchecked(server, tile, isRGB, channels), pipeline.readPool)
+							.thenAcceptAsync(prepared -> saveRegionUnchecked(writer, plane, ifd, prepared), pipeline.writePool)
+							.handle((v, e) -> {
+								pipeline.permits.release();
+								if (e != null) {
+									logger.error(String.format(
+											"Error writing %s (downsample=%.2f)",
+											tile.toString(), tile.getDownsample()),
+											e);
+								} else if (prefetcher != null) {
+									prefetcher.tileWritten(tile, pipeline.readPool);
+								}
+								logProgress.run();
+								return null;
+							}));
+				}
+				CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get();
+			} catch (InterruptedException | ExecutionException e) {
+				logger.warn("OME-TIFF export interrupted!");
+				futures.forEach(f -> f.cancel(true));
+				throw new IOException("Error writing regions", e);
+			}
+		}
+		
 		/**
 		 * Write a region. The ifd is only used if writer is an instance of TiffWriter.
 		 * 
@@ -905,6 +972,21 @@ public class OMEPyramidWriter {
 		 * @throws IOException
 		 */
 		private void writeRegion(IFormatWriter writer, int plane, IFD ifd, ImageServer<BufferedImage> server, TileRequest tile, boolean isRGB, int[] channels) throws FormatException, IOException {
+			saveRegion(writer, plane, ifd, prepareRegion(server, tile, isRGB, channels));
+		}
+		
+		/**
+		 * Request the pixels for a tile and convert them to the bytes that should be written.
+		 * This does not require access to the writer, and so can be called in parallel.
+		 * 
+		 * @param server
+		 * @param tile
+		 * @param isRGB
+		 * @param channels
+		 * @return
+		 * @throws IOException
+		 */
+		private PreparedTile prepareRegion(ImageServer<BufferedImage> server, TileRequest tile, boolean isRGB, int[] channels) throws IOException {
 			
 			// Get the region request - and make sure to translate it to the origin
 			RegionRequest request = tile.getRegionRequest().translate(this.x, this.y);
@@ -915,11 +997,7 @@ public class OMEPyramidWriter {
 			int nChannels = channels.length;
 			if (img == null) {
 				byte[] zeros = new byte[tile.getTileWidth() * tile.getTileHeight() * bytesPerPixel * nChannels];
-				if (writer instanceof TiffWriter)
-					((TiffWriter)writer).saveBytes(plane, zeros, ifd, tile.getTileX(), tile.getTileY(), tile.getTileWidth(), tile.getTileHeight());
-				else
-					writer.saveBytes(plane, zeros, tile.getTileX(), tile.getTileY(), tile.getTileWidth(), tile.getTileHeight());
-				return;
+				return new PreparedTile(tile, zeros, tile.getTileWidth(), tile.getTileHeight());
 			}
 			
 			int ww = img.getWidth();
@@ -944,10 +1022,41 @@ public class OMEPyramidWriter {
 					channelToBuffer(img.getRaster(), c, buf, ind, channels.length * bytesPerPixel, pixelType);
 				}
 			}
+			return new PreparedTile(tile, buf.array(), ww, hh);
+		}
+		
+		private PreparedTile prepareRegionUnchecked(ImageServer<BufferedImage> server, TileRequest tile, boolean isRGB, int[] channels) {
+			try {
+				return prepareRegion(server, tile, isRGB, channels);
+			} catch (IOException e) {
+				throw new CompletionException(e);
+			}
+		}
+		
+		/**
+		 * Write the bytes for a tile. Any compression is applied by the writer at this point.
+		 * 
+		 * @param writer
+		 * @param plane
+		 * @param ifd the IFD; only used if the writer is a TiffWriter
+		 * @param prepared
+		 * @throws FormatException
+		 * @throws IOException
+		 */
+		private static void saveRegion(IFormatWriter writer, int plane, IFD ifd, PreparedTile prepared) throws FormatException, IOException {
+			var tile = prepared.tile();
 			if (writer instanceof TiffWriter)
-				((TiffWriter)writer).saveBytes(plane, buf.array(), ifd, tile.getTileX(), tile.getTileY(), ww, hh);
+				((TiffWriter)writer).saveBytes(plane, prepared.bytes(), ifd, tile.getTileX(), tile.getTileY(), prepared.width(), prepared.height());
 			else
-				writer.saveBytes(plane, buf.array(), tile.getTileX(), tile.getTileY(), ww, hh);
+				writer.saveBytes(plane, prepared.bytes(), tile.getTileX(), tile.getTileY(), prepared.width(), prepared.height());
+		}
+		
+		private static void saveRegionUnchecked(IFormatWriter writer, int plane, IFD ifd, PreparedTile prepared) {
+			try {
+				saveRegion(writer, plane, ifd, prepared);
+			} catch (FormatException | IOException e) {
+				throw new CompletionException(e);
+			}
 		}
 		
 		/**
@@ -1053,6 +1162,157 @@ public class OMEPyramidWriter {
 		
 	}
 	
+	/**
+	 * Pixels for a tile, converted to bytes and ready to be passed to the writer.
+	 */
+	private record PreparedTile(TileRequest tile, byte[] bytes, int width, int height) {}
+	
+	/**
+	 * Thread pools used for parallel export.
+	 * <p>
+	 * Pixels are requested and converted using one pool, and written (including compression) using another 
+	 * &ndash; so that slow reads and slow writes can overlap, rather than every thread alternating between the two.
+	 * The number of tiles that have been read but not yet written is bounded, to limit memory use.
+	 */
+	private static class TilePipeline implements AutoCloseable {
+		
+		private final ExecutorService readPool;
+		private final ExecutorService writePool;
+		private final Semaphore permits;
+		
+		private TilePipeline(int nThreads) {
+			this.readPool = Executors.newFixedThreadPool(nThreads, ThreadTools.createThreadFactory("ome-tiff-read-", true));
+			this.writePool = Executors.newFixedThreadPool(nThreads, ThreadTools.createThreadFactory("ome-tiff-write-", true));
+			this.permits = new Semaphore(nThreads * 2);
+		}
+		
+		@Override
+		public void close() {
+			readPool.shutdownNow();
+			writePool.shutdownNow();
+		}
+		
+	}
+	
+	/**
+	 * Helper to request tiles for the next resolution level as soon as all the tiles they overlap 
+	 * at the current level have been written.
+	 * <p>
+	 * This is used when the pyramid is being generated, so that the next level can be computed while 
+	 * the tiles it depends upon are most likely to still be in the cache &ndash; rather than waiting until 
+	 * the entire level has been written, by which point many of the tiles may have been evicted.
+	 * The tiles are read but not retained; they are expected to be retrieved from the cache later.
+	 * <p>
+	 * Prefetching is only an optimization, so the number of requests that may be queued or running at any time 
+	 * is capped; when the cap is reached, tiles are skipped rather than delaying the tiles that must be written.
+	 */
+	private static class NextLevelPrefetcher {
+		
+		private final ImageServer<BufferedImage> server;
+		private final int x, y;
+		private final int tileWidth, tileHeight;
+		private final int level;
+		private final double downsample;
+		private final int width, height;
+		private final int nTilesX;
+		private final int z, t;
+		
+		private final Map<TileRequest, int[]> children = new HashMap<>();
+		private final AtomicInteger[] remainingParents;
+		private final Semaphore inFlight;
+		
+		private NextLevelPrefetcher(ImageServer<BufferedImage> server, int x, int y, int tileWidth, int tileHeight,
+				int level, double downsample, int width, int height, Collection<TileRequest> tiles, TileRequest firstTile,
+				int maxInFlight) {
+			this.server = server;
+			this.inFlight = new Semaphore(maxInFlight);
+			this.x = x;
+			this.y = y;
+			this.tileWidth = tileWidth;
+			this.tileHeight = tileHeight;
+			this.level = level;
+			this.downsample = downsample;
+			this.width = width;
+			this.height = height;
+			this.z = firstTile.getZ();
+			this.t = firstTile.getT();
+			this.nTilesX = (width + tileWidth - 1) / tileWidth;
+			int nTilesY = (height + tileHeight - 1) / tileHeight;
+			this.remainingParents = new AtomicInteger[nTilesX * nTilesY];
+			for (int i = 0; i < remainingParents.length; i++)
+				remainingParents[i] = new AtomicInteger();
+			
+			var allTiles = new ArrayList<TileRequest>(tiles);
+			allTiles.add(firstTile);
+			for (var tile : allTiles) {
+				// Find the tiles at the next level that overlap this one
+				double scale = tile.getDownsample() / downsample;
+				int x1 = clip((int)(tile.getTileX() * scale / tileWidth), nTilesX);
+				int x2 = clip((int)((tile.getTileX() + tile.getTileWidth()) * scale / tileWidth - 1e-6), nTilesX);
+				int y1 = clip((int)(tile.getTileY() * scale / tileHeight), nTilesY);
+				int y2 = clip((int)((tile.getTileY() + tile.getTileHeight()) * scale / tileHeight - 1e-6), nTilesY);
+				int[] inds = new int[(x2 - x1 + 1) * (y2 - y1 + 1)];
+				int i = 0;
+				for (int yy = y1; yy <= y2; yy++) {
+					for (int xx = x1; xx <= x2; xx++) {
+						int ind = yy * nTilesX + xx;
+						inds[i++] = ind;
+						remainingParents[ind].incrementAndGet();
+					}
+				}
+				children.put(tile, inds);
+			}
+		}
+		
+		private static int clip(int value, int n) {
+			return Math.max(0, Math.min(value, n - 1));
+		}
+		
+		/**
+		 * Notify that a tile at the current level has been written.
+		 * @param tile
+		 * @param pool the pool to use for requesting tiles at the next level
+		 */
+		void tileWritten(TileRequest tile, ExecutorService pool) {
+			int[] inds = children.get(tile);
+			if (inds == null)
+				return;
+			for (int ind : inds) {
+				if (remainingParents[ind].decrementAndGet() == 0)
+					requestTile(ind % nTilesX, ind / nTilesX, pool);
+			}
+		}
+		
+		private void requestTile(int tx, int ty, ExecutorService pool) {
+			int xx = tx * tileWidth;
+			int yy = ty * tileHeight;
+			var region = ImageRegion.createInstance(xx, yy, Math.min(tileWidth, width - xx), Math.min(tileHeight, height - yy), z, t);
+			var request = TileRequest.createInstance(server.getPath(), level, downsample, region)
+					.getRegionRequest()
+					.translate(x, y);
+			if (!inFlight.tryAcquire()) {
+				logger.trace("Skipping prefetch of {} - too many requests in flight", request);
+				return;
+			}
+			try {
+				pool.execute(() -> {
+					try {
+						server.readRegion(request);
+					} catch (Exception e) {
+						// Not a problem, since the tile will be requested again when needed
+						logger.debug("Unable to prefetch {}: {}", request, e.getMessage());
+					} finally {
+						inFlight.release();
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				inFlight.release();
+				logger.debug("Unable to prefetch {} - pool has been shut down", request);
+			}
+		}
+		
+	}
+	
 	
 	static int[] ensureIntArray(Object array, int length) {
 		if (!(array instanceof int[]) || ((int[])array).length != length)
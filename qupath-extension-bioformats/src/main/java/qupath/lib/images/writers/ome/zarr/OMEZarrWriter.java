@@ -19,12 +19,15 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import java.util.function.Consumer;
 
 /**
@@ -34,7 +37,9 @@ import java.util.function.Consumer;
  * <p>
  * Use a {@link Builder} to create an instance of this class.
  * <p>
- * This class is not thread-safe but uses concurrency internally to write tiles.
+ * This class is not thread-safe but uses concurrency internally to write tiles. Reading tiles, compressing
+ * chunks and writing chunk files are performed by separate pools of threads, so that compression and I/O can
+ * overlap.
  * <p>
  * See {@link PyramidalOMEZarrWriter} for a more memory friendly Zarr writer.
  */
@@ -43,7 +48,7 @@ public class OMEZarrWriter {
     private static final Logger logger = LoggerFactory.getLogger(OMEZarrWriter.class);
     private final ImageServer<BufferedImage> server;
     private final int numberOfThreads;
-    private final Map<Integer, ZarrArray> levels;
+    private final Map<Integer, ZarrChunkArray> levels;
     private final Consumer<TileRequest> onTileWritten;
 
     private OMEZarrWriter(Builder builder, Path path) throws IOException {
@@ -90,14 +95,18 @@ public class OMEZarrWriter {
             logger.warn("Error while creating OME XML file of {}. Some image metadata won't be written", path, e);
         }
 
-        this.levels = ZarrWriterUtils.createLevels(
+        Map<Integer, ZarrArray> zarrArrays = ZarrWriterUtils.createLevels(
                 server.getMetadata(),
                 root,
-                server.getMetadata().getPreferredTileWidth(),
-                server.getMetadata().getPreferredTileHeight(),
+                ZarrWriterUtils.getOutputChunkSize(builder.chunkWidth, server.getMetadata().getPreferredTileWidth(), server.getWidth()),
+                ZarrWriterUtils.getOutputChunkSize(builder.chunkHeight, server.getMetadata().getPreferredTileHeight(), server.getHeight()),
                 attributes.getLevelAttributes(),
                 builder.compressor
         );
+        this.levels = new HashMap<>();
+        for (var entry : zarrArrays.entrySet()) {
+            levels.put(entry.getKey(), new ZarrChunkArray(path.resolve(String.valueOf(entry.getKey())), entry.getValue()));
+        }
 
         this.onTileWritten = builder.onTileWritten;
     }
@@ -112,33 +121,38 @@ public class OMEZarrWriter {
      * @throws InterruptedException if the calling thread is interrupted
      */
     public void writeImage() throws InterruptedException {
-        ExecutorService executorService = Executors.newFixedThreadPool(
-                numberOfThreads,
-                ThreadTools.createThreadFactory("zarr_writer_", false)
-        );
-
-        for (TileRequest tileRequest: server.getTileRequestManager().getAllTileRequests()) {
-            executorService.execute(() -> {
-                try {
-                    writeTile(tileRequest);
-                } catch (Exception e) {
-                    if (e instanceof InterruptedException) {
-                        logger.debug("Writing tile {} interrupted", tileRequest, e);
-                        Thread.currentThread().interrupt();
-                    } else {
-                        logger.error("Error when writing tile {}", tileRequest, e);
+        try (ZarrChunkWriter chunkWriter = new ZarrChunkWriter(numberOfThreads, "zarr_writer_")) {
+            List<CompletableFuture<?>> futures = new ArrayList<>();
+            for (TileRequest tileRequest: server.getTileRequestManager().getAllTileRequests()) {
+                futures.add(chunkWriter.writeTile(
+                        levels.get(tileRequest.getLevel()),
+                        () -> ZarrWriterUtils.convertBufferedImageToArray(server.readRegion(tileRequest.getRegionRequest())),
+                        ZarrWriterUtils.getDimensionsOfTile(server.getMetadata(), tileRequest),
+                        ZarrWriterUtils.getOffsetsOfTile(server.getMetadata(), tileRequest)
+                ).handle((v, e) -> {
+                    if (e != null) {
+                        logger.error("Error when writing tile {}", tileRequest, e instanceof CompletionException ? e.getCause() : e);
                     }
-                }
-            });
+                    onTileWritten.accept(tileRequest);
+                    return null;
+                }));
+            }
+
+            try {
+                CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get();
+            } catch (ExecutionException e) {
+                // Shouldn't happen, since errors are handled for each tile
+                logger.error("Error when writing image", e);
+            } catch (InterruptedException e) {
+                logger.debug("Waiting interrupted. Stopping tasks", e);
+                throw e;
+            }
         }
-        executorService.shutdown();
 
-        try {
-            executorService.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
-        } catch (InterruptedException e) {
-            logger.debug("Waiting interrupted. Stopping tasks", e);
-            executorService.shutdownNow();
-            throw e;
+        for (var level : levels.values()) {
+            if (level.getPendingChunkCount() > 0) {
+                logger.warn("{} chunks were not written because some tiles could not be written", level.getPendingChunkCount());
+            }
         }
     }
 
@@ -152,13 +166,16 @@ public class OMEZarrWriter {
      * so functions like {@link TileRequestManager#getAllTileRequests()} may not return the expected tiles.
      * Use the {@link ImageServer#getTileRequestManager() TileRequestManager} of {@link #getReaderServer()}
      * to get accurate tiles.
+     * <p>
+     * If a chunk size was set with {@link Builder#chunkSize(int, int)}, a chunk file is only written once all
+     * the tiles it contains have been written.
      *
      * @param tileRequest the tile to write
      * @throws Exception if an exception occurs while writing the tile
      */
     public void writeTile(TileRequest tileRequest) throws Exception {
         try {
-            levels.get(tileRequest.getLevel()).write(
+            levels.get(tileRequest.getLevel()).writeTile(
                     ZarrWriterUtils.convertBufferedImageToArray(server.readRegion(tileRequest.getRegionRequest())),
                     ZarrWriterUtils.getDimensionsOfTile(server.getMetadata(), tileRequest),
                     ZarrWriterUtils.getOffsetsOfTile(server.getMetadata(), tileRequest)
@@ -195,6 +212,8 @@ public class OMEZarrWriter {
         private int maxNumberOfChunks = -1;
         private int tileWidth = -1;
         private int tileHeight = -1;
+        private int chunkWidth = -1;
+        private int chunkHeight = -1;
         private ImageRegion boundingBox = null;
         private int zStart = 0;
         private int zEnd;
@@ -307,6 +326,56 @@ public class OMEZarrWriter {
             return this;
         }
 
+        /**
+         * Write chunks that are larger than the tiles that are read, so that each chunk file contains several tiles.
+         * By default, these values are set to -1.
+         * <p>
+         * Pixels are still read tile by tile (see {@link #tileSize(int)}), but tiles are grouped into larger Zarr chunks before
+         * they are written. This reduces the number of files that are written, which can be much faster on
+         * filesystems where there is a high cost for each file. Tiles are kept in memory until their chunk is complete.
+         * <p>
+         * Note that this is not Zarr v3 sharding: each chunk is compressed as a whole, in the same way as any other
+         * Zarr v2 chunk. Readers such as {@link qupath.lib.images.servers.zarr.OMEZarrImageServer} and other viewers
+         * need to fetch and decompress an entire chunk to read any of its pixels, so large chunks can make reading
+         * individual tiles (e.g. when browsing the image) much slower.
+         * <p>
+         * Use a negative value (or a value not greater than the tile size) to write each tile in a separate chunk file.
+         * Chunks are never larger than the image.
+         *
+         * @param chunkSize the width/height of each chunk, in pixels
+         * @return this builder
+         * @see #chunkSize(int, int)
+         */
+        public Builder chunkSize(int chunkSize) {
+            return chunkSize(chunkSize, chunkSize);
+        }
+
+        /**
+         * Write chunks that are larger than the tiles that are read, so that each chunk file contains several tiles.
+         * By default, these values are set to -1.
+         * <p>
+         * Pixels are still read tile by tile (see {@link #tileSize(int, int)}), but tiles are grouped into larger Zarr chunks before
+         * they are written. This reduces the number of files that are written, which can be much faster on
+         * filesystems where there is a high cost for each file. Tiles are kept in memory until their chunk is complete.
+         * <p>
+         * Note that this is not Zarr v3 sharding: each chunk is compressed as a whole, in the same way as any other
+         * Zarr v2 chunk. Readers such as {@link qupath.lib.images.servers.zarr.OMEZarrImageServer} and other viewers
+         * need to fetch and decompress an entire chunk to read any of its pixels, so large chunks can make reading
+         * individual tiles (e.g. when browsing the image) much slower.
+         * <p>
+         * Use a negative value (or a value not greater than the tile size) to write each tile in a separate chunk file.
+         * Chunks are never larger than the image.
+         *
+         * @param chunkWidth the width of each chunk, in pixels
+         * @param chunkHeight the height of each chunk, in pixels
+         * @return this builder
+         */
+        public Builder chunkSize(int chunkWidth, int chunkHeight) {
+            this.chunkWidth = chunkWidth;
+            this.chunkHeight = chunkHeight;
+            return this;
+        }
+
         /**
          * Define a region (on the x-axis and y-axis) of the input image to consider.
          *
@@ -22,12 +22,13 @@ import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.DoubleConsumer;
 
@@ -42,6 +43,9 @@ import java.util.function.DoubleConsumer;
  * levels are written. This provides less flexibility than {@link OMEZarrWriter} but is less likely to throw out of
  * memory errors.
  * <p>
+ * Reading tiles, compressing chunks and writing chunk files are performed by separate pools of threads, so that
+ * compression and I/O can overlap.
+ * <p>
  * Use a {@link Builder} to create an instance of this class.
  * <p>
  * This class is not thread-safe but already uses concurrency internally to write tiles.
@@ -57,7 +61,7 @@ public class PyramidalOMEZarrWriter {
     private final int numberOfThreads;
     private final Path path;
     private final ZarrGroup root;
-    private final Map<Integer, ZarrArray> levels;
+    private final Map<Integer, ZarrChunkArray> levels;
     private final DoubleConsumer onProgress;
 
     private PyramidalOMEZarrWriter(Builder builder, Path path) throws IOException {
@@ -100,18 +104,24 @@ public class PyramidalOMEZarrWriter {
             logger.warn("Error while creating OME XML file of {}. Some image metadata won't be written", path, e);
         }
 
-        this.levels = ZarrWriterUtils.createLevels(
+        int width = (int) (server.getWidth() / firstDownsampleOnInputImage);
+        int height = (int) (server.getHeight() / firstDownsampleOnInputImage);
+        Map<Integer, ZarrArray> zarrArrays = ZarrWriterUtils.createLevels(
                 new ImageServerMetadata.Builder(server.getMetadata())
-                        .width((int) (server.getWidth() / firstDownsampleOnInputImage))
-                        .height((int) (server.getHeight() / firstDownsampleOnInputImage))
+                        .width(width)
+                        .height(height)
                         .levelsFromDownsamples(downsamplesOutputImage.stream().mapToDouble(Double::doubleValue).toArray())
                         .build(),
                 root,
-                tileWidth,
-                tileHeight,
+                ZarrWriterUtils.getOutputChunkSize(builder.chunkWidth, tileWidth, width),
+                ZarrWriterUtils.getOutputChunkSize(builder.chunkHeight, tileHeight, height),
                 new OMEZarrAttributesCreator(server.getMetadata()).getLevelAttributes(),
                 builder.compressor
         );
+        this.levels = new HashMap<>();
+        for (var entry : zarrArrays.entrySet()) {
+            levels.put(entry.getKey(), new ZarrChunkArray(path.resolve(String.valueOf(entry.getKey())), entry.getValue()));
+        }
 
         this.onProgress = builder.onProgress;
     }
@@ -123,12 +133,7 @@ public class PyramidalOMEZarrWriter {
      * @throws Exception if a reading or writing error occurs or if this function is interrupted
      */
     public void writeImage() throws Exception {
-        ExecutorService executorService = Executors.newFixedThreadPool(
-                numberOfThreads,
-                ThreadTools.createThreadFactory("pyramidal_zarr_writer_", false)
-        );
-
-        try {
+        try (ZarrChunkWriter chunkWriter = new ZarrChunkWriter(numberOfThreads, "pyramidal_zarr_writer_")) {
             int numberOfDownsamples = downsamplesOutputImage.size();
             root.writeAttributes(
                     new OMEZarrAttributesCreator(new ImageServerMetadata.Builder(server.getMetadata())
@@ -142,7 +147,7 @@ public class PyramidalOMEZarrWriter {
                     firstDownsampleOnInputImage,
                     levels.get(0),
                     server,
-                    executorService,
+                    chunkWriter,
                     progress -> onProgress.accept(progress / numberOfDownsamples)
             );
 
@@ -159,7 +164,7 @@ public class PyramidalOMEZarrWriter {
                             downsamplesOutputImage.get(i),
                             levels.get(i),
                             server,
-                            executorService,
+                            chunkWriter,
                             progress -> onProgress.accept(progressOffset + progress / numberOfDownsamples)
                     );
                 }
@@ -171,8 +176,6 @@ public class PyramidalOMEZarrWriter {
                         ).getGroupAttributes()
                 );
             }
-        } finally {
-            executorService.shutdownNow();
         }
     }
 
@@ -190,6 +193,8 @@ public class PyramidalOMEZarrWriter {
         private int maxNumberOfChunks = -1;
         private int tileWidth = 1024;
         private int tileHeight = 1024;
+        private int chunkWidth = -1;
+        private int chunkHeight = -1;
         private ImageRegion boundingBox = null;
         private int zStart = 0;
         private int zEnd;
@@ -311,6 +316,32 @@ public class PyramidalOMEZarrWriter {
             return this;
         }
 
+        /**
+         * Write chunks that are larger than the tiles that are read, so that each chunk file contains several tiles.
+         * By default, these values are set to -1.
+         * <p>
+         * Pixels are still read tile by tile (see {@link #tileSize(int, int)}), but tiles are grouped into larger Zarr chunks before
+         * they are written. This reduces the number of files that are written, which can be much faster on
+         * filesystems where there is a high cost for each file. Tiles are kept in memory until their chunk is complete.
+         * <p>
+         * Note that this is not Zarr v3 sharding: each chunk is compressed as a whole, in the same way as any other
+         * Zarr v2 chunk. Readers such as {@link qupath.lib.images.servers.zarr.OMEZarrImageServer} and other viewers
+         * need to fetch and decompress an entire chunk to read any of its pixels, so large chunks can make reading
+         * individual tiles (e.g. when browsing the image) much slower.
+         * <p>
+         * Use a negative value (or a value not greater than the tile size) to write each tile in a separate chunk file.
+         * Chunks are never larger than the image.
+         *
+         * @param chunkWidth the width of each chunk, in pixels
+         * @param chunkHeight the height of each chunk, in pixels
+         * @return this builder
+         */
+        public Builder chunkSize(int chunkWidth, int chunkHeight) {
+            this.chunkWidth = chunkWidth;
+            this.chunkHeight = chunkHeight;
+            return this;
+        }
+
         /**
          * Define a region (on the x-axis and y-axis) of the input image to consider.
          *
@@ -404,9 +435,9 @@ public class PyramidalOMEZarrWriter {
             String path,
             int level,
             double downsample,
-            ZarrArray zarrArray,
+            ZarrChunkArray zarrArray,
             ImageServer<BufferedImage> server,
-            ExecutorService executorService,
+            ZarrChunkWriter chunkWriter,
             DoubleConsumer onProgress
     ) throws InterruptedException {
         int[] imageDimensions = ZarrWriterUtils.getDimensionsOfImage(server.getMetadata(), downsample);
@@ -423,29 +454,37 @@ public class PyramidalOMEZarrWriter {
         );
         int numberOfTiles = tileRequests.size();
 
-        CountDownLatch latch = new CountDownLatch(tileRequests.size());
+        List<CompletableFuture<?>> futures = new ArrayList<>(numberOfTiles);
         AtomicInteger numberOfTilesProcessed = new AtomicInteger(0);
         for (TileRequest tileRequest: tileRequests) {
-            executorService.execute(() -> {
-                try {
-                    zarrArray.write(
-                            ZarrWriterUtils.convertBufferedImageToArray(server.readRegion(tileRequest.getRegionRequest())),
-                            ZarrWriterUtils.getDimensionsOfTile(server.getMetadata(), tileRequest),
-                            ZarrWriterUtils.getOffsetsOfTile(server.getMetadata(), tileRequest)
-                    );
-                } catch (Throwable e) {
-                    if (e.getCause() instanceof InterruptedException) {
-                        logger.debug("Tile {} writing interrupted", tileRequest, e);
+            futures.add(chunkWriter.writeTile(
+                    zarrArray,
+                    () -> ZarrWriterUtils.convertBufferedImageToArray(server.readRegion(tileRequest.getRegionRequest())),
+                    ZarrWriterUtils.getDimensionsOfTile(server.getMetadata(), tileRequest),
+                    ZarrWriterUtils.getOffsetsOfTile(server.getMetadata(), tileRequest)
+            ).handle((v, e) -> {
+                if (e != null) {
+                    Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                    if (cause instanceof InterruptedException || (cause != null && cause.getCause() instanceof InterruptedException)) {
+                        logger.debug("Tile {} writing interrupted", tileRequest, cause);
                     } else {
-                        logger.error("Error when writing tile {}", tileRequest, e);
+                        logger.error("Error when writing tile {}", tileRequest, cause);
                     }
                 }
-
-                latch.countDown();
                 onProgress.accept((double) numberOfTilesProcessed.incrementAndGet() / numberOfTiles);
-            });
+                return null;
+            }));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).get();
+        } catch (ExecutionException e) {
+            // Shouldn't happen, since errors are handled for each tile
+            logger.error("Error when writing level {}", level, e);
+        }
+        if (zarrArray.getPendingChunkCount() > 0) {
+            logger.warn("{} chunks of level {} were not written because some tiles could not be written",
+                    zarrArray.getPendingChunkCount(), level);
         }
-        latch.await();
     }
 
     private static Collection<TileRequest> getTileRequestsForLevel(
@@ -0,0 +1,298 @@
+package qupath.lib.images.writers.ome.zarr;
+
+import com.bc.zarr.Compressor;
+import com.bc.zarr.ZarrArray;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes the chunks of a Zarr array directly, rather than through {@link ZarrArray#write(Object, int[], int[])}.
+ * <p>
+ * This separates the work required to write a tile into three steps that can be performed by different threads:
+ * <ol>
+ *     <li>splitting (or combining) tiles into chunks with {@link #addTile(Object, int[], int[])}</li>
+ *     <li>encoding and compressing each chunk with {@link #encode(Chunk)}</li>
+ *     <li>writing the compressed bytes to a file with {@link #write(Chunk, byte[])}</li>
+ * </ol>
+ * Chunks may be larger than tiles. In this case, tiles are held in memory until all the tiles that overlap
+ * a chunk have been added, and the chunk is written as a single file.
+ * <p>
+ * The chunk files are compatible with those written by jzarr, assuming that the array was created with
+ * {@link ZarrWriterUtils#createLevels(qupath.lib.images.servers.ImageServerMetadata, com.bc.zarr.ZarrGroup, int, int, Map, Compressor)}
+ * (i.e. using big-endian byte order and "/" as dimension separator).
+ */
+class ZarrChunkArray {
+
+    private final Path path;
+    private final int[] shape;
+    private final int[] chunkShape;
+    private final Compressor compressor;
+    private final Map<List<Integer>, PendingChunk> pendingChunks = new ConcurrentHashMap<>();
+
+    /**
+     * Create the chunk writer for an existing Zarr array.
+     *
+     * @param path the directory of the array
+     * @param array the array, whose shape, chunks and compressor should be used
+     */
+    public ZarrChunkArray(Path path, ZarrArray array) {
+        this(path, array.getShape(), array.getChunks(), array.getCompressor());
+    }
+
+    ZarrChunkArray(Path path, int[] shape, int[] chunkShape, Compressor compressor) {
+        this.path = path;
+        this.shape = shape.clone();
+        this.chunkShape = chunkShape.clone();
+        this.compressor = compressor;
+    }
+
+    /**
+     * A chunk that is ready to be encoded.
+     *
+     * @param index the index of the chunk along each dimension
+     * @param data a one-dimensional primitive array containing all the pixels of the chunk, in C order
+     */
+    record Chunk(int[] index, Object data) {}
+
+    private static class PendingChunk {
+
+        private final Object data;
+        private long remaining;
+
+        private PendingChunk(Object data, long remaining) {
+            this.data = data;
+            this.remaining = remaining;
+        }
+    }
+
+    /**
+     * Add the pixels of a tile to this array.
+     * <p>
+     * This is thread-safe, and is relatively cheap (it involves copying pixels, but no compression or I/O).
+     *
+     * @param pixels a one-dimensional primitive array containing the pixels of the tile, in C order.
+     *               This array may be returned as the data of a chunk, so should not be modified afterwards
+     * @param tileShape the shape of the tile
+     * @param tileOffset the offset of the tile within the array
+     * @return the chunks that have been completed by this tile, and are therefore ready to be encoded
+     * @throws IllegalArgumentException if the tile doesn't match the dimensions of the array
+     */
+    public List<Chunk> addTile(Object pixels, int[] tileShape, int[] tileOffset) {
+        int nDims = shape.length;
+        if (tileShape.length != nDims || tileOffset.length != nDims) {
+            throw new IllegalArgumentException(String.format(
+                    "Tile shape %s and offset %s do not match array shape %s",
+                    Arrays.toString(tileShape), Arrays.toString(tileOffset), Arrays.toString(shape)
+            ));
+        }
+
+        int[] firstChunk = new int[nDims];
+        int[] lastChunk = new int[nDims];
+        for (int d = 0; d < nDims; d++) {
+            int end = Math.min(tileOffset[d] + tileShape[d], shape[d]);
+            if (end <= tileOffset[d]) {
+                return List.of();
+            }
+            firstChunk[d] = tileOffset[d] / chunkShape[d];
+            lastChunk[d] = (end - 1) / chunkShape[d];
+        }
+
+        List<Chunk> completed = new ArrayList<>();
+        int[] index = firstChunk.clone();
+        while (true) {
+            Chunk chunk = addToChunk(index.clone(), pixels, tileShape, tileOffset);
+            if (chunk != null) {
+                completed.add(chunk);
+            }
+            // Move to the next chunk, in C order
+            int d = nDims - 1;
+            while (d >= 0 && index[d] == lastChunk[d]) {
+                index[d] = firstChunk[d];
+                d--;
+            }
+            if (d < 0) {
+                return completed;
+            }
+            index[d]++;
+        }
+    }
+
+    private Chunk addToChunk(int[] index, Object pixels, int[] tileShape, int[] tileOffset) {
+        int nDims = shape.length;
+        int[] chunkOffset = new int[nDims];
+        int[] srcStart = new int[nDims];
+        int[] dstStart = new int[nDims];
+        int[] size = new int[nDims];
+        long chunkPixels = 1;
+        long chunkPixelsInArray = 1;
+        long copiedPixels = 1;
+        boolean tileMatchesChunk = true;
+        for (int d = 0; d < nDims; d++) {
+            chunkOffset[d] = index[d] * chunkShape[d];
+            int chunkEnd = Math.min(chunkOffset[d] + chunkShape[d], shape[d]);
+            int start = Math.max(chunkOffset[d], tileOffset[d]);
+            int end = Math.min(chunkEnd, tileOffset[d] + tileShape[d]);
+            srcStart[d] = start - tileOffset[d];
+            dstStart[d] = start - chunkOffset[d];
+            size[d] = end - start;
+            chunkPixels *= chunkShape[d];
+            chunkPixelsInArray *= chunkEnd - chunkOffset[d];
+            copiedPixels *= size[d];
+            tileMatchesChunk = tileMatchesChunk && tileOffset[d] == chunkOffset[d] && tileShape[d] == chunkShape[d];
+        }
+
+        // Use the tile directly if it corresponds exactly to a chunk (the usual case)
+        if (tileMatchesChunk) {
+            return new Chunk(index, pixels);
+        }
+
+        // Copy into a new chunk if this tile contains all the required pixels (e.g. at the image boundary)
+        if (copiedPixels == chunkPixelsInArray) {
+            Object data = Array.newInstance(pixels.getClass().getComponentType(), (int) chunkPixels);
+            copy(pixels, tileShape, srcStart, data, chunkShape, dstStart, size);
+            return new Chunk(index, data);
+        }
+
+        // Otherwise we need to wait for other tiles
+        var key = Arrays.stream(index).boxed().toList();
+        int length = (int) chunkPixels;
+        long remaining = chunkPixelsInArray;
+        var pending = pendingChunks.computeIfAbsent(key, k -> new PendingChunk(
+                Array.newInstance(pixels.getClass().getComponentType(), length),
+                remaining
+        ));
+        synchronized (pending) {
+            copy(pixels, tileShape, srcStart, pending.data, chunkShape, dstStart, size);
+            pending.remaining -= copiedPixels;
+            if (pending.remaining > 0) {
+                return null;
+            }
+        }
+        pendingChunks.remove(key);
+        return new Chunk(index, pending.data);
+    }
+
+    /**
+     * Get the number of chunks that have received some, but not all, of their pixels.
+     * This should be zero once all tiles have been added.
+     *
+     * @return the number of incomplete chunks
+     */
+    public int getPendingChunkCount() {
+        return pendingChunks.size();
+    }
+
+    /**
+     * Convert the pixels of a chunk to big-endian bytes, and compress them.
+     * This is thread-safe.
+     *
+     * @param chunk the chunk to encode
+     * @return the compressed bytes
+     * @throws IOException if the compression fails
+     */
+    public byte[] encode(Chunk chunk) throws IOException {
+        byte[] bytes = toBytes(chunk.data());
+        var output = new ByteArrayOutputStream(bytes.length / 2);
+        compressor.compress(new ByteArrayInputStream(bytes), output);
+        return output.toByteArray();
+    }
+
+    /**
+     * Write the encoded bytes of a chunk to its file.
+     * This is thread-safe.
+     *
+     * @param chunk the chunk to write
+     * @param bytes the encoded bytes, as returned by {@link #encode(Chunk)}
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Chunk chunk, byte[] bytes) throws IOException {
+        Path chunkPath = path;
+        for (int i : chunk.index()) {
+            chunkPath = chunkPath.resolve(String.valueOf(i));
+        }
+        Files.createDirectories(chunkPath.getParent());
+        Files.write(chunkPath, bytes);
+    }
+
+    /**
+     * Add a tile, and encode and write any chunks that are completed by it from the calling thread.
+     *
+     * @param pixels a one-dimensional primitive array containing the pixels of the tile, in C order
+     * @param tileShape the shape of the tile
+     * @param tileOffset the offset of the tile within the array
+     * @throws IOException if a chunk cannot be written
+     */
+    public void writeTile(Object pixels, int[] tileShape, int[] tileOffset) throws IOException {
+        for (Chunk chunk : addTile(pixels, tileShape, tileOffset)) {
+            write(chunk, encode(chunk));
+        }
+    }
+
+    private static byte[] toBytes(Object data) {
+        return switch (data) {
+            case byte[] array -> array;
+            case short[] array -> {
+                var buffer = ByteBuffer.allocate(array.length * Short.BYTES).order(ByteOrder.BIG_ENDIAN);
+                buffer.asShortBuffer().put(array);
+                yield buffer.array();
+            }
+            case int[] array -> {
+                var buffer = ByteBuffer.allocate(array.length * Integer.BYTES).order(ByteOrder.BIG_ENDIAN);
+                buffer.asIntBuffer().put(array);
+                yield buffer.array();
+            }
+            case float[] array -> {
+                var buffer = ByteBuffer.allocate(array.length * Float.BYTES).order(ByteOrder.BIG_ENDIAN);
+                buffer.asFloatBuffer().put(array);
+                yield buffer.array();
+            }
+            case double[] array -> {
+                var buffer = ByteBuffer.allocate(array.length * Double.BYTES).order(ByteOrder.BIG_ENDIAN);
+                buffer.asDoubleBuffer().put(array);
+                yield buffer.array();
+            }
+            case null, default -> throw new UnsupportedOperationException(String.format("Unknown data type %s", data));
+        };
+    }
+
+    /**
+     * Copy a (hyper)rectangle between two one-dimensional arrays representing n-dimensional arrays in C order.
+     */
+    private static void copy(Object src, int[] srcShape, int[] srcStart, Object dst, int[] dstShape, int[] dstStart, int[] size) {
+        int nDims = size.length;
+        int rowLength = size[nDims - 1];
+        int[] position = new int[nDims];
+        while (true) {
+            int srcIndex = 0;
+            int dstIndex = 0;
+            for (int d = 0; d < nDims; d++) {
+                srcIndex = srcIndex * srcShape[d] + srcStart[d] + position[d];
+                dstIndex = dstIndex * dstShape[d] + dstStart[d] + position[d];
+            }
+            System.arraycopy(src, srcIndex, dst, dstIndex, rowLength);
+
+            // Move to the next row
+            int d = nDims - 2;
+            while (d >= 0 && position[d] == size[d] - 1) {
+                position[d] = 0;
+                d--;
+            }
+            if (d < 0) {
+                return;
+            }
+            position[d]++;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package qupath.lib.images.writers.ome.zarr;
+
+import qupath.lib.common.ThreadTools;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Pipeline to write tiles to {@link ZarrChunkArray ZarrChunkArrays}.
+ * <p>
+ * Reading tiles, compressing chunks and writing chunk files are each performed by a different pool of threads,
+ * so that compression and I/O can overlap. The number of tiles being processed at any time is limited, so that
+ * tiles cannot be read much faster than they can be written.
+ */
+class ZarrChunkWriter implements AutoCloseable {
+
+    private final ExecutorService readPool;
+    private final ExecutorService compressionPool;
+    private final ExecutorService ioPool;
+    private final Semaphore permits;
+
+    /**
+     * Create the pipeline.
+     *
+     * @param numberOfThreads the number of threads to use for each step
+     * @param threadPrefix prefix for the name of the threads
+     */
+    public ZarrChunkWriter(int numberOfThreads, String threadPrefix) {
+        this.readPool = Executors.newFixedThreadPool(numberOfThreads, ThreadTools.createThreadFactory(threadPrefix + "read_", false));
+        this.compressionPool = Executors.newFixedThreadPool(numberOfThreads, ThreadTools.createThreadFactory(threadPrefix + "compress_", false));
+        this.ioPool = Executors.newFixedThreadPool(numberOfThreads, ThreadTools.createThreadFactory(threadPrefix + "io_", false));
+        // Allow enough tiles for each step to be kept busy
+        this.permits = new Semaphore(numberOfThreads * 3);
+    }
+
+    /**
+     * Write a tile asynchronously. This will block if too many tiles are already being written.
+     *
+     * @param array the array to write to
+     * @param pixelsReader a function returning a one-dimensional array containing the pixels of the tile, in C order
+     * @param tileShape the shape of the tile
+     * @param tileOffset the offset of the tile within the array
+     * @return a future that completes when all the chunks completed by the tile have been written
+     * @throws InterruptedException if the calling thread is interrupted while waiting to submit the tile
+     */
+    public CompletableFuture<Void> writeTile(ZarrChunkArray array, Callable<Object> pixelsReader, int[] tileShape, int[] tileOffset) throws InterruptedException {
+        permits.acquire();
+        try {
+            return CompletableFuture.supplyAsync(() -> array.addTile(call(pixelsReader), tileShape, tileOffset), readPool)
+                    .thenCompose(chunks -> writeChunks(array, chunks))
+                    .whenComplete((v, e) -> permits.release());
+        } catch (RuntimeException e) {
+            // Thrown if the pool has been shut down
+            permits.release();
+            throw e;
+        }
+    }
+
+    private CompletableFuture<Void> writeChunks(ZarrChunkArray array, List<ZarrChunkArray.Chunk> chunks) {
+        return CompletableFuture.allOf(chunks.stream()
+                .map(chunk -> CompletableFuture
+                        .supplyAsync(() -> encode(array, chunk), compressionPool)
+                        .thenAcceptAsync(bytes -> write(array, chunk, bytes), ioPool))
+                .toArray(CompletableFuture[]::new));
+    }
+
+    private static Object call(Callable<Object> callable) {
+        try {
+            return callable.call();
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private static byte[] encode(ZarrChunkArray array, ZarrChunkArray.Chunk chunk) {
+        try {
+            return array.encode(chunk);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private static void write(ZarrChunkArray array, ZarrChunkArray.Chunk chunk, byte[] bytes) {
+        try {
+            array.write(chunk, bytes);
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Stop all threads, without waiting for pending tiles to be written.
+     */
+    @Override
+    public void close() {
+        readPool.shutdownNow();
+        compressionPool.shutdownNow();
+        ioPool.shutdownNow();
+    }
+}
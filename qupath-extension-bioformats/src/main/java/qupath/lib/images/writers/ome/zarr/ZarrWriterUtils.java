@@ -19,6 +19,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.lang.reflect.Array;
+import java.nio.ByteOrder;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
@@ -57,6 +58,22 @@ class ZarrWriterUtils {
         );
     }
 
+    /**
+     * Get the size (i.e. width or height) of the chunks to write when tiles may be grouped into larger chunks.
+     *
+     * @param chunkSize the requested chunk size. Can be negative or not greater than the tile size to write one chunk per tile
+     * @param tileSize the size of the tiles to read
+     * @param imageSize the size of the image that will contain the chunks
+     * @return the tile size if tiles shouldn't be grouped, otherwise the chunk size (clipped to the image size,
+     * but not smaller than the tile size)
+     */
+    public static int getOutputChunkSize(int chunkSize, int tileSize, int imageSize) {
+        if (chunkSize <= tileSize) {
+            return tileSize;
+        }
+        return Math.max(tileSize, Math.min(chunkSize, imageSize));
+    }
+
     /**
      * Create an "OME" sub ground in the provided zarr group located in the provided path and create a "METADATA.ome.xml" file inside
      * it containing the June 2016 Open Microscopy Environment OME Schema applied to the provided metadata.
@@ -84,6 +101,7 @@ class ZarrWriterUtils {
      * Create and return {@link ZarrArray} corresponding to the resolution levels of an image.
      * <p>
      * The pixels of the returned {@link ZarrArray} are not written, but basic information (e.g. attributes) is.
+     * Big-endian byte order and "/" as dimension separator are used, as expected by {@link ZarrChunkArray}.
      *
      * @param metadata the metadata of the image to represent
      * @param root the {@link ZarrGroup} that should contain the {@link ZarrArray}
@@ -124,6 +142,7 @@ class ZarrWriterUtils {
                                         case FLOAT32 -> DataType.f4;
                                         case FLOAT64 -> DataType.f8;
                                     })
+                                    .byteOrder(ByteOrder.BIG_ENDIAN)
                                     .dimensionSeparator(DimensionSeparator.SLASH),
                             levelAttributes
                     )
@@ -0,0 +1,95 @@
+/*-
+ * #%L
+ * This file is part of QuPath.
+ * %%
+ * Copyright (C) 2026 QuPath developers, The University of Edinburgh
+ * %%
+ * QuPath is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * QuPath is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with QuPath.  If not, see <https://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package qupath.lib.images.servers.bioformats;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import qupath.lib.images.servers.TileRequest;
+import qupath.lib.images.servers.WrappedBufferedImageServer;
+import qupath.lib.images.writers.ome.OMEPyramidWriter;
+import qupath.lib.regions.ImageRegion;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SuppressWarnings("javadoc")
+public class TestReaderPool {
+
+	@Test
+	public void testTilesSmallerThanChunks(@TempDir Path dir) throws Exception {
+		int width = 600;
+		int height = 500;
+		var img = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		var random = new Random(100);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++)
+				img.setRGB(x, y, random.nextInt());
+		}
+		var path = dir.resolve("image.ome.tif");
+		try (var server = new WrappedBufferedImageServer("image", img)) {
+			new OMEPyramidWriter.Builder(server)
+					.tileSize(256)
+					.channelsInterleaved()
+					.losslessCompression()
+					.build()
+					.writeSeries(path.toString());
+		}
+
+		// Request tiles smaller than the native chunks - some will be extracted from a chunk,
+		// while others cross chunk boundaries and need to be read directly
+		int tileSize = 100;
+		try (var pool = new ReaderPool(BioFormatsServerOptions.getInstance(), path.toString(), BioFormatsArgs.parse(new String[0]))) {
+			for (int y = 0; y < height; y += tileSize) {
+				for (int x = 0; x < width; x += tileSize) {
+					int w = Math.min(tileSize, width - x);
+					int h = Math.min(tileSize, height - y);
+					var tileRequest = TileRequest.createInstance(path.toString(), 0, 1.0, ImageRegion.createInstance(x, y, w, h, 0, 0));
+					var imgTile = pool.openImage(tileRequest, tileSize, tileSize, 0, 3, true, img.getColorModel());
+					assertArrayEquals(
+							img.getRGB(x, y, w, h, null, 0, w),
+							imgTile.getRGB(0, 0, w, h, null, 0, w));
+				}
+			}
+			// Chunks should be removed once all their tiles have been extracted
+			assertEquals(0, pool.getCachedChunkCount());
+		}
+	}
+
+	@Test
+	public void testCountTilesInChunk() {
+		// Tiles at 0 and 100 are inside the chunk, while the tile at 200 crosses into the next chunk
+		assertEquals(2, ReaderPool.countTilesInChunk(0, 256, 100, 600));
+		// Tiles at 300 and 400 are inside the chunk
+		assertEquals(2, ReaderPool.countTilesInChunk(256, 256, 100, 600));
+		// The last chunk is clipped to the image, as is its tile
+		assertEquals(1, ReaderPool.countTilesInChunk(512, 88, 128, 600));
+		// Here, the tile at 500 crosses the start of the last chunk
+		assertEquals(0, ReaderPool.countTilesInChunk(512, 88, 100, 600));
+		assertEquals(4, ReaderPool.countTilesInChunk(0, 512, 128, 1000));
+		assertEquals(0, ReaderPool.countTilesInChunk(10, 80, 100, 600));
+	}
+
+}
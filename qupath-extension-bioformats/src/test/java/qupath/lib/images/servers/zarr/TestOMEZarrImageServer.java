@@ -0,0 +1,125 @@
+/*-
+ * #%L
+ * This file is part of QuPath.
+ * %%
+ * Copyright (C) 2026 QuPath developers, The University of Edinburgh
+ * %%
+ * QuPath is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * QuPath is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with QuPath.  If not, see <https://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package qupath.lib.images.servers.zarr;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import qupath.lib.color.ColorModelFactory;
+import qupath.lib.images.servers.ImageChannel;
+import qupath.lib.images.servers.PixelType;
+import qupath.lib.images.servers.WrappedBufferedImageServer;
+import qupath.lib.images.writers.ome.zarr.OMEZarrWriter;
+
+import java.awt.image.BandedSampleModel;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.WritableRaster;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SuppressWarnings("javadoc")
+public class TestOMEZarrImageServer {
+
+	private static final int WIDTH = 100;
+	private static final int HEIGHT = 80;
+
+	@Test
+	public void testReadRGB(@TempDir Path dir) throws Exception {
+		var img = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+		var random = new Random(100);
+		for (int y = 0; y < HEIGHT; y++) {
+			for (int x = 0; x < WIDTH; x++)
+				img.setRGB(x, y, random.nextInt() & 0xFFFFFF);
+		}
+		Path path = dir.resolve("rgb.ome.zarr");
+		try (var server = new WrappedBufferedImageServer("rgb", img)) {
+			new OMEZarrWriter.Builder(server).tileSize(32).build(path.toString()).writeImage();
+		}
+
+		try (var server = new OMEZarrImageServer(path.toUri())) {
+			assertTrue(server.isRGB());
+			assertEquals(WIDTH, server.getWidth());
+			assertEquals(HEIGHT, server.getHeight());
+			assertEquals(32, server.getMetadata().getPreferredTileWidth());
+			assertEquals(32, server.getMetadata().getPreferredTileHeight());
+			var read = server.readRegion(1, 0, 0, WIDTH, HEIGHT);
+			assertArrayEquals(
+					img.getRGB(0, 0, WIDTH, HEIGHT, null, 0, WIDTH),
+					read.getRGB(0, 0, WIDTH, HEIGHT, null, 0, WIDTH));
+		}
+	}
+
+	@Test
+	public void testReadMultichannel(@TempDir Path dir) throws Exception {
+		int nChannels = 3;
+		var channels = ImageChannel.getDefaultChannelList(nChannels);
+		var raster = WritableRaster.createWritableRaster(
+				new BandedSampleModel(DataBuffer.TYPE_USHORT, WIDTH, HEIGHT, nChannels), null);
+		var random = new Random(100);
+		for (int c = 0; c < nChannels; c++) {
+			for (int y = 0; y < HEIGHT; y++) {
+				for (int x = 0; x < WIDTH; x++)
+					raster.setSample(x, y, c, random.nextInt(65536));
+			}
+		}
+		var img = new BufferedImage(ColorModelFactory.createColorModel(PixelType.UINT16, channels), raster, false, null);
+		Path path = dir.resolve("multichannel.ome.zarr");
+		try (var server = new WrappedBufferedImageServer("multichannel", img, channels)) {
+			new OMEZarrWriter.Builder(server)
+					.tileSize(32)
+					.downsamples(1, 2)
+					.build(path.toString())
+					.writeImage();
+		}
+
+		// Check we can open the image via its attributes file too
+		try (var server = new OMEZarrImageServer(path.resolve(".zattrs").toUri())) {
+			assertEquals(PixelType.UINT16, server.getPixelType());
+			assertEquals(channels, server.getMetadata().getChannels());
+			assertEquals(2, server.nResolutions());
+			var read = server.readRegion(1, 0, 0, WIDTH, HEIGHT);
+			for (int c = 0; c < nChannels; c++) {
+				assertArrayEquals(
+						img.getRaster().getSamples(0, 0, WIDTH, HEIGHT, c, (int[])null),
+						read.getRaster().getSamples(0, 0, WIDTH, HEIGHT, c, (int[])null));
+			}
+		}
+	}
+
+	@Test
+	public void testSupport(@TempDir Path dir) throws Exception {
+		var builder = new OMEZarrServerBuilder();
+		assertEquals(0f, builder.checkImageSupport(dir.toUri()).getSupportLevel());
+
+		var img = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+		Path path = dir.resolve("image.ome.zarr");
+		try (var server = new WrappedBufferedImageServer("image", img)) {
+			new OMEZarrWriter.Builder(server).build(path.toString()).writeImage();
+		}
+		assertTrue(builder.checkImageSupport(path.toUri()).getSupportLevel() > 0);
+	}
+
+}
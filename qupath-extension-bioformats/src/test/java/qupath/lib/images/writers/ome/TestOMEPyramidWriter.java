@@ -0,0 +1,190 @@
+/*-
+ * #%L
+ * This file is part of QuPath.
+ * %%
+ * Copyright (C) 2026 QuPath developers, The University of Edinburgh
+ * %%
+ * QuPath is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * QuPath is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with QuPath.  If not, see <https://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package qupath.lib.images.writers.ome;
+
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import qupath.lib.color.ColorModelFactory;
+import qupath.lib.images.servers.AbstractImageServer;
+import qupath.lib.images.servers.ImageChannel;
+import qupath.lib.images.servers.ImageServer;
+import qupath.lib.images.servers.ImageServerBuilder;
+import qupath.lib.images.servers.ImageServerMetadata;
+import qupath.lib.images.servers.ImageServerProvider;
+import qupath.lib.images.servers.PixelType;
+import qupath.lib.regions.RegionRequest;
+
+import java.awt.image.BandedSampleModel;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferUShort;
+import java.awt.image.WritableRaster;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SuppressWarnings("javadoc")
+public class TestOMEPyramidWriter {
+
+	private static final double[] DOWNSAMPLES = {1, 2, 4};
+
+	/**
+	 * Write a pyramid from a single-resolution image, so that the lower resolutions are generated during export,
+	 * then read back every pixel of every level and plane.
+	 */
+	@ParameterizedTest
+	@ValueSource(ints = {1, 4})
+	public void testRoundTrip(int nThreads, @TempDir Path dir) throws Exception {
+		var path = dir.resolve("image.ome.tif").toString();
+		try (var server = new BlockImageServer()) {
+			new OMEPyramidWriter.Builder(server)
+					.tileSize(64)
+					.downsamples(DOWNSAMPLES)
+					.allZSlices()
+					.allTimePoints()
+					.channelsPlanar()
+					.losslessCompression()
+					.parallelize(nThreads)
+					.build()
+					.writeSeries(path);
+		}
+
+		try (ImageServer<BufferedImage> server = ImageServerProvider.buildServer(path, BufferedImage.class)) {
+			assertEquals(BlockImageServer.WIDTH, server.getWidth());
+			assertEquals(BlockImageServer.HEIGHT, server.getHeight());
+			assertEquals(BlockImageServer.N_CHANNELS, server.nChannels());
+			assertEquals(BlockImageServer.SIZE_Z, server.nZSlices());
+			assertEquals(BlockImageServer.SIZE_T, server.nTimepoints());
+			assertEquals(PixelType.UINT16, server.getPixelType());
+			assertEquals(DOWNSAMPLES.length, server.nResolutions());
+
+			for (int level = 0; level < DOWNSAMPLES.length; level++) {
+				double downsample = DOWNSAMPLES[level];
+				assertEquals(downsample, server.getDownsampleForResolution(level), 1e-6);
+				for (int t = 0; t < server.nTimepoints(); t++) {
+					for (int z = 0; z < server.nZSlices(); z++) {
+						var request = RegionRequest.createInstance(path, downsample, 0, 0, server.getWidth(), server.getHeight(), z, t);
+						var raster = server.readRegion(request).getRaster();
+						int w = (int)(server.getWidth() / downsample);
+						int h = (int)(server.getHeight() / downsample);
+						assertEquals(w, raster.getWidth());
+						assertEquals(h, raster.getHeight());
+						for (int c = 0; c < server.nChannels(); c++) {
+							for (int y = 0; y < h; y++) {
+								for (int x = 0; x < w; x++) {
+									int expected = BlockImageServer.getPixel((int)(x * downsample), (int)(y * downsample), c, z, t);
+									int actual = raster.getSample(x, y, c);
+									if (expected != actual)
+										assertEquals(expected, actual,
+												String.format("Pixel mismatch at level=%d, x=%d, y=%d, c=%d, z=%d, t=%d", level, x, y, c, z, t));
+								}
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Single-resolution image made up of constant 4x4 blocks, so that downsampling by 2 or 4 gives exact values
+	 * regardless of how the lower resolutions are generated.
+	 */
+	private static class BlockImageServer extends AbstractImageServer<BufferedImage> {
+
+		private static final int WIDTH = 300;
+		private static final int HEIGHT = 200;
+		private static final int N_CHANNELS = 3;
+		private static final int SIZE_Z = 2;
+		private static final int SIZE_T = 2;
+
+		private BlockImageServer() {
+			super(BufferedImage.class);
+		}
+
+		@Override
+		protected ImageServerBuilder.ServerBuilder<BufferedImage> createServerBuilder() {
+			return null;
+		}
+
+		@Override
+		protected String createID() {
+			return getClass().getName();
+		}
+
+		@Override
+		public Collection<URI> getURIs() {
+			return List.of();
+		}
+
+		@Override
+		public String getServerType() {
+			return "Block server";
+		}
+
+		@Override
+		public ImageServerMetadata getOriginalMetadata() {
+			return new ImageServerMetadata.Builder()
+					.width(WIDTH)
+					.height(HEIGHT)
+					.sizeZ(SIZE_Z)
+					.sizeT(SIZE_T)
+					.pixelType(PixelType.UINT16)
+					.preferredTileSize(64, 64)
+					.channels(ImageChannel.getDefaultChannelList(N_CHANNELS))
+					.name("blocks")
+					.build();
+		}
+
+		@Override
+		public BufferedImage readRegion(RegionRequest request) {
+			double downsample = request.getDownsample();
+			int w = (int)Math.round(request.getWidth() / downsample);
+			int h = (int)Math.round(request.getHeight() / downsample);
+			short[][] data = new short[N_CHANNELS][w * h];
+			for (int c = 0; c < N_CHANNELS; c++) {
+				for (int y = 0; y < h; y++) {
+					for (int x = 0; x < w; x++) {
+						int xx = request.getX() + (int)(x * downsample);
+						int yy = request.getY() + (int)(y * downsample);
+						data[c][y * w + x] = (short)getPixel(xx, yy, c, request.getZ(), request.getT());
+					}
+				}
+			}
+			var buffer = new DataBufferUShort(data, w * h);
+			return new BufferedImage(
+					ColorModelFactory.createColorModel(PixelType.UINT16, getMetadata().getChannels()),
+					WritableRaster.createWritableRaster(new BandedSampleModel(buffer.getDataType(), w, h, N_CHANNELS), buffer, null),
+					false,
+					null);
+		}
+
+		private static int getPixel(int x, int y, int c, int z, int t) {
+			return (x / 4 * 7 + y / 4 * 131 + c * 10000 + z * 20000 + t * 30000) % 65536;
+		}
+
+	}
+
+}
@@ -362,6 +362,63 @@ public class TestOMEZarrWriter {
         FileUtils.deleteDirectory(path.toFile());
     }
 
+    @Test
+    void Check_Chunked_Tile_Width() throws Exception {
+        Path path = Files.createTempDirectory(UUID.randomUUID().toString());
+        String outputImagePath = Paths.get(path.toString(), "image.ome.zarr").toString();
+        SampleImageServer sampleImageServer = new SampleImageServer();
+        int expectedTileWidth = 48;
+
+        new OMEZarrWriter.Builder(sampleImageServer)
+                .tileSize(16)
+                .chunkSize(expectedTileWidth)
+                .build(outputImagePath)
+                .writeImage();
+
+        int tileWidth;
+        try (ImageServer<BufferedImage> server = ImageServerProvider.buildServer(outputImagePath, BufferedImage.class)) {
+            tileWidth = server.getMetadata().getPreferredTileWidth();
+        }
+        Assertions.assertEquals(expectedTileWidth, tileWidth);
+
+        sampleImageServer.close();
+        FileUtils.deleteDirectory(path.toFile());
+    }
+
+    @Test
+    void Check_Chunked_Image_Pixels() throws Exception {
+        Path path = Files.createTempDirectory(UUID.randomUUID().toString());
+        String outputImagePath = Paths.get(path.toString(), "image.ome.zarr").toString();
+        SampleImageServer sampleImageServer = new SampleImageServer();
+        int z = 2;
+        int t = 1;
+        BufferedImage expectedImage = sampleImageServer.readRegion(
+                1,
+                0,
+                0,
+                sampleImageServer.getWidth(),
+                sampleImageServer.getHeight(),
+                z,
+                t
+        );
+
+        new OMEZarrWriter.Builder(sampleImageServer)
+                .tileSize(16)
+                .chunkSize(48)
+                .downsamples(1)
+                .build(outputImagePath)
+                .writeImage();
+
+        BufferedImage image;
+        try (ImageServer<BufferedImage> server = ImageServerProvider.buildServer(outputImagePath, BufferedImage.class)) {
+            image = server.readRegion(1, 0, 0, server.getWidth(), server.getHeight(), z, t);
+        }
+        assertDoubleBufferedImagesEqual(expectedImage, image);
+
+        sampleImageServer.close();
+        FileUtils.deleteDirectory(path.toFile());
+    }
+
     @Test
     void Check_Bounding_Box() throws Exception {
         Path path = Files.createTempDirectory(UUID.randomUUID().toString());
@@ -21,6 +21,11 @@
 
 package qupath.lib.images.servers.openslide;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import qupath.lib.images.servers.openslide.jna.OpenSlideCache;
+import qupath.lib.images.servers.openslide.jna.OpenSlideLoader;
+
 /**
  * Helper class to store options related to how image servers using OpenSlide should be created.
  * <p>
@@ -29,11 +34,16 @@ package qupath.lib.images.servers.openslide;
  */
 public class OpenSlideOptions {
 
+    private static final Logger logger = LoggerFactory.getLogger(OpenSlideOptions.class);
+
     private static final OpenSlideOptions instance = new OpenSlideOptions();
 
     private boolean applyIccProfiles = false;
     private boolean cropBoundingBox = true;
 
+    private long sharedCacheBytes = Long.getLong("qupath.openslide.cache.bytes", 0L);
+    private OpenSlideCache sharedCache;
+
     private OpenSlideOptions() {}
 
     /**
@@ -75,6 +85,55 @@ public class OpenSlideOptions {
         return cropBoundingBox;
     }
 
+    /**
+     * Request that images opened using OpenSlide share a single cache with the specified capacity,
+     * rather than each image having its own cache.
+     * This helps limit memory use when many images are open at the same time, e.g. in parallel batch processing.
+     * <p>
+     * The default is 0, unless the system property {@code qupath.openslide.cache.bytes} is set.
+     * This change only affects images opened after it is made.
+     * A shared cache requires OpenSlide 4.0.0 or greater.
+     * @param bytes the capacity of the shared cache in bytes, or 0 to use a separate cache for each image
+     * @since v0.8.0
+     */
+    public synchronized void setSharedCacheBytes(long bytes) {
+        bytes = Math.max(0, bytes);
+        if (bytes == sharedCacheBytes)
+            return;
+        sharedCacheBytes = bytes;
+        if (sharedCache != null) {
+            // Images that are already open retain their references to the cache
+            sharedCache.close();
+            sharedCache = null;
+        }
+    }
+
+    /**
+     * Get the capacity of the shared cache used for images opened using OpenSlide.
+     * @return the capacity in bytes, or 0 if each image should use a separate cache
+     * @since v0.8.0
+     */
+    public synchronized long getSharedCacheBytes() {
+        return sharedCacheBytes;
+    }
+
+    /**
+     * Get the shared cache, creating it if necessary.
+     * @return the shared cache, or null if no shared cache should be used (or it could not be created)
+     */
+    synchronized OpenSlideCache getSharedCache() {
+        if (sharedCache == null && sharedCacheBytes > 0) {
+            try {
+                sharedCache = OpenSlideLoader.createCache(sharedCacheBytes);
+                logger.debug("Created shared OpenSlide cache with capacity {} bytes", sharedCacheBytes);
+            } catch (Exception e) {
+                logger.warn("Unable to create shared OpenSlide cache: {}", e.getMessage(), e);
+                sharedCacheBytes = 0;
+            }
+        }
+        return sharedCache;
+    }
+
     /**
      * Get the main (singleton) instance of the options.
      * @return
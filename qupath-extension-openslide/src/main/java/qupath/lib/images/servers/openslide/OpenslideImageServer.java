@@ -41,7 +41,6 @@ import qupath.lib.images.servers.openslide.jna.OpenSlide;
 import qupath.lib.images.servers.openslide.jna.OpenSlideLoader;
 
 import java.awt.Color;
-import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
 import java.awt.image.DataBufferInt;
 import java.io.IOException;
@@ -54,6 +53,8 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * ImageServer implementation using OpenSlide.
@@ -104,6 +105,30 @@ public class OpenslideImageServer extends AbstractTileableImageServer {
 	private final URI uri;
 	private final String[] args;
 
+	// Record time spent reading tiles
+	private final LongAdder tileCount = new LongAdder();
+	private final LongAdder tileNanos = new LongAdder();
+	private final AtomicLong maxTileNanos = new AtomicLong();
+
+	/**
+	 * Summary of the time spent reading tiles with OpenSlide.
+	 * @param tileCount number of tiles read
+	 * @param totalNanos total time spent reading tiles, in nanoseconds
+	 * @param maxNanos maximum time spent reading a single tile, in nanoseconds
+	 * @since v0.8.0
+	 */
+	public record ReadStatistics(long tileCount, long totalNanos, long maxNanos) {
+
+		/**
+		 * Get the mean time spent reading a tile.
+		 * @return the mean time in milliseconds, or NaN if no tiles have been read
+		 */
+		public double getMeanMillis() {
+			return tileCount == 0 ? Double.NaN : totalNanos / (tileCount * 1e6);
+		}
+
+	}
+
 	
 	private static double readNumericPropertyOrDefault(Map<String, String> properties, String name, double defaultValue) {
 		// Try to read a tile size
@@ -151,6 +176,16 @@ public class OpenslideImageServer extends AbstractTileableImageServer {
 		state = new OpenSlideState(osr);
 		cleanable = cleaner.register(this, state);
 
+		// Share a cache with other images, if requested
+		var sharedCache = OpenSlideOptions.getInstance().getSharedCache();
+		if (sharedCache != null) {
+			try {
+				osr.setCache(sharedCache);
+			} catch (RuntimeException e) {
+				logger.warn("Unable to use shared OpenSlide cache: {}", e.getMessage(), e);
+			}
+		}
+
 		// Parse the parameters
 		int width = (int)osr.getLevel0Width();
 		int height = (int)osr.getLevel0Height();
@@ -342,9 +377,24 @@ public class OpenslideImageServer extends AbstractTileableImageServer {
 	
 	@Override
 	public void close() {
+		if (logger.isDebugEnabled()) {
+			var stats = getReadStatistics();
+			logger.debug("Closing {} - read {} tiles (mean {} ms, max {} ms)", uri, stats.tileCount(),
+					GeneralTools.formatNumber(stats.getMeanMillis(), 2),
+					GeneralTools.formatNumber(stats.maxNanos() / 1e6, 2));
+		}
 		cleanable.clean();
 	}
 
+	/**
+	 * Get a summary of the time spent reading tiles with OpenSlide for this image.
+	 * @return the read statistics
+	 * @since v0.8.0
+	 */
+	public ReadStatistics getReadStatistics() {
+		return new ReadStatistics(tileCount.sum(), tileNanos.sum(), maxTileNanos.get());
+	}
+
 	/**
 	 * Retrieve a JSON string representation of the properties, as stored as key-value pairs by OpenSlide.
 	 * 
@@ -367,29 +417,45 @@ public class OpenslideImageServer extends AbstractTileableImageServer {
 		int tileWidth = tileRequest.getTileWidth();
 		int tileHeight = tileRequest.getTileHeight();
 
-//		double downsampleFactor = getPreferredDownsamplesArray()[downsampleInd];
-		BufferedImage img = new BufferedImage(tileWidth, tileHeight, BufferedImage.TYPE_INT_ARGB_PRE);
-        int[] data = ((DataBufferInt)img.getRaster().getDataBuffer()).getData();
-        
-		// Create a thumbnail for the region
-//        	osr.paintRegionOfLevel(g, dx, dy, sx, sy, w, h, level);
+		// Read the premultiplied ARGB pixels directly into the array of the image we will return
+		BufferedImage img = new BufferedImage(tileWidth, tileHeight, BufferedImage.TYPE_INT_RGB);
+		int[] data = ((DataBufferInt)img.getRaster().getDataBuffer()).getData();
+
+		long startTime = System.nanoTime();
 		osr.paintRegionARGB(data, tileX, tileY, tileRequest.getLevel(), tileWidth, tileHeight);
-		
-		// Previously tried to take shortcut and only repaint if needed - 
-		// but transparent pixels happened too often, and it's really needed to repaint every time
-//			if (backgroundColor == null && GeneralTools.almostTheSame(downsample, downsampleFactor, 0.001))
-//				return img;
-		
-		BufferedImage img2 = new BufferedImage(tileWidth, tileHeight, BufferedImage.TYPE_INT_RGB);
-		Graphics2D g2d = img2.createGraphics();
-		if (backgroundColor != null) {
-			g2d.setColor(backgroundColor);
-			g2d.fillRect(0, 0, tileWidth, tileHeight);
-		}
-		g2d.drawImage(img, 0, 0, tileWidth, tileHeight, null);
-		g2d.dispose();
+		long elapsed = System.nanoTime() - startTime;
+		tileCount.increment();
+		tileNanos.add(elapsed);
+		maxTileNanos.accumulateAndGet(elapsed, Math::max);
+
+		// Transparent pixels happen often, so we always need to composite onto the background
+		compositeOnBackground(data, backgroundColor == null ? 0 : backgroundColor.getRGB());
+		return img;
+	}
 
-		return img2;
+	/**
+	 * Composite premultiplied ARGB pixels onto an opaque background color, in-place.
+	 * This gives the same result as drawing the pixels onto an image filled with the background color.
+	 * @param argbPre premultiplied ARGB pixels; these will be replaced by RGB values
+	 * @param background the packed RGB background color
+	 */
+	static void compositeOnBackground(int[] argbPre, int background) {
+		int bgR = (background >> 16) & 0xFF;
+		int bgG = (background >> 8) & 0xFF;
+		int bgB = background & 0xFF;
+		for (int i = 0; i < argbPre.length; i++) {
+			int val = argbPre[i];
+			int a = val >>> 24;
+			if (a == 255) {
+				argbPre[i] = val & 0xFFFFFF;
+				continue;
+			}
+			int inv = 255 - a;
+			int r = ((val >> 16) & 0xFF) + (bgR * inv + 127) / 255;
+			int g = ((val >> 8) & 0xFF) + (bgG * inv + 127) / 255;
+			int b = (val & 0xFF) + (bgB * inv + 127) / 255;
+			argbPre[i] = Math.min(r, 255) << 16 | Math.min(g, 255) << 8 | Math.min(b, 255);
+		}
 	}
 
 	@Override
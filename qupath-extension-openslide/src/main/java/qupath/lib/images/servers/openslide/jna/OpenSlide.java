@@ -44,6 +44,7 @@ package qupath.lib.images.servers.openslide.jna;
  *
  */
 
+import com.sun.jna.Memory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -57,6 +58,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
@@ -80,6 +82,17 @@ public final class OpenSlide implements Closeable {
     public static final String PROPERTY_NAME_BOUNDS_WIDTH = "openslide.bounds-width";
     public static final String PROPERTY_NAME_BOUNDS_HEIGHT = "openslide.bounds-height";
 
+    /**
+     * Maximum number of native buffers retained for reuse when reading regions
+     */
+    private static final int MAX_POOLED_BUFFERS = Math.max(4, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Native buffers for reading regions, shared across all instances.
+     * Reading into these avoids JNA allocating (and copying to) a new native buffer for every request.
+     */
+    private static final ConcurrentLinkedQueue<Memory> buffers = new ConcurrentLinkedQueue<>();
+
     private final List<String> associatedImages;
 
     private long osr;
@@ -230,12 +243,57 @@ public final class OpenSlide implements Closeable {
             throw new IllegalArgumentException("w and h must be nonnegative");
         }
 
+        long nBytes = (long) w * (long) h * Integer.BYTES;
+        if (nBytes == 0)
+            return;
+        Memory buffer = borrowBuffer(nBytes);
         Lock rl = lock.readLock();
         rl.lock();
         try {
             checkNotDisposed();
-            jna.openslide_read_region(osr, dest, x, y, level, w, h);
+            jna.openslide_read_region(osr, buffer, x, y, level, w, h);
             checkError();
+            buffer.read(0, dest, 0, w * h);
+        } finally {
+            rl.unlock();
+            returnBuffer(buffer);
+        }
+    }
+
+    private static Memory borrowBuffer(long nBytes) {
+        var iter = buffers.iterator();
+        while (iter.hasNext()) {
+            var buffer = iter.next();
+            if (buffer.size() >= nBytes && buffers.remove(buffer))
+                return buffer;
+        }
+        return new Memory(nBytes);
+    }
+
+    private static void returnBuffer(Memory buffer) {
+        if (buffers.size() < MAX_POOLED_BUFFERS)
+            buffers.add(buffer);
+        else
+            buffer.close();
+    }
+
+    /**
+     * Use a cache that may be shared with other OpenSlide instances, rather than the default
+     * cache created for this instance.
+     * @param cache the cache to use
+     * @throws UnsupportedOperationException if an unsatisfied link error occurred, which indicates that
+     *                                       the OpenSlide version is not compatible (it should be 4.0.0 or greater).
+     * @since v0.8.0
+     */
+    public void setCache(OpenSlideCache cache) throws UnsupportedOperationException {
+        Lock rl = lock.readLock();
+        rl.lock();
+        try {
+            checkNotDisposed();
+            jna.openslide_set_cache(osr, cache.getHandle());
+        } catch (UnsatisfiedLinkError e) {
+            throw new UnsupportedOperationException(
+                    "Cache could not be set - OpenSlide version may not be compatible", e);
         } finally {
             rl.unlock();
         }
@@ -0,0 +1,72 @@
+/*-
+ * #%L
+ * This file is part of QuPath.
+ * %%
+ * Copyright (C) 2026 QuPath developers, The University of Edinburgh
+ * %%
+ * QuPath is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * QuPath is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with QuPath.  If not, see <https://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package qupath.lib.images.servers.openslide.jna;
+
+import java.io.Closeable;
+
+/**
+ * A tile cache that can be shared between multiple {@link OpenSlide} instances, so that the total memory
+ * used by OpenSlide for caching is bounded - rather than each image having its own cache.
+ * <p>
+ * Closing the cache releases this reference to it; OpenSlide will free the cache once all images using it
+ * have also been closed.
+ * This requires OpenSlide 4.0.0 or greater.
+ *
+ * @see OpenSlideLoader#createCache(long)
+ * @see OpenSlide#setCache(OpenSlideCache)
+ * @since v0.8.0
+ */
+public final class OpenSlideCache implements Closeable {
+
+    private final OpenSlideJNA jna;
+    private final long capacity;
+    private long cache;
+
+    OpenSlideCache(OpenSlideJNA jna, long cache, long capacity) {
+        this.jna = jna;
+        this.cache = cache;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Get the capacity of the cache.
+     * @return the maximum size of the cache, in bytes
+     */
+    public long getCapacity() {
+        return capacity;
+    }
+
+    synchronized long getHandle() {
+        if (cache == 0)
+            throw new IllegalStateException("OpenSlide cache has been closed");
+        return cache;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (cache != 0) {
+            jna.openslide_cache_release(cache);
+            cache = 0;
+        }
+    }
+
+}
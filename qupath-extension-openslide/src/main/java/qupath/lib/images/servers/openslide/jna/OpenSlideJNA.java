@@ -22,6 +22,7 @@
 package qupath.lib.images.servers.openslide.jna;
 
 import com.sun.jna.Library;
+import com.sun.jna.Pointer;
 
 /**
  * JNA interface for OpenSlide.
@@ -39,6 +40,7 @@ public interface OpenSlideJNA extends Library {
     String openslide_get_property_value(long osr, String name);
     String[] openslide_get_associated_image_names(long osr);
     void openslide_read_region(long osr, int[] dest, long x, long y, int level, long w, long h);
+    void openslide_read_region(long osr, Pointer dest, long x, long y, int level, long w, long h);
     void openslide_get_associated_image_dimensions(long osr, String name, long[] w, long[] h);
     void openslide_read_associated_image(long osr, String name, int[] dest);
     String openslide_get_error(long osr);
@@ -46,5 +48,8 @@ public interface OpenSlideJNA extends Library {
     // New in OpenSlide 4.0.0
     long openslide_get_icc_profile_size(long osr);
     void openslide_read_icc_profile(long osr, byte[] bytes);
+    long openslide_cache_create(long capacityInBytes);
+    void openslide_set_cache(long osr, long cache);
+    void openslide_cache_release(long cache);
 
 }
@@ -141,6 +141,29 @@ public class OpenSlideLoader {
         return new OpenSlide(INSTANCE, path);
     }
 
+    /**
+     * Create a cache that can be shared between multiple {@link OpenSlide} instances.
+     * This will attempt to load OpenSlide if it has not already been loaded.
+     * @param capacityBytes the maximum size of the cache, in bytes
+     * @return a new cache; this should be closed when no more images will be opened using it
+     * @throws IOException if OpenSlide could not be loaded
+     * @throws UnsupportedOperationException if the OpenSlide version does not support shared caches
+     *                                       (it should be 4.0.0 or greater)
+     * @since v0.8.0
+     */
+    public static OpenSlideCache createCache(long capacityBytes) throws IOException, UnsupportedOperationException {
+        if (INSTANCE == null)
+            tryToLoadQuietly();
+        if (INSTANCE == null)
+            throw new IOException("OpenSlide library not available");
+        try {
+            return new OpenSlideCache(INSTANCE, INSTANCE.openslide_cache_create(capacityBytes), capacityBytes);
+        } catch (UnsatisfiedLinkError e) {
+            throw new UnsupportedOperationException(
+                    "Shared cache could not be created - OpenSlide version may not be compatible", e);
+        }
+    }
+
     /**
      * Try to detect the vendor of the image at the specified path.
      * This will attempt to load OpenSlide if it has not already been loaded.
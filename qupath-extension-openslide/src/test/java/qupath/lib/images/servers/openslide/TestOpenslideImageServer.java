@@ -0,0 +1,118 @@
+/*-
+ * #%L
+ * This file is part of QuPath.
+ * %%
+ * Copyright (C) 2026 QuPath developers, The University of Edinburgh
+ * %%
+ * QuPath is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * QuPath is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with QuPath.  If not, see <https://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package qupath.lib.images.servers.openslide;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SuppressWarnings("javadoc")
+public class TestOpenslideImageServer {
+
+	@Test
+	public void testCompositeFullyTransparent() {
+		int[] pixels = {0, 0, 0};
+		OpenslideImageServer.compositeOnBackground(pixels, Color.WHITE.getRGB());
+		assertArrayEquals(new int[] {0xFFFFFF, 0xFFFFFF, 0xFFFFFF}, pixels);
+		checkSameAsGraphics2D(new int[] {0, 0, 0}, Color.WHITE);
+		checkSameAsGraphics2D(new int[] {0, 0, 0}, null);
+	}
+
+	@Test
+	public void testCompositeOpaque() {
+		int[] pixels = {0xFF000000, 0xFF123456, 0xFFFFFFFF};
+		OpenslideImageServer.compositeOnBackground(pixels, Color.WHITE.getRGB());
+		assertArrayEquals(new int[] {0x000000, 0x123456, 0xFFFFFF}, pixels);
+		checkSameAsGraphics2D(new int[] {0xFF000000, 0xFF123456, 0xFFFFFFFF}, new Color(0x808080));
+	}
+
+	@Test
+	public void testCompositeSameAsGraphics2D() {
+		// Test every alpha value with components at the extremes, and in between
+		List<Integer> values = new ArrayList<>();
+		var random = new Random(100);
+		for (int a = 0; a < 256; a++) {
+			values.add(argbPre(a, 0, 0, 0));
+			values.add(argbPre(a, a, a, a));
+			values.add(argbPre(a, a / 2, Math.max(0, a - 1), (a + 1) / 2));
+			for (int i = 0; i < 4; i++)
+				values.add(argbPre(a, random.nextInt(a + 1), random.nextInt(a + 1), random.nextInt(a + 1)));
+		}
+		int[] pixels = values.stream().mapToInt(Integer::intValue).toArray();
+
+		checkSameAsGraphics2D(pixels, null);
+		checkSameAsGraphics2D(pixels, Color.WHITE);
+		checkSameAsGraphics2D(pixels, Color.BLACK);
+		checkSameAsGraphics2D(pixels, new Color(0x7F8081));
+		checkSameAsGraphics2D(pixels, new Color(0x01FE80));
+	}
+
+	@Test
+	public void testCompositeRoundingSameAsGraphics2D() {
+		// Transparent pixels on every gray level, to check rounding when scaling the background by all possible alphas
+		int[] pixels = new int[256];
+		for (int a = 0; a < 256; a++)
+			pixels[a] = argbPre(a, 0, 0, 0);
+		for (int bg = 0; bg < 256; bg++)
+			checkSameAsGraphics2D(pixels, new Color(bg, 255 - bg, bg ^ 0x55));
+	}
+
+	private static int argbPre(int a, int r, int g, int b) {
+		return a << 24 | r << 16 | g << 8 | b;
+	}
+
+	/**
+	 * Check that compositing gives the same result as drawing a premultiplied ARGB image onto an RGB image
+	 * filled with the background color (or left black if the background is null).
+	 */
+	private static void checkSameAsGraphics2D(int[] argbPre, Color background) {
+		int n = argbPre.length;
+		var imgSource = new BufferedImage(n, 1, BufferedImage.TYPE_INT_ARGB_PRE);
+		System.arraycopy(argbPre, 0, ((DataBufferInt)imgSource.getRaster().getDataBuffer()).getData(), 0, n);
+
+		var imgExpected = new BufferedImage(n, 1, BufferedImage.TYPE_INT_RGB);
+		var g2d = imgExpected.createGraphics();
+		if (background != null) {
+			g2d.setColor(background);
+			g2d.fillRect(0, 0, n, 1);
+		}
+		g2d.drawImage(imgSource, 0, 0, n, 1, null);
+		g2d.dispose();
+		int[] expected = imgExpected.getRGB(0, 0, n, 1, null, 0, n);
+
+		int[] actual = argbPre.clone();
+		OpenslideImageServer.compositeOnBackground(actual, background == null ? 0 : background.getRGB());
+		for (int i = 0; i < n; i++) {
+			assertEquals(Integer.toHexString(expected[i] & 0xFFFFFF), Integer.toHexString(actual[i]),
+					"Different result for " + Integer.toHexString(argbPre[i]) + " on " + background);
+		}
+	}
+
+}
@@ -37,4 +37,10 @@ dependencies {
   implementation(libs.javadocviewer)
 
   implementation(libs.extensionmanager)
+
+  // Groovy is added at runtime by the application, but is needed to cache compiled scripts
+  compileOnly(libs.groovy.core)
+  compileOnly(libs.groovy.jsr223)
+  testImplementation(libs.groovy.core)
+  testImplementation(libs.groovy.jsr223)
 }
\ No newline at end of file
@@ -459,10 +459,18 @@ public class MeasurementExportCommand implements Runnable {
 
 	private static File promptToChooseOutputFile(File initialFile, ExportSeparatorType separator) {
 		var ext = separator.getExtension();
-		File pathOut = FileChoosers.promptToSaveFile(getResourceString("Measurements.Export.save.title"),
-				initialFile,
-				FileChoosers.createExtensionFilter(separator.getDescription(), ext),
-				FileChoosers.createExtensionFilter("GZipped " + separator.getDescription(), ext + ".gz"));
+		File pathOut;
+		if (separator.getSeparator() == null) {
+			// Binary formats aren't worth compressing further
+			pathOut = FileChoosers.promptToSaveFile(getResourceString("Measurements.Export.save.title"),
+					initialFile,
+					FileChoosers.createExtensionFilter(separator.getDescription(), ext));
+		} else {
+			pathOut = FileChoosers.promptToSaveFile(getResourceString("Measurements.Export.save.title"),
+					initialFile,
+					FileChoosers.createExtensionFilter(separator.getDescription(), ext),
+					FileChoosers.createExtensionFilter("GZipped " + separator.getDescription(), ext + ".gz"));
+		}
 		if (pathOut != null && pathOut.isDirectory()) {
 			pathOut = new File(pathOut.getAbsolutePath(), "measurements" + ext);
 		}
@@ -623,7 +631,8 @@ public class MeasurementExportCommand implements Runnable {
 	private enum ExportSeparatorType {
 		TAB("Measurements.Export.SeparatorType.tab", "Measurements.Export.SeparatorType.tab", ".tsv", "\t"),
 		COMMA("Measurements.Export.SeparatorType.comma", "Measurements.Export.SeparatorType.comma", ".csv", ","),
-		SEMICOLON("Measurements.Export.SeparatorType.semicolon", "Measurements.Export.SeparatorType.semicolon", ".csv", ";");
+		SEMICOLON("Measurements.Export.SeparatorType.semicolon", "Measurements.Export.SeparatorType.semicolon", ".csv", ";"),
+		ARROW("Measurements.Export.SeparatorType.arrow", "Measurements.Export.SeparatorType.arrow", ".arrow", null);
 
 		private final String name;
 		private final String description;
@@ -29,6 +29,7 @@ import com.google.common.cache.RemovalCause;
 import com.google.common.cache.Weigher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import qupath.lib.common.Metrics;
 import qupath.lib.common.ThreadTools;
 import qupath.lib.images.servers.GeneratingImageServer;
 import qupath.lib.images.servers.ImageServer;
@@ -63,6 +64,12 @@ abstract class AbstractImageRegionStore<T> implements ImageRegionStore<T> {
 
 	private static final Logger logger = LoggerFactory.getLogger(AbstractImageRegionStore.class);
 
+	private static final Metrics.Timer READ_TIMER = Metrics.timer("store.read");
+	private static final Metrics.Counter CACHE_HITS = Metrics.counter("store.cache.hit");
+	private static final Metrics.Counter CACHE_MISSES = Metrics.counter("store.cache.miss");
+	private static final Metrics.Counter CACHE_EVICTIONS = Metrics.counter("store.cache.evicted");
+	private static final Metrics.Counter CACHE_COLLECTIONS = Metrics.counter("store.cache.collected");
+
 	private static final int DEFAULT_THUMBNAIL_WIDTH = 1024; // Increased from 1000 before v0.6.0
 
 	// Workers who can get individual tiles
@@ -121,8 +128,11 @@ abstract class AbstractImageRegionStore<T> implements ImageRegionStore<T> {
 //				.recordStats()
 				.removalListener(n -> {
 					if (n.getCause() == RemovalCause.COLLECTED) {
+						CACHE_COLLECTIONS.increment();
                         logger.debug("Cached tile collected: {} (cache size={})", n.getKey(), cache.size());
 					} else {
+						if (n.getCause() == RemovalCause.SIZE)
+							CACHE_EVICTIONS.increment();
 						logger.trace("Cached tile removed due to {}: {} (cache size={})", n.getCause(), n.getKey(), cache.size());
 					}}).build();
 		cache = originalCache.asMap();
@@ -320,8 +330,10 @@ abstract class AbstractImageRegionStore<T> implements ImageRegionStore<T> {
 	 */
 	protected synchronized Object requestImageTile(final ImageServer<T> server, final RegionRequest request, final Map<RegionRequest, T> cache, final boolean ensureTileReturned) {
 		T img = cache.get(request);
-		if (img != null)
+		if (img != null) {
+			CACHE_HITS.increment();
 			return img;
+		}
 		// If the cache contains the key, but simply returns null because nothing should be painted, also return null here
 		if (cache.containsKey(request))
 			return null;
@@ -340,6 +352,7 @@ abstract class AbstractImageRegionStore<T> implements ImageRegionStore<T> {
 			worker = null;
 		}
 		if (worker == null) {
+			CACHE_MISSES.increment();
 			worker = createTileWorker(server, request, cache, ensureTileReturned);
 			workers.add(worker);
 			if (server instanceof GeneratingImageServer) {
@@ -697,6 +710,19 @@ abstract class AbstractImageRegionStore<T> implements ImageRegionStore<T> {
 	
 	
 	
+	/**
+	 * Read a region for a tile worker, recording the time taken.
+	 */
+	private static <V> V readRegion(final ImageServer<V> server, final RegionRequest request) throws IOException {
+		var sample = READ_TIMER.start();
+		try {
+			return server.readRegion(request);
+		} finally {
+			sample.stop(request::toString);
+		}
+	}
+
+
 	/**
 	 * Worker for fetching image tiles asynchronously & adding to the tile cache.
 	 */
@@ -717,11 +743,11 @@ abstract class AbstractImageRegionStore<T> implements ImageRegionStore<T> {
 						return imgTile;
 					// TODO: Investigate the (current) purpose of ensureTileReturned... doesn't seem to do anything here
 					if (ensureTileReturned)
-						return server.readRegion(request);
+						return readRegion(server, request);
 					// Check if we still need the tile... if not, and we go searching, there can be a backlog
 					// making any requests slower to fulfill
 					// (Also, grab a snapshot of the listener list to avoid concurrent modifications)
-                    return server.readRegion(request);
+                    return readRegion(server, request);
 				}
 
 			});
@@ -47,6 +47,7 @@ import javafx.geometry.Orientation;
 import javafx.geometry.Side;
 import javafx.scene.Scene;
 import javafx.scene.control.ButtonType;
+import javafx.scene.control.CheckBox;
 import javafx.scene.control.CheckMenuItem;
 import javafx.scene.control.ContextMenu;
 import javafx.scene.control.Dialog;
@@ -110,6 +111,7 @@ import qupath.lib.gui.tools.GuiTools;
 import qupath.lib.gui.tools.MenuTools;
 import qupath.lib.gui.tools.WebViews;
 import qupath.lib.images.ImageData;
+import qupath.lib.projects.BatchJournal;
 import qupath.lib.projects.Project;
 import qupath.lib.projects.ProjectImageEntry;
 import qupath.lib.projects.Projects;
@@ -1692,6 +1694,8 @@ public class DefaultScriptEditor implements ScriptEditor {
 	
 	private List<ProjectImageEntry<BufferedImage>> previousImages = new ArrayList<>();
 	
+	private boolean previousSkipCompleted = false;
+	
 	/**
 	 * Request project image entries to run script for.
 	 * @param doSave 
@@ -1728,11 +1732,18 @@ public class DefaultScriptEditor implements ScriptEditor {
 		previousImages.retainAll(new HashSet<>(imageList));
 		var listSelectionView = ProjectDialogs.createImageChoicePane(qupath, imageList, previousImages, sameImageWarning);
 		
+		var cbSkipCompleted = new CheckBox(QuPathResources.getString("Scripting.DefaultScriptEditor.skipCompletedImages"));
+		cbSkipCompleted.setTooltip(new Tooltip(QuPathResources.getString("Scripting.DefaultScriptEditor.skipCompletedImagesTooltip")));
+		cbSkipCompleted.setSelected(previousSkipCompleted);
+		var pane = new BorderPane(listSelectionView);
+		pane.setBottom(cbSkipCompleted);
+		BorderPane.setMargin(cbSkipCompleted, new Insets(10, 0, 0, 0));
+		
 		Dialog<ButtonType> dialog = new Dialog<>();
 		dialog.initOwner(qupath.getStage());
 		dialog.setTitle(QuPathResources.getString("Scripting.DefaultScriptEditor.selectProjectImages"));
 		dialog.getDialogPane().getButtonTypes().addAll(ButtonType.CANCEL, ButtonType.OK);
-		dialog.getDialogPane().setContent(listSelectionView);
+		dialog.getDialogPane().setContent(pane);
 		dialog.setResizable(true);
 		dialog.getDialogPane().setPrefWidth(600);
 		dialog.initModality(Modality.APPLICATION_MODAL);
@@ -1742,13 +1753,14 @@ public class DefaultScriptEditor implements ScriptEditor {
 		
 		previousImages.clear();
 		previousImages.addAll(listSelectionView.getTargetItems());
+		previousSkipCompleted = cbSkipCompleted.isSelected();
 
 		if (previousImages.isEmpty())
 			return;
 		
 		List<ProjectImageEntry<BufferedImage>> imagesToProcess = new ArrayList<>(previousImages);
 
-		ProjectTask worker = new ProjectTask(project, imagesToProcess, tab, doSave, useCompiled.get());
+		ProjectTask worker = new ProjectTask(project, imagesToProcess, tab, doSave, useCompiled.get(), previousSkipCompleted);
 		
 		
 		ProgressDialog progress = new ProgressDialog(worker);
@@ -1819,13 +1831,16 @@ public class DefaultScriptEditor implements ScriptEditor {
 		private boolean quietCancel = false;
 		private boolean doSave = false;
 		private boolean useCompiled = false;
+		private boolean skipCompleted = false;
 		
-		ProjectTask(final Project<BufferedImage> project, final Collection<ProjectImageEntry<BufferedImage>> imagesToProcess, final ScriptTab tab, final boolean doSave, final boolean useCompiled) {
+		ProjectTask(final Project<BufferedImage> project, final Collection<ProjectImageEntry<BufferedImage>> imagesToProcess, final ScriptTab tab, final boolean doSave, final boolean useCompiled,
+				final boolean skipCompleted) {
 			this.project = project;
 			this.imagesToProcess = imagesToProcess;
 			this.tab = tab;
 			this.doSave = doSave;
 			this.useCompiled = useCompiled;
+			this.skipCompleted = skipCompleted;
 		}
 		
 		public void quietCancel() {
@@ -1843,10 +1858,33 @@ public class DefaultScriptEditor implements ScriptEditor {
 			
 			tab.setRunning(true);
 			
+			String script = tab.getEditorControl().getText();
+			
+			// Record the status of each image, so that the batch can be resumed if it is interrupted
+			BatchJournal journal = null;
+			try {
+				journal = BatchJournal.open(project, BatchJournal.createKey(script, tab.getLanguage().getName(), Boolean.toString(doSave)));
+				if (skipCompleted) {
+					List<ProjectImageEntry<BufferedImage>> remaining = new ArrayList<>();
+					for (var entry : imagesToProcess) {
+						if (!journal.isCompleted(entry))
+							remaining.add(entry);
+					}
+					if (remaining.size() < imagesToProcess.size())
+						logger.info("Skipping {} image(s) already completed", imagesToProcess.size() - remaining.size());
+					imagesToProcess = remaining;
+				}
+			} catch (IOException e) {
+				logger.warn("Unable to use batch journal: {}", e.getLocalizedMessage());
+				logger.debug(e.getLocalizedMessage(), e);
+			}
+			
 			int counter = 0;
 			int batchSize = imagesToProcess.size();
 			int batchIndex = 0;
 			for (ProjectImageEntry<BufferedImage> entry : imagesToProcess) {
+				BatchJournal.Recording recording = null;
+				boolean succeeded = false;
 				try {
 					// Stop
 					if (isQuietlyCancelled() || isCancelled()) {
@@ -1868,10 +1906,13 @@ public class DefaultScriptEditor implements ScriptEditor {
 						continue;
 					}
 //					QPEx.setBatchImageData(imageData);
-					executeScript(tab, tab.getEditorControl().getText(), project, imageData, batchIndex, batchSize, doSave, useCompiled);
+					if (journal != null)
+						recording = journal.start(entry);
+					executeScript(tab, script, project, imageData, batchIndex, batchSize, doSave, useCompiled);
 					if (doSave)
 						entry.saveImageData(imageData);
 					imageData.close();
+					succeeded = true;
 					
 					if (clearCache.get()) {
 						try {
@@ -1885,11 +1926,35 @@ public class DefaultScriptEditor implements ScriptEditor {
 					}
 				} catch (Exception e) {
 					logger.error("Error running batch script", e);
+					if (recording != null) {
+						try {
+							recording.failed(e);
+						} catch (IOException e2) {
+							logger.warn("Unable to write journal record: {}", e2.getLocalizedMessage());
+						}
+					}
+				}
+				// The script succeeded, so a problem writing the journal shouldn't be recorded as a failure -
+				// the image will just be processed again if the batch is resumed
+				if (succeeded && recording != null) {
+					try {
+						recording.completed();
+					} catch (IOException e) {
+						logger.warn("Unable to write journal record for {}: {}", entry.getImageName(), e.getLocalizedMessage());
+					}
 				}
 				batchIndex++;
 			}
 			updateProgress(imagesToProcess.size(), imagesToProcess.size());
 			
+			if (journal != null) {
+				try {
+					journal.close();
+				} catch (IOException e) {
+					logger.warn("Unable to close batch journal: {}", e.getLocalizedMessage());
+				}
+			}
+			
 			long endTime = System.currentTimeMillis();
 			
 			long timeMillis = endTime - startTime;
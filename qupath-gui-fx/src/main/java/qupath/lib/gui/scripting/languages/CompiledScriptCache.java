@@ -0,0 +1,96 @@
+/*-
+ * #%L
+ * This file is part of QuPath.
+ * %%
+ * Copyright (C) 2026 QuPath developers, The University of Edinburgh
+ * %%
+ * QuPath is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * QuPath is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with QuPath.  If not, see <https://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package qupath.lib.gui.scripting.languages;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+import java.nio.file.Path;
+
+/**
+ * Persistent cache for compiled scripts, which can be shared across QuPath sessions.
+ * <p>
+ * This is useful when the same script is run many times in short-lived processes (e.g. jobs on a cluster),
+ * where compiling the script can be a large fraction of the total time.
+ * Currently, only Groovy scripts are stored in the cache; compiled scripts for other languages are only
+ * cached in memory.
+ * <p>
+ * The cache is disabled by default, and is only used when scripts are run with
+ * {@link qupath.lib.scripting.ScriptParameters#useCompiled()}.
+ * Compiled classes are stored in files identified by a hash of the script, the Groovy version and the classpath,
+ * so the directory may be shared between different QuPath installations - and may be deleted at any time.
+ *
+ * @author Pete Bankhead
+ * @since v0.8.0
+ */
+public final class CompiledScriptCache {
+
+	private static final Logger logger = LoggerFactory.getLogger(CompiledScriptCache.class);
+
+	private static final String GROOVY_ENGINE_CLASS = "org.codehaus.groovy.jsr223.GroovyScriptEngineImpl";
+
+	private static volatile Path directory;
+
+	private CompiledScriptCache() {
+		throw new AssertionError("This class is not instantiable.");
+	}
+
+	/**
+	 * Set the directory used to store compiled scripts.
+	 * @param dir the directory, which will be created if necessary; use null to disable the persistent cache
+	 */
+	public static void setDirectory(Path dir) {
+		directory = dir;
+		if (dir == null)
+			logger.debug("Persistent script cache disabled");
+		else
+			logger.debug("Persistent script cache directory set to {}", dir);
+	}
+
+	/**
+	 * Get the directory used to store compiled scripts.
+	 * @return the directory, or null if the persistent cache is disabled
+	 */
+	public static Path getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Compile a script, using the persistent cache if possible.
+	 * @param engine the script engine; this must implement {@link Compilable}
+	 * @param script the script to compile
+	 * @return the compiled script
+	 * @throws ScriptException if the script could not be compiled
+	 */
+	static CompiledScript compile(ScriptEngine engine, String script) throws ScriptException {
+		var dir = directory;
+		// Check the class name, since Groovy is only available at runtime
+		if (dir != null && GROOVY_ENGINE_CLASS.equals(engine.getClass().getName()))
+			return GroovyScriptCache.compile(engine, script, dir);
+		return ((Compilable)engine).compile(script);
+	}
+
+}
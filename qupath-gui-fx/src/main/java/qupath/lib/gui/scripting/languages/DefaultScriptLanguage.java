@@ -199,14 +199,14 @@ public class DefaultScriptLanguage extends ScriptLanguage implements ExecutableL
 				if (engine == null)
 					throw new ScriptException("Unable to find ScriptEngine for " + getName());
 				if (engine instanceof Compilable) {
-					var compilable = (Compilable)engine;
 					synchronized (compiledMap) {
 						compiled = compiledMap.getIfPresent(script2);
 						// Compile if we don't have the script, or it is somehow associated with a different engine
 						if (compiled == null || !Objects.equals(compiled.getEngine().getClass(), engine.getClass())) {
 							compiled = compiledMap.getIfPresent(script2);						
 							logger.debug("Compiling script");
-							compiled = compilable.compile(script2);
+							// Use the persistent cache if available, to avoid compiling in every QuPath session
+							compiled = CompiledScriptCache.compile(engine, script2);
 							compiledMap.put(script2, compiled);
 						}	
 					}
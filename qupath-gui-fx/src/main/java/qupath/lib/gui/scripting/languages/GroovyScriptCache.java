@@ -0,0 +1,241 @@
+/*-
+ * #%L
+ * This file is part of QuPath.
+ * %%
+ * Copyright (C) 2026 QuPath developers, The University of Edinburgh
+ * %%
+ * QuPath is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * QuPath is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with QuPath.  If not, see <https://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package qupath.lib.gui.scripting.languages;
+
+import groovy.lang.GroovyClassLoader;
+import groovy.lang.GroovySystem;
+import org.codehaus.groovy.control.CompilationFailedException;
+import org.codehaus.groovy.control.CompilationUnit;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.Phases;
+import org.codehaus.groovy.jsr223.GroovyCompiledScript;
+import org.codehaus.groovy.jsr223.GroovyScriptEngineImpl;
+import org.codehaus.groovy.tools.GroovyClass;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.script.CompiledScript;
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Store compiled Groovy scripts as class files, so they can be reused by later QuPath sessions.
+ * <p>
+ * This is kept separate from {@link CompiledScriptCache} so that Groovy classes are only loaded
+ * if a Groovy engine is being used.
+ */
+class GroovyScriptCache {
+
+	private static final Logger logger = LoggerFactory.getLogger(GroovyScriptCache.class);
+
+	/**
+	 * Identifier at the start of each cache file, to help detect files that can't be read.
+	 */
+	private static final int MAGIC = 0x51505343; // QPSC
+
+	private static final String EXTENSION = ".classes";
+
+	/**
+	 * Compiled classes for a script.
+	 * @param mainClass name of the script class
+	 * @param classes map of class names to bytecode, including any closures or classes defined in the script
+	 */
+	private record CompiledClasses(String mainClass, Map<String, byte[]> classes) {}
+
+	static CompiledScript compile(ScriptEngine engine, String script, Path dir) throws ScriptException {
+		var groovyEngine = (GroovyScriptEngineImpl)engine;
+		var parentLoader = groovyEngine.getClassLoader();
+		var key = createKey(script, parentLoader);
+		var path = dir.resolve(key + EXTENSION);
+
+		var compiled = read(path);
+		if (compiled != null) {
+			try {
+				var compiledScript = load(groovyEngine, compiled);
+				logger.debug("Read compiled script from {}", path);
+				return compiledScript;
+			} catch (ClassNotFoundException | LinkageError e) {
+				// The file might be damaged - so compile again and replace it
+				logger.warn("Unable to load compiled script from {}: {}", path, e.getLocalizedMessage());
+			}
+		}
+
+		compiled = compileClasses(script, "QuPathScript_" + key.substring(0, 16), parentLoader);
+		// Scripts containing only class definitions don't have a script class to run
+		if (!compiled.classes().containsKey(compiled.mainClass())) {
+			logger.debug("No script class found - will compile without caching");
+			return groovyEngine.compile(script);
+		}
+		write(path, compiled);
+		try {
+			return load(groovyEngine, compiled);
+		} catch (ClassNotFoundException | LinkageError e) {
+			throw new ScriptException(new Exception("Unable to load compiled script", e));
+		}
+	}
+
+	private static CompiledScript load(GroovyScriptEngineImpl engine, CompiledClasses compiled) throws ClassNotFoundException {
+		var loader = new BytecodeClassLoader(engine.getClassLoader(), compiled.classes());
+		return new GroovyCompiledScript(engine, loader.loadClass(compiled.mainClass()));
+	}
+
+	/**
+	 * Create a key from the script and everything that might cause its compiled form to differ.
+	 */
+	private static String createKey(String script, ClassLoader loader) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			// All Java implementations are required to support SHA-256
+			throw new RuntimeException(e);
+		}
+		update(digest, script);
+		update(digest, GroovySystem.getVersion());
+		update(digest, Integer.toString(Runtime.version().feature()));
+		update(digest, System.getProperty("java.class.path", ""));
+		// Include any extensions that could be imported
+		for (var cl = loader; cl != null; cl = cl.getParent()) {
+			if (cl instanceof URLClassLoader urlClassLoader)
+				update(digest, Arrays.toString(urlClassLoader.getURLs()));
+		}
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	private static void update(MessageDigest digest, String value) {
+		digest.update(value.getBytes(StandardCharsets.UTF_8));
+		digest.update((byte)0);
+	}
+
+	private static CompiledClasses compileClasses(String script, String name, ClassLoader loader) throws ScriptException {
+		try {
+			var config = new CompilerConfiguration(CompilerConfiguration.DEFAULT);
+			var unit = new CompilationUnit(config, null, new GroovyClassLoader(loader, config));
+			unit.addSource(name + ".groovy", script);
+			unit.compile(Phases.CLASS_GENERATION);
+			Map<String, byte[]> classes = new LinkedHashMap<>();
+			for (GroovyClass cls : unit.getClasses())
+				classes.put(cls.getName(), cls.getBytes());
+			return new CompiledClasses(name, classes);
+		} catch (CompilationFailedException e) {
+			throw new ScriptException(e);
+		}
+	}
+
+	private static CompiledClasses read(Path path) {
+		if (!Files.isRegularFile(path))
+			return null;
+		try (var stream = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+			if (stream.readInt() != MAGIC)
+				throw new IOException("Unknown file format");
+			var mainClass = stream.readUTF();
+			int n = stream.readInt();
+			Map<String, byte[]> classes = new LinkedHashMap<>();
+			for (int i = 0; i < n; i++) {
+				var name = stream.readUTF();
+				var bytes = new byte[stream.readInt()];
+				stream.readFully(bytes);
+				classes.put(name, bytes);
+			}
+			return new CompiledClasses(mainClass, classes);
+		} catch (IOException e) {
+			logger.warn("Unable to read compiled script from {}: {}", path, e.getLocalizedMessage());
+			return null;
+		}
+	}
+
+	/**
+	 * Write compiled classes, via a temp file so that other processes never read an incomplete file.
+	 * Failures are logged but not thrown, since the compiled script can still be used.
+	 */
+	private static void write(Path path, CompiledClasses compiled) {
+		Path temp = null;
+		try {
+			Files.createDirectories(path.getParent());
+			temp = Files.createTempFile(path.getParent(), "script-", ".tmp");
+			try (var stream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+				stream.writeInt(MAGIC);
+				stream.writeUTF(compiled.mainClass());
+				stream.writeInt(compiled.classes().size());
+				for (var entry : compiled.classes().entrySet()) {
+					stream.writeUTF(entry.getKey());
+					stream.writeInt(entry.getValue().length);
+					stream.write(entry.getValue());
+				}
+			}
+			try {
+				Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+			}
+			logger.debug("Compiled script written to {}", path);
+		} catch (IOException e) {
+			logger.warn("Unable to write compiled script to {}: {}", path, e.getLocalizedMessage());
+			try {
+				if (temp != null)
+					Files.deleteIfExists(temp);
+			} catch (IOException e2) {
+				logger.debug("Unable to delete temp file {}", temp, e2);
+			}
+		}
+	}
+
+	/**
+	 * Class loader to define the classes compiled for a single script.
+	 */
+	private static class BytecodeClassLoader extends ClassLoader {
+
+		private final Map<String, byte[]> classes;
+
+		private BytecodeClassLoader(ClassLoader parent, Map<String, byte[]> classes) {
+			super(parent);
+			this.classes = classes;
+		}
+
+		@Override
+		protected Class<?> findClass(String name) throws ClassNotFoundException {
+			var bytes = classes.get(name);
+			if (bytes == null)
+				throw new ClassNotFoundException(name);
+			return defineClass(name, bytes, 0, bytes.length);
+		}
+
+	}
+
+}
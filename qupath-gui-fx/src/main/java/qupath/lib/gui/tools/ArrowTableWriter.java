@@ -0,0 +1,603 @@
+/*-
+ * #%L
+ * This file is part of QuPath.
+ * %%
+ * Copyright (C) 2026 QuPath developers, The University of Edinburgh
+ * %%
+ * QuPath is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * QuPath is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with QuPath.  If not, see <https://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package qupath.lib.gui.tools;
+
+import qupath.lib.gui.measure.PathTableData;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Table writer for the Apache Arrow IPC file format (also known as Feather V2), which can be read directly by
+ * pandas, polars and R (among others).
+ * <p>
+ * Each block of rows is written as a separate record batch. Numeric columns are written as 64-bit floats,
+ * and string columns as UTF-8. Columns that are likely to contain many repeated values (e.g. classifications)
+ * are dictionary-encoded.
+ * <p>
+ * The Arrow and FlatBuffers metadata is written directly, so that no additional dependencies are required.
+ * Only the small subset of the format needed for measurement tables is supported.
+ *
+ * @param <T> the type of item in the table
+ * @since v0.8.0
+ * @see <a href="https://arrow.apache.org/docs/format/Columnar.html">Arrow Columnar Format</a>
+ */
+class ArrowTableWriter<T> implements MeasurementExporter.TableWriter<T> {
+
+	/**
+	 * String columns that aren't dictionary-encoded, because we expect every value to be different.
+	 */
+	private static final Set<String> UNIQUE_STRING_COLUMNS = Set.of("Object ID", "Name");
+
+	private static final byte[] MAGIC = "ARROW1".getBytes(StandardCharsets.US_ASCII);
+
+	// Enum values from Schema.fbs and Message.fbs
+	private static final short METADATA_VERSION_V5 = 4;
+	private static final byte HEADER_SCHEMA = 1;
+	private static final byte HEADER_DICTIONARY_BATCH = 2;
+	private static final byte HEADER_RECORD_BATCH = 3;
+	private static final byte TYPE_FLOATING_POINT = 3;
+	private static final byte TYPE_UTF8 = 5;
+	private static final short PRECISION_DOUBLE = 2;
+
+	private final CountingOutputStream stream;
+	private final List<Column> columns;
+
+	private final List<Block> dictionaryBlocks = new ArrayList<>();
+	private final List<Block> recordBatchBlocks = new ArrayList<>();
+
+	ArrowTableWriter(OutputStream stream, Collection<String> columns, Set<String> numericColumns) {
+		this.stream = new CountingOutputStream(stream);
+		this.columns = new ArrayList<>();
+		int dictionaryId = 0;
+		for (var name : columns) {
+			if (numericColumns.contains(name))
+				this.columns.add(new Column(name, ColumnType.FLOAT64, -1));
+			else if (UNIQUE_STRING_COLUMNS.contains(name))
+				this.columns.add(new Column(name, ColumnType.UTF8, -1));
+			else
+				this.columns.add(new Column(name, ColumnType.DICTIONARY, dictionaryId++));
+		}
+	}
+
+	@Override
+	public void writeHeader() throws IOException {
+		stream.write(MAGIC);
+		stream.write(new byte[2]);
+		var message = createMessage(HEADER_SCHEMA, createSchema(), 0);
+		writeMessage(message, List.of());
+	}
+
+	@Override
+	public PreparedRows prepareRows(PathTableData<T> table, List<? extends T> items) {
+		int n = items.size();
+		var columnData = new Object[columns.size()];
+		for (int c = 0; c < columns.size(); c++) {
+			var column = columns.get(c);
+			switch (column.type) {
+				case FLOAT64 -> {
+					var buffer = allocate(n * 8);
+					for (var item : items)
+						buffer.putDouble(table.getNumericValue(item, column.name));
+					columnData[c] = new ArrayData(n, 0, List.of(new byte[0], buffer.array()));
+				}
+				case UTF8 -> {
+					var values = new String[n];
+					for (int i = 0; i < n; i++)
+						values[i] = table.getStringValue(items.get(i), column.name);
+					columnData[c] = encodeStrings(values);
+				}
+				case DICTIONARY -> {
+					// Indices need to be assigned in the order rows are written
+					var values = new String[n];
+					for (int i = 0; i < n; i++)
+						values[i] = table.getStringValue(items.get(i), column.name);
+					columnData[c] = values;
+				}
+			}
+		}
+		return () -> writeRecordBatch(n, columnData);
+	}
+
+	private void writeRecordBatch(int n, Object[] columnData) throws IOException {
+		List<ArrayData> arrays = new ArrayList<>(columns.size());
+		for (int c = 0; c < columns.size(); c++) {
+			if (columnData[c] instanceof String[] values)
+				arrays.add(columns.get(c).encodeIndices(values));
+			else
+				arrays.add((ArrayData)columnData[c]);
+		}
+		var batch = createRecordBatch(n, arrays);
+		var block = writeMessage(createMessage(HEADER_RECORD_BATCH, batch.table, batch.bodyLength), batch.buffers);
+		recordBatchBlocks.add(block);
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			// Dictionaries can be written anywhere in the file, so we write them at the end when all values are known
+			for (var column : columns) {
+				if (column.type != ColumnType.DICTIONARY)
+					continue;
+				var values = column.dictionaryValues.toArray(String[]::new);
+				var batch = createRecordBatch(values.length, List.of(encodeStrings(values)));
+				var dictionaryBatch = new FlatTable()
+						.addLong(0, column.dictionaryId)
+						.addOffset(1, batch.table);
+				var block = writeMessage(createMessage(HEADER_DICTIONARY_BATCH, dictionaryBatch, batch.bodyLength), batch.buffers);
+				dictionaryBlocks.add(block);
+			}
+			var footer = new FlatTable()
+					.addShort(0, METADATA_VERSION_V5)
+					.addOffset(1, createSchema())
+					.addOffset(2, createBlockVector(dictionaryBlocks))
+					.addOffset(3, createBlockVector(recordBatchBlocks));
+			var bytes = FlatTable.finish(footer);
+			stream.write(bytes);
+			stream.write(allocate(4).putInt(bytes.length).array());
+			stream.write(MAGIC);
+		} finally {
+			stream.close();
+		}
+	}
+
+	private FlatTable createSchema() {
+		List<FlatNode> fields = new ArrayList<>();
+		for (var column : columns)
+			fields.add(column.createField());
+		return new FlatTable()
+				.addOffset(1, new FlatVector(fields));
+	}
+
+	private static FlatTable createMessage(byte headerType, FlatTable header, long bodyLength) {
+		return new FlatTable()
+				.addShort(0, METADATA_VERSION_V5)
+				.addByte(1, headerType)
+				.addOffset(2, header)
+				.addLong(3, bodyLength);
+	}
+
+	private static FlatStructVector createBlockVector(List<Block> blocks) {
+		// Block is a struct of (long offset, int metaDataLength, 4 bytes padding, long bodyLength)
+		var values = new long[blocks.size() * 3];
+		for (int i = 0; i < blocks.size(); i++) {
+			var block = blocks.get(i);
+			values[i*3] = block.offset;
+			values[i*3+1] = block.metadataLength;
+			values[i*3+2] = block.bodyLength;
+		}
+		return new FlatStructVector(values, 3);
+	}
+
+	private static RecordBatch createRecordBatch(int n, List<ArrayData> arrays) {
+		// FieldNode is a struct of (long length, long nullCount), Buffer is a struct of (long offset, long length)
+		var nodes = new long[arrays.size() * 2];
+		List<byte[]> buffers = new ArrayList<>();
+		for (int i = 0; i < arrays.size(); i++) {
+			var array = arrays.get(i);
+			nodes[i*2] = array.length;
+			nodes[i*2+1] = array.nullCount;
+			buffers.addAll(array.buffers);
+		}
+		var bufferLocations = new long[buffers.size() * 2];
+		long offset = 0;
+		for (int i = 0; i < buffers.size(); i++) {
+			long length = buffers.get(i).length;
+			bufferLocations[i*2] = offset;
+			bufferLocations[i*2+1] = length;
+			offset += padded(length);
+		}
+		var table = new FlatTable()
+				.addLong(0, n)
+				.addOffset(1, new FlatStructVector(nodes, 2))
+				.addOffset(2, new FlatStructVector(bufferLocations, 2));
+		return new RecordBatch(table, buffers, offset);
+	}
+
+	/**
+	 * Write an encapsulated message, with its body.
+	 * @return the block describing the location of the message in the file
+	 */
+	private Block writeMessage(FlatTable message, List<byte[]> body) throws IOException {
+		long offset = stream.count;
+		var metadata = FlatTable.finish(message);
+		int metadataLength = (int)padded(8 + metadata.length);
+		stream.write(allocate(8)
+				.putInt(0xFFFFFFFF)
+				.putInt(metadataLength - 8)
+				.array());
+		stream.write(metadata);
+		writePadding(metadataLength - 8 - metadata.length);
+		long bodyLength = 0;
+		for (var buffer : body) {
+			stream.write(buffer);
+			int padding = (int)(padded(buffer.length) - buffer.length);
+			writePadding(padding);
+			bodyLength += buffer.length + padding;
+		}
+		return new Block(offset, metadataLength, bodyLength);
+	}
+
+	private void writePadding(int n) throws IOException {
+		for (int i = 0; i < n; i++)
+			stream.write(0);
+	}
+
+	/**
+	 * Encode UTF-8 strings as validity, offset and data buffers.
+	 */
+	private static ArrayData encodeStrings(String[] values) {
+		int n = values.length;
+		var validity = new byte[(n + 7) / 8];
+		var offsets = allocate((n + 1) * 4);
+		var data = new ByteArrayOutputStream();
+		int nullCount = 0;
+		offsets.putInt(0);
+		for (int i = 0; i < n; i++) {
+			var value = values[i];
+			if (value == null)
+				nullCount++;
+			else {
+				validity[i / 8] |= (byte)(1 << (i % 8));
+				data.writeBytes(value.getBytes(StandardCharsets.UTF_8));
+			}
+			offsets.putInt(data.size());
+		}
+		return new ArrayData(n, nullCount, List.of(nullCount == 0 ? new byte[0] : validity, offsets.array(), data.toByteArray()));
+	}
+
+	private static long padded(long length) {
+		return (length + 7) / 8 * 8;
+	}
+
+	private static ByteBuffer allocate(int n) {
+		return ByteBuffer.allocate(n).order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+
+	private enum ColumnType { FLOAT64, UTF8, DICTIONARY }
+
+	private static class Column {
+
+		private final String name;
+		private final ColumnType type;
+		private final long dictionaryId;
+
+		// Only used for dictionary-encoded columns, and only from the thread writing the output
+		private final Map<String, Integer> dictionary = new HashMap<>();
+		private final List<String> dictionaryValues = new ArrayList<>();
+
+		private Column(String name, ColumnType type, long dictionaryId) {
+			this.name = name;
+			this.type = type;
+			this.dictionaryId = dictionaryId;
+		}
+
+		private ArrayData encodeIndices(String[] values) {
+			int n = values.length;
+			var validity = new byte[(n + 7) / 8];
+			var indices = allocate(n * 4);
+			int nullCount = 0;
+			for (int i = 0; i < n; i++) {
+				var value = values[i];
+				if (value == null) {
+					nullCount++;
+					indices.putInt(0);
+				} else {
+					validity[i / 8] |= (byte)(1 << (i % 8));
+					indices.putInt(dictionary.computeIfAbsent(value, v -> {
+						dictionaryValues.add(v);
+						return dictionaryValues.size() - 1;
+					}));
+				}
+			}
+			return new ArrayData(n, nullCount, List.of(nullCount == 0 ? new byte[0] : validity, indices.array()));
+		}
+
+		private FlatTable createField() {
+			var field = new FlatTable()
+					.addOffset(0, new FlatString(name))
+					.addBool(1, true)
+					.addOffset(5, new FlatVector(List.of()));
+			switch (type) {
+				case FLOAT64 -> field
+						.addByte(2, TYPE_FLOATING_POINT)
+						.addOffset(3, new FlatTable().addShort(0, PRECISION_DOUBLE));
+				case UTF8 -> field
+						.addByte(2, TYPE_UTF8)
+						.addOffset(3, new FlatTable());
+				case DICTIONARY -> field
+						.addByte(2, TYPE_UTF8)
+						.addOffset(3, new FlatTable())
+						.addOffset(4, new FlatTable()
+								.addLong(0, dictionaryId)
+								.addOffset(1, new FlatTable()
+										.addInt(0, 32)
+										.addBool(1, true)));
+			}
+			return field;
+		}
+
+	}
+
+	private record ArrayData(int length, int nullCount, List<byte[]> buffers) {}
+
+	private record RecordBatch(FlatTable table, List<byte[]> buffers, long bodyLength) {}
+
+	private record Block(long offset, int metadataLength, long bodyLength) {}
+
+
+	/**
+	 * Output stream that keeps track of the number of bytes written, since this is needed for the file footer.
+	 */
+	private static class CountingOutputStream extends BufferedOutputStream {
+
+		private long count = 0;
+
+		private CountingOutputStream(OutputStream stream) {
+			super(stream, 1024 * 1024);
+		}
+
+		@Override
+		public synchronized void write(int b) throws IOException {
+			super.write(b);
+			count++;
+		}
+
+		@Override
+		public synchronized void write(byte[] b, int off, int len) throws IOException {
+			super.write(b, off, len);
+			count += len;
+		}
+
+	}
+
+
+	/*
+	 * Minimal FlatBuffers serialization.
+	 * Objects are written front-to-back, with each table preceded by its vtable and followed by the objects
+	 * it references - so that all offsets to other objects are positive, as required.
+	 */
+
+	private sealed interface FlatNode permits FlatTable, FlatVector, FlatStructVector, FlatString {}
+
+	private record FlatString(String value) implements FlatNode {}
+
+	private record FlatVector(List<FlatNode> values) implements FlatNode {}
+
+	/**
+	 * Vector of structs, where each struct is composed of 8-byte values (after any padding).
+	 */
+	private record FlatStructVector(long[] values, int longsPerStruct) implements FlatNode {}
+
+	private static final class FlatTable implements FlatNode {
+
+		private record Scalar(long value, int size) {}
+
+		private final TreeMap<Integer, Object> fields = new TreeMap<>();
+
+		private FlatTable addByte(int slot, byte value) {
+			fields.put(slot, new Scalar(value, 1));
+			return this;
+		}
+
+		private FlatTable addBool(int slot, boolean value) {
+			return addByte(slot, value ? (byte)1 : (byte)0);
+		}
+
+		private FlatTable addShort(int slot, short value) {
+			fields.put(slot, new Scalar(value, 2));
+			return this;
+		}
+
+		private FlatTable addInt(int slot, int value) {
+			fields.put(slot, new Scalar(value, 4));
+			return this;
+		}
+
+		private FlatTable addLong(int slot, long value) {
+			fields.put(slot, new Scalar(value, 8));
+			return this;
+		}
+
+		private FlatTable addOffset(int slot, FlatNode node) {
+			fields.put(slot, node);
+			return this;
+		}
+
+		/**
+		 * Create a FlatBuffer with this table as its root.
+		 */
+		private static byte[] finish(FlatTable root) {
+			var builder = new FlatBuilder();
+			builder.putInt(0);
+			int pos = builder.write(root);
+			builder.patchOffset(0, pos);
+			return builder.toByteArray();
+		}
+
+	}
+
+	private static class FlatBuilder {
+
+		private ByteBuffer buffer = allocate(1024);
+
+		private int write(FlatNode node) {
+			return switch (node) {
+				case FlatTable table -> writeTable(table);
+				case FlatVector vector -> writeVector(vector);
+				case FlatStructVector vector -> writeStructVector(vector);
+				case FlatString string -> writeString(string);
+			};
+		}
+
+		private int writeTable(FlatTable table) {
+			// Lay out fields with the largest first, so that they are all aligned
+			int maxSlot = table.fields.isEmpty() ? -1 : table.fields.lastKey();
+			var fieldOffsets = new int[maxSlot + 1];
+			var slots = new ArrayList<>(table.fields.keySet());
+			slots.sort((a, b) -> Integer.compare(sizeOf(table.fields.get(b)), sizeOf(table.fields.get(a))));
+			int tableSize = 4;
+			for (int slot : slots) {
+				int size = sizeOf(table.fields.get(slot));
+				tableSize = align(tableSize, size);
+				fieldOffsets[slot] = tableSize;
+				tableSize += size;
+			}
+			tableSize = align(tableSize, 4);
+
+			// Write the vtable
+			align(2);
+			int vtablePos = buffer.position();
+			putShort((short)(4 + 2 * fieldOffsets.length));
+			putShort((short)tableSize);
+			for (int offset : fieldOffsets)
+				putShort((short)offset);
+
+			// Write the table, with placeholders for offsets
+			align(8);
+			int tablePos = buffer.position();
+			ensureCapacity(tableSize);
+			buffer.putInt(tablePos - vtablePos);
+			var children = new TreeMap<Integer, FlatNode>();
+			for (var entry : table.fields.entrySet()) {
+				int pos = tablePos + fieldOffsets[entry.getKey()];
+				if (entry.getValue() instanceof FlatNode child)
+					children.put(pos, child);
+				else
+					putScalar(pos, (FlatTable.Scalar)entry.getValue());
+			}
+			buffer.position(tablePos + tableSize);
+			writeChildren(children);
+			return tablePos;
+		}
+
+		private void putScalar(int pos, FlatTable.Scalar scalar) {
+			switch (scalar.size) {
+				case 1 -> buffer.put(pos, (byte)scalar.value);
+				case 2 -> buffer.putShort(pos, (short)scalar.value);
+				case 4 -> buffer.putInt(pos, (int)scalar.value);
+				default -> buffer.putLong(pos, scalar.value);
+			}
+		}
+
+		private int writeVector(FlatVector vector) {
+			align(4);
+			int vectorPos = buffer.position();
+			putInt(vector.values.size());
+			var children = new TreeMap<Integer, FlatNode>();
+			for (var value : vector.values) {
+				children.put(buffer.position(), value);
+				putInt(0);
+			}
+			writeChildren(children);
+			return vectorPos;
+		}
+
+		private int writeStructVector(FlatStructVector vector) {
+			// The length precedes the first element, which needs to be 8-byte aligned
+			ensureCapacity(8);
+			while ((buffer.position() + 4) % 8 != 0)
+				buffer.put((byte)0);
+			int vectorPos = buffer.position();
+			putInt(vector.values.length / vector.longsPerStruct);
+			ensureCapacity(vector.values.length * 8);
+			for (long value : vector.values)
+				buffer.putLong(value);
+			return vectorPos;
+		}
+
+		private int writeString(FlatString string) {
+			var bytes = string.value.getBytes(StandardCharsets.UTF_8);
+			align(4);
+			int stringPos = buffer.position();
+			putInt(bytes.length);
+			ensureCapacity(bytes.length + 1);
+			buffer.put(bytes);
+			buffer.put((byte)0);
+			return stringPos;
+		}
+
+		private void writeChildren(Map<Integer, FlatNode> children) {
+			for (var entry : children.entrySet()) {
+				int pos = write(entry.getValue());
+				patchOffset(entry.getKey(), pos);
+			}
+		}
+
+		private void patchOffset(int offsetPos, int targetPos) {
+			buffer.putInt(offsetPos, targetPos - offsetPos);
+		}
+
+		private static int sizeOf(Object field) {
+			return field instanceof FlatTable.Scalar scalar ? scalar.size : 4;
+		}
+
+		private static int align(int pos, int alignment) {
+			return (pos + alignment - 1) / alignment * alignment;
+		}
+
+		private void align(int alignment) {
+			int n = align(buffer.position(), alignment) - buffer.position();
+			ensureCapacity(n);
+			for (int i = 0; i < n; i++)
+				buffer.put((byte)0);
+		}
+
+		private void putShort(short value) {
+			ensureCapacity(2);
+			buffer.putShort(value);
+		}
+
+		private void putInt(int value) {
+			ensureCapacity(4);
+			buffer.putInt(value);
+		}
+
+		private void ensureCapacity(int n) {
+			if (buffer.remaining() >= n)
+				return;
+			var newBuffer = allocate(Math.max(buffer.capacity() * 2, buffer.position() + n));
+			newBuffer.put(buffer.array(), 0, buffer.position());
+			buffer = newBuffer;
+		}
+
+		private byte[] toByteArray() {
+			return Arrays.copyOf(buffer.array(), buffer.position());
+		}
+
+	}
+
+}
@@ -29,8 +29,10 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -39,6 +41,8 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.function.DoubleConsumer;
 import java.util.function.ObjDoubleConsumer;
 import java.util.function.Predicate;
@@ -46,6 +50,7 @@ import java.util.zip.GZIPOutputStream;
 import org.apache.commons.lang3.Strings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import qupath.lib.common.ThreadTools;
 import qupath.lib.gui.localization.QuPathResources;
 import qupath.lib.gui.measure.ObservableMeasurementTableData;
 import qupath.lib.gui.measure.PathTableData;
@@ -63,8 +68,29 @@ import qupath.lib.projects.ProjectImageEntry;
 
 /**
  * Helper class for exporting the measurements of one or more entries in a project.
+ * <p>
+ * Since v0.8.0, several images may be loaded and tabulated in parallel, with rows formatted in parallel.
+ * Rows are always written in the order of the image list, so the output is the same as for a sequential export.
  */
 public class MeasurementExporter {
+
+	/**
+	 * Output formats supported by the exporter.
+	 * @since v0.8.0
+	 */
+	public enum Format {
+		/**
+		 * Delimited text, e.g. tab-separated or comma-separated values.
+		 */
+		TEXT,
+		/**
+		 * Apache Arrow IPC file format (also known as Feather V2).
+		 * This is a binary columnar format that is much faster to write and read than text, and can be read
+		 * directly by pandas, polars and R.
+		 * Numeric values are written at full precision, ignoring {@link #decimalPlaces(int)}.
+		 */
+		ARROW
+	}
 	
 	private static final Logger logger = LoggerFactory.getLogger(MeasurementExporter.class);
 
@@ -81,6 +107,17 @@ public class MeasurementExporter {
 
 	private static final ObjDoubleConsumer<String> NULL_PROGRESS_MONITOR = (message, progress) -> {};
 
+	/**
+	 * Rough estimate of the memory needed to hold the data for one image during export,
+	 * used to limit the number of images processed in parallel by default.
+	 */
+	private static final long ESTIMATED_BYTES_PER_IMAGE = 512L * 1024L * 1024L;
+
+	/**
+	 * Number of rows to format in each parallel task.
+	 */
+	private static final int ROWS_PER_BLOCK = 1000;
+
 	private List<String> includeOnlyColumns = new ArrayList<>();
 	private List<String> excludeColumns = new ArrayList<>(); // To be removed (may replace with general predicate)
 	private Predicate<PathObject> filter;
@@ -99,6 +136,10 @@ public class MeasurementExporter {
 	private List<ProjectImageEntry<BufferedImage>> imageList;
 
 	private ObjDoubleConsumer<String> progressMonitor = NULL_PROGRESS_MONITOR;
+
+	private int parallelImages = 0;
+
+	private Format format;
 	
 	public MeasurementExporter() {}
 
@@ -241,6 +282,19 @@ public class MeasurementExporter {
 		return this;
 	}
 	
+	/**
+	 * Specify the output format.
+	 * If this is not set, the format is determined from the file extension (if available) - using
+	 * {@link Format#ARROW} for {@code .arrow} or {@code .feather} files, and {@link Format#TEXT} otherwise.
+	 * @param format the output format, or null to determine the format automatically
+	 * @return this exporter
+	 * @since v0.8.0
+	 */
+	public MeasurementExporter format(Format format) {
+		this.format = format;
+		return this;
+	}
+
 	/**
 	 * Specify the list of images ({@code ProjectImageEntry}) to export.
 	 * @param imageList the images to export
@@ -251,6 +305,25 @@ public class MeasurementExporter {
 		return this;
 	}
 
+	/**
+	 * Specify the maximum number of images that may be loaded and tabulated at the same time.
+	 * Rows are always written in the order of the image list, regardless of this value.
+	 * <p>
+	 * The default (0) chooses a value automatically, based upon {@link ThreadTools#getParallelism()} and the
+	 * maximum memory available - since the objects for every image being processed need to be held in memory.
+	 * Use 1 to load images one at a time.
+	 * Formatted rows are only held for the image being written and the next one.
+	 * @param nImages the maximum number of images to process in parallel, or 0 to choose automatically
+	 * @return this exporter
+	 * @since v0.8.0
+	 */
+	public MeasurementExporter parallelImages(int nImages) {
+		if (nImages < 0)
+			throw new IllegalArgumentException("Number of parallel images must be >= 0");
+		this.parallelImages = nImages;
+		return this;
+	}
+
 	/**
 	 * Set a progress monitor to be notified during export.
 	 * This is a consumer that takes a value between 0.0 (at the start) and 1.0 (export complete).
@@ -336,6 +409,25 @@ public class MeasurementExporter {
 	public Class<? extends PathObject> getType() {
 		return type;
 	}
+
+	/**
+	 * Returns the maximum number of images that may be processed in parallel.
+	 * @return the number of images, or 0 if this should be chosen automatically
+	 * @since v0.8.0
+	 * @see #parallelImages(int)
+	 */
+	public int getParallelImages() {
+		return parallelImages;
+	}
+
+	/**
+	 * Returns the output format, if it has been set explicitly.
+	 * @return the output format, or null if it should be determined automatically
+	 * @since v0.8.0
+	 */
+	public Format getFormat() {
+		return format;
+	}
 	
 	/**
 	 * Exports the measurements of one or more entries in the project.
@@ -348,7 +440,7 @@ public class MeasurementExporter {
 	 */
 	public void exportMeasurements(File file) throws IOException, InterruptedException {
 		try (var fos = createFileOutputStream(file)) {
-			doExport(fos, getSeparatorToUse(file.getName()));
+			doExport(fos, getSeparatorToUse(file.getName()), getFormatToUse(file.getName()));
 		} catch (Exception e) {
 			throw new IOException("Error exporting measurements", e);
 		}
@@ -397,6 +489,22 @@ public class MeasurementExporter {
 		}
 		return DEFAULT_SEPARATOR;
 	}
+
+	/**
+	 * Get the format to use.
+	 * This always returns any format that was explicitly requested, otherwise it determines the format
+	 * from a filename, if available, or returns {@link Format#TEXT}.
+	 */
+	private Format getFormatToUse(String filename) {
+		if (format != null)
+			return format;
+		if (filename != null) {
+			var lower = filename.toLowerCase();
+			if (lower.endsWith(".arrow") || lower.endsWith(".feather"))
+				return Format.ARROW;
+		}
+		return Format.TEXT;
+	}
 	
 	/**
 	 * Exports the measurements of one or more entries in the project.
@@ -408,11 +516,11 @@ public class MeasurementExporter {
 	 * @throws IOException if the export fails
 	 */
 	public void exportMeasurements(OutputStream stream) throws IOException, InterruptedException {
-		doExport(stream, getSeparatorToUse(null));
+		doExport(stream, getSeparatorToUse(null), getFormatToUse(null));
 	}
 
 
-	private void doExport(OutputStream stream, String separator) throws IOException, InterruptedException {
+	private void doExport(OutputStream stream, String separator, Format format) throws IOException, InterruptedException {
 		if (imageList == null || imageList.isEmpty()) {
 			logger.warn("No images selected for export!");
 			return;
@@ -429,28 +537,40 @@ public class MeasurementExporter {
 
 		long startTime = System.currentTimeMillis();
 		var thread = Thread.currentThread();
+		int nParallel = getParallelImagesToUse();
+		logger.debug("Exporting measurements for up to {} images in parallel", nParallel);
 
-		try (TableWriter<PathObject> writer = createWriter(stream, separator)) {
+		try (TableWriter<PathObject> writer = createWriter(stream, separator, format, nParallel)) {
 			writer.writeHeader();
-			for (var entry : imageList) {
-				checkInterrupted(thread);
-
-				String message = entry.getImageName();
-				monitor.accept(message, (++currentWork) / totalWork);
-
-				var table = loadTable(entry, type, filter, includeProjectMetadata);
-				var items = table.getItems();
-				double i = 0;
-				for (var item : items) {
-					checkInterrupted(thread);
-					writer.writeRow(table, item);
-
-					// Increment proportionately during long exports
-					if ((++i) % 1000 == 0) {
-						monitor.accept(message, (currentWork + i / (items.size() + 1)) / totalWork);
+			// Images are loaded ahead of the one being written, up to the parallelism limit.
+			// Rows are only prepared for the next image while writing the current one, since prepared rows 
+			// can need much more memory than the objects themselves.
+			var pending = new ArrayDeque<CompletableFuture<PathTableData<PathObject>>>();
+			CompletableFuture<List<TableWriter.PreparedRows>> nextRows = null;
+			var toLoad = imageList.iterator();
+			try {
+				for (var entry : imageList) {
+					while (toLoad.hasNext() && pending.size() + (nextRows == null ? 0 : 1) < nParallel)
+						pending.add(loadTableAsync(toLoad.next()));
+
+					String message = entry.getImageName();
+					monitor.accept(message, (++currentWork) / totalWork);
+
+					var rows = nextRows == null ? prepareRows(pending.poll(), writer) : nextRows;
+					nextRows = pending.isEmpty() ? null : prepareRows(pending.poll(), writer);
+					var blocks = await(rows);
+					double i = 0;
+					for (var block : blocks) {
+						checkInterrupted(thread);
+						block.write();
+						// Increment proportionately during long exports
+						monitor.accept(message, (currentWork + (++i) / (blocks.size() + 1)) / totalWork);
 					}
 				}
-
+			} finally {
+				pending.forEach(f -> f.cancel(true));
+				if (nextRows != null)
+					nextRows.cancel(true);
 			}
 		} catch (Exception e) {
 			throw new IOException("Error exporting measurements", e);
@@ -471,9 +591,67 @@ public class MeasurementExporter {
 	}
 
 
-	private TableWriter<PathObject> createWriter(OutputStream stream, String separator) {
-		var columns = getColumnNames(imageList, type, filter, createColumnPredicate(), includeProjectMetadata);
-		return new TextTableWriter<>(stream, columns, separator, nDecimalPlaces);
+	private TableWriter<PathObject> createWriter(OutputStream stream, String separator, Format format, int nParallel) throws InterruptedException {
+		var columns = getColumns(imageList, type, filter, createColumnPredicate(), includeProjectMetadata, nParallel);
+		return switch (format) {
+			case ARROW -> new ArrowTableWriter<>(stream, columns.names(), columns.numericNames());
+			case TEXT -> new TextTableWriter<>(stream, columns.names(), separator, nDecimalPlaces);
+		};
+	}
+
+	/**
+	 * Get the number of images to process in parallel, taking into account the memory available if no
+	 * value has been set explicitly.
+	 */
+	private int getParallelImagesToUse() {
+		int n = parallelImages;
+		if (n <= 0) {
+			long budget = Runtime.getRuntime().maxMemory() / 2;
+			n = (int)Math.min(ThreadTools.getParallelism(), Math.max(1, budget / ESTIMATED_BYTES_PER_IMAGE));
+		}
+		return Math.max(1, Math.min(n, imageList.size()));
+	}
+
+	/**
+	 * Load the table for an image.
+	 */
+	private CompletableFuture<PathTableData<PathObject>> loadTableAsync(ProjectImageEntry<?> entry) {
+		return CompletableFuture.supplyAsync(() -> loadTableUnchecked(entry, type, filter, includeProjectMetadata), ThreadTools.getIOExecutor());
+	}
+
+	/**
+	 * Prepare the rows of a table for writing, in blocks that are formatted in parallel.
+	 */
+	private static CompletableFuture<List<TableWriter.PreparedRows>> prepareRows(CompletableFuture<PathTableData<PathObject>> tableFuture,
+																			TableWriter<PathObject> writer) {
+		return tableFuture.thenCompose(table -> {
+			var items = List.copyOf(table.getItems());
+			List<CompletableFuture<TableWriter.PreparedRows>> blocks = new ArrayList<>();
+			for (int i = 0; i < items.size(); i += ROWS_PER_BLOCK) {
+				var block = items.subList(i, Math.min(items.size(), i + ROWS_PER_BLOCK));
+				blocks.add(CompletableFuture.supplyAsync(() -> writer.prepareRows(table, block), ThreadTools.getComputeExecutor()));
+			}
+			return CompletableFuture.allOf(blocks.toArray(CompletableFuture[]::new))
+					.thenApply(v -> blocks.stream().map(CompletableFuture::join).toList());
+		});
+	}
+
+	/**
+	 * Wait for a result, unwrapping any exception thrown by the task.
+	 */
+	private static <T> T await(CompletableFuture<T> future) throws IOException, InterruptedException {
+		try {
+			return future.get();
+		} catch (ExecutionException e) {
+			var cause = e.getCause();
+			if (cause instanceof UncheckedIOException ioException)
+				throw ioException.getCause();
+			if (cause instanceof IOException ioException)
+				throw ioException;
+			if (cause instanceof RuntimeException runtimeException)
+				throw runtimeException;
+			throw new IOException(cause);
+		}
 	}
 
 
@@ -484,21 +662,74 @@ public class MeasurementExporter {
 	}
 
 
-	private static List<String> getColumnNames(Collection<? extends ProjectImageEntry<?>> imageEntries,
+	/**
+	 * Column names, and the names of columns that only contain numeric values.
+	 */
+	private record Columns(List<String> names, Set<String> numericNames) {}
+
+	/**
+	 * Get all the columns, loading up to nParallel images at a time.
+	 * Names are added in the order of the images, so the result doesn't depend upon the parallelism.
+	 */
+	private static Columns getColumns(Collection<? extends ProjectImageEntry<?>> imageEntries,
 											   Class<? extends PathObject> type,
 											   Predicate<PathObject> filter,
 											   Predicate<String> columnPredicate,
-											   boolean includeProjectMetadata) {
+											   boolean includeProjectMetadata,
+											   int nParallel) throws InterruptedException {
 		var headerSet = new LinkedHashSet<String>();
-		for (var entry: imageEntries) {
-			try {
-				var tableModel = loadTable(entry, type, filter, includeProjectMetadata);
-				tableModel.getAllNames().stream().filter(columnPredicate).forEach(headerSet::add);
-			} catch (IOException e) {
-				logger.error("Error loading load {}: {}", entry.getImageName(), e.getMessage(), e);
+		var numericSet = new LinkedHashSet<String>();
+		var nonNumericSet = new LinkedHashSet<String>();
+		var pending = new ArrayDeque<CompletableFuture<Columns>>();
+		var iterator = imageEntries.iterator();
+		try {
+			while (iterator.hasNext() || !pending.isEmpty()) {
+				while (iterator.hasNext() && pending.size() < nParallel) {
+					var entry = iterator.next();
+					pending.add(CompletableFuture.supplyAsync(() -> {
+						try {
+							var tableModel = loadTable(entry, type, filter, includeProjectMetadata);
+							return new Columns(
+									tableModel.getAllNames().stream().filter(columnPredicate).toList(),
+									Set.copyOf(tableModel.getMeasurementNames()));
+						} catch (IOException e) {
+							logger.error("Error loading load {}: {}", entry.getImageName(), e.getMessage(), e);
+							return new Columns(List.of(), Set.of());
+						}
+					}, ThreadTools.getIOExecutor()));
+				}
+				try {
+					var columns = pending.poll().get();
+					headerSet.addAll(columns.names());
+					for (var name : columns.names()) {
+						if (columns.numericNames().contains(name))
+							numericSet.add(name);
+						else
+							nonNumericSet.add(name);
+					}
+				} catch (ExecutionException e) {
+					if (e.getCause() instanceof RuntimeException runtimeException)
+						throw runtimeException;
+					throw new RuntimeException(e.getCause());
+				}
 			}
+		} finally {
+			pending.forEach(f -> f.cancel(true));
+		}
+		// Columns are only numeric if they are numeric for every image
+		numericSet.removeAll(nonNumericSet);
+		return new Columns(List.copyOf(headerSet), Set.copyOf(numericSet));
+	}
+
+	private static PathTableData<PathObject> loadTableUnchecked(ProjectImageEntry<?> projectImageEntry,
+																Class<? extends PathObject> type,
+																Predicate<PathObject> filter,
+																boolean includeProjectMetadata) {
+		try {
+			return loadTable(projectImageEntry, type, filter, includeProjectMetadata);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
 		}
-		return List.copyOf(headerSet);
 	}
 
 	private static PathTableData<PathObject> loadTable(ProjectImageEntry<?> projectImageEntry,
@@ -585,7 +816,24 @@ public class MeasurementExporter {
 
 		void writeHeader() throws IOException;
 
-		void writeRow(PathTableData<T> table, T obj) throws IOException;
+		/**
+		 * Prepare rows from a table so that they can be written later.
+		 * This must be safe to call from multiple threads, and should do as much of the work as possible;
+		 * the returned rows are written from a single thread, in order.
+		 * @param table the table containing the items
+		 * @param items the items to prepare, corresponding to rows of the table
+		 * @return the prepared rows
+		 */
+		PreparedRows prepareRows(PathTableData<T> table, List<? extends T> items);
+
+		/**
+		 * Rows that have been prepared, and are ready to write to the output.
+		 */
+		interface PreparedRows {
+
+			void write() throws IOException;
+
+		}
 
 	}
 
@@ -620,17 +868,22 @@ public class MeasurementExporter {
 		}
 
 		@Override
-		public void writeRow(PathTableData<T> table, T obj) throws IOException {
-			for (int c = 0; c < nColumns; c++) {
-				var val = cleanValue(table.getStringValue(obj, columns.get(c), nDecimalPlaces));
-				if (!val.isEmpty()) {
-					writer.write(val);
-				}
-				if (c < nColumns - 1) {
-					writer.write(separator);
+		public PreparedRows prepareRows(PathTableData<T> table, List<? extends T> items) {
+			var sb = new StringBuilder();
+			for (var obj : items) {
+				for (int c = 0; c < nColumns; c++) {
+					var val = cleanValue(table.getStringValue(obj, columns.get(c), nDecimalPlaces));
+					if (!val.isEmpty()) {
+						sb.append(val);
+					}
+					if (c < nColumns - 1) {
+						sb.append(separator);
+					}
 				}
+				sb.append(System.lineSeparator());
 			}
-			writer.write(System.lineSeparator());
+			var text = sb.toString();
+			return () -> writer.write(text);
 		}
 
 		private String cleanValue(String val) {
@@ -0,0 +1,157 @@
+/*-
+ * #%L
+ * This file is part of QuPath.
+ * %%
+ * Copyright (C) 2026 QuPath developers, The University of Edinburgh
+ * %%
+ * QuPath is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * QuPath is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with QuPath.  If not, see <https://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package qupath.lib.gui.scripting.languages;
+
+import org.codehaus.groovy.jsr223.GroovyScriptEngineFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SuppressWarnings("javadoc")
+public class TestGroovyScriptCache {
+
+	@Test
+	public void testMissThenHit(@TempDir Path dir, @TempDir Path otherDir) throws Exception {
+		var engine = createEngine();
+		assertEquals(2, GroovyScriptCache.compile(engine, "1 + 1", dir).eval());
+		var path = getCacheFile(dir);
+
+		// Replace the cached classes with those for a different script, to check the file is really used
+		assertEquals(4, GroovyScriptCache.compile(engine, "2 + 2", otherDir).eval());
+		Files.copy(getCacheFile(otherDir), path, StandardCopyOption.REPLACE_EXISTING);
+		var bytes = Files.readAllBytes(path);
+
+		assertEquals(4, GroovyScriptCache.compile(createEngine(), "1 + 1", dir).eval());
+		// The file shouldn't be written again
+		assertArrayEquals(bytes, Files.readAllBytes(path));
+		assertEquals(List.of(path), listFiles(dir));
+	}
+
+	@Test
+	public void testTruncatedFile(@TempDir Path dir) throws Exception {
+		var engine = createEngine();
+		GroovyScriptCache.compile(engine, "1 + 1", dir);
+		var path = getCacheFile(dir);
+		var bytes = Files.readAllBytes(path);
+		Files.write(path, Arrays.copyOf(bytes, bytes.length / 2));
+
+		// The script should be compiled again, and the cache file replaced
+		assertEquals(2, GroovyScriptCache.compile(createEngine(), "1 + 1", dir).eval());
+		assertArrayEquals(bytes, Files.readAllBytes(path));
+	}
+
+	@Test
+	public void testCorruptFile(@TempDir Path dir) throws Exception {
+		var engine = createEngine();
+		GroovyScriptCache.compile(engine, "1 + 1", dir);
+		var path = getCacheFile(dir);
+
+		Files.writeString(path, "Not a compiled script");
+		assertEquals(2, GroovyScriptCache.compile(createEngine(), "1 + 1", dir).eval());
+
+		// Readable files containing invalid classes should also be replaced
+		try (var stream = new DataOutputStream(Files.newOutputStream(path))) {
+			stream.writeInt(0x51505343);
+			stream.writeUTF("QuPathScript_Invalid");
+			stream.writeInt(1);
+			stream.writeUTF("QuPathScript_Invalid");
+			stream.writeInt(4);
+			stream.write(new byte[] {1, 2, 3, 4});
+		}
+		assertEquals(2, GroovyScriptCache.compile(createEngine(), "1 + 1", dir).eval());
+		assertEquals(2, GroovyScriptCache.compile(createEngine(), "1 + 1", dir).eval());
+		assertEquals(List.of(path), listFiles(dir));
+	}
+
+	@Test
+	public void testClassDefinitionsOnly(@TempDir Path dir) throws Exception {
+		var script = """
+				class Cached {
+					int value = 1
+				}
+				""";
+		GroovyScriptCache.compile(createEngine(), script, dir).eval();
+		// Nothing should be cached, since there isn't a script class to run
+		assertTrue(listFiles(dir).isEmpty());
+	}
+
+	@Test
+	public void testLineNumbers(@TempDir Path dir) throws Exception {
+		var script = """
+				def a = 1
+				def b = 2
+				throw new IllegalStateException("Line 3")
+				""";
+		// Line numbers should be the same when compiling, and when reading from the cache
+		checkLineNumber(GroovyScriptCache.compile(createEngine(), script, dir)::eval, 3);
+		checkLineNumber(GroovyScriptCache.compile(createEngine(), script, dir)::eval, 3);
+	}
+
+	private static void checkLineNumber(ScriptRunnable runnable, int line) {
+		var e = assertThrows(ScriptException.class, runnable::run);
+		var cause = e.getCause();
+		assertEquals(IllegalStateException.class, cause.getClass());
+		var element = Arrays.stream(cause.getStackTrace())
+				.filter(s -> s.getFileName() != null && s.getFileName().matches("QuPathScript_[0-9a-f]{16}\\.groovy"))
+				.findFirst()
+				.orElseThrow();
+		assertEquals(line, element.getLineNumber());
+	}
+
+	@FunctionalInterface
+	private interface ScriptRunnable {
+		Object run() throws ScriptException;
+	}
+
+	private static ScriptEngine createEngine() {
+		return new GroovyScriptEngineFactory().getScriptEngine();
+	}
+
+	private static Path getCacheFile(Path dir) throws IOException {
+		var files = listFiles(dir);
+		assertEquals(1, files.size());
+		assertTrue(files.getFirst().getFileName().toString().endsWith(".classes"));
+		return files.getFirst();
+	}
+
+	private static List<Path> listFiles(Path dir) throws IOException {
+		try (Stream<Path> stream = Files.list(dir)) {
+			return stream.toList();
+		}
+	}
+
+}
@@ -0,0 +1,490 @@
+/*-
+ * #%L
+ * This file is part of QuPath.
+ * %%
+ * Copyright (C) 2026 QuPath developers, The University of Edinburgh
+ * %%
+ * QuPath is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * QuPath is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with QuPath.  If not, see <https://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package qupath.lib.gui.tools;
+
+import org.junit.jupiter.api.Test;
+import qupath.lib.gui.measure.ObservableMeasurementTableData;
+import qupath.lib.images.ImageData;
+import qupath.lib.images.servers.WrappedBufferedImageServer;
+import qupath.lib.objects.PathObject;
+import qupath.lib.objects.PathObjects;
+import qupath.lib.objects.classes.PathClass;
+import qupath.lib.regions.ImagePlane;
+import qupath.lib.roi.ROIs;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SuppressWarnings("javadoc")
+public class TestArrowTableWriter {
+
+	@Test
+	public void testWriteTable() throws IOException {
+		var table = createTable(2500);
+		var bytes = write(table, 1000);
+
+		// Check the file structure
+		var magic = "ARROW1".getBytes(StandardCharsets.US_ASCII);
+		assertArrayEquals(magic, Arrays.copyOf(bytes, 6));
+		assertArrayEquals(magic, Arrays.copyOfRange(bytes, bytes.length - 6, bytes.length));
+		int footerLength = ByteBuffer.wrap(bytes, bytes.length - 10, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
+		assertTrue(footerLength > 0 && footerLength < bytes.length);
+		assertEquals(0, (bytes.length - 10 - footerLength) % 8);
+
+		// Classifications should be dictionary-encoded, so each appears once - but all IDs should be written
+		var text = new String(bytes, StandardCharsets.ISO_8859_1);
+		assertEquals(1, count(text, "Tumor"));
+		assertEquals(1, count(text, "Stroma"));
+		for (var pathObject : table.getItems())
+			assertEquals(1, count(text, pathObject.getID().toString()));
+
+		// Smaller batches require more metadata
+		assertTrue(write(table, 100).length > bytes.length);
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		var table = createTable(2500);
+		var decoded = decode(write(table, 1000));
+
+		// Check the schema
+		assertEquals(table.getAllNames(), decoded.names());
+		var measurements = Set.copyOf(table.getMeasurementNames());
+		for (int c = 0; c < decoded.names().size(); c++) {
+			var name = decoded.names().get(c);
+			var type = decoded.types().get(c);
+			if (measurements.contains(name))
+				assertEquals(ColumnType.FLOAT64, type, name);
+			else if (name.equals("Object ID") || name.equals("Name"))
+				assertEquals(ColumnType.UTF8, type, name);
+			else
+				assertEquals(ColumnType.DICTIONARY, type, name);
+		}
+
+		// Check the record batches and their values
+		assertEquals(List.of(1000, 1000, 500), decoded.batches().stream().map(DecodedBatch::length).toList());
+		var items = List.copyOf(table.getItems());
+		int row = 0;
+		for (var batch : decoded.batches()) {
+			for (int i = 0; i < batch.length(); i++) {
+				var item = items.get(row++);
+				for (int c = 0; c < decoded.names().size(); c++) {
+					var name = decoded.names().get(c);
+					var value = batch.columns()[c][i];
+					if (decoded.types().get(c) == ColumnType.FLOAT64)
+						assertEquals(table.getNumericValue(item, name), (Double)value, name);
+					else
+						assertEquals(table.getStringValue(item, name), value, name);
+				}
+			}
+		}
+		assertEquals(items.size(), row);
+	}
+
+	@Test
+	public void testEmptyTable() throws IOException {
+		var table = createTable(0);
+		var bytes = write(table, 1000);
+		var magic = "ARROW1".getBytes(StandardCharsets.US_ASCII);
+		assertArrayEquals(magic, Arrays.copyOf(bytes, 6));
+		assertArrayEquals(magic, Arrays.copyOfRange(bytes, bytes.length - 6, bytes.length));
+		var decoded = decode(bytes);
+		assertEquals(table.getAllNames(), decoded.names());
+		assertTrue(decoded.batches().isEmpty());
+	}
+
+	private static byte[] write(ObservableMeasurementTableData table, int rowsPerBatch) throws IOException {
+		var stream = new ByteArrayOutputStream();
+		var items = List.copyOf(table.getItems());
+		try (var writer = new ArrowTableWriter<PathObject>(stream, table.getAllNames(), Set.copyOf(table.getMeasurementNames()))) {
+			writer.writeHeader();
+			for (int i = 0; i < items.size(); i += rowsPerBatch)
+				writer.prepareRows(table, items.subList(i, Math.min(items.size(), i + rowsPerBatch))).write();
+		}
+		return stream.toByteArray();
+	}
+
+	private static ObservableMeasurementTableData createTable(int n) {
+		var imageData = new ImageData<>(new WrappedBufferedImageServer("Test", new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB)));
+		List<PathObject> pathObjects = new ArrayList<>();
+		for (int i = 0; i < n; i++) {
+			var pathClass = i % 3 == 0 ? null : PathClass.fromString(i % 3 == 1 ? "Tumor" : "Stroma");
+			var pathObject = PathObjects.createDetectionObject(ROIs.createRectangleROI(i % 60, i % 50, 4, 4, ImagePlane.getDefaultPlane()), pathClass);
+			pathObject.getMeasurementList().put("Value", i);
+			pathObjects.add(pathObject);
+		}
+		imageData.getHierarchy().addObjects(pathObjects);
+		var table = new ObservableMeasurementTableData();
+		table.setImageData(imageData, pathObjects);
+		return table;
+	}
+
+	enum ColumnType { FLOAT64, UTF8, DICTIONARY }
+
+	record DecodedTable(List<String> names, List<ColumnType> types, List<DecodedBatch> batches) {}
+
+	/**
+	 * Decoded record batch, with values stored by column and then row.
+	 */
+	record DecodedBatch(int length, Object[][] columns) {}
+
+	/**
+	 * Decode an Arrow IPC file, using the footer to find the schema, dictionaries and record batches.
+	 * This is written independently of the writer, following the Arrow and FlatBuffers specifications - 
+	 * but only supports the types the writer uses.
+	 */
+	static DecodedTable decode(byte[] bytes) {
+		var magic = "ARROW1".getBytes(StandardCharsets.US_ASCII);
+		assertArrayEquals(magic, Arrays.copyOf(bytes, 6));
+		assertArrayEquals(magic, Arrays.copyOfRange(bytes, bytes.length - 6, bytes.length));
+		var buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+		int footerLength = buffer.getInt(bytes.length - 10);
+		var footer = Flat.root(buffer, bytes.length - 10 - footerLength);
+		assertEquals(METADATA_VERSION_V5, footer.getShort(0));
+
+		// Read the schema
+		List<String> names = new ArrayList<>();
+		List<ColumnType> types = new ArrayList<>();
+		List<Long> dictionaryIds = new ArrayList<>();
+		for (var field : footer.schema().tables(1)) {
+			names.add(field.string(0));
+			var dictionary = field.table(4);
+			if (dictionary != null) {
+				assertEquals(TYPE_UTF8, field.getByte(2));
+				assertEquals(32, dictionary.table(1).getInt(0));
+				types.add(ColumnType.DICTIONARY);
+				dictionaryIds.add(dictionary.getLong(0));
+			} else {
+				types.add(switch (field.getByte(2)) {
+					case TYPE_FLOATING_POINT -> {
+						assertEquals(PRECISION_DOUBLE, field.table(3).getShort(0));
+						yield ColumnType.FLOAT64;
+					}
+					case TYPE_UTF8 -> ColumnType.UTF8;
+					default -> throw new AssertionError("Unexpected type " + field.getByte(2));
+				});
+				dictionaryIds.add(-1L);
+			}
+		}
+		// The schema should also be written at the start of the file
+		var schemaMessage = readMessage(buffer, 8);
+		assertEquals(HEADER_SCHEMA, schemaMessage.getByte(1));
+		assertEquals(names.size(), schemaMessage.table(2).tables(1).size());
+
+		// Read the dictionaries, which may be anywhere in the file
+		Map<Long, String[]> dictionaries = new HashMap<>();
+		for (var block : footer.blocks(2)) {
+			var message = readMessage(buffer, block);
+			assertEquals(HEADER_DICTIONARY_BATCH, message.getByte(1));
+			var dictionaryBatch = message.table(2);
+			var reader = new BatchReader(buffer, dictionaryBatch.table(1), block.bodyStart());
+			int n = reader.length();
+			dictionaries.put(dictionaryBatch.getLong(0), reader.readStrings(n));
+		}
+
+		// Read the record batches
+		List<DecodedBatch> batches = new ArrayList<>();
+		for (var block : footer.blocks(3)) {
+			var message = readMessage(buffer, block);
+			assertEquals(HEADER_RECORD_BATCH, message.getByte(1));
+			var reader = new BatchReader(buffer, message.table(2), block.bodyStart());
+			int n = reader.length();
+			var columns = new Object[names.size()][];
+			for (int c = 0; c < names.size(); c++) {
+				columns[c] = switch (types.get(c)) {
+					case FLOAT64 -> reader.readDoubles(n);
+					case UTF8 -> reader.readStrings(n);
+					case DICTIONARY -> reader.readDictionaryValues(n, dictionaries.get(dictionaryIds.get(c)));
+				};
+			}
+			assertEquals(reader.buffers.size(), reader.nextBuffer);
+			batches.add(new DecodedBatch(n, columns));
+		}
+		return new DecodedTable(names, types, batches);
+	}
+
+	private static final short METADATA_VERSION_V5 = 4;
+	private static final byte HEADER_SCHEMA = 1;
+	private static final byte HEADER_DICTIONARY_BATCH = 2;
+	private static final byte HEADER_RECORD_BATCH = 3;
+	private static final byte TYPE_FLOATING_POINT = 3;
+	private static final byte TYPE_UTF8 = 5;
+	private static final short PRECISION_DOUBLE = 2;
+
+	private record Block(long offset, int metadataLength, long bodyLength) {
+
+		private int bodyStart() {
+			return (int)(offset + metadataLength);
+		}
+
+	}
+
+	/**
+	 * Read an encapsulated message, checking that it is consistent with the block describing it.
+	 */
+	private static Flat readMessage(ByteBuffer buffer, Block block) {
+		assertEquals(0, block.offset() % 8);
+		assertEquals(0, block.metadataLength() % 8);
+		assertEquals(block.metadataLength() - 8, buffer.getInt((int)block.offset() + 4));
+		var message = readMessage(buffer, (int)block.offset());
+		assertEquals(block.bodyLength(), message.getLong(3));
+		return message;
+	}
+
+	private static Flat readMessage(ByteBuffer buffer, int offset) {
+		assertEquals(0xFFFFFFFF, buffer.getInt(offset));
+		var message = Flat.root(buffer, offset + 8);
+		assertEquals(METADATA_VERSION_V5, message.getShort(0));
+		return message;
+	}
+
+	/**
+	 * Read the arrays of a record batch in order, each using one field node and its buffers.
+	 */
+	private static class BatchReader {
+
+		private final ByteBuffer buffer;
+		private final int bodyStart;
+		private final int length;
+		private final List<long[]> nodes;
+		private final List<long[]> buffers;
+		private int nextNode = 0;
+		private int nextBuffer = 0;
+
+		private BatchReader(ByteBuffer buffer, Flat recordBatch, int bodyStart) {
+			this.buffer = buffer;
+			this.bodyStart = bodyStart;
+			this.length = (int)recordBatch.getLong(0);
+			this.nodes = recordBatch.structs(1, 2);
+			this.buffers = recordBatch.structs(2, 2);
+		}
+
+		private int length() {
+			return length;
+		}
+
+		private Double[] readDoubles(int n) {
+			var validity = nextNode(n);
+			int data = nextBuffer(n * 8L);
+			var values = new Double[n];
+			for (int i = 0; i < n; i++)
+				values[i] = validity.get(i) ? buffer.getDouble(data + i * 8) : null;
+			return values;
+		}
+
+		private String[] readStrings(int n) {
+			var validity = nextNode(n);
+			int offsets = nextBuffer((n + 1) * 4L);
+			int data = nextBuffer(n == 0 ? 0 : buffer.getInt(offsets + n * 4));
+			var values = new String[n];
+			for (int i = 0; i < n; i++) {
+				if (!validity.get(i))
+					continue;
+				int start = buffer.getInt(offsets + i * 4);
+				int end = buffer.getInt(offsets + i * 4 + 4);
+				values[i] = new String(buffer.array(), data + start, end - start, StandardCharsets.UTF_8);
+			}
+			return values;
+		}
+
+		private String[] readDictionaryValues(int n, String[] dictionary) {
+			var validity = nextNode(n);
+			int indices = nextBuffer(n * 4L);
+			var values = new String[n];
+			for (int i = 0; i < n; i++)
+				values[i] = validity.get(i) ? dictionary[buffer.getInt(indices + i * 4)] : null;
+			return values;
+		}
+
+		/**
+		 * Read the next field node and its validity buffer.
+		 */
+		private Validity nextNode(int n) {
+			var node = nodes.get(nextNode++);
+			assertEquals(n, node[0]);
+			long nullCount = node[1];
+			var location = buffers.get(nextBuffer++);
+			if (location[1] == 0) {
+				assertEquals(0, nullCount);
+				return i -> true;
+			}
+			assertTrue(location[1] >= (n + 7) / 8);
+			int start = checkBuffer(location);
+			Validity validity = i -> (buffer.get(start + i / 8) & (1 << (i % 8))) != 0;
+			int count = 0;
+			for (int i = 0; i < n; i++) {
+				if (!validity.get(i))
+					count++;
+			}
+			assertEquals(nullCount, count);
+			return validity;
+		}
+
+		private int nextBuffer(long minLength) {
+			var location = buffers.get(nextBuffer++);
+			assertTrue(location[1] >= minLength);
+			return checkBuffer(location);
+		}
+
+		private int checkBuffer(long[] location) {
+			assertEquals(0, location[0] % 8);
+			int start = (int)(bodyStart + location[0]);
+			assertTrue(start + location[1] <= buffer.limit());
+			return start;
+		}
+
+	}
+
+	@FunctionalInterface
+	private interface Validity {
+
+		boolean get(int i);
+
+	}
+
+	/**
+	 * Minimal FlatBuffers table reader.
+	 */
+	private record Flat(ByteBuffer buffer, int pos) {
+
+		private static Flat root(ByteBuffer buffer, int start) {
+			return new Flat(buffer, start + buffer.getInt(start));
+		}
+
+		private int fieldOffset(int slot) {
+			int vtable = pos - buffer.getInt(pos);
+			int vtableSize = buffer.getShort(vtable);
+			int offset = 4 + slot * 2;
+			return offset < vtableSize ? buffer.getShort(vtable + offset) : 0;
+		}
+
+		private byte getByte(int slot) {
+			int offset = fieldOffset(slot);
+			return offset == 0 ? 0 : buffer.get(pos + offset);
+		}
+
+		private short getShort(int slot) {
+			int offset = fieldOffset(slot);
+			return offset == 0 ? 0 : buffer.getShort(pos + offset);
+		}
+
+		private int getInt(int slot) {
+			int offset = fieldOffset(slot);
+			return offset == 0 ? 0 : buffer.getInt(pos + offset);
+		}
+
+		private long getLong(int slot) {
+			int offset = fieldOffset(slot);
+			return offset == 0 ? 0 : buffer.getLong(pos + offset);
+		}
+
+		private int indirect(int slot) {
+			int offset = fieldOffset(slot);
+			if (offset == 0)
+				return -1;
+			int p = pos + offset;
+			return p + buffer.getInt(p);
+		}
+
+		private Flat table(int slot) {
+			int p = indirect(slot);
+			return p < 0 ? null : new Flat(buffer, p);
+		}
+
+		private Flat schema() {
+			return table(1);
+		}
+
+		private String string(int slot) {
+			int p = indirect(slot);
+			return new String(buffer.array(), p + 4, buffer.getInt(p), StandardCharsets.UTF_8);
+		}
+
+		private List<Flat> tables(int slot) {
+			int p = indirect(slot);
+			List<Flat> tables = new ArrayList<>();
+			if (p < 0)
+				return tables;
+			int n = buffer.getInt(p);
+			for (int i = 0; i < n; i++) {
+				int element = p + 4 + i * 4;
+				tables.add(new Flat(buffer, element + buffer.getInt(element)));
+			}
+			return tables;
+		}
+
+		/**
+		 * Read a vector of structs composed of longs.
+		 */
+		private List<long[]> structs(int slot, int longsPerStruct) {
+			int p = indirect(slot);
+			List<long[]> structs = new ArrayList<>();
+			if (p < 0)
+				return structs;
+			int n = buffer.getInt(p);
+			int start = p + 4;
+			assertEquals(0, start % 8);
+			for (int i = 0; i < n; i++) {
+				var values = new long[longsPerStruct];
+				for (int j = 0; j < longsPerStruct; j++)
+					values[j] = buffer.getLong(start + (i * longsPerStruct + j) * 8);
+				structs.add(values);
+			}
+			return structs;
+		}
+
+		/**
+		 * Read a vector of Block structs (long offset, int metaDataLength, padding, long bodyLength).
+		 */
+		private List<Block> blocks(int slot) {
+			return structs(slot, 3).stream()
+					.map(v -> new Block(v[0], (int)v[1], v[2]))
+					.toList();
+		}
+
+	}
+
+	private static int count(String text, String value) {
+		int count = 0;
+		int ind = text.indexOf(value);
+		while (ind >= 0) {
+			count++;
+			ind = text.indexOf(value, ind + value.length());
+		}
+		return count;
+	}
+
+}
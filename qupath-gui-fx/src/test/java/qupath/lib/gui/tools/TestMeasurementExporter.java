@@ -0,0 +1,161 @@
+/*-
+ * #%L
+ * This file is part of QuPath.
+ * %%
+ * Copyright (C) 2026 QuPath developers, The University of Edinburgh
+ * %%
+ * QuPath is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * QuPath is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with QuPath.  If not, see <https://www.gnu.org/licenses/>.
+ * #L%
+ */
+
+package qupath.lib.gui.tools;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import qupath.lib.images.ImageData;
+import qupath.lib.images.servers.ImageServer;
+import qupath.lib.images.servers.ImageServerBuilder.ServerBuilder;
+import qupath.lib.images.servers.WrappedBufferedImageServer;
+import qupath.lib.objects.PathDetectionObject;
+import qupath.lib.objects.PathObject;
+import qupath.lib.objects.PathObjects;
+import qupath.lib.objects.classes.PathClass;
+import qupath.lib.projects.ProjectImageEntry;
+import qupath.lib.projects.Projects;
+import qupath.lib.regions.ImagePlane;
+import qupath.lib.roi.ROIs;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SuppressWarnings("javadoc")
+public class TestMeasurementExporter {
+
+	@Test
+	public void testParallelSameAsSerial(@TempDir Path dir) throws Exception {
+		var project = Projects.createProject(dir.toFile(), BufferedImage.class);
+		var random = new Random(100);
+		// Include images with different measurements, and enough objects to need several blocks of rows
+		int[] counts = {2500, 0, 10, 1200, 3, 4000, 1};
+		for (int i = 0; i < counts.length; i++) {
+			var entry = project.addImage(new ImageBuilder("Image " + i));
+			entry.setImageName("Image " + i);
+			entry.getMetadata().put("Index", Integer.toString(i));
+			entry.saveImageData(createImageData(entry, counts[i], i, random));
+		}
+		var entries = project.getImageList();
+
+		var serial = export(entries, 1, ",");
+		var lines = serial.split(System.lineSeparator());
+		assertEquals(1 + Arrays.stream(counts).sum(), lines.length);
+		assertTrue(lines[0].contains("Extra 3"));
+		assertTrue(lines[0].contains("Index"));
+
+		for (int nParallel : new int[] {2, 3, 16}) {
+			assertEquals(serial, export(entries, nParallel, ","));
+		}
+		assertEquals(export(entries, 1, "\t"), export(entries, 4, "\t"));
+
+		// Arrow record batches should contain the same values, and never span images
+		var decoded = TestArrowTableWriter.decode(exportArrow(entries, 3));
+		var header = Arrays.asList(lines[0].split(","));
+		assertEquals(header, decoded.names());
+		int imageColumn = header.indexOf("Image");
+		int valueColumn = header.indexOf("Value");
+		int row = 1;
+		for (var batch : decoded.batches()) {
+			var images = Arrays.stream(batch.columns()[imageColumn]).distinct().toList();
+			assertEquals(1, images.size());
+			for (int i = 0; i < batch.length(); i++) {
+				var values = lines[row++].split(",", -1);
+				assertEquals(values[imageColumn], batch.columns()[imageColumn][i]);
+				assertEquals(Double.parseDouble(values[valueColumn]), (Double)batch.columns()[valueColumn][i], 1e-3);
+			}
+		}
+		assertEquals(lines.length, row);
+	}
+
+	private static String export(List<ProjectImageEntry<BufferedImage>> entries, int nParallel, String separator) throws Exception {
+		var stream = new ByteArrayOutputStream();
+		new MeasurementExporter()
+				.imageList(entries)
+				.exportType(PathDetectionObject.class)
+				.separator(separator)
+				.includeProjectMetadata(true)
+				.parallelImages(nParallel)
+				.exportMeasurements(stream);
+		return stream.toString(StandardCharsets.UTF_8);
+	}
+
+	private static byte[] exportArrow(List<ProjectImageEntry<BufferedImage>> entries, int nParallel) throws Exception {
+		var stream = new ByteArrayOutputStream();
+		new MeasurementExporter()
+				.imageList(entries)
+				.exportType(PathDetectionObject.class)
+				.includeProjectMetadata(true)
+				.format(MeasurementExporter.Format.ARROW)
+				.parallelImages(nParallel)
+				.exportMeasurements(stream);
+		return stream.toByteArray();
+	}
+
+	private static ImageData<BufferedImage> createImageData(ProjectImageEntry<BufferedImage> entry, int nObjects, int index, Random random) throws Exception {
+		var imageData = new ImageData<>(entry.getServerBuilder().build());
+		List<PathObject> pathObjects = new ArrayList<>();
+		for (int i = 0; i < nObjects; i++) {
+			var pathClass = i % 3 == 0 ? null : PathClass.fromString(i % 3 == 1 ? "Tumor" : "Stroma");
+			var pathObject = PathObjects.createDetectionObject(
+					ROIs.createRectangleROI(i % 60, i % 50, 1 + random.nextDouble() * 4, 4, ImagePlane.getDefaultPlane()), pathClass);
+			pathObject.getMeasurementList().put("Value", random.nextGaussian() * 1000);
+			pathObject.getMeasurementList().put("Small value", random.nextDouble() / 1000);
+			if (index % 2 == 1)
+				pathObject.getMeasurementList().put("Extra " + index, i);
+			pathObjects.add(pathObject);
+		}
+		imageData.getHierarchy().addObjects(pathObjects);
+		return imageData;
+	}
+
+	private record ImageBuilder(String name) implements ServerBuilder<BufferedImage> {
+
+		@Override
+		public ImageServer<BufferedImage> build() {
+			return new WrappedBufferedImageServer(name, new BufferedImage(64, 64, BufferedImage.TYPE_INT_RGB));
+		}
+
+		@Override
+		public Collection<URI> getURIs() {
+			return List.of();
+		}
+
+		@Override
+		public ServerBuilder<BufferedImage> updateURIs(Map<URI, URI> updateMap) {
+			return this;
+		}
+
+	}
+
+}